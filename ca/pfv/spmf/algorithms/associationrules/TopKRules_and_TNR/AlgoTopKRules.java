@@ -30,6 +30,7 @@ import java.util.PriorityQueue;
 
 import ca.pfv.spmf.algorithms.ArraysAlgos;
 import ca.pfv.spmf.datastructures.redblacktree.RedBlackTree;
+import ca.pfv.spmf.datastructures.roaringbitmap.RoaringBitmap;
 import ca.pfv.spmf.tools.MemoryLogger;
 
 /**
@@ -59,6 +60,10 @@ public class AlgoTopKRules {
 	
 	// a vertical representation of the database
 	BitSet[] tableItemTids; // [item], IDs of transaction containing the item
+	// the same table if the tidsets are stored as compressed bitmaps
+	RoaringBitmap[] tableItemCompressedTids;
+	// if true, the tidsets are stored as compressed bitmaps instead of BitSets
+	boolean useCompressedBitmaps = false;
 	// a table indicating the support of each item
 	int[] tableItemCount; // [item], support
 	
@@ -92,7 +97,13 @@ public class AlgoTopKRules {
 
 		// prepare internal variables and structures
 		this.minsuppRelative = 1;
-		tableItemTids = new BitSet[database.maxItem + 1]; // id item, count
+		if (useCompressedBitmaps) {
+			tableItemTids = null;
+			tableItemCompressedTids = new RoaringBitmap[database.maxItem + 1];
+		} else {
+			tableItemTids = new BitSet[database.maxItem + 1]; // id item, count
+			tableItemCompressedTids = null;
+		}
 		tableItemCount = new int[database.maxItem + 1];
 		kRules = new PriorityQueue<RuleG>();
 		candidates = new RedBlackTree<RuleG>();
@@ -126,7 +137,7 @@ public class AlgoTopKRules {
 				continue main;
 			}
 			// Get the bitset corresponding to item I
-			BitSet tidsI = tableItemTids[itemI];
+			BitSet tidsI = useCompressedBitmaps ? null : tableItemTids[itemI];
 
 			// for each item J in the database
 			main2: for (int itemJ = itemI + 1; itemJ <= database.maxItem; itemJ++) {
@@ -135,6 +146,18 @@ public class AlgoTopKRules {
 				if (tableItemCount[itemJ] < minsuppRelative) {
 					continue main2;
 				}
+				// If the tidsets are compressed bitmaps, the support of the rules is
+				// calculated before creating their tidset since it is often too low
+				if (useCompressedBitmaps) {
+					int support = RoaringBitmap.andCardinality(tableItemCompressedTids[itemI],
+							tableItemCompressedTids[itemJ]);
+					if (support >= minsuppRelative) {
+						RoaringBitmap commonTids = RoaringBitmap.and(tableItemCompressedTids[itemI],
+								tableItemCompressedTids[itemJ]);
+						generateRuleSize11(itemI, null, itemJ, null, null, commonTids, support);
+					}
+					continue main2;
+				}
 				// Get the bitset corresponding to item J
 				BitSet tidsJ = tableItemTids[itemJ];
 
@@ -152,7 +175,7 @@ public class AlgoTopKRules {
 					// generate  rules I ==> J and J ==> I and remember these rules
 					// for future possible expansions
 					generateRuleSize11(itemI, tidsI, itemJ, tidsJ, commonTids,
-							support);
+							null, support);
 				}
 			}
 		}
@@ -191,10 +214,11 @@ public class AlgoTopKRules {
 	 * @param itemJ an item J
 	 * @param tidJ  the set of IDs of transaction containing  item J (BitSet)
 	 * @param commonTids  the set of IDs of transaction containing I and J (BitSet)
+	 * @param compressedCommonTids  the same set as a compressed bitmap if compressed bitmaps are used
 	 * @param cardinality  the cardinality of "commonTids"
 	 */
 	private void generateRuleSize11(Integer item1, BitSet tid1, Integer item2,
-			BitSet tid2, BitSet commonTids, int cardinality) {
+			BitSet tid2, BitSet commonTids, RoaringBitmap compressedCommonTids, int cardinality) {
 		// Create the rule I ==> J
 		Integer[] itemset1 = new Integer[1];
 		itemset1[0] = item1;
@@ -202,6 +226,10 @@ public class AlgoTopKRules {
 		itemset2[0] = item2;
 		RuleG ruleLR = new RuleG(itemset1, itemset2, cardinality, tid1,
 				commonTids, item1, item2);
+		if (useCompressedBitmaps) {
+			ruleLR.compressedTids1 = tableItemCompressedTids[item1];
+			ruleLR.compressedCommon = compressedCommonTids;
+		}
 		
 		// calculate the confidence
 		double confidenceIJ = ((double) cardinality) / (tableItemCount[item1]);
@@ -220,6 +248,10 @@ public class AlgoTopKRules {
 		// Create the rule J ==> I
 		RuleG ruleRL = new RuleG(itemset2, itemset1, cardinality, tid2,
 				commonTids, item2, item1);
+		if (useCompressedBitmaps) {
+			ruleRL.compressedTids1 = tableItemCompressedTids[item2];
+			ruleRL.compressedCommon = compressedCommonTids;
+		}
 		// if rule J->I has minimum confidence
 		if (confidenceJI >= minConfidence) {
 			// save the rule in current top-k rules
@@ -254,6 +286,10 @@ public class AlgoTopKRules {
 	 * @param ruleG the rule
 	 */
 	private void expandLR(RuleG ruleG) {
+		if (useCompressedBitmaps) {
+			expandLRCompressed(ruleG);
+			return;
+		}
 		// Maps to record the potential item to expand the left/right sides of the rule
 		// Key: item   Value: bitset indicating the IDs of the transaction containing the item
 		// from the transactions containing the rule.
@@ -386,6 +422,10 @@ public class AlgoTopKRules {
 	 * @param ruleG the rule
 	 */
 	private void expandR(RuleG ruleG) {
+		if (useCompressedBitmaps) {
+			expandRCompressed(ruleG);
+			return;
+		}
 		// map to record the potential item to expand the right side of the rule
 		// Key: item   Value: bitset indicating the IDs of the transaction containing the item
 		// from the transactions containing the rule.
@@ -470,6 +510,209 @@ public class AlgoTopKRules {
 		}
 	}
 	
+	/**
+	 * Try to expand a rule by left and right expansions, when the tidsets
+	 * are stored as compressed bitmaps. This is the same procedure as expandLR().
+	 * @param ruleG the rule
+	 */
+	private void expandLRCompressed(RuleG ruleG) {
+		// Maps to record the potential item to expand the left/right sides of the rule
+		// Key: item   Value: the IDs of the transaction containing the item
+		// from the transactions containing the rule.
+		Map<Integer, RoaringBitmap> mapCountLeft = new HashMap<Integer, RoaringBitmap>();
+		Map<Integer, RoaringBitmap> mapCountRight = new HashMap<Integer, RoaringBitmap>();
+
+		for (int tid = ruleG.compressedCommon.nextSetBit(0); tid >= 0; tid = ruleG.compressedCommon
+				.nextSetBit(tid + 1)) {
+			Iterator<Integer> iter = database.getTransactions().get(tid)
+					.getItems().iterator();
+			while (iter.hasNext()) {
+				Integer item = iter.next();
+				// CAN DO THIS BECAUSE TRANSACTIONS ARE SORTED BY DESCENDING
+				// ITEM IDS (see Database.Java)
+				if (item < ruleG.maxLeft && item < ruleG.maxRight) { //
+					break;
+				}
+				if (tableItemCount[item] < minsuppRelative) {
+					iter.remove();
+					continue;
+				}
+				if (item > ruleG.maxLeft
+						&& !ArraysAlgos.containsLEX(ruleG.getItemset2(), item,
+								ruleG.maxRight)) {
+					RoaringBitmap tidsItem = mapCountLeft.get(item);
+					if (tidsItem == null) {
+						tidsItem = new RoaringBitmap();
+						mapCountLeft.put(item, tidsItem);
+					}
+					tidsItem.set(tid);
+				}
+				if (item > ruleG.maxRight
+						&& !ArraysAlgos.containsLEX(ruleG.getItemset1(), item,
+								ruleG.maxLeft)) {
+					RoaringBitmap tidsItem = mapCountRight.get(item);
+					if (tidsItem == null) {
+						tidsItem = new RoaringBitmap();
+						mapCountRight.put(item, tidsItem);
+					}
+					tidsItem.set(tid);
+				}
+			}
+		}
+
+		// for each item c found in the previous step, we create a rule	
+		// I  ==> J U {c} if the support is enough 	
+		for (Entry<Integer, RoaringBitmap> entry : mapCountRight.entrySet()) {
+			RoaringBitmap tidsRule = entry.getValue();
+			int ruleSupport = tidsRule.cardinality();
+
+			// if the support is enough
+			if (ruleSupport >= minsuppRelative) {
+				tidsRule.runOptimize();
+				RuleG candidate = createRightExpansion(ruleG, entry.getKey(), ruleSupport);
+				candidate.compressedTids1 = ruleG.compressedTids1;
+				candidate.compressedCommon = tidsRule;
+				saveAndRegister(candidate, ruleSupport, false);
+			}
+		}
+
+		// for each item c found in the previous step, we create a rule	
+		// I  U {c} ==> J if the support is enough
+		for (Entry<Integer, RoaringBitmap> entry : mapCountLeft.entrySet()) {
+			RoaringBitmap tidsRule = entry.getValue();
+			int ruleSupport = tidsRule.cardinality();
+
+			// if the support is enough
+			if (ruleSupport >= minsuppRelative) {
+				Integer itemC = entry.getKey();
+				tidsRule.runOptimize();
+
+				// The tidset of the left itemset is calculated
+				RoaringBitmap tidsLeft = RoaringBitmap.and(ruleG.compressedTids1,
+						tableItemCompressedTids[itemC]);
+
+				// create new left part of rule
+				Integer[] newLeftItemset = new Integer[ruleG.getItemset1().length + 1];
+				System.arraycopy(ruleG.getItemset1(), 0, newLeftItemset, 0,
+						ruleG.getItemset1().length);
+				newLeftItemset[ruleG.getItemset1().length] = itemC;
+
+				// recompute maxLeft
+				int maxLeft = itemC >= ruleG.maxLeft ? itemC : ruleG.maxLeft;
+
+				// create the rule
+				RuleG candidate = new RuleG(newLeftItemset,
+						ruleG.getItemset2(), ruleSupport, null, null,
+						maxLeft, ruleG.maxRight);
+				candidate.compressedTids1 = tidsLeft;
+				candidate.compressedCommon = tidsRule;
+				saveAndRegister(candidate, ruleSupport, true);
+			}
+		}
+	}
+
+	/**
+	 * Try to expand a rule by right expansion only, when the tidsets are stored
+	 * as compressed bitmaps. This is the same procedure as expandR().
+	 * @param ruleG the rule
+	 */
+	private void expandRCompressed(RuleG ruleG) {
+		// map to record the potential item to expand the right side of the rule
+		Map<Integer, RoaringBitmap> mapCountRight = new HashMap<Integer, RoaringBitmap>();
+		
+		// for each transaction containing the rule
+		for (int tid = ruleG.compressedCommon.nextSetBit(0); tid >= 0; tid = ruleG.compressedCommon
+				.nextSetBit(tid + 1)) {
+			
+			// iterate over the items in this transaction
+			Iterator<Integer> iter = database.getTransactions().get(tid)
+					.getItems().iterator();
+			while (iter.hasNext()) {
+				Integer item = iter.next();
+				
+				// if  that item is not frequent, then remove it from the transaction
+				if (tableItemCount[item] < minsuppRelative) {
+					iter.remove();
+					continue;
+				}
+				
+				// the items are sorted, so we can stop there
+				if (item < ruleG.maxRight) {
+					break;
+				}
+				
+				// if the item is larger than the maximum item in the right side
+				// and is not contained in the left side of the rule
+				if (item > ruleG.maxRight
+						&& !ArraysAlgos.containsLEX(ruleG.getItemset1(), item,
+								ruleG.maxLeft)) {
+					
+					// update the tidset of the item
+					RoaringBitmap tidsItem = mapCountRight.get(item);
+					if (tidsItem == null) {
+						tidsItem = new RoaringBitmap();
+						mapCountRight.put(item, tidsItem);
+					}
+					tidsItem.set(tid);
+				}
+			}
+		}
+
+		// for each item c found in the previous step, we create a rule	
+		// I ==> J U {c} if the support is enough
+		for (Entry<Integer, RoaringBitmap> entry : mapCountRight.entrySet()) {
+			RoaringBitmap tidsRule = entry.getValue();
+			int ruleSupport = tidsRule.cardinality();
+			
+			// if the support is enough
+			if (ruleSupport >= minsuppRelative) {
+				tidsRule.runOptimize();
+				RuleG candidate = createRightExpansion(ruleG, entry.getKey(), ruleSupport);
+				candidate.compressedTids1 = ruleG.compressedTids1;
+				candidate.compressedCommon = tidsRule;
+				saveAndRegister(candidate, ruleSupport, false);
+			}
+		}
+	}
+
+	/**
+	 * Create the rule I ==> J U {c} from a rule I ==> J, without its tidsets.
+	 * @param ruleG the rule I ==> J
+	 * @param itemC the item c
+	 * @param ruleSupport the support of the new rule
+	 * @return the new rule
+	 */
+	private RuleG createRightExpansion(RuleG ruleG, Integer itemC, int ruleSupport) {
+		// create new right part of rule
+		Integer[] newRightItemset = new Integer[ruleG.getItemset2().length + 1];
+		System.arraycopy(ruleG.getItemset2(), 0, newRightItemset, 0,
+				ruleG.getItemset2().length);
+		newRightItemset[ruleG.getItemset2().length] = itemC;
+
+		// recompute maxRight
+		int maxRight = (itemC >= ruleG.maxRight) ? itemC : ruleG.maxRight;
+		return new RuleG(ruleG.getItemset1(), newRightItemset, ruleSupport, null, null,
+				ruleG.maxLeft, maxRight);
+	}
+
+	/**
+	 * Save a rule to the top-k rules if its confidence is enough and register it
+	 * as a candidate for future expansions.
+	 * @param candidate the rule (its tidsets must have been set)
+	 * @param ruleSupport the support of the rule
+	 * @param expandLR if true the rule will be considered for left/right expansions,
+	 *           otherwise only right.
+	 */
+	private void saveAndRegister(RuleG candidate, int ruleSupport, boolean expandLR) {
+		// if the confidence is enough
+		if (candidate.getConfidence() >= minConfidence) {
+			// save the rule in current top-k rules
+			save(candidate, ruleSupport);
+		}
+		// register the rule as a candidate for future expansion
+		registerAsCandidate(expandLR, candidate);
+	}
+
 	/**
 	 * Save a rule to the current set of top-k rules.
 	 * @param rule the rule to be saved
@@ -505,6 +748,15 @@ public class AlgoTopKRules {
 			Transaction transaction = database.getTransactions().get(j);
 			// for each item in the current transaction
 			for (Integer item : transaction.getItems()) {
+				// update the tidset of this item (represented by a compressed bitmap)
+				if (useCompressedBitmaps) {
+					if (tableItemCompressedTids[item] == null) {
+						tableItemCompressedTids[item] = new RoaringBitmap();
+					}
+					tableItemCompressedTids[item].set(j);
+					tableItemCount[item] = tableItemCount[item] + 1;
+					continue;
+				}
 				// update the tidset of this item (represented by a bitset.
 				BitSet ids = tableItemTids[item];
 				if (ids == null) {
@@ -515,8 +767,27 @@ public class AlgoTopKRules {
 				tableItemCount[item] = tableItemCount[item] + 1;
 			}
 		}
+		// compress the runs of tids now that all the tids have been added
+		if (useCompressedBitmaps) {
+			for (RoaringBitmap tids : tableItemCompressedTids) {
+				if (tids != null) {
+					tids.runOptimize();
+				}
+			}
+		}
 	}
 	
+	/**
+	 * Set whether the tidsets should be stored as compressed bitmaps (RoaringBitmap)
+	 * instead of BitSets (default: false). The size of a BitSet depends on the largest
+	 * tid that it contains, while the size of a compressed bitmap depends on the number
+	 * of tids, which uses much less memory for large sparse databases.
+	 * @param useCompressedBitmaps true to use compressed bitmaps
+	 */
+	public void setUseCompressedBitmaps(boolean useCompressedBitmaps) {
+		this.useCompressedBitmaps = useCompressedBitmaps;
+	}
+
 	/**
 	 * Print statistics about the last algorithm execution.
 	 */
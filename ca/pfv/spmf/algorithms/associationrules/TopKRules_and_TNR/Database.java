@@ -17,16 +17,16 @@ package ca.pfv.spmf.algorithms.associationrules.TopKRules_and_TNR;
 * SPMF. If not, see <http://www.gnu.org/licenses/>.
 */
 
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 
+import ca.pfv.spmf.input.reader.TransactionFileReader;
+import ca.pfv.spmf.input.transaction_database_array_integers.CompactTransactionDatabase;
+
 /**
  * This class represents a  transaction database
  * optimized for the TNR and TopKRules algorithms for top-k
@@ -61,25 +61,16 @@ public class Database {
 	 * @throws IOException exception if an error while writing the file
 	 */
 	public void loadFile(String path) throws IOException {
-		BufferedReader  myInput = null;
+		TransactionFileReader myInput = null;
 		try {
 			// open the file
-			FileInputStream fin = new FileInputStream(new File(path));
-			myInput = new BufferedReader(new InputStreamReader(fin));
+			myInput = new TransactionFileReader(path);
 
 			// for each line (transaction into the file until the end of the file
-			String thisLine;
-			while ((thisLine = myInput.readLine()) != null) {
-				// if the line is  a comment, is  empty or is a
-				// kind of metadata
-				if (thisLine.isEmpty() == true ||
-						thisLine.charAt(0) == '#' || thisLine.charAt(0) == '%'
-								|| thisLine.charAt(0) == '@') {
-					continue;
-				}
-				
-				// split the line according to spaces and process it
-				addTransaction(thisLine.split(" "));
+			// (comments, empty lines and metadata are skipped)
+			while (myInput.nextTransaction()) {
+				// process the items of the line
+				addTransaction(myInput.getValues(), 0, myInput.getLength());
 			}
 		} catch (Exception e) {
 			e.printStackTrace();
@@ -90,6 +81,49 @@ public class Database {
 	    }
 	}
 	
+	/**
+	 * Add all the transactions of a transaction database stored in arrays.
+	 * If the items of that database were recoded, the recoded items are used.
+	 * @param database the transaction database
+	 */
+	public void addTransactions(CompactTransactionDatabase database) {
+		for(int tid = 0; tid < database.size(); tid++){
+			addTransaction(database.getItems(), database.getTransactionStart(tid), 
+					database.getTransactionEnd(tid));
+		}
+	}
+	
+	/**
+	 * Add a transaction stored in an array of integers.
+	 * @param items an array containing the items
+	 * @param start the position of the first item of the transaction in the array
+	 * @param end the position after the last item of the transaction in the array
+	 */
+	public void addTransaction(int items[], int start, int end){
+		// we create an object Transaction to store the items
+		Transaction transaction = new Transaction(end - start);
+		
+		// for each item, by descending order of items because
+		// TopKRules and TNR assume that items are sorted by lexical order
+		// for optimization
+		int[] sorted = Arrays.copyOfRange(items, start, end);
+		Arrays.sort(sorted);
+		for(int i = sorted.length - 1; i >= 0; i--){
+			int item = sorted[i];
+			// if the item is larger than the largest item, remember that
+			if(item >= maxItem){
+				maxItem = item;
+			}
+			// add the item to the transaction
+			transaction.addItem(item);
+		}
+		// increase the number of transactions
+		tidsCount++;
+		
+		// add the transaction to the transaction database
+		transactions.add(transaction);
+	}
+	
 	/**
 	 * Read a transaction from the file and store it into memory
 	 * @param itemsString an array of items, where an item is an integer represented as a String.
@@ -19,6 +19,8 @@ package ca.pfv.spmf.algorithms.associationrules.TopKRules_and_TNR;
 
 import java.util.BitSet;
 
+import ca.pfv.spmf.datastructures.roaringbitmap.RoaringBitmap;
+
 /**
  * This class represents an association rule found by the 
  * TNR or TopKRules algorithm for top-k association rule mining.
@@ -26,7 +28,8 @@ import java.util.BitSet;
  * 
  * This implementation is optimized for these algorithms. In particular,
  * it stores the tidset of the rule and the tidset of the 
- * rule antecedent as bitsets. Furthermore, the antecedent and 
+ * rule antecedent as bitsets (or as compressed bitmaps if this option is
+ * chosen in TopKRules). Furthermore, the antecedent and 
  * consequent are stored as array of integers.  Lastly,
  * for optimization, the maximum item id of the antecedent
  * and consequent of the rule are precalculated and kept (as explained in the papers).
@@ -41,6 +44,9 @@ public class RuleG implements Comparable<RuleG>{
 	private Integer[] itemset2; // consequent of the rule
 	public BitSet    tids1;  // tidset of the antecedent
 	public BitSet    common; // tidset of the rule
+	// the same tidsets if they are stored as compressed bitmaps (the two above are then null)
+	public RoaringBitmap compressedTids1;
+	public RoaringBitmap compressedCommon;
 	
 	public int maxLeft; // maximum item id in the antecedent
 	public int maxRight;  // maximum item id in the consequent
@@ -101,7 +107,8 @@ public class RuleG implements Comparable<RuleG>{
 	 * @return the confidence (double)
 	 */
 	public double getConfidence() {
-		return ((double)count) / tids1.cardinality();
+		int supportAntecedent = (tids1 != null) ? tids1.cardinality() : compressedTids1.cardinality();
+		return ((double)count) / supportAntecedent;
 	}
 
 	
@@ -24,10 +24,17 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 import ca.pfv.spmf.algorithms.ArraysAlgos;
 import ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemset;
 import ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemsets;
+import ca.pfv.spmf.tools.ConcurrentResultWriter;
 
 /**
  * This is an implementation of the "faster algorithm" for generating association rules,
@@ -50,6 +57,9 @@ public class AlgoAgrawalFaster94 {
 	// the frequent itemsets that will be used to generate the rules
 	private Itemsets patterns;
 	
+	// the index used to find the support of the frequent itemsets
+	private ItemsetSupportIndex supportIndex;
+	
 	// variable used to store the result if the user choose to save
 	// the result in memory rather than to an output file
 	protected AssocRules rules;
@@ -68,6 +78,15 @@ public class AlgoAgrawalFaster94 {
 	protected double minlift;
 	protected boolean usingLift = true;
 	
+	// the number of threads used to generate the rules
+	private int threadCount = 1;
+	
+	// the number of consecutive itemsets processed by a thread at a time
+	private static final int GROUP_SIZE = 256;
+	
+	// the object used to save the rules when several threads are used (null otherwise)
+	private ConcurrentResultWriter<AssocRule> ruleWriter = null;
+	
 	/**
 	 * Default constructor
 	 */
@@ -147,12 +166,8 @@ public class AlgoAgrawalFaster94 {
 		
 		// SORTING
 		// First, we sort all itemsets having the same size by lexical order
-		// We do this for optimization purposes. If the itemsets are sorted, it allows to
-		// perform two optimizations:
-		// 1) When we need to calculate the support of an itemset (in the method
-		// "calculateSupport()") we can use a binary search instead of browsing the whole list.
-		// 2) When combining itemsets to generate candidate, we can use the
-		//    lexical order to avoid comparisons (in the method "generateCandidates()").
+		// so that the rules are generated in the same order whatever the order
+		// of the itemsets found by the algorithm used for mining them.
 		
 		// For itemsets of the same size
 		for(List<Itemset> itemsetsSameSize : patterns.getLevels()){
@@ -167,69 +182,24 @@ public class AlgoAgrawalFaster94 {
 		}
 		// END OF SORTING
 		
-		// Now we will generate the rules.
+		// build the index used to find the support of the itemsets
+		supportIndex = new ItemsetSupportIndex(patterns);
 		
-		// For each frequent itemset of size >=2 that we will name "lk"
-		for (int k = 2; k < patterns.getLevels().size(); k++) {
-			for (Itemset lk : patterns.getLevels().get(k)) {
-				
-				// create a variable H1 for recursion
-				List<int[]> H1_for_recursion = new ArrayList<int[]>();
-				
-				// For each itemset "itemsetSize1" of size 1 that is member of lk
-				for(int item : lk.getItems()) {
-					int itemsetHm_P_1[] = new int[] {item};
-	
-					// make a copy of  lk without items from  hm_P_1
-					int[] itemset_Lk_minus_hm_P_1 = ArraysAlgos.cloneItemSetMinusOneItem(lk.getItems(), item);
-
-					// Now we will calculate the support and confidence
-					// of the rule: itemset_Lk_minus_hm_P_1 ==>  hm_P_1
-					int support = calculateSupport(itemset_Lk_minus_hm_P_1); // THIS COULD BE
-																// OPTIMIZED ?
-					double supportAsDouble = (double) support;
-					
-					// calculate the confidence of the rule : itemset_Lk_minus_hm_P_1 ==>  hm_P_1
-					double conf = lk.getAbsoluteSupport() / supportAsDouble;
-
-					// if the confidence is lower than minconf
-					if(conf < minconf || Double.isInfinite(conf)){
-						continue;
-					}
-					
-					double lift = 0;
-					int supportHm_P_1 = 0;
-					// if the user is using the minlift threshold, we will need
-					// to also calculate the lift of the rule:  itemset_Lk_minus_hm_P_1 ==>  hm_P_1
-					if(usingLift){
-						// if we want to calculate the lift, we need the support of hm_P_1
-						supportHm_P_1 = calculateSupport(itemsetHm_P_1);  // if we want to calculate the lift, we need to add this.
-						// calculate the lift
-						double term1 = ((double)lk.getAbsoluteSupport()) /databaseSize;
-						double term2 = supportAsDouble /databaseSize;
-						double term3 = ((double)supportHm_P_1 / databaseSize);
-						lift = term1 / (term2 * term3);
-						
-						// if the lift is not enough
-						if(lift < minlift){
-							continue;
-						}
-					}
-					
-					// If we are here, it means that the rule respect the minconf and minlift parameters.
-					// Therefore, we output the rule.
-					saveRule(itemset_Lk_minus_hm_P_1, support, itemsetHm_P_1, supportHm_P_1, lk.getAbsoluteSupport(), conf, lift);
-					
-					// Then we keep the itemset  hm_P_1 to find more rules using this itemset and lk.
-					H1_for_recursion.add(itemsetHm_P_1);
-					// ================ END OF WHAT I HAVE ADDED
+		// Now we will generate the rules.
+		if(threadCount > 1){
+			generateRulesInParallel();
+		}else{
+			// For each frequent itemset of size >=2 that we will name "lk"
+			for (int k = 2; k < patterns.getLevels().size(); k++) {
+				for (Itemset lk : patterns.getLevels().get(k)) {
+					generateRules(k, lk);
 				}
-				// Finally, we make a recursive call to continue explores rules that can be made with "lk"
-				apGenrules(k, 1, lk, H1_for_recursion);
 			}
-			
 		}
 
+		// the index is not needed anymore
+		supportIndex = null;
+
 		// close the file if we saved the result to a file
 		if(writer != null){
 			writer.close();
@@ -242,6 +212,124 @@ public class AlgoAgrawalFaster94 {
 		return rules;
 	}
 
+	/**
+	 * Generate the rules from a frequent itemset of size k >= 2.
+	 * @param k the size of the itemset
+	 * @param lk the itemset
+	 * @throws IOException exception if error while writing output file
+	 */
+	private void generateRules(int k, Itemset lk) throws IOException {
+		// create a variable H1 for recursion
+		List<int[]> H1_for_recursion = new ArrayList<int[]>();
+		
+		// For each itemset "itemsetSize1" of size 1 that is member of lk
+		for(int item : lk.getItems()) {
+			int itemsetHm_P_1[] = new int[] {item};
+	
+			// make a copy of  lk without items from  hm_P_1
+			int[] itemset_Lk_minus_hm_P_1 = ArraysAlgos.cloneItemSetMinusOneItem(lk.getItems(), item);
+
+			// Now we will calculate the support and confidence
+			// of the rule: itemset_Lk_minus_hm_P_1 ==>  hm_P_1
+			int support = calculateSupport(itemset_Lk_minus_hm_P_1);
+			double supportAsDouble = (double) support;
+			
+			// calculate the confidence of the rule : itemset_Lk_minus_hm_P_1 ==>  hm_P_1
+			double conf = lk.getAbsoluteSupport() / supportAsDouble;
+
+			// if the confidence is lower than minconf
+			if(conf < minconf || Double.isInfinite(conf)){
+				continue;
+			}
+			
+			double lift = 0;
+			int supportHm_P_1 = 0;
+			// if the user is using the minlift threshold, we will need
+			// to also calculate the lift of the rule:  itemset_Lk_minus_hm_P_1 ==>  hm_P_1
+			if(usingLift){
+				// if we want to calculate the lift, we need the support of hm_P_1
+				supportHm_P_1 = calculateSupport(itemsetHm_P_1);  // if we want to calculate the lift, we need to add this.
+				// calculate the lift
+				double term1 = ((double)lk.getAbsoluteSupport()) /databaseSize;
+				double term2 = supportAsDouble /databaseSize;
+				double term3 = ((double)supportHm_P_1 / databaseSize);
+				lift = term1 / (term2 * term3);
+				
+				// if the lift is not enough
+				if(lift < minlift){
+					continue;
+				}
+			}
+			
+			// If we are here, it means that the rule respect the minconf and minlift parameters.
+			// Therefore, we output the rule.
+			saveRule(itemset_Lk_minus_hm_P_1, support, itemsetHm_P_1, supportHm_P_1, lk.getAbsoluteSupport(), conf, lift);
+			
+			// Then we keep the itemset  hm_P_1 to find more rules using this itemset and lk.
+			H1_for_recursion.add(itemsetHm_P_1);
+			// ================ END OF WHAT I HAVE ADDED
+		}
+		// Finally, we make a recursive call to continue explores rules that can be made with "lk"
+		apGenrules(k, 1, lk, H1_for_recursion);
+	}
+
+	/**
+	 * Generate the rules from the frequent itemsets of size >= 2 with several threads.
+	 * The itemsets are divided into groups of consecutive itemsets of the same size,
+	 * and each group is processed by a thread. The rules are saved in the order
+	 * that they are found.
+	 * @throws IOException exception if error while writing output file
+	 */
+	private void generateRulesInParallel() throws IOException {
+		ExecutorService executor = Executors.newFixedThreadPool(threadCount, new ThreadFactory() {
+			public Thread newThread(Runnable runnable) {
+				// the threads should not prevent the program from exiting
+				Thread thread = new Thread(runnable);
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		ruleWriter = new ConcurrentResultWriter<AssocRule>(writer);
+		try{
+			List<Future<Void>> results = new ArrayList<Future<Void>>();
+			for (int k = 2; k < patterns.getLevels().size(); k++) {
+				final int size = k;
+				final List<Itemset> level = patterns.getLevels().get(k);
+				for(int start = 0; start < level.size(); start += GROUP_SIZE){
+					final int first = start;
+					final int last = Math.min(start + GROUP_SIZE, level.size());
+					results.add(executor.submit(new Callable<Void>() {
+						public Void call() throws IOException {
+							for(int i = first; i < last; i++){
+								generateRules(size, level.get(i));
+							}
+							return null;
+						}
+					}));
+				}
+			}
+			// wait for all the groups
+			for(Future<Void> result : results){
+				result.get();
+			}
+			ruleCount = ruleWriter.finish(rules == null ? null : rules.rules);
+		}catch(InterruptedException e){
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		}catch(ExecutionException e){
+			if(e.getCause() instanceof IOException){
+				throw (IOException) e.getCause();
+			}
+			if(e.getCause() instanceof RuntimeException){
+				throw (RuntimeException) e.getCause();
+			}
+			throw new RuntimeException(e.getCause());
+		}finally{
+			ruleWriter = null;
+			executor.shutdownNow();
+		}
+	}
+
 	/**
 	 * The ApGenRules as described in p.14 of the paper by Agrawal.
 	 * (see the Agrawal paper for more details).
@@ -317,44 +405,21 @@ public class AlgoAgrawalFaster94 {
 	}
 	
 	/**
-	 * Calculate the support of an itemset by looking at the frequent patterns
-	 * of the same size.
-	 * Because patterns are sorted by lexical order, we use a binary search.
-	 * This is MUCH MORE efficient than just browsing the full list of patterns.
+	 * Calculate the support of an itemset by looking at the frequent patterns.
+	 * The support is found in constant time by using a hash table of the patterns
+	 * (see ItemsetSupportIndex).
 	 * 
 	 * @param itemset the itemset.
 	 * @return the support of the itemset
 	 */
 	private int calculateSupport(int[] itemset) {
-		// We first get the list of patterns having the same size as "itemset"
-		List<Itemset> patternsSameSize = patterns.getLevels().get(itemset.length);
-//		
-		// We perform a binary search to find the position of itemset in this list
-        int first = 0;
-        int last = patternsSameSize.size() - 1;
-       
-        while( first <= last )
-        {
-        	int middle = ( first + last ) >>1 ; // >>1 means to divide by 2
-        	int[] itemsetMiddle = patternsSameSize.get(middle).getItems();
-
-        	int comparison = ArraysAlgos.comparatorItemsetSameSize.compare(itemset, itemsetMiddle);
-            if(comparison  > 0 ){
-            	first = middle + 1;  //  the itemset compared is larger than the subset according to the lexical order
-            }
-            else if(comparison  < 0 ){
-            	last = middle - 1; //  the itemset compared is smaller than the subset  is smaller according to the lexical order
-            }
-            else{
-            	// we have found the itemset, so we return its support.
-            	return patternsSameSize.get(middle).getAbsoluteSupport();
-            }
-        }
-        // The following line will not happen because in the context of this algorithm, we will
-        // always search for itemsets that are frequent and thus will be in the list of patterns.
-        // We just put the following line to avoid compilation error and detect if the error if this
-        // case was ever to happen.
-        throw new RuntimeException("INVALID SUPPORT - THIS SHOULD NOT HAPPEN BECAUSE ALL ITEMSETS HAVE TO BE FREQUENT");
+		int support = supportIndex.getSupport(itemset);
+		if(support < 0){
+			// The following line will not happen because in the context of this algorithm, we will
+			// always search for itemsets that are frequent and thus will be in the list of patterns.
+			throw new RuntimeException("INVALID SUPPORT - THIS SHOULD NOT HAPPEN BECAUSE ALL ITEMSETS HAVE TO BE FREQUENT");
+		}
+		return support;
 	}
 
 	/**
@@ -427,6 +492,15 @@ public class AlgoAgrawalFaster94 {
 
 
 
+	/**
+	 * Set the number of threads used to generate the rules (default: 1).
+	 * If more than one thread is used, the rules are not saved in lexical order.
+	 * @param threadCount the number of threads
+	 */
+	public void setThreadCount(int threadCount) {
+		this.threadCount = threadCount;
+	}
+
 	/**
 	 * Print statistics about the algorithm execution to System.out.
 	 */
@@ -451,7 +525,10 @@ public class AlgoAgrawalFaster94 {
 	 */
 	protected void saveRule(int[] itemset1, int supportItemset1, int[] itemset2, int supportItemset2,
 			int absoluteSupport, double conf, double lift) throws IOException {
-		ruleCount++;
+		// if several threads are used, the rules are counted by the ConcurrentResultWriter
+		if(ruleWriter == null){
+			ruleCount++;
+		}
 		
 		// if the result should be saved to a file
 		if(writer != null){
@@ -485,11 +562,20 @@ public class AlgoAgrawalFaster94 {
 				buffer.append(doubleToString(lift));
 			}
 			
-			writer.write(buffer.toString());
-			writer.newLine();
+			if(ruleWriter != null){
+				ruleWriter.writeLine(buffer.toString());
+			}else{
+				writer.write(buffer.toString());
+				writer.newLine();
+			}
 		}// otherwise the result is kept into memory
 		else{
-			rules.addRule(new AssocRule(itemset1, itemset2, supportItemset1, absoluteSupport, conf, lift));
+			AssocRule rule = new AssocRule(itemset1, itemset2, supportItemset1, absoluteSupport, conf, lift);
+			if(ruleWriter != null){
+				ruleWriter.add(rule);
+			}else{
+				rules.addRule(rule);
+			}
 		}
 	}
 
@@ -0,0 +1,162 @@
+package ca.pfv.spmf.algorithms.associationrules.agrawal94_association_rules;
+/* This file is copyright (c) 2008-2014 Philippe Fournier-Viger
+*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+*
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+import java.util.List;
+
+import ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemset;
+import ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemsets;
+
+/**
+ * This class is an index of the support of a set of itemsets, used to find the
+ * support of an itemset in constant time. The items of all the itemsets are packed
+ * in a single array of integers, and the positions of the itemsets are stored in
+ * a hash table with open addressing (linear probing) keyed by the items of the itemsets.
+ * <br/><br/>
+ *
+ * The index is built one time and is not modified after, so it can be read by
+ * several threads at the same time.
+ *
+ * @see AlgoAgrawalFaster94
+ * @author Philippe Fournier-Viger
+ */
+public class ItemsetSupportIndex {
+
+	// the items of all the itemsets, one itemset after the other
+	private final int[] packedItems;
+	// the position of the first item of each itemset in packedItems
+	// (the itemset i ends at the position offsets[i+1])
+	private final int[] offsets;
+	// the support of each itemset
+	private final int[] supports;
+	// the hash table: position of an itemset + 1, or 0 if the slot is empty
+	private final int[] slots;
+
+	/**
+	 * Constructor
+	 * @param itemsets the itemsets (the items of each itemset must be sorted
+	 *          and the itemsets should not be modified after)
+	 */
+	public ItemsetSupportIndex(Itemsets itemsets) {
+		// count the itemsets and their items
+		int itemsetCount = 0;
+		long itemCount = 0;
+		for (List<Itemset> level : itemsets.getLevels()) {
+			for (Itemset itemset : level) {
+				itemsetCount++;
+				itemCount += itemset.size();
+			}
+		}
+		if (itemCount > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Too many items to build the index");
+		}
+		packedItems = new int[(int) itemCount];
+		offsets = new int[itemsetCount + 1];
+		supports = new int[itemsetCount];
+
+		// the size of the table is a power of two such that at most 2/3 of the slots are used
+		int capacity = 2;
+		while (capacity < itemsetCount + itemsetCount / 2 + 1) {
+			capacity *= 2;
+		}
+		slots = new int[capacity];
+		int mask = capacity - 1;
+
+		// add the itemsets
+		int position = 0;
+		int offset = 0;
+		for (List<Itemset> level : itemsets.getLevels()) {
+			for (Itemset itemset : level) {
+				int[] items = itemset.getItems();
+				System.arraycopy(items, 0, packedItems, offset, items.length);
+				offsets[position] = offset;
+				offset += items.length;
+				offsets[position + 1] = offset;
+				supports[position] = itemset.getAbsoluteSupport();
+
+				int slot = hash(items) & mask;
+				while (slots[slot] != 0) {
+					slot = (slot + 1) & mask;
+				}
+				slots[slot] = position + 1;
+				position++;
+			}
+		}
+	}
+
+	/**
+	 * Get the support of an itemset.
+	 * @param itemset the items of the itemset, sorted by lexical order
+	 * @return the support or -1 if the itemset is not in the index
+	 */
+	public int getSupport(int[] itemset) {
+		int mask = slots.length - 1;
+		int slot = hash(itemset) & mask;
+		while (slots[slot] != 0) {
+			int position = slots[slot] - 1;
+			if (isEqualTo(position, itemset)) {
+				return supports[position];
+			}
+			slot = (slot + 1) & mask;
+		}
+		return -1;
+	}
+
+	/**
+	 * Get the number of itemsets in the index.
+	 * @return the number of itemsets
+	 */
+	public int size() {
+		return supports.length;
+	}
+
+	/**
+	 * Check if an itemset of the index is equal to another itemset.
+	 * @param position the position of the itemset of the index
+	 * @param itemset the other itemset
+	 * @return true if they are equal
+	 */
+	private boolean isEqualTo(int position, int[] itemset) {
+		int start = offsets[position];
+		if (offsets[position + 1] - start != itemset.length) {
+			return false;
+		}
+		for (int i = 0; i < itemset.length; i++) {
+			if (packedItems[start + i] != itemset[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Calculate the hash code of an itemset.
+	 * @param itemset the itemset
+	 * @return the hash code
+	 */
+	private static int hash(int[] itemset) {
+		int hash = 1;
+		for (int item : itemset) {
+			hash = 31 * hash + item;
+		}
+		// mix the bits so that the low bits depend on all the items
+		hash ^= hash >>> 16;
+		hash *= 0x85ebca6b;
+		hash ^= hash >>> 13;
+		return hash;
+	}
+}
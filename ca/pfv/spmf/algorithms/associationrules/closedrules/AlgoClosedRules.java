@@ -67,6 +67,20 @@ public class AlgoClosedRules extends AlgoAgrawalFaster94{
 		
 	}
 
+	/**
+	 * This implementation does not generate the rules in parallel, so only
+	 * a single thread can be used.
+	 * @param threadCount the number of threads (must be 1)
+	 * @throws IllegalArgumentException if more than one thread is requested
+	 */
+	@Override
+	public void setThreadCount(int threadCount) {
+		if(threadCount > 1){
+			throw new IllegalArgumentException("The closed rules can only be generated with a single thread");
+		}
+		super.setThreadCount(threadCount);
+	}
+
 	/**
 	 * Run the algorithm
 	 * @param patterns  a set of frequent itemsets
@@ -0,0 +1,466 @@
+package ca.pfv.spmf.algorithms.classifiers.decisiontree.id3;
+/* This file is copyright (c) 2008-2014 Philippe Fournier-Viger
+*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+*
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * This is an implementation of the ID3 algorithm for creating a decision tree that
+ * is faster than AlgoID3 on large sets of instances. It creates the same kind of
+ * decision tree, but:
+ * <ul>
+ * <li>the values of each attribute are replaced by integers (codes) when the
+ *  file is read, and the instances are stored by column (an array of codes per attribute),</li>
+ * <li>the instances of a node are the positions of an array of instance ids, and they are
+ *  divided between the child nodes by reordering these positions rather than by
+ *  copying the instances to new lists,</li>
+ * <li>the information gain of an attribute is calculated from a table that counts
+ *  the instances for each value of the attribute and each value of the target attribute,
+ *  made with a single scan of the instances of the node,</li>
+ * <li>the gains of the attributes can be calculated by several threads.</li>
+ * </ul>
+ * The returned tree uses the original values and can be used as the trees created by AlgoID3.
+ *
+ * @see AlgoID3
+ * @see DecisionTree
+ * @author Philippe Fournier-Viger
+ */
+public class AlgoID3_Encoded {
+	// the list of attributes
+	private String[] allAttributes;
+	// the position of the target attribute in the list of attributes
+	private int indexTargetAttribute = -1;
+
+	// the number of threads used to calculate the gains of the attributes
+	private int threadCount = 1;
+	// the threads (null if a single thread is used)
+	private ExecutorService executor = null;
+
+	// the code of the value of each attribute for each instance: codes[attribute][instance]
+	private int[][] codes;
+	// the value of each code, for each attribute: values[attribute][code]
+	private String[][] values;
+	// the codes of the target attribute (codes[indexTargetAttribute])
+	private int[] targetCodes;
+	// the number of values of the target attribute
+	private int targetValueCount;
+	// the ids of the instances. The instances of a node are at consecutive positions.
+	private int[] instanceIds;
+	// a buffer used to reorder the instance ids
+	private int[] buffer;
+
+	// the minimum number of instances x attributes of a node for using several threads
+	private static final int MIN_PARALLEL_WORK = 20000;
+
+	// for statistics
+	private long startTime; // start time of the latest execution
+	private long endTime;   // end time of the latest execution
+
+	/**
+	 * Set the number of threads used to calculate the information gain of
+	 * the attributes (default: 1).
+	 * @param threadCount the number of threads
+	 */
+	public void setThreadCount(int threadCount) {
+		this.threadCount = threadCount;
+	}
+
+	/**
+	 * Create a decision tree from a set of training instances.
+	 * @param input path to an input file containing training instances
+	 * @param targetAttribute the target attribute (that will be used for classification)
+	 * @param separator  the separator in the input file (e.g. space).
+	 * @return a decision tree
+	 * @throws IOException exception if error reading the file
+	 */
+	public DecisionTree runAlgorithm(String input, String targetAttribute,
+			String separator) throws IOException {
+		// record the start time
+		startTime = System.currentTimeMillis();
+
+		// create an empty decision tree
+		DecisionTree tree = new DecisionTree();
+
+		// (1) read input file
+		BufferedReader reader = new BufferedReader(new FileReader(input));
+		String line = reader.readLine();
+
+		// Read the first line and note the name of the attributes.
+		// At the same time identify the position of the target attribute and
+		// other attributes.
+		allAttributes = line.split(separator);
+
+		// make an array to store the attributes except the target attribute
+		int[] remainingAttributes = new int[allAttributes.length - 1];
+		int pos = 0;
+		// for each attribute
+		for (int i = 0; i < allAttributes.length; i++) {
+			// if it is the target attribute
+			if (allAttributes[i].equals(targetAttribute)) {
+				// save the position of the target attribute. It will be useful
+				// later.
+				indexTargetAttribute = i;
+			} else {
+				// otherwise add the attribute to the array of attributes
+				remainingAttributes[pos++] = i;
+			}
+		}
+
+		// the code of each value, for each attribute
+		List<Map<String, Integer>> dictionaries = new ArrayList<Map<String, Integer>>();
+		List<List<String>> valueLists = new ArrayList<List<String>>();
+		for (int i = 0; i < allAttributes.length; i++) {
+			dictionaries.add(new HashMap<String, Integer>());
+			valueLists.add(new ArrayList<String>());
+		}
+		codes = new int[allAttributes.length][64];
+		int instanceCount = 0;
+
+		// Read instances into memory (line by line until end of file)
+		while (((line = reader.readLine()) != null)) {
+			// if the line is  a comment, is  empty or is a
+			// kind of metadata
+			if (line.isEmpty() == true ||
+					line.charAt(0) == '#' || line.charAt(0) == '%'
+							|| line.charAt(0) == '@') {
+				continue;
+			}
+
+			// split the line
+			String[] lineSplit = line.split(separator);
+			// enlarge the columns if needed
+			if (instanceCount == codes[0].length) {
+				for (int i = 0; i < allAttributes.length; i++) {
+					codes[i] = Arrays.copyOf(codes[i], instanceCount * 2);
+				}
+			}
+			// replace each value by its code
+			for (int i = 0; i < allAttributes.length; i++) {
+				String value = lineSplit[i];
+				Integer code = dictionaries.get(i).get(value);
+				if (code == null) {
+					code = valueLists.get(i).size();
+					dictionaries.get(i).put(value, code);
+					valueLists.get(i).add(value);
+				}
+				codes[i][instanceCount] = code;
+			}
+			instanceCount++;
+		}
+		reader.close(); // close input file
+
+		values = new String[allAttributes.length][];
+		for (int i = 0; i < allAttributes.length; i++) {
+			values[i] = valueLists.get(i).toArray(new String[0]);
+		}
+		dictionaries = null;
+		valueLists = null;
+		targetCodes = codes[indexTargetAttribute];
+		targetValueCount = values[indexTargetAttribute].length;
+		instanceIds = new int[instanceCount];
+		for (int i = 0; i < instanceCount; i++) {
+			instanceIds[i] = i;
+		}
+		buffer = new int[instanceCount];
+
+		if (threadCount > 1) {
+			executor = Executors.newFixedThreadPool(threadCount, new ThreadFactory() {
+				public Thread newThread(Runnable runnable) {
+					// the threads should not prevent the program from exiting
+					Thread thread = new Thread(runnable);
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+
+		// (2) Start the recusive process
+		try {
+			// create the tree
+			tree.root = id3(remainingAttributes, 0, instanceCount);
+			tree.allAttributes = allAttributes;
+		} finally {
+			if (executor != null) {
+				executor.shutdownNow();
+				executor = null;
+			}
+			// release the memory
+			codes = null;
+			values = null;
+			targetCodes = null;
+			instanceIds = null;
+			buffer = null;
+		}
+
+		endTime = System.currentTimeMillis();  // record end time
+
+		return tree; // return the tree
+	}
+
+	/**
+	 * Method to create a subtree according to a set of attributes and training
+	 * instances.
+	 * @param remainingAttributes remaining attributes to create the tree
+	 * @param start the position of the first instance of the node in instanceIds
+	 * @param end the position after the last instance of the node in instanceIds
+	 * @return node of the subtree created
+	 */
+	private Node id3(int[] remainingAttributes, int start, int end) {
+		// Calculate the frequency of each target attribute value
+		int[] targetValuesFrequency = new int[targetValueCount];
+		int differentTargetValues = 0;
+		for (int i = start; i < end; i++) {
+			if (targetValuesFrequency[targetCodes[instanceIds[i]]]++ == 0) {
+				differentTargetValues++;
+			}
+		}
+
+		// if there is no remaining attribute or if all instances are from the same class,
+		// return a class node with the most common value in the instances
+		if (remainingAttributes.length == 0 || differentTargetValues == 1) {
+			return createClassNode(targetValuesFrequency);
+		}
+
+		// Calculate global entropy
+		double globalEntropy = calculateEntropy(targetValuesFrequency, end - start);
+
+		// Select the attribute from remaining attributes such that if we split
+		// the dataset on this
+		// attribute, we will get the higher information gain
+		double[] gains = calculateGains(remainingAttributes, start, end, globalEntropy);
+		int attributeWithHighestGain = 0;
+		double highestGain = -99999;
+		for (int i = 0; i < remainingAttributes.length; i++) {
+			if (gains[i] >= highestGain) {
+				highestGain = gains[i];
+				attributeWithHighestGain = remainingAttributes[i];
+			}
+		}
+
+		// if the highest gain is 0, take the most frequent class
+		if (highestGain == 0) {
+			return createClassNode(targetValuesFrequency);
+		}
+
+		// Create a decision node for the attribute
+		DecisionNode decisionNode = new DecisionNode();
+		decisionNode.attribute = attributeWithHighestGain;
+
+		// calculate the list of remaining attribute after we remove the
+		// attribute
+		int[] newRemainingAttribute = new int[remainingAttributes.length - 1];
+		int pos = 0;
+		for (int i = 0; i < remainingAttributes.length; i++) {
+			if (remainingAttributes[i] != attributeWithHighestGain) {
+				newRemainingAttribute[pos++] = remainingAttributes[i];
+			}
+		}
+
+		// Split the instances into partitions according to the selected attribute,
+		// by reordering the instance ids by value (counting sort)
+		int[] column = codes[attributeWithHighestGain];
+		int[] partitionStarts = new int[values[attributeWithHighestGain].length + 1];
+		for (int i = start; i < end; i++) {
+			partitionStarts[column[instanceIds[i]] + 1]++;
+		}
+		int partitionCount = 0;
+		for (int value = 0; value < partitionStarts.length - 1; value++) {
+			if (partitionStarts[value + 1] > 0) {
+				partitionCount++;
+			}
+			partitionStarts[value + 1] += partitionStarts[value];
+		}
+		int[] positions = partitionStarts.clone();
+		for (int i = start; i < end; i++) {
+			int id = instanceIds[i];
+			buffer[start + positions[column[id]]++] = id;
+		}
+		System.arraycopy(buffer, start, instanceIds, start, end - start);
+
+		// Create the values for the subnodes
+		decisionNode.nodes = new Node[partitionCount];
+		decisionNode.attributeValues = new String[partitionCount];
+
+		// For each partition, make a recursive call to create
+		// the corresponding branches in the tree.
+		int index = 0;
+		for (int value = 0; value < partitionStarts.length - 1; value++) {
+			if (partitionStarts[value + 1] > partitionStarts[value]) {
+				decisionNode.attributeValues[index] = values[attributeWithHighestGain][value];
+				decisionNode.nodes[index] = id3(newRemainingAttribute,
+						start + partitionStarts[value], start + partitionStarts[value + 1]); // recursive call
+				index++;
+			}
+		}
+
+		// return the root node of the subtree created
+		return decisionNode;
+	}
+
+	/**
+	 * Create a class node with the most frequent value of the target attribute.
+	 * @param targetValuesFrequency the frequency of each value of the target attribute
+	 * @return the class node
+	 */
+	private ClassNode createClassNode(int[] targetValuesFrequency) {
+		int highestCount = 0;
+		int highestValue = 0;
+		for (int value = 0; value < targetValuesFrequency.length; value++) {
+			// if the frequency is higher
+			if (targetValuesFrequency[value] > highestCount) {
+				highestCount = targetValuesFrequency[value];
+				highestValue = value;
+			}
+		}
+		ClassNode classNode = new ClassNode();
+		// if there is no instance, the class is null (as in AlgoID3)
+		if (highestCount > 0) {
+			classNode.className = values[indexTargetAttribute][highestValue];
+		}
+		return classNode;
+	}
+
+	/**
+	 * Calculate the information gain of each remaining attribute for the instances of a node.
+	 * The gains are calculated by several threads if there are enough instances and attributes.
+	 * @param remainingAttributes the remaining attributes
+	 * @param start the position of the first instance of the node in instanceIds
+	 * @param end the position after the last instance of the node in instanceIds
+	 * @param globalEntropy the global entropy
+	 * @return the gain of each attribute
+	 */
+	private double[] calculateGains(final int[] remainingAttributes, final int start, final int end,
+			final double globalEntropy) {
+		final double[] gains = new double[remainingAttributes.length];
+		if (executor == null || remainingAttributes.length == 1
+				|| (long) (end - start) * remainingAttributes.length < MIN_PARALLEL_WORK) {
+			for (int i = 0; i < remainingAttributes.length; i++) {
+				gains[i] = calculateGain(remainingAttributes[i], start, end, globalEntropy);
+			}
+			return gains;
+		}
+		// each attribute is processed by a thread
+		List<Future<Object>> results = new ArrayList<Future<Object>>(remainingAttributes.length);
+		for (int i = 0; i < remainingAttributes.length; i++) {
+			final int index = i;
+			results.add(executor.submit(new Callable<Object>() {
+				public Object call() {
+					gains[index] = calculateGain(remainingAttributes[index], start, end, globalEntropy);
+					return null;
+				}
+			}));
+		}
+		try {
+			for (Future<Object> result : results) {
+				result.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new RuntimeException(e.getCause());
+		}
+		return gains;
+	}
+
+	/**
+	 * Calculate the information gain of an attribute for the instances of a node.
+	 * @param attributePos the position of the attribute
+	 * @param start the position of the first instance of the node in instanceIds
+	 * @param end the position after the last instance of the node in instanceIds
+	 * @param globalEntropy the global entropy
+	 * @return the gain
+	 */
+	private double calculateGain(int attributePos, int start, int end, double globalEntropy) {
+		// Count the instances for each value of the attribute (row)
+		// and each value of the target attribute (column)
+		int[] column = codes[attributePos];
+		int[][] contingencyTable = new int[values[attributePos].length][targetValueCount];
+		int[] valuesFrequency = new int[values[attributePos].length];
+		for (int i = start; i < end; i++) {
+			int id = instanceIds[i];
+			contingencyTable[column[id]][targetCodes[id]]++;
+			valuesFrequency[column[id]]++;
+		}
+
+		// Calculate the gain
+		double sum = 0;
+		// for each value
+		for (int value = 0; value < valuesFrequency.length; value++) {
+			if (valuesFrequency[value] > 0) {
+				// make the sum
+				sum += valuesFrequency[value] / ((double) (end - start))
+						* calculateEntropy(contingencyTable[value], valuesFrequency[value]);
+			}
+		}
+		// subtract the sum from the global entropy
+		return globalEntropy - sum;
+	}
+
+	/**
+	 * Calculate the entropy of the target attribute for a set of instances.
+	 * @param targetValuesFrequency the frequency of each value of the target attribute
+	 * @param instancesCount the number of instances
+	 * @return entropy
+	 */
+	private double calculateEntropy(int[] targetValuesFrequency, int instancesCount) {
+		double entropy = 0;
+		// for each value of the target attribute
+		for (int count : targetValuesFrequency) {
+			// if the frequency is not zero
+			if (count != 0) {
+				// update entropy according to the formula
+				double frequency = count / (double) instancesCount;
+				entropy -= frequency * Math.log(frequency) / Math.log(2);
+			}
+		}
+		return entropy;
+	}
+
+	/**
+	 * Print statistics about the execution of this algorithm
+	 */
+	public void printStatistics() {
+		System.out.println("Time to construct decision tree = "
+				+ (endTime - startTime) + " ms");
+		System.out.println("Target attribute = "
+				+ allAttributes[indexTargetAttribute]);
+		System.out.print("Other attributes = ");
+		for (String attribute : allAttributes) {
+			if (!attribute.equals(allAttributes[indexTargetAttribute])) {
+				System.out.print(attribute + " ");
+			}
+		}
+		System.out.println();
+	}
+}
@@ -78,6 +78,20 @@ public class DecisionTree {
 		return predict(root, newInstance);
 	}
 
+	/**
+	 * This method predict the class of several instances.
+	 * @param newInstances  the instances for which to perform the prediction.
+	 * @return Return the class name of each instance, or null for an instance if the tree cannot
+	 *  predict its class, for example because some value does not appear in the tree.
+	 */
+	public String[] predictTargetAttributeValues(String[][] newInstances) {
+		String[] predictions = new String[newInstances.length];
+		for(int i=0; i< newInstances.length; i++){
+			predictions[i] = predict(root, newInstances[i]);
+		}
+		return predictions;
+	}
+
 
 	/**
 	 * Helper method to perform a prediction.
@@ -0,0 +1,405 @@
+package ca.pfv.spmf.algorithms.clustering.hierarchical_clustering;
+/* This file is copyright (c) 2008-2014 Philippe Fournier-Viger
+*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+*
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import ca.pfv.spmf.patterns.cluster.Cluster;
+import ca.pfv.spmf.patterns.cluster.DoubleArray;
+import ca.pfv.spmf.tools.MemoryLogger;
+
+/**
+ * This is a faster implementation of the Hierarchical Clustering algorithm of
+ * AlgoHierarchicalClustering. It merges the same clusters in the same order and
+ * returns the same clusters, but it does not compare all the pairs of clusters after each merge.
+ * <br/><br/>
+ *
+ * The clusters are numbered by their position in the list of clusters. For each
+ * cluster, the nearest cluster that comes after it in the list is kept in memory
+ * with its distance. The two closest clusters are thus found by scanning these
+ * distances. After two clusters are merged, only the distances to the merged cluster
+ * are calculated, and the nearest cluster is searched again only for the clusters whose
+ * nearest cluster was one of the two merged clusters. Thus, each merge usually requires
+ * a number of distance calculations that is linear in the number of clusters, instead of quadratic.
+ * Because the distance between two clusters is the distance between their means, it can
+ * become smaller after a merge, so the nearest-neighbour chain algorithm cannot be used.
+ * <br/><br/>
+ *
+ * The distances between the clusters are not stored in a matrix because the matrix would not
+ * fit in memory for large sets of vectors. The nearest clusters of the initial clusters
+ * (one per vector) can be searched by several threads.
+ *
+ * @see AlgoHierarchicalClustering
+ * @author Philippe Fournier-Viger
+ */
+
+public class AlgoHierarchicalClustering_Fast {
+
+	// parameter
+	private double maxDistance =0;  // maximum distance allowed for merging two clusters
+
+	// the number of threads used to find the nearest clusters of the initial clusters
+	private int threadCount = 1;
+
+	// list of clusters
+	List<Cluster> clusters = null;
+
+	// the clusters, by position (null if the cluster has been merged with a previous cluster)
+	private Cluster[] clusterArray;
+	// the means of the clusters (row-major: the mean of the cluster i is stored at
+	// positions i*dimension ... (i+1)*dimension - 1)
+	private double[] means;
+	// the size of the vectors
+	private int dimension;
+	// the next and previous clusters that have not been merged (-1 if none)
+	private int[] nextCluster;
+	private int[] previousCluster;
+	// the first cluster that has not been merged
+	private int firstCluster;
+	// for each cluster, the nearest cluster that comes after it (-1 if none)
+	private int[] nearestCluster;
+	// for each cluster, the distance to its nearest cluster
+	private double[] nearestDistance;
+
+	// for statistics
+	private long startTimestamp;  // start time of latest execution
+	private long endTimestamp;    // end time of latest execution
+	private long iterationCount; // number of iterations performed
+
+	/**
+	 * Default constructor
+	 */
+	public AlgoHierarchicalClustering_Fast() {
+	}
+
+	/**
+	 * Set the number of threads used to calculate the distances between the
+	 * initial clusters (default: 1).
+	 * @param threadCount the number of threads
+	 */
+	public void setThreadCount(int threadCount) {
+		this.threadCount = threadCount;
+	}
+
+	/**
+	 * Run the algorithm.
+	 * @param inputFile an input file containing vectors of doubles
+	 * @param maxDistance  the maximum distance allowed for merging two clusters
+	 * @return a list of Clusters
+	 * @throws IOException exception if error while reading the file
+	 */
+	public List<Cluster> runAlgorithm(String inputFile, double maxDistance) throws NumberFormatException, IOException {
+		// record start time
+		startTimestamp = System.currentTimeMillis();
+		iterationCount = 0;
+		MemoryLogger.getInstance().reset();
+
+		// save the parameter
+		this.maxDistance = maxDistance;
+
+		// Read the vectors from the input file
+		// and add each vector to an individual cluster.
+		List<Cluster> initialClusters = new ArrayList<Cluster>();
+		dimension = 0;
+		BufferedReader reader = new BufferedReader(new FileReader(inputFile));
+		String line;
+		// for each line until the end of file
+		while (((line = reader.readLine()) != null)) {
+			// if the line is  a comment, is  empty or is a
+			// kind of metadata
+			if (line.isEmpty() == true ||
+					line.charAt(0) == '#' || line.charAt(0) == '%'
+							|| line.charAt(0) == '@') {
+				continue;
+			}
+			// split the line by spaces
+			String[] lineSplited = line.split(" ");
+			// convert the values to double values and put them in
+			// a vector of doubles
+			double [] vector = new double[lineSplited.length];
+			for (int i=0; i< lineSplited.length; i++) {
+				vector[i] = Double.parseDouble(lineSplited[i]);
+			}
+			if (initialClusters.isEmpty()) {
+				dimension = vector.length;
+			} else if (vector.length != dimension) {
+				reader.close();
+				throw new IOException("All the vectors should have the same size: " + line);
+			}
+			// create a DoubleArray object with the vector
+			DoubleArray theVector = new DoubleArray(vector);
+
+			// Initiallly we create a cluster for each vector
+			Cluster cluster = new Cluster(vector.length);
+			cluster.addVector(theVector);
+			cluster.setMean(theVector.clone());
+			initialClusters.add(cluster);
+		}
+		reader.close(); // close the input file
+
+		// (1) Initialize the structures
+		int clusterCount = initialClusters.size();
+		clusterArray = initialClusters.toArray(new Cluster[clusterCount]);
+		initialClusters = null;
+		means = new double[clusterCount * dimension];
+		nextCluster = new int[clusterCount];
+		previousCluster = new int[clusterCount];
+		for (int i = 0; i < clusterCount; i++) {
+			System.arraycopy(clusterArray[i].getmean().data, 0, means, i * dimension, dimension);
+			nextCluster[i] = (i == clusterCount - 1) ? -1 : i + 1;
+			previousCluster[i] = i - 1;
+		}
+		firstCluster = (clusterCount == 0) ? -1 : 0;
+		nearestCluster = new int[clusterCount];
+		nearestDistance = new double[clusterCount];
+		findInitialNearestClusters();
+		MemoryLogger.getInstance().checkMemory();
+
+		// (2) Loop to combine the two closest clusters into a bigger cluster
+		// until no clusters can be combined.
+		boolean changed = false;
+		do {
+			// merge the two closest clusters
+			changed = mergeTheClosestCluster();
+			// record memory usage
+			MemoryLogger.getInstance().checkMemory();
+		} while (changed);
+
+		// create the list of clusters, in the same order as the vectors
+		clusters = new ArrayList<Cluster>();
+		for (int i = firstCluster; i != -1; i = nextCluster[i]) {
+			clusters.add(clusterArray[i]);
+		}
+
+		// release the memory
+		clusterArray = null;
+		means = null;
+		nextCluster = null;
+		previousCluster = null;
+		nearestCluster = null;
+		nearestDistance = null;
+
+		// record end time
+		endTimestamp = System.currentTimeMillis();
+
+		// return the clusters
+		return clusters;
+	}
+
+	/**
+	 * Find the nearest cluster of each initial cluster, by using several threads
+	 * if more than one thread is used. Since the number of clusters that come after
+	 * a cluster decreases with its position, each thread processes one cluster every
+	 * threadCount clusters, so that the work is divided equally.
+	 */
+	private void findInitialNearestClusters() {
+		final int clusterCount = clusterArray.length;
+		if (threadCount <= 1 || clusterCount < 2) {
+			for (int i = 0; i < clusterCount; i++) {
+				findNearestCluster(i);
+			}
+			return;
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(threadCount, new ThreadFactory() {
+			public Thread newThread(Runnable runnable) {
+				// the threads should not prevent the program from exiting
+				Thread thread = new Thread(runnable);
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		try {
+			List<Future<Object>> results = new ArrayList<Future<Object>>(threadCount);
+			for (int t = 0; t < threadCount; t++) {
+				final int first = t;
+				results.add(executor.submit(new Callable<Object>() {
+					public Object call() {
+						for (int i = first; i < clusterCount; i += threadCount) {
+							findNearestCluster(i);
+						}
+						return null;
+					}
+				}));
+			}
+			for (Future<Object> result : results) {
+				result.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new RuntimeException(e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Find the nearest cluster that comes after a cluster in the list of clusters.
+	 * If several clusters are at the same distance, the first one is kept.
+	 * @param i the position of the cluster
+	 */
+	private void findNearestCluster(int i) {
+		int nearest = -1;
+		double minDistance = Double.POSITIVE_INFINITY;
+		for (int j = nextCluster[i]; j != -1; j = nextCluster[j]) {
+			double distance = euclideanDistance(i, j);
+			if (distance < minDistance) {
+				minDistance = distance;
+				nearest = j;
+			}
+		}
+		nearestCluster[i] = nearest;
+		nearestDistance[i] = minDistance;
+	}
+
+	/**
+	 * Merge the two closest clusters in terms of distance.
+	 * @return true if a merge was done, otherwise false.
+	 */
+	private boolean mergeTheClosestCluster() {
+		// find the two closest clusters with distance <= threshold.
+		// As in AlgoHierarchicalClustering, if several pairs have the same distance,
+		// the first cluster of the list and then the first cluster after it are chosen.
+		int cluster1 = -1;
+		double minClusterDistance = Integer.MAX_VALUE;
+		for (int i = firstCluster; i != -1; i = nextCluster[i]) {
+			double distance = nearestDistance[i];
+			if (distance < minClusterDistance && distance <= maxDistance) {
+				minClusterDistance = distance;
+				cluster1 = i;
+			}
+		}
+
+		// if no close clusters were found, return false
+		if (cluster1 == -1) {
+			return false;
+		}
+		int cluster2 = nearestCluster[cluster1];
+
+		// else, merge the two closest clusters
+		Cluster clusterToMerge1 = clusterArray[cluster1];
+		for(DoubleArray vector : clusterArray[cluster2].getVectors()){
+			clusterToMerge1.addVector(vector);
+		}
+		// after merging, we need to recompute the mean of the resulting cluster
+		clusterToMerge1.recomputeClusterMean();
+		System.arraycopy(clusterToMerge1.getmean().data, 0, means, cluster1 * dimension, dimension);
+		// we delete the cluster that was merged
+		clusterArray[cluster2] = null;
+		int next = nextCluster[cluster2];
+		nextCluster[previousCluster[cluster2]] = next;
+		if (next != -1) {
+			previousCluster[next] = previousCluster[cluster2];
+		}
+
+		// update the nearest clusters
+		findNearestCluster(cluster1);
+		for (int i = firstCluster; i != -1; i = nextCluster[i]) {
+			if (i < cluster1) {
+				if (nearestCluster[i] == cluster1 || nearestCluster[i] == cluster2) {
+					// the nearest cluster has moved or does not exist anymore
+					findNearestCluster(i);
+				} else {
+					// the merged cluster may now be nearer than the nearest cluster
+					double distance = euclideanDistance(i, cluster1);
+					if (distance < nearestDistance[i]
+							|| (distance == nearestDistance[i] && cluster1 < nearestCluster[i])) {
+						nearestCluster[i] = cluster1;
+						nearestDistance[i] = distance;
+					}
+				}
+			} else if (i > cluster1 && nearestCluster[i] == cluster2) {
+				// the nearest cluster does not exist anymore
+				findNearestCluster(i);
+			}
+		}
+
+		// increase iteration count for statistics
+		iterationCount++;
+		return true;
+	}
+
+	/**
+	 * Calculate the eucledian distance between the means of two clusters.
+	 * @param cluster1 the position of the first cluster
+	 * @param cluster2 the position of the second cluster
+	 * @return the distance
+	 */
+	private double euclideanDistance(int cluster1, int cluster2) {
+		double sum =0;
+		int offset1 = cluster1 * dimension;
+		int offset2 = cluster2 * dimension;
+		for(int i=0; i< dimension; i++){
+			double difference = means[offset1 + i] - means[offset2 + i];
+			sum += difference * difference;
+		}
+		return Math.sqrt(sum);
+	}
+
+	/**
+	 * Save the clusters to an output file
+	 * @param output the output file path
+	 * @throws IOException exception if there is some writing error.
+	 */
+	public void saveToFile(String output) throws IOException {
+		BufferedWriter writer = new BufferedWriter(new FileWriter(output));
+		// for each cluster
+		for(int i=0; i< clusters.size(); i++){
+			// if the cluster is not empty
+			if(clusters.get(i).getVectors().size() >= 1){
+				// write the cluster
+				writer.write(clusters.get(i).toString());
+				// if not the last cluster, add a line return
+				if(i < clusters.size()-1){
+					writer.newLine();
+				}
+			}
+		}
+		// close the file
+		writer.close();
+	}
+
+
+	/**
+	 * Print statistics about the latest execution to System.out.
+	 */
+	public void printStatistics() {
+		System.out.println("========== HIERARCHICAL CLUSTERING (FAST) - STATS ============");
+		System.out.println(" Total time ~: " + (endTimestamp - startTimestamp)
+				+ " ms");
+		System.out.println(" Max memory:" + MemoryLogger.getInstance().getMaxMemory() + " mb ");
+		System.out.println(" Iteration count: " + iterationCount);
+		System.out.println("=====================================");
+	}
+
+}
@@ -0,0 +1,580 @@
+package ca.pfv.spmf.algorithms.clustering.kmeans;
+/* This file is copyright (c) 2008-2014 Philippe Fournier-Viger
+*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+*
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import ca.pfv.spmf.patterns.cluster.Cluster;
+import ca.pfv.spmf.patterns.cluster.DoubleArray;
+import ca.pfv.spmf.tools.MemoryLogger;
+
+/**
+ * An implementation of the K-means algorithm (J. MacQueen, 1967) that is faster than
+ * AlgoKMeans on large sets of vectors. It finds clusters in the same way (each vector
+ * is assigned to the nearest cluster center until the assignment does not change), but:
+ * <ul>
+ * <li>the vectors and the cluster centers are stored in arrays of double where each
+ *  row is a vector, and the cluster of each vector is stored in an array of int,</li>
+ * <li>the initial cluster centers are chosen with the k-means++ method (Arthur and
+ *  Vassilvitskii, 2007) rather than randomly generated, which usually requires less iterations,</li>
+ * <li>the distances that cannot change the assignment of a vector are not calculated,
+ *  by using the bounds proposed by Hamerly (2010): for each vector, an upper bound on the
+ *  distance to its cluster center and a lower bound on the distance to the second
+ *  nearest center are updated by the triangle inequality when the centers move,</li>
+ * <li>the vectors can be assigned by several threads, each one processing a part of the vectors.</li>
+ * </ul>
+ *
+ * Hamerly, G. (2010). Making k-means even faster. In Proceedings of the 2010 SIAM
+ * International Conference on Data Mining, pp. 130-140.
+ *
+ * @see AlgoKMeans
+ * @author Philippe Fournier-Viger
+ */
+public class AlgoKMeans_Fast {
+
+	// The list of clusters generated
+	private List<Cluster> clusters = null;
+
+	// A random number generator because K-Means is a randomized algorithm
+	private Random random = new Random(System.currentTimeMillis());
+
+	// the number of threads used to assign the vectors to the clusters
+	private int threadCount = 1;
+
+	// the vectors (row-major: the vector i is stored at positions i*dimension ... (i+1)*dimension - 1)
+	private double[] data;
+	// the number of vectors
+	private int vectorCount;
+	// the size of the vectors
+	private int dimension;
+	// the number of clusters
+	private int k;
+
+	// the cluster centers (row-major)
+	private double[] centers;
+	// the cluster of each vector
+	private int[] assignment;
+	// an upper bound on the distance between each vector and its cluster center
+	private double[] upperBounds;
+	// a lower bound on the distance between each vector and the second nearest center
+	private double[] lowerBounds;
+	// for each center, half the distance to the nearest other center
+	private double[] halfDistanceToNearestCenter;
+
+	// For statistics
+	private long startTimestamp; // the start time of the latest execution
+	private long endTimestamp;  // the end time of the latest execution
+	private long iterationCount; // the number of iterations that was performed
+	private long distanceCount; // the number of distances between a vector and a center calculated
+
+	/**
+	 * Default constructor
+	 */
+	public AlgoKMeans_Fast() {
+
+	}
+
+	/**
+	 * Set the number of threads used to assign the vectors to the clusters (default: 1).
+	 * @param threadCount the number of threads
+	 */
+	public void setThreadCount(int threadCount) {
+		this.threadCount = threadCount;
+	}
+
+	/**
+	 * Set the seed of the random number generator, to obtain the same clusters
+	 * each time that the algorithm is run (by default, the current time is used).
+	 * @param seed the seed
+	 */
+	public void setSeed(long seed) {
+		random = new Random(seed);
+	}
+
+	/**
+	 * Run the K-Means algorithm
+	 * @param inputFile an input file path containing a list of vectors of double values
+	 * @param k the parameter k
+	 * @return a list of clusters (some of them may be empty, and the list is empty
+	 *         if the file contains no vector)
+	 * @throws IOException exception if an error while reading the file occurs
+	 */
+	public List<Cluster> runAlgorithm(String inputFile, int k) throws NumberFormatException, IOException {
+		// record the start time
+		startTimestamp =  System.currentTimeMillis();
+		// reset the statistics
+		iterationCount = 0;
+		distanceCount = 0;
+		MemoryLogger.getInstance().reset();
+		this.k = k;
+
+		// read the vectors from the input file
+		readVectors(inputFile);
+
+		// Create a list of clusters
+		clusters = new ArrayList<Cluster>();
+
+		// SPECIAL CASE: If there is no vector, there is no cluster
+		if (vectorCount == 0) {
+			endTimestamp =  System.currentTimeMillis();
+			return clusters;
+		}
+
+		// SPECIAL CASE: If only one vector
+		if (vectorCount == 1) {
+			// Create a single cluster and return it
+			Cluster cluster = new Cluster(dimension);
+			cluster.addVector(new DoubleArray(Arrays.copyOf(data, dimension)));
+			clusters.add(cluster);
+			endTimestamp =  System.currentTimeMillis();
+			return clusters;
+		}
+
+		// (1) Choose the initial cluster centers with k-means++
+		chooseInitialCenters();
+
+		ExecutorService executor = null;
+		if (threadCount > 1) {
+			executor = Executors.newFixedThreadPool(threadCount, new ThreadFactory() {
+				public Thread newThread(Runnable runnable) {
+					// the threads should not prevent the program from exiting
+					Thread thread = new Thread(runnable);
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+
+		try {
+			// the vectors are divided in one part per thread
+			int partCount = Math.max(1, Math.min(threadCount, vectorCount));
+			int partSize = (vectorCount + partCount - 1) / partCount;
+			partCount = (vectorCount + partSize - 1) / partSize;
+
+			// the sums of the vectors of each cluster calculated for each part
+			double[][] partSums = new double[partCount][k * dimension];
+			int[][] partCounts = new int[partCount][k];
+
+			// (2) Repeat the two next steps until the assignment hasn't changed
+			assignment = new int[vectorCount];
+			upperBounds = new double[vectorCount];
+			lowerBounds = new double[vectorCount];
+			halfDistanceToNearestCenter = new double[k];
+			double[] newCenters = new double[k * dimension];
+			double[] centerMoves = new double[k];
+			while (true) {
+				iterationCount++;
+
+				// (2.1) Assign each point to the nearest cluster center.
+				// The first time, all the distances are calculated.
+				calculateHalfDistancesBetweenCenters();
+				int changed = assignVectors(executor, partSize, partCount, iterationCount == 1,
+						partSums, partCounts);
+
+				// check the memory usage
+				MemoryLogger.getInstance().checkMemory();
+
+				if (changed == 0 && iterationCount > 1) {     // exit condition for main loop
+					break;
+				}
+
+				// (2.2) Recompute the new cluster means from the sums calculated for each part
+				Arrays.fill(newCenters, 0);
+				for (int j = 0; j < k; j++) {
+					int count = 0;
+					for (int part = 0; part < partCount; part++) {
+						count += partCounts[part][j];
+						for (int x = j * dimension; x < (j + 1) * dimension; x++) {
+							newCenters[x] += partSums[part][x];
+						}
+					}
+					if (count == 0) {
+						// an empty cluster keeps its center
+						System.arraycopy(centers, j * dimension, newCenters, j * dimension, dimension);
+					} else {
+						for (int x = j * dimension; x < (j + 1) * dimension; x++) {
+							newCenters[x] /= count;
+						}
+					}
+					// calculate how much the center has moved
+					centerMoves[j] = distance(centers, j * dimension, newCenters, j * dimension);
+				}
+				double[] temp = centers;
+				centers = newCenters;
+				newCenters = temp;
+
+				// (2.3) Update the bounds of the vectors using how much the centers have moved
+				updateBounds(centerMoves);
+			}
+		} finally {
+			if (executor != null) {
+				executor.shutdownNow();
+			}
+		}
+
+		// create the clusters
+		for (int j = 0; j < k; j++) {
+			Cluster cluster = new Cluster(dimension);
+			cluster.setMean(new DoubleArray(Arrays.copyOfRange(centers, j * dimension, (j + 1) * dimension)));
+			clusters.add(cluster);
+		}
+		for (int i = 0; i < vectorCount; i++) {
+			clusters.get(assignment[i]).addVector(
+					new DoubleArray(Arrays.copyOfRange(data, i * dimension, (i + 1) * dimension)));
+		}
+
+		// release the memory
+		data = null;
+		upperBounds = null;
+		lowerBounds = null;
+
+		// check memory usage
+		MemoryLogger.getInstance().checkMemory();
+
+		// record end time
+		endTimestamp =  System.currentTimeMillis();
+
+		// return the clusters
+		return clusters;
+	}
+
+	/**
+	 * Read the vectors of an input file.
+	 * @param inputFile the input file path
+	 * @throws IOException exception if an error while reading the file occurs
+	 */
+	private void readVectors(String inputFile) throws IOException {
+		data = new double[1024];
+		vectorCount = 0;
+		dimension = -1;
+		int size = 0;
+
+		BufferedReader reader = new BufferedReader(new FileReader(inputFile));
+		String line;
+		// for each line until the end of the file
+		while (((line = reader.readLine()) != null)) {
+			// if the line is  a comment, is  empty or is a
+			// kind of metadata
+			if (line.isEmpty() == true ||
+					line.charAt(0) == '#' || line.charAt(0) == '%'
+							|| line.charAt(0) == '@') {
+				continue;
+			}
+			// split the line by spaces
+			String[] lineSplited = line.split(" ");
+			if (dimension == -1) {
+				dimension = lineSplited.length;
+			} else if (lineSplited.length != dimension) {
+				reader.close();
+				throw new IOException("All the vectors should have the same size: " + line);
+			}
+			// enlarge the matrix if needed
+			if (size + dimension > data.length) {
+				data = Arrays.copyOf(data, Math.max(data.length * 2, size + dimension));
+			}
+			// add the values of the vector
+			for (int i = 0; i < dimension; i++) {
+				data[size++] = Double.parseDouble(lineSplited[i]);
+			}
+			vectorCount++;
+		}
+		// close the file
+		reader.close();
+	}
+
+	/**
+	 * Choose the initial cluster centers with the k-means++ method. The first center
+	 * is a random vector. Then, each center is a vector chosen randomly with a
+	 * probability proportional to its squared distance to the nearest center already chosen.
+	 */
+	private void chooseInitialCenters() {
+		centers = new double[k * dimension];
+		// the squared distance from each vector to the nearest center
+		double[] squaredDistances = new double[vectorCount];
+		Arrays.fill(squaredDistances, Double.MAX_VALUE);
+
+		int chosen = random.nextInt(vectorCount);
+		for (int j = 0; j < k; j++) {
+			System.arraycopy(data, chosen * dimension, centers, j * dimension, dimension);
+			if (j == k - 1) {
+				break;
+			}
+			// update the distances to the nearest center
+			double total = 0;
+			for (int i = 0; i < vectorCount; i++) {
+				double squaredDistance = squaredDistance(data, i * dimension, centers, j * dimension);
+				if (squaredDistance < squaredDistances[i]) {
+					squaredDistances[i] = squaredDistance;
+				}
+				total += squaredDistances[i];
+			}
+			// choose the next center
+			if (total == 0) {
+				// all the vectors are centers already
+				chosen = random.nextInt(vectorCount);
+				continue;
+			}
+			double threshold = random.nextDouble() * total;
+			chosen = vectorCount - 1;
+			for (int i = 0; i < vectorCount; i++) {
+				threshold -= squaredDistances[i];
+				if (threshold < 0) {
+					chosen = i;
+					break;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Calculate, for each center, half the distance to the nearest other center.
+	 * A vector whose distance to its center is less than this value cannot be
+	 * nearer to another center.
+	 */
+	private void calculateHalfDistancesBetweenCenters() {
+		Arrays.fill(halfDistanceToNearestCenter, Double.MAX_VALUE);
+		for (int j = 0; j < k; j++) {
+			for (int j2 = j + 1; j2 < k; j2++) {
+				double half = distance(centers, j * dimension, centers, j2 * dimension) / 2;
+				if (half < halfDistanceToNearestCenter[j]) {
+					halfDistanceToNearestCenter[j] = half;
+				}
+				if (half < halfDistanceToNearestCenter[j2]) {
+					halfDistanceToNearestCenter[j2] = half;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Assign each vector to its nearest cluster center and calculate the sum of the
+	 * vectors of each cluster, for each part of the vectors.
+	 * @param executor the threads used or null if there is a single thread
+	 * @param partSize the number of vectors in a part
+	 * @param partCount the number of parts
+	 * @param first true if it is the first assignment (there are no bounds yet)
+	 * @param partSums the sum of the vectors of each cluster for each part
+	 * @param partCounts the number of vectors of each cluster for each part
+	 * @return the number of vectors that have changed of cluster
+	 */
+	private int assignVectors(ExecutorService executor, int partSize, int partCount,
+			final boolean first, final double[][] partSums, final int[][] partCounts) {
+		if (executor == null) {
+			return assignVectors(0, vectorCount, first, partSums[0], partCounts[0]);
+		}
+		// each part is assigned by a thread
+		List<Future<Integer>> results = new ArrayList<Future<Integer>>(partCount);
+		for (int part = 0; part < partCount; part++) {
+			final int index = part;
+			final int start = part * partSize;
+			final int end = Math.min(vectorCount, start + partSize);
+			results.add(executor.submit(new Callable<Integer>() {
+				public Integer call() {
+					return assignVectors(start, end, first, partSums[index], partCounts[index]);
+				}
+			}));
+		}
+		int changed = 0;
+		try {
+			for (Future<Integer> result : results) {
+				changed += result.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new RuntimeException(e.getCause());
+		}
+		return changed;
+	}
+
+	/**
+	 * Assign the vectors of a part to their nearest cluster center and calculate the sum
+	 * of the vectors of each cluster for this part.
+	 * @param start the first vector of the part
+	 * @param end the last vector of the part (exclusive)
+	 * @param first true if it is the first assignment (there are no bounds yet)
+	 * @param sums the sum of the vectors of each cluster (row-major)
+	 * @param counts the number of vectors of each cluster
+	 * @return the number of vectors that have changed of cluster
+	 */
+	private int assignVectors(int start, int end, boolean first, double[] sums, int[] counts) {
+		Arrays.fill(sums, 0);
+		Arrays.fill(counts, 0);
+		int changed = 0;
+		long distances = 0;
+		for (int i = start; i < end; i++) {
+			int cluster = assignment[i];
+			if (first || upperBounds[i] > Math.max(halfDistanceToNearestCenter[cluster], lowerBounds[i])) {
+				// the bounds do not show that the vector is nearer to its center than
+				// to the other centers. We first tighten the upper bound.
+				if (!first) {
+					upperBounds[i] = distance(data, i * dimension, centers, cluster * dimension);
+					distances++;
+				}
+				if (first || upperBounds[i] > Math.max(halfDistanceToNearestCenter[cluster], lowerBounds[i])) {
+					// Then, we calculate the distances to all the centers to find
+					// the nearest and second nearest centers
+					double nearest = Double.MAX_VALUE;
+					double secondNearest = Double.MAX_VALUE;
+					int nearestCluster = cluster;
+					for (int j = 0; j < k; j++) {
+						double distance = distance(data, i * dimension, centers, j * dimension);
+						if (distance < nearest) {
+							secondNearest = nearest;
+							nearest = distance;
+							nearestCluster = j;
+						} else if (distance < secondNearest) {
+							secondNearest = distance;
+						}
+					}
+					distances += k;
+					if (nearestCluster != cluster || first) {
+						assignment[i] = nearestCluster;
+						changed++;
+					}
+					upperBounds[i] = nearest;
+					lowerBounds[i] = secondNearest;
+				}
+			}
+			// add the vector to the sum of its cluster
+			int offset = assignment[i] * dimension;
+			int position = i * dimension;
+			for (int x = 0; x < dimension; x++) {
+				sums[offset + x] += data[position + x];
+			}
+			counts[assignment[i]]++;
+		}
+		addDistanceCount(distances);
+		return changed;
+	}
+
+	/**
+	 * Add to the number of distances calculated.
+	 * @param distances the number of distances
+	 */
+	private synchronized void addDistanceCount(long distances) {
+		distanceCount += distances;
+	}
+
+	/**
+	 * Update the bounds of the vectors after the centers have moved.
+	 * The upper bound of a vector increases by the distance moved by its center, and
+	 * the lower bound decreases by the largest distance moved by another center.
+	 * @param centerMoves the distance moved by each center
+	 */
+	private void updateBounds(double[] centerMoves) {
+		// find the two centers that have moved the most
+		int largest = 0;
+		double secondLargestMove = 0;
+		for (int j = 1; j < k; j++) {
+			if (centerMoves[j] > centerMoves[largest]) {
+				secondLargestMove = centerMoves[largest];
+				largest = j;
+			} else if (centerMoves[j] > secondLargestMove) {
+				secondLargestMove = centerMoves[j];
+			}
+		}
+		for (int i = 0; i < vectorCount; i++) {
+			int cluster = assignment[i];
+			upperBounds[i] += centerMoves[cluster];
+			lowerBounds[i] -= (cluster == largest) ? secondLargestMove : centerMoves[largest];
+		}
+	}
+
+	/**
+	 * Calculate the euclidean distance between two vectors stored in arrays.
+	 * @param vectors1 the array containing the first vector
+	 * @param offset1 the position of the first vector
+	 * @param vectors2 the array containing the second vector
+	 * @param offset2 the position of the second vector
+	 * @return the distance
+	 */
+	private double distance(double[] vectors1, int offset1, double[] vectors2, int offset2) {
+		return Math.sqrt(squaredDistance(vectors1, offset1, vectors2, offset2));
+	}
+
+	/**
+	 * Calculate the squared euclidean distance between two vectors stored in arrays.
+	 * @param vectors1 the array containing the first vector
+	 * @param offset1 the position of the first vector
+	 * @param vectors2 the array containing the second vector
+	 * @param offset2 the position of the second vector
+	 * @return the squared distance
+	 */
+	private double squaredDistance(double[] vectors1, int offset1, double[] vectors2, int offset2) {
+		double sum = 0;
+		for (int x = 0; x < dimension; x++) {
+			double difference = vectors1[offset1 + x] - vectors2[offset2 + x];
+			sum += difference * difference;
+		}
+		return sum;
+	}
+
+	/**
+	 * Print statistics of the latest execution to System.out.
+	 */
+	public void printStatistics() {
+		System.out.println("========== KMEANS (FAST) - STATS ============");
+		System.out.println(" Total time ~: " + (endTimestamp - startTimestamp)
+				+ " ms");
+		System.out.println(" Max memory:" + MemoryLogger.getInstance().getMaxMemory() + " mb ");
+		System.out.println(" Iteration count: " + iterationCount);
+		System.out.println(" Distance calculations: " + distanceCount);
+		System.out.println("=====================================");
+	}
+
+	/**
+	 * Save the clusters to an output file
+	 * @param output the output file path
+	 * @throws IOException exception if there is some writing error.
+	 */
+	public void saveToFile(String output) throws IOException {
+		BufferedWriter writer = new BufferedWriter(new FileWriter(output));
+		// for each cluster
+		for(int i=0; i< clusters.size(); i++){
+			// if the cluster is not empty
+			if(clusters.get(i).getVectors().size() >= 1){
+				// write the cluster
+				writer.write(clusters.get(i).toString());
+				// if not the last cluster, add a line return
+				if(i < clusters.size()-1){
+					writer.newLine();
+				}
+			}
+		}
+		// close the file
+		writer.close();
+	}
+}
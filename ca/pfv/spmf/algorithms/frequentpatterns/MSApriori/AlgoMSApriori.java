@@ -30,6 +30,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
+import ca.pfv.spmf.algorithms.frequentpatterns.apriori.ParallelSupportCounter;
 import ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemset;
 import ca.pfv.spmf.tools.MemoryLogger;
 
@@ -70,6 +71,9 @@ public class AlgoMSApriori {
 	// object to write the output file
 	BufferedWriter writer = null;
 
+	// the number of threads used to calculate the support of the candidates
+	private int threadCount = 1;
+
 	/**
 	 * Constructor
 	 */
@@ -236,72 +240,87 @@ public class AlgoMSApriori {
 		// Now, the algorithm will discover itemset of size k > 1 starting from k=2
 		List<Itemset> level = null;
 		k = 2;
+		// the object to calculate the support of the candidates with several threads
+		ParallelSupportCounter counter = new ParallelSupportCounter(threadCount);
 		// Generate candidates and test them for k>1 by inscreasing k at each iteration
 		// until no candidates can be generated
-		do {
-			// check the memory usage
-			MemoryLogger.getInstance().checkMemory();
+		try{
+			do {
+				// check the memory usage
+				MemoryLogger.getInstance().checkMemory();
 			
-			// Generate candidates of size K
-			List<Itemset> candidatesK;
-
-			// Generate candidates
-			if (k == 2) {
-				// if k=2 we use an optimization for candidate generation
-				candidatesK = generateCandidate2(F, mapItemCount);
-			} else {
-				// otherwise, we use the general procedure for candidate generation
-				candidatesK = generateCandidateSizeK(level);
-			}
+				// Generate candidates of size K
+				List<Itemset> candidatesK;
 
-			// We scan the database one time to calculate the support
-			// of each candidates and keep those with higher suport.
-			
-			// for each transaction
-			for (Integer[] transaction : database) {
-				// for each candidate
-				loopCand: for (Itemset candidate : candidatesK) {
-					// We will check if the candidate is contained in the transaction by
-					// looking for each item one by one starting from pos =0.
-					int pos = 0;
-					// for each item in the transaction
-					for (int item : transaction) {
-						// if we have found the item at position pos
-						if (item == candidate.get(pos)) {
-							// search the next item from the candidate
-							pos++;
-							// if all items have been found
-							if (pos == candidate.size()) {
-								// then increase the support count of the candidate
-								candidate.increaseTransactionCount();
-								continue loopCand;
+				// Generate candidates
+				if (k == 2) {
+					// if k=2 we use an optimization for candidate generation
+					candidatesK = generateCandidate2(F, mapItemCount);
+				} else {
+					// otherwise, we use the general procedure for candidate generation
+					candidatesK = generateCandidateSizeK(level);
+				}
+
+				// We scan the database one time to calculate the support
+				// of each candidates and keep those with higher suport.
+				// The transactions are split between the threads.
+				final List<Itemset> candidates = candidatesK;
+				int[] supports = counter.countSupports(database, candidatesK.size(),
+						new ParallelSupportCounter.TransactionCounter<Integer[]>() {
+					public void countTransaction(Integer[] transaction, int[] supports) {
+						// for each candidate
+						loopCand: for (int id = 0; id < supports.length; id++) {
+							Itemset candidate = candidates.get(id);
+							// We will check if the candidate is contained in the transaction by
+							// looking for each item one by one starting from pos =0.
+							int pos = 0;
+							// for each item in the transaction
+							for (int item : transaction) {
+								// if we have found the item at position pos
+								if (item == candidate.get(pos)) {
+									// search the next item from the candidate
+									pos++;
+									// if all items have been found
+									if (pos == candidate.size()) {
+										// then increase the support count of the candidate
+										supports[id]++;
+										continue loopCand;
+									}
+								// because of the total order, if the item at position pos is larger 
+								// than the current item in the transaction we can stop checking
+								// this candidate because it will not be contained in the transaction.
+								} else if (itemComparator.compare(item, candidate.get(pos)) > 0){   // pfv 
+									continue loopCand;
+								}
 							}
-						// because of the total order, if the item at position pos is larger 
-						// than the current item in the transaction we can stop checking
-						// this candidate because it will not be contained in the transaction.
-						} else if (itemComparator.compare(item, candidate.get(pos)) > 0){   // pfv 
-							continue loopCand;
 						}
 					}
+				});
+				// update the support of the candidates
+				for (int id = 0; id < supports.length; id++) {
+					candidatesK.get(id).support += supports[id];
 				}
-			}
 
-			// We build the level k+1 with all the candidates that have
-			// a support higher than MIS[0]
-			level = new ArrayList<Itemset>();
-			// for each candidate
-			for (Itemset candidate : candidatesK) {
-				// if its support is higher than the MIS of the first item 
-				// (because they are sorted by MIS order)
-				if (candidate.getAbsoluteSupport() >= MIS[candidate.get(0)]) {
-					// add it to the next level of candidate
-					level.add(candidate);
-					// save the itemset to the file
-					saveItemsetToFile(candidate);
+				// We build the level k+1 with all the candidates that have
+				// a support higher than MIS[0]
+				level = new ArrayList<Itemset>();
+				// for each candidate
+				for (Itemset candidate : candidatesK) {
+					// if its support is higher than the MIS of the first item 
+					// (because they are sorted by MIS order)
+					if (candidate.getAbsoluteSupport() >= MIS[candidate.get(0)]) {
+						// add it to the next level of candidate
+						level.add(candidate);
+						// save the itemset to the file
+						saveItemsetToFile(candidate);
+					}
 				}
-			}
-			k++;
-		} while (level.isEmpty() == false);
+				k++;
+			} while (level.isEmpty() == false);
+		}finally{
+			// stop the threads even if an exception occurred
+			counter.shutdown();
+		}
 
 		// record the end time
 		endTimestamp = System.currentTimeMillis();
@@ -498,6 +517,15 @@ public class AlgoMSApriori {
 		itemsetCount++;
 	}
 
+	/**
+	 * Set the number of threads to be used for calculating the support of the candidates.
+	 * With more than one thread, the transactions are split between the threads.
+	 * @param threadCount the number of threads (default: 1)
+	 */
+	public void setThreadCount(int threadCount) {
+		this.threadCount = threadCount;
+	}
+
 	/**
 	 * Print statistics about the latest execution of the algorithm to System.out.
 	 */
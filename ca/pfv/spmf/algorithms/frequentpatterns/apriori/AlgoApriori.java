@@ -15,12 +15,11 @@ package ca.pfv.spmf.algorithms.frequentpatterns.apriori;
 * You should have received a copy of the GNU General Public License along with
 * SPMF. If not, see <http://www.gnu.org/licenses/>.
 */
-import java.io.BufferedReader;
 import java.io.BufferedWriter;
-import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -28,7 +27,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
-import ca.pfv.spmf.algorithms.ArraysAlgos;
+import ca.pfv.spmf.input.reader.TransactionFileReader;
 import ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemset;
 import ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemsets;
 import ca.pfv.spmf.tools.MemoryLogger;
@@ -83,6 +82,9 @@ public class AlgoApriori {
 	// object to write the output file (if the user wants to write to a file)
 	BufferedWriter writer = null; 
 	
+	// the number of threads used to calculate the support of the candidates
+	private int threadCount = 1;
+	
 	/**
 	 * Default constructor
 	 */
@@ -130,29 +132,15 @@ public class AlgoApriori {
 		database = new ArrayList<int[]>(); // the database in memory (intially empty)
 		
 		// scan the database to load it into memory and count the support of each single item at the same time
-		BufferedReader reader = new BufferedReader(new FileReader(input));
-		String line;
+		TransactionFileReader reader = new TransactionFileReader(input);
 		// for each line (transactions) until the end of the file
-		while (((line = reader.readLine()) != null)) { 
-			// if the line is  a comment, is  empty or is a
-			// kind of metadata
-			if (line.isEmpty() == true ||
-					line.charAt(0) == '#' || line.charAt(0) == '%'
-							|| line.charAt(0) == '@') {
-				continue;
-			}
-			// split the line according to spaces
-			String[] lineSplited = line.split(" ");
-			
+		while (reader.nextTransaction()) { 
 			// create an array of int to store the items in this transaction
-			int transaction[] = new int[lineSplited.length];
+			int transaction[] = Arrays.copyOf(reader.getValues(), reader.getLength());
 			
 			// for each item in this line (transaction)
-			for (int i=0; i< lineSplited.length; i++) { 
-				// transform this item from a string to an integer
-				Integer item = Integer.parseInt(lineSplited[i]);
-				// store the item in the memory representation of the database
-				transaction[i] = item;
+			for (int i=0; i< transaction.length; i++) { 
+				Integer item = transaction[i];
 				// increase the support count
 				Integer count = mapItemCount.get(item);
 				if (count == null) {
@@ -212,78 +200,60 @@ public class AlgoApriori {
 		// The loop will stop when no candidates can be generated.
 		List<Itemset> level = null;
 		k = 2;
-		do{
-			// we check the memory usage
-			MemoryLogger.getInstance().checkMemory();
-			
-			// Generate candidates of size K
-			List<Itemset> candidatesK;
-			
-			// if we are at level k=2, we use an optimization to generate candidates
-			if(k ==2){
-				candidatesK = generateCandidate2(frequent1);
-			}else{
-			// otherwise we use the regular way to generate candidates
-				candidatesK = generateCandidateSizeK(level);
+		// the object to calculate the support of the candidates with several threads
+		ParallelSupportCounter counter = new ParallelSupportCounter(threadCount);
+		// the prefix trie storing the frequent itemsets of size k-1 and the candidates of size k
+		CandidateTrie<Itemset> trie = new CandidateTrie<Itemset>();
+		for(Integer item : frequent1){
+			trie.addItemset(new int[]{item}, null);
+		}
+		// the method to create a candidate (all its subsets are frequent)
+		CandidateTrie.CandidateFactory<Itemset> factory = new CandidateTrie.CandidateFactory<Itemset>() {
+			public Itemset createCandidate(int[] itemset, List<Itemset> subsets) {
+				return new Itemset(itemset);
 			}
+		};
+		try{
+			do{
+				// we check the memory usage
+				MemoryLogger.getInstance().checkMemory();
+			
+				// Generate candidates of size K by joining the itemsets of size k-1
+				// that have the same parent in the trie
+				List<Itemset> candidatesK = trie.generateCandidates(factory);
 			
-			// we add the number of candidates generated to the total
-			totalCandidateCount += candidatesK.size();
+				// we add the number of candidates generated to the total
+				totalCandidateCount += candidatesK.size();
 
-			// We scan the database one time to calculate the support
-			// of each candidates and keep those with higher suport.
-			// For each transaction:
-			for(int[] transaction: database){
-				// NEW OPTIMIZATION 2013: Skip transactions shorter than k!
-				if(transaction.length < k) {
-//					System.out.println("test");
-					continue;
-				}
-				// END OF NEW OPTIMIZATION
-				
-				// for each candidate:
-	 loopCand:	for(Itemset candidate : candidatesK){
-		 			// a variable that will be use to check if 
-		 			// all items of candidate are in this transaction
-					int pos = 0;
-					// for each item in this transaction
-					for(int item: transaction){
-						// if the item correspond to the current item of candidate
-						if(item == candidate.itemset[pos]){
-							// we will try to find the next item of candidate next
-							pos++;
-							// if we found all items of candidate in this transaction
-							if(pos == candidate.itemset.length){
-								// we increase the support of this candidate
-								candidate.support++;
-								continue loopCand;
-							}
-					    // Because of lexical order, we don't need to 
-						// continue scanning the transaction if the current item
-						// is larger than the one that we search  in candidate.
-						}else if(item > candidate.itemset[pos]){
-							continue loopCand;
-						}
-						
-					}
-				}
-			}
+				// We scan the database one time to calculate the support
+				// of each candidates and keep those with higher suport.
+				// The transactions are split between the threads
+				// (NEW OPTIMIZATION 2013: transactions shorter than k are skipped).
+				counter.countSupport(database, trie);
 
-			// We build the level k+1 with all the candidates that have
-			// a support higher than the minsup threshold.
-			level = new ArrayList<Itemset>();
-			for (Itemset candidate : candidatesK) {
-				// if the support is > minsup
-				if (candidate.getAbsoluteSupport() >= minsupRelative) {
-					// add the candidate
-					level.add(candidate);
-					// the itemset is frequent so save it into results
-					saveItemset(candidate);
+				// We build the level k+1 with all the candidates that have
+				// a support higher than the minsup threshold.
+				level = new ArrayList<Itemset>();
+				for (int id = 0; id < candidatesK.size(); id++) {
+					Itemset candidate = candidatesK.get(id);
+					// if the support is > minsup
+					if (candidate.getAbsoluteSupport() >= minsupRelative) {
+						// add the candidate
+						level.add(candidate);
+						// the itemset is frequent so save it into results
+						saveItemset(candidate);
+					}else{
+						// otherwise it is not used to generate the next candidates
+						trie.removeCandidate(id);
+					}
 				}
-			}
-			// we will generate larger itemsets next.
-			k++;
-		}while(level.isEmpty() == false);
+				// we will generate larger itemsets next.
+				k++;
+			}while(level.isEmpty() == false);
+		}finally{
+			// stop the threads even if an exception occurred
+			counter.shutdown();
+		}
 
 		// record end time
 		endTimestamp = System.currentTimeMillis();
@@ -306,125 +276,6 @@ public class AlgoApriori {
 		return databaseSize;
 	}
 
-	/**
-	 * This method generates candidates itemsets of size 2 based on
-	 * itemsets of size 1.
-	 * @param frequent1  the list of frequent itemsets of size 1.
-	 * @return a List of Itemset that are the candidates of size 2.
-	 */
-	private List<Itemset> generateCandidate2(List<Integer> frequent1) {
-		List<Itemset> candidates = new ArrayList<Itemset>();
-		
-		// For each itemset I1 and I2 of level k-1
-		for (int i = 0; i < frequent1.size(); i++) {
-			Integer item1 = frequent1.get(i);
-			for (int j = i + 1; j < frequent1.size(); j++) {
-				Integer item2 = frequent1.get(j);
-
-				// Create a new candidate by combining itemset1 and itemset2
-				candidates.add(new Itemset(new int []{item1, item2}));
-			}
-		}
-		return candidates;
-	}
-
-	/**
-	 * Method to generate itemsets of size k from frequent itemsets of size K-1.
-	 * @param levelK_1  frequent itemsets of size k-1
-	 * @return itemsets of size k
-	 */
-	protected List<Itemset> generateCandidateSizeK(List<Itemset> levelK_1) {
-		// create a variable to store candidates
-		List<Itemset> candidates = new ArrayList<Itemset>();
-
-		// For each itemset I1 and I2 of level k-1
-		loop1: for (int i = 0; i < levelK_1.size(); i++) {
-			int[] itemset1 = levelK_1.get(i).itemset;
-			loop2: for (int j = i + 1; j < levelK_1.size(); j++) {
-				int[] itemset2 = levelK_1.get(j).itemset;
-
-				// we compare items of itemset1 and itemset2.
-				// If they have all the same k-1 items and the last item of
-				// itemset1 is smaller than
-				// the last item of itemset2, we will combine them to generate a
-				// candidate
-				for (int k = 0; k < itemset1.length; k++) {
-					// if they are the last items
-					if (k == itemset1.length - 1) {
-						// the one from itemset1 should be smaller (lexical
-						// order)
-						// and different from the one of itemset2
-						if (itemset1[k] >= itemset2[k]) {
-							continue loop1;
-						}
-					}
-					// if they are not the last items, and
-					else if (itemset1[k] < itemset2[k]) {
-						continue loop2; // we continue searching
-					} else if (itemset1[k] > itemset2[k]) {
-						continue loop1; // we stop searching: because of lexical
-										// order
-					}
-				}
-
-				// Create a new candidate by combining itemset1 and itemset2
-				int newItemset[] = new int[itemset1.length+1];
-				System.arraycopy(itemset1, 0, newItemset, 0, itemset1.length);
-				newItemset[itemset1.length] = itemset2[itemset2.length -1];
-
-				// The candidate is tested to see if its subsets of size k-1 are
-				// included in
-				// level k-1 (they are frequent).
-				if (allSubsetsOfSizeK_1AreFrequent(newItemset, levelK_1)) {
-					candidates.add(new Itemset(newItemset));
-				}
-			}
-		}
-		return candidates; // return the set of candidates
-	}
-
-	/**
-	 * Method to check if all the subsets of size k-1 of a candidate of size k are freuqnet
-	 * @param candidate a candidate itemset of size k
-	 * @param levelK_1  the frequent itemsets of size k-1
-	 * @return true if all the subsets are frequet
-	 */
-	protected boolean allSubsetsOfSizeK_1AreFrequent(int[] candidate, List<Itemset> levelK_1) {
-		// generate all subsets by always each item from the candidate, one by one
-		for(int posRemoved=0; posRemoved< candidate.length; posRemoved++){
-
-			// perform a binary search to check if  the subset appears in  level k-1.
-	        int first = 0;
-	        int last = levelK_1.size() - 1;
-	       
-	        // variable to remember if we found the subset
-	        boolean found = false;
-	        // the binary search
-	        while( first <= last )
-	        {
-	        	int middle = ( first + last ) >>1 ; // >>1 means to divide by 2
-
-	        	int comparison = ArraysAlgos.sameAs(levelK_1.get(middle).getItems(), candidate, posRemoved);
-	            if(comparison < 0 ){
-	            	first = middle + 1;  //  the itemset compared is larger than the subset according to the lexical order
-	            }
-	            else if(comparison  > 0 ){
-	            	last = middle - 1; //  the itemset compared is smaller than the subset  is smaller according to the lexical order
-	            }
-	            else{
-	            	found = true; //  we have found it so we stop
-	                break;
-	            }
-	        }
-
-			if(found == false){  // if we did not find it, that means that candidate is not a frequent itemset because
-				// at least one of its subsets does not appear in level k-1.
-				return false;
-			}
-		}
-		return true;
-	}
-
 	 void saveItemset(Itemset itemset) throws IOException {
 		itemsetCount++;
 		
@@ -454,6 +305,16 @@ public class AlgoApriori {
 		}
 	}
 	
+	/**
+	 * Set the number of threads to be used for calculating the support of the candidates.
+	 * With more than one thread, the transactions are split between the threads and each
+	 * thread counts the candidates in its own array of supports.
+	 * @param threadCount the number of threads (default: 1)
+	 */
+	public void setThreadCount(int threadCount) {
+		this.threadCount = threadCount;
+	}
+
 	/**
 	 * Print statistics about the algorithm execution to System.out.
 	 */
@@ -0,0 +1,415 @@
+package ca.pfv.spmf.algorithms.frequentpatterns.apriori;
+/* This file is copyright (c) 2008-2013 Philippe Fournier-Viger
+*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+*
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class is a prefix trie that stores the candidates of the current level of an
+ * Apriori-based algorithm (itemsets of size k). Each node represents an itemset, which is
+ * the item of the node appended to the itemset of its parent, and the candidates are
+ * the nodes at depth k (the leaves). The children of a node are stored in arrays sorted
+ * by item, so that a child is found by binary search.
+ * <br/><br/>
+ *
+ * The trie is used as follows:
+ * <ul>
+ * <li>the itemsets of size 1 (or the frequent itemsets of a level) are added by addItemset(),</li>
+ * <li>the support of the candidates is counted by countTransaction(), which walks down the trie
+ * and the transaction at the same time, instead of checking each candidate one by one,</li>
+ * <li>the infrequent candidates are removed by removeCandidate(),</li>
+ * <li>the candidates of the next level are generated by generateCandidates(). A candidate is
+ * generated by joining two sibling leaves (two itemsets of size k having the same k-1 first
+ * items) and its other subsets of size k are searched by walking down the trie.</li>
+ * </ul>
+ *
+ * Each candidate of the current level has an id, which is its position in the list returned by
+ * getCandidates(). The candidates are sorted by lexical order in that list. Each candidate
+ * has an object attached to it (for example an Itemset), which is created by
+ * a CandidateFactory given by the algorithm.
+ * <br/><br/>
+ *
+ * The items of the itemsets and of the transactions must be sorted by lexical order.
+ * This class is used by AlgoApriori, AlgoAprioriClose, AlgoAprioriRare, AlgoAprioriInverse,
+ * AlgoPASCAL and AlgoUApriori.
+ *
+ * @param <T> the type of the objects attached to the candidates
+ * @see AlgoApriori
+ * @see ParallelSupportCounter
+ * @author Philippe Fournier-Viger
+ */
+public class CandidateTrie<T> implements ParallelSupportCounter.TransactionCounter<int[]> {
+
+	/**
+	 * The method that creates the object attached to a new candidate.
+	 * @param <T> the type of the objects attached to the candidates
+	 */
+	public interface CandidateFactory<T> {
+		/**
+		 * Create the object attached to a new candidate of size k. This method is called
+		 * only if all the subsets of size k-1 of the candidate are in the trie.
+		 * @param itemset the items of the candidate (a new array)
+		 * @param subsets the objects attached to the subsets of size k-1 of the candidate, where
+		 *          the subset at position i is the candidate without its item at position i
+		 * @return the object or null if the candidate should not be kept
+		 */
+		T createCandidate(int[] itemset, List<T> subsets);
+	}
+
+	/**
+	 * A node of the trie.
+	 */
+	class Node {
+		// the items of the children, by increasing order
+		int[] items = null;
+		// the children
+		Node[] children = null;
+		// the number of children
+		int childCount = 0;
+		// the object attached to the node if it is a candidate
+		T candidate = null;
+		// the id of the candidate (its position in the list of candidates)
+		int id = -1;
+		// true if the candidate has been removed
+		boolean removed = false;
+
+		/**
+		 * Add a child to this node. It must have the largest item of the children.
+		 * @param item the item of the child
+		 * @return the child
+		 */
+		Node addChild(int item) {
+			if(children == null){
+				items = new int[2];
+				children = newNodeArray(2);
+			}else if(childCount == children.length){
+				items = Arrays.copyOf(items, childCount * 2);
+				children = Arrays.copyOf(children, childCount * 2);
+			}
+			Node child = new Node();
+			items[childCount] = item;
+			children[childCount] = child;
+			childCount++;
+			return child;
+		}
+
+		/**
+		 * Create an array of nodes (the array has no type argument, since arrays of
+		 * a generic type cannot be created).
+		 * @param size the size of the array
+		 * @return the array
+		 */
+		@SuppressWarnings("unchecked")
+		private Node[] newNodeArray(int size) {
+			return (Node[]) new CandidateTrie<?>.Node[size];
+		}
+
+		/**
+		 * Get the child of this node for an item.
+		 * @param item the item
+		 * @return the child or null if there is none
+		 */
+		Node getChild(int item) {
+			int position = Arrays.binarySearch(items, 0, childCount, item);
+			return position >= 0 ? children[position] : null;
+		}
+	}
+
+	// the root of the trie (the empty itemset)
+	private final Node root = new Node();
+
+	// the size of the candidates of the current level (the depth of the leaves)
+	private int depth = 0;
+
+	// the candidates of the current level by id
+	private List<Node> leaves = new ArrayList<Node>();
+	private List<T> candidates = new ArrayList<T>();
+
+	/**
+	 * Add an itemset to the current level. The itemsets must all have the same size
+	 * and must be added by lexical order.
+	 * @param itemset the itemset
+	 * @param candidate the object attached to the itemset
+	 */
+	public void addItemset(int[] itemset, T candidate) {
+		depth = itemset.length;
+		Node node = root;
+		for(int item : itemset){
+			// because of the lexical order, the child is the last one if it exists
+			if(node.childCount > 0 && node.items[node.childCount - 1] == item){
+				node = node.children[node.childCount - 1];
+			}else{
+				node = node.addChild(item);
+			}
+		}
+		node.candidate = candidate;
+		node.id = leaves.size();
+		leaves.add(node);
+		candidates.add(candidate);
+	}
+
+	/**
+	 * Get the candidates of the current level, sorted by lexical order.
+	 * @return the list of candidates, where the position of a candidate is its id
+	 */
+	public List<T> getCandidates() {
+		return candidates;
+	}
+
+	/**
+	 * Get the number of candidates of the current level, including those that were removed.
+	 * @return the number of candidates
+	 */
+	public int getCandidateCount() {
+		return leaves.size();
+	}
+
+	/**
+	 * Remove a candidate of the current level, so that it is not used to generate the
+	 * candidates of the next level.
+	 * @param id the id of the candidate
+	 */
+	public void removeCandidate(int id) {
+		leaves.get(id).removed = true;
+	}
+
+	/**
+	 * Generate the candidates of the next level from the candidates of the current level
+	 * that were not removed. The candidates of the next level replace those of the current level.
+	 * @param factory the method to create the objects attached to the new candidates
+	 * @return the new candidates sorted by lexical order (the position of a candidate is its id)
+	 */
+	public List<T> generateCandidates(CandidateFactory<T> factory) {
+		// remove the candidates that were removed and the nodes that have no candidates anymore
+		prune(root, 0);
+
+		leaves = new ArrayList<Node>();
+		candidates = new ArrayList<T>();
+		if(depth > 0){
+			generateCandidates(root, 0, new int[depth + 1], new ArrayList<T>(depth + 1), factory);
+		}
+		depth++;
+		return candidates;
+	}
+
+	/**
+	 * Remove the candidates that were removed and the nodes that have no candidates
+	 * below them (this method is called recursively).
+	 * @param node the current node
+	 * @param nodeDepth the depth of the node
+	 * @return true if the node should be kept
+	 */
+	private boolean prune(Node node, int nodeDepth) {
+		if(nodeDepth == depth){
+			return node.removed == false;
+		}
+		int kept = 0;
+		for(int i = 0; i < node.childCount; i++){
+			if(prune(node.children[i], nodeDepth + 1)){
+				node.items[kept] = node.items[i];
+				node.children[kept] = node.children[i];
+				kept++;
+			}
+		}
+		// clear the references to the removed children
+		for(int i = kept; i < node.childCount; i++){
+			node.children[i] = null;
+		}
+		node.childCount = kept;
+		return kept > 0;
+	}
+
+	/**
+	 * Generate the candidates of the next level that have the itemset of a node as
+	 * prefix (this method is called recursively).
+	 * @param node the current node
+	 * @param nodeDepth the depth of the node
+	 * @param itemset a buffer containing the itemset of the node
+	 * @param subsets a buffer to store the objects attached to the subsets of a candidate
+	 * @param factory the method to create the objects attached to the new candidates
+	 */
+	private void generateCandidates(Node node, int nodeDepth, int[] itemset, List<T> subsets,
+			CandidateFactory<T> factory) {
+		// if the node is not the parent of the leaves, continue with its children
+		if(nodeDepth < depth - 1){
+			for(int i = 0; i < node.childCount; i++){
+				itemset[nodeDepth] = node.items[i];
+				generateCandidates(node.children[i], nodeDepth + 1, itemset, subsets, factory);
+			}
+			return;
+		}
+		// for each pair of leaves having this node as parent
+		for(int i = 0; i < node.childCount; i++){
+			Node leaf1 = node.children[i];
+			itemset[nodeDepth] = node.items[i];
+	loop2:	for(int j = i + 1; j < node.childCount; j++){
+				Node leaf2 = node.children[j];
+				itemset[nodeDepth + 1] = node.items[j];
+
+				// check that the subsets obtained by removing an item of the prefix
+				// are in the trie (the two other subsets are leaf1 and leaf2)
+				subsets.clear();
+				for(int posRemoved = 0; posRemoved < nodeDepth; posRemoved++){
+					Node subset = findSubset(itemset, posRemoved);
+					if(subset == null){
+						continue loop2;
+					}
+					subsets.add(subset.candidate);
+				}
+				subsets.add(leaf2.candidate);
+				subsets.add(leaf1.candidate);
+
+				// create the candidate and add it as a child of leaf1
+				T candidate = factory.createCandidate(itemset.clone(), subsets);
+				if(candidate != null){
+					Node newLeaf = leaf1.addChild(itemset[nodeDepth + 1]);
+					newLeaf.candidate = candidate;
+					newLeaf.id = leaves.size();
+					leaves.add(newLeaf);
+					candidates.add(candidate);
+				}
+			}
+		}
+		// the subsets of the candidates that will be generated next do not have this node
+		// as prefix, so the objects attached to its children are not needed anymore
+		for(int i = 0; i < node.childCount; i++){
+			node.children[i].candidate = null;
+		}
+	}
+
+	/**
+	 * Find the leaf representing an itemset of the current level, obtained by removing
+	 * an item from a candidate of the next level.
+	 * @param itemset the candidate of the next level
+	 * @param posRemoved the position of the item to be removed
+	 * @return the leaf or null if it is not in the trie
+	 */
+	private Node findSubset(int[] itemset, int posRemoved) {
+		Node node = root;
+		for(int i = 0; i < itemset.length; i++){
+			if(i != posRemoved){
+				node = node.getChild(itemset[i]);
+				if(node == null){
+					return null;
+				}
+			}
+		}
+		return node;
+	}
+
+	/**
+	 * Increase the support count of the candidates contained in a transaction.
+	 * Several threads can call this method at the same time with different arrays.
+	 * @param transaction the transaction (items sorted by lexical order)
+	 * @param supports the support counts, where the position of a candidate is its id
+	 */
+	public void countTransaction(int[] transaction, int[] supports) {
+		// Skip transactions shorter than k!
+		if(depth > 0 && transaction.length >= depth){
+			countTransaction(root, 0, transaction, 0, supports);
+		}
+	}
+
+	/**
+	 * Increase the support count of the candidates contained in a transaction that
+	 * have the itemset of a node as prefix (this method is called recursively).
+	 * @param node the current node
+	 * @param nodeDepth the depth of the node
+	 * @param transaction the transaction
+	 * @param start the position of the first item of the transaction that can be a child of the node
+	 * @param supports the support counts
+	 */
+	private void countTransaction(Node node, int nodeDepth, int[] transaction, int start, int[] supports) {
+		if(nodeDepth == depth){
+			supports[node.id]++;
+			return;
+		}
+		// a node that did not generate candidates has no children
+		if(node.childCount == 0){
+			return;
+		}
+		// the last position of the transaction that leaves enough items to reach the leaves
+		int last = transaction.length - depth + nodeDepth;
+		// the items of the transaction and of the children are both sorted,
+		// so we scan them at the same time
+		int j = 0;
+		for(int i = start; i <= last; i++){
+			int item = transaction[i];
+			while(node.items[j] < item){
+				j++;
+				if(j == node.childCount){
+					return;
+				}
+			}
+			if(node.items[j] == item){
+				countTransaction(node.children[j], nodeDepth + 1, transaction, i + 1, supports);
+			}
+		}
+	}
+
+	/**
+	 * Increase the expected support of the candidates contained in a transaction of an
+	 * uncertain database. The expected support of a candidate in a transaction is the product
+	 * of the existential probabilities of its items.
+	 * @param transaction the items of the transaction (sorted by lexical order)
+	 * @param probabilities the existential probability of each item of the transaction
+	 * @param supports the expected supports, where the position of a candidate is its id
+	 */
+	public void countTransaction(int[] transaction, double[] probabilities, double[] supports) {
+		if(depth > 0 && transaction.length >= depth){
+			countTransaction(root, 0, transaction, probabilities, 0, 1d, supports);
+		}
+	}
+
+	/**
+	 * Increase the expected support of the candidates contained in a transaction that
+	 * have the itemset of a node as prefix (this method is called recursively).
+	 * @param node the current node
+	 * @param nodeDepth the depth of the node
+	 * @param transaction the items of the transaction
+	 * @param probabilities the existential probability of each item of the transaction
+	 * @param start the position of the first item of the transaction that can be a child of the node
+	 * @param probability the product of the probabilities of the items of the node's itemset
+	 * @param supports the expected supports
+	 */
+	private void countTransaction(Node node, int nodeDepth, int[] transaction, double[] probabilities,
+			int start, double probability, double[] supports) {
+		if(nodeDepth == depth){
+			supports[node.id] += probability;
+			return;
+		}
+		if(node.childCount == 0){
+			return;
+		}
+		int last = transaction.length - depth + nodeDepth;
+		int j = 0;
+		for(int i = start; i <= last; i++){
+			int item = transaction[i];
+			while(node.items[j] < item){
+				j++;
+				if(j == node.childCount){
+					return;
+				}
+			}
+			if(node.items[j] == item){
+				countTransaction(node.children[j], nodeDepth + 1, transaction, probabilities,
+						i + 1, probability * probabilities[i], supports);
+			}
+		}
+	}
+}
@@ -0,0 +1,177 @@
+package ca.pfv.spmf.algorithms.frequentpatterns.apriori;
+/* This file is copyright (c) 2008-2013 Philippe Fournier-Viger
+*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+*
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemset;
+
+/**
+ * This class calculates the support of the candidates of a level of an Apriori-based
+ * algorithm by scanning the transactions of a database with several threads.
+ * <br/><br/>
+ *
+ * The list of transactions is split into one partition per thread. Each thread counts the
+ * candidates contained in the transactions of its partition in its own array of support
+ * counts (the position of a candidate in this array is its id). The arrays of the threads
+ * are then added by the calling thread. Because each thread only writes in its own array,
+ * the candidates are not modified by several threads.
+ * <br/><br/>
+ *
+ * With a single thread, the transactions are scanned by the calling thread.
+ * The candidates of an algorithm using a CandidateTrie are counted by the trie.
+ * This class is used by AlgoApriori, AlgoAprioriHT, AlgoAprioriClose, AlgoAprioriRare,
+ * AlgoAprioriInverse and AlgoMSApriori.
+ *
+ * @see AlgoApriori
+ * @author Philippe Fournier-Viger
+ */
+public class ParallelSupportCounter {
+
+	/**
+	 * The method that counts the candidates contained in a transaction.
+	 * @param <T> the type of a transaction
+	 */
+	public interface TransactionCounter<T> {
+		/**
+		 * Increase the support count of the candidates contained in a transaction.
+		 * This method is called by several threads at the same time, so it should
+		 * only modify the array given as parameter.
+		 * @param transaction the transaction
+		 * @param supports the support counts, where the position of a candidate is its id
+		 */
+		void countTransaction(T transaction, int[] supports);
+	}
+
+	// the number of threads
+	private final int threadCount;
+
+	// the pool of threads (created the first time that it is used)
+	private ExecutorService executor = null;
+
+	/**
+	 * Constructor
+	 * @param threadCount the number of threads used to scan the database
+	 */
+	public ParallelSupportCounter(int threadCount) {
+		this.threadCount = Math.max(1, threadCount);
+	}
+
+	/**
+	 * Calculate the support count of some candidates.
+	 * @param database the list of transactions
+	 * @param candidateCount the number of candidates (the ids are 0, 1 ... candidateCount -1)
+	 * @param counter the method for counting the candidates contained in a transaction
+	 * @return the support count of each candidate
+	 */
+	public <T> int[] countSupports(final List<T> database, final int candidateCount,
+			final TransactionCounter<T> counter) {
+		// if there is a single thread or few transactions, the calling thread does all the work
+		if(threadCount == 1 || database.size() < threadCount){
+			int[] supports = new int[candidateCount];
+			for(T transaction : database){
+				counter.countTransaction(transaction, supports);
+			}
+			return supports;
+		}
+
+		if(executor == null){
+			executor = Executors.newFixedThreadPool(threadCount, new ThreadFactory() {
+				public Thread newThread(Runnable runnable) {
+					// the threads should not prevent the program from exiting
+					Thread thread = new Thread(runnable);
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+
+		// split the transactions into one partition per thread
+		List<Future<int[]>> results = new ArrayList<Future<int[]>>(threadCount);
+		int partitionSize = (database.size() + threadCount - 1) / threadCount;
+		for(int start = 0; start < database.size(); start += partitionSize){
+			final List<T> partition = database.subList(start, Math.min(start + partitionSize, database.size()));
+			results.add(executor.submit(new Callable<int[]>() {
+				public int[] call() {
+					// count the candidates in the partition
+					int[] supports = new int[candidateCount];
+					for(T transaction : partition){
+						counter.countTransaction(transaction, supports);
+					}
+					return supports;
+				}
+			}));
+		}
+
+		// add the support counts of the partitions
+		int[] supports = null;
+		try{
+			for(Future<int[]> result : results){
+				int[] partitionSupports = result.get();
+				if(supports == null){
+					supports = partitionSupports;
+				}else{
+					for(int i = 0; i < candidateCount; i++){
+						supports[i] += partitionSupports[i];
+					}
+				}
+			}
+		}catch(InterruptedException e){
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		}catch(ExecutionException e){
+			if(e.getCause() instanceof RuntimeException){
+				throw (RuntimeException) e.getCause();
+			}
+			throw new RuntimeException(e.getCause());
+		}
+		return supports;
+	}
+
+	/**
+	 * Calculate the support of the candidates stored in a prefix trie, where each candidate
+	 * and each transaction is an array of items sorted by lexical order. The support of each
+	 * candidate is increased by the number of transactions containing it.
+	 * @param database the list of transactions
+	 * @param trie the trie containing the candidates
+	 */
+	public void countSupport(List<int[]> database, CandidateTrie<? extends Itemset> trie) {
+		int[] supports = countSupports(database, trie.getCandidateCount(), trie);
+		// update the support of the candidates
+		List<? extends Itemset> candidates = trie.getCandidates();
+		for(int id = 0; id < supports.length; id++){
+			candidates.get(id).support += supports[id];
+		}
+	}
+
+	/**
+	 * Stop the threads used by this object. It should be called when the algorithm
+	 * has finished using it.
+	 */
+	public void shutdown() {
+		if(executor != null){
+			executor.shutdown();
+			executor = null;
+		}
+	}
+}
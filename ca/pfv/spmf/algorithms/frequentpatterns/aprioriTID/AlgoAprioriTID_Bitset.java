@@ -30,6 +30,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
+import ca.pfv.spmf.datastructures.roaringbitmap.RoaringBitmap;
 import ca.pfv.spmf.patterns.itemset_array_integers_with_tids_bitset.Itemset;
 import ca.pfv.spmf.tools.MemoryLogger;
 
@@ -73,6 +74,14 @@ public class AlgoAprioriTID_Bitset {
 	private int itemsetCount;
 	private int tidcount = 0;
 
+	// if true, the tidsets are stored as compressed bitmaps (RoaringBitmap) instead of BitSets
+	private boolean useCompressedBitmaps = false;
+	// the tidsets of items if compressed bitmaps are used
+	Map<Integer, RoaringBitmap> mapItemCompressedTIDS;
+	// the tidsets of the itemsets of the current level if compressed bitmaps
+	// are used (in the same order as the itemsets)
+	private List<RoaringBitmap> levelCompressedTIDS;
+
 	/**
 	 * Default constructor
 	 */
@@ -96,6 +105,8 @@ public class AlgoAprioriTID_Bitset {
 		// (each line is a transaction)
 		mapItemTIDS = new HashMap<Integer, BitSet>(); 
 		// key : item   value: tidset of the item as a bitset
+		mapItemCompressedTIDS = new HashMap<Integer, RoaringBitmap>();
+		// key : item   value: tidset of the item as a compressed bitmap
 		
 		BufferedReader reader = new BufferedReader(new FileReader(input));
 		String line;
@@ -119,6 +130,15 @@ public class AlgoAprioriTID_Bitset {
 				// convert from string to integer
 				int item = Integer.parseInt(stringItem);
 				// update the tidset of the item
+				if (useCompressedBitmaps) {
+					RoaringBitmap tids = mapItemCompressedTIDS.get(item);
+					if (tids == null) {
+						tids = new RoaringBitmap();
+						mapItemCompressedTIDS.put(item, tids);
+					}
+					tids.set(tidcount);
+					continue;
+				}
 				BitSet tids = mapItemTIDS.get(item);
 				if (tids == null) {
 					tids = new BitSet();
@@ -140,6 +160,23 @@ public class AlgoAprioriTID_Bitset {
 		// candidate.
 		k = 1;
 		List<Itemset> level = new ArrayList<Itemset>();
+		if (useCompressedBitmaps) {
+			// the tidsets of frequent items are compressed and the others are removed
+			Iterator<Entry<Integer, RoaringBitmap>> iterator = mapItemCompressedTIDS.entrySet().iterator();
+			while (iterator.hasNext()) {
+				Entry<Integer, RoaringBitmap> entry = iterator.next();
+				int cardinality = entry.getValue().cardinality();
+				if (cardinality >= minSuppRelative) {
+					entry.getValue().runOptimize();
+					Itemset itemset = new Itemset(entry.getKey());
+					itemset.setTIDs(null, cardinality);
+					level.add(itemset);
+					saveItemsetToFile(itemset);
+				} else {
+					iterator.remove();
+				}
+			}
+		}
 		// For each item
 		Iterator<Entry<Integer, BitSet>> iterator = mapItemTIDS.entrySet()
 				.iterator();
@@ -170,6 +207,12 @@ public class AlgoAprioriTID_Bitset {
 				return o1.get(0) - o2.get(0);
 			}
 		});
+		if (useCompressedBitmaps) {
+			levelCompressedTIDS = new ArrayList<RoaringBitmap>();
+			for (Itemset itemset : level) {
+				levelCompressedTIDS.add(mapItemCompressedTIDS.get(itemset.get(0)));
+			}
+		}
 
 		// Generate candidates with size k = 1 (all itemsets of size 1)
 		k = 2;
@@ -198,6 +241,8 @@ public class AlgoAprioriTID_Bitset {
 			throws IOException {
 		// create a variable to store candidates
 		List<Itemset> candidates = new ArrayList<Itemset>();
+		// and their tidsets if compressed bitmaps are used
+		List<RoaringBitmap> candidatesCompressedTIDS = new ArrayList<RoaringBitmap>();
 
 		// For each itemset I1 and I2 of level k-1
 		loop1: for (int i = 0; i < levelK_1.size(); i++) {
@@ -233,9 +278,18 @@ public class AlgoAprioriTID_Bitset {
 				Integer missing = itemset2.get(itemset2.size() - 1);
 
 				// create list of common tids
-				BitSet list = (BitSet) itemset1.getTransactionsIds().clone();
-				list.and(itemset2.getTransactionsIds());
-				int cardinality = list.cardinality();
+				BitSet list = null;
+				int cardinality;
+				if (useCompressedBitmaps) {
+					// the support is calculated without creating the tidset, which
+					// is only created if the candidate is frequent
+					cardinality = RoaringBitmap.andCardinality(levelCompressedTIDS.get(i),
+							levelCompressedTIDS.get(j));
+				} else {
+					list = (BitSet) itemset1.getTransactionsIds().clone();
+					list.and(itemset2.getTransactionsIds());
+					cardinality = list.cardinality();
+				}
 
 				if (cardinality >= minSuppRelative) {
 					// Create a new candidate by combining itemset1 and itemset2
@@ -244,12 +298,19 @@ public class AlgoAprioriTID_Bitset {
 					newItemset[itemset1.size()] = itemset2.getItems()[itemset2.size() -1];
 					Itemset candidate = new Itemset(newItemset);
 					candidate.setTIDs(list, cardinality);
+					if (useCompressedBitmaps) {
+						candidatesCompressedTIDS.add(RoaringBitmap.and(levelCompressedTIDS.get(i),
+								levelCompressedTIDS.get(j)));
+					}
 					
 					candidates.add(candidate);
 					saveItemsetToFile(candidate);
 				}
 			}
 		}
+		if (useCompressedBitmaps) {
+			levelCompressedTIDS = candidatesCompressedTIDS;
+		}
 		return candidates;
 	}
 
@@ -261,6 +322,17 @@ public class AlgoAprioriTID_Bitset {
 		this.maxItemsetSize = maxItemsetSize;
 	}
 
+	/**
+	 * Set whether the tidsets should be stored as compressed bitmaps (RoaringBitmap)
+	 * instead of BitSets (default: false). The size of a BitSet depends on the largest
+	 * tid that it contains, while the size of a compressed bitmap depends on the number
+	 * of tids, which uses much less memory for large sparse databases.
+	 * @param useCompressedBitmaps true to use compressed bitmaps
+	 */
+	public void setUseCompressedBitmaps(boolean useCompressedBitmaps) {
+		this.useCompressedBitmaps = useCompressedBitmaps;
+	}
+
 	/**
 	 * Save an itemset to the output file.
 	 * @param itemset the itemset to be saved
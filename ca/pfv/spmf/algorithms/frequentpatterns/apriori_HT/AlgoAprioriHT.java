@@ -16,12 +16,11 @@ package ca.pfv.spmf.algorithms.frequentpatterns.apriori_HT;
 * SPMF. If not, see <http://www.gnu.org/licenses/>.
 */
 
-import java.io.BufferedReader;
 import java.io.BufferedWriter;
-import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -29,7 +28,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
+import ca.pfv.spmf.algorithms.frequentpatterns.apriori.ParallelSupportCounter;
 import ca.pfv.spmf.algorithms.frequentpatterns.apriori_HT.ItemsetHashTree.LeafNode;
+import ca.pfv.spmf.input.reader.TransactionFileReader;
 import ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemset;
 import ca.pfv.spmf.tools.MemoryLogger;
 
@@ -81,6 +82,9 @@ public class AlgoAprioriHT {
 
 	// write to file
 	BufferedWriter writer = null;
+	
+	// the number of threads used to calculate the support of the candidates
+	private int threadCount = 1;
 
 	/**
 	 * Default constructor
@@ -121,30 +125,15 @@ public class AlgoAprioriHT {
 		database = new ArrayList<int[]>(); 
 		
 		// scan the database to load it into memory and count the support of each single item at the same time
-		BufferedReader reader = new BufferedReader(new FileReader(input));
-		String line;
+		TransactionFileReader reader = new TransactionFileReader(input);
 		 // for each line (transaction) of the input file until the end of file
-		while (((line = reader.readLine()) != null)) {
-			// if the line is  a comment, is  empty or is a
-			// kind of metadata
-			if (line.isEmpty() == true ||
-					line.charAt(0) == '#' || line.charAt(0) == '%'
-							|| line.charAt(0) == '@') {
-				continue;
-			}
-			
-			// split the line into items
-			String[] lineSplited = line.split(" ");
-			
+		while (reader.nextTransaction()) {
 			// create an array to store the items
-			int transaction[] = new int[lineSplited.length];
+			int transaction[] = Arrays.copyOf(reader.getValues(), reader.getLength());
 			
 			// for each item in the current transaction
-			for (int i=0; i< lineSplited.length; i++) {
-				// convert to integer
-				Integer item = Integer.parseInt(lineSplited[i]);
-				// add the item to the transaction
-				transaction[i] = item;
+			for (int i=0; i< transaction.length; i++) {
+				Integer item = transaction[i];
 				
 				// increase the support count of the item
 				Integer count = mapItemCount.get(item);
@@ -210,67 +199,82 @@ public class AlgoAprioriHT {
 		
 		// Create an hashtree for storing candidates for efficient support counting
 		ItemsetHashTree candidatesK = null;
-		do{
-			//check the memory usage
-			MemoryLogger.getInstance().checkMemory();
+		// the object to calculate the support of the candidates with several threads
+		ParallelSupportCounter counter = new ParallelSupportCounter(threadCount);
+		try{
+			do{
+				//check the memory usage
+				MemoryLogger.getInstance().checkMemory();
 			
-			// Generate candidates of size K
-			if(k ==2){
-				// if K=2, use an optimized version of candidate generation
-				candidatesK = generateCandidate2(frequent1);
-			}else{
-				// Otherwise use the regular candidate generation procedure
-				candidatesK = generateCandidateSizeK(candidatesK, k);
-			}
+				// Generate candidates of size K
+				if(k ==2){
+					// if K=2, use an optimized version of candidate generation
+					candidatesK = generateCandidate2(frequent1);
+				}else{
+					// Otherwise use the regular candidate generation procedure
+					candidatesK = generateCandidateSizeK(candidatesK, k);
+				}
 			
-			// if no candidates were generated, we stop the algorithm
-			if(candidatesK.candidateCount ==0 ){
-				break;
-			}
+				// if no candidates were generated, we stop the algorithm
+				if(candidatesK.candidateCount ==0 ){
+					break;
+				}
 			
-			// we keep the total number of candidates generated until now
-			// for statistics purposes
-			totalCandidateCount += candidatesK.candidateCount;
+				// we keep the total number of candidates generated until now
+				// for statistics purposes
+				totalCandidateCount += candidatesK.candidateCount;
 
-			// We scan the database one time to calculate the support
-			// of each candidates and keep those with higher support.
-			// This is done efficiently because the candidates are stored in a hash-tree.
-			for(int[] transaction: database){
-				// NEW OPTIMIZATION 2013: Skip transactions shorter than k!
-				if(transaction.length >= k) {
-					candidatesK.updateSupportCount(transaction);
-				}
-				// END OF NEW OPTIMIZATION
-			}
+				// We scan the database one time to calculate the support
+				// of each candidates and keep those with higher support.
+				// This is done efficiently because the candidates are stored in a hash-tree.
+				// The transactions are split between the threads and each thread counts
+				// the candidates in its own array of support counts.
+				final ItemsetHashTree tree = candidatesK;
+				final int size = k;
+				int[] supports = counter.countSupports(database, candidatesK.candidateCount,
+						new ParallelSupportCounter.TransactionCounter<int[]>() {
+					public void countTransaction(int[] transaction, int[] supports) {
+						// NEW OPTIMIZATION 2013: Skip transactions shorter than k!
+						if(transaction.length >= size) {
+							tree.updateSupportCount(transaction, supports);
+						}
+						// END OF NEW OPTIMIZATION
+					}
+				});
+				candidatesK.addSupportCounts(supports);
 
-			// We next save to file all the candidates that have a support 
-			// higher than the minsup threshold and remove those who does'nt.
+				// We next save to file all the candidates that have a support 
+				// higher than the minsup threshold and remove those who does'nt.
 			
-			// for each leaf node in the hash-tree
-			for(LeafNode node  = candidatesK.lastInsertedNode;node != null; node = node.nextLeafNode){
-				// for each list of candidate itemsets stored in that node
-				for(List<Itemset> listCandidate: node.candidates){
-					// if the list is not null
-					if(listCandidate != null){
-						// for each candidate itemset
-						for(int i=0; i<listCandidate.size(); i++){
-							Itemset candidate = listCandidate.get(i);
-							// if enough support, save the itemset
-							if (candidate.getAbsoluteSupport() >= minsupRelative) {
-								saveItemsetToFile(candidate);
-							}else{
-								// otherwise remove it
-								listCandidate.remove(i);  
+				// for each leaf node in the hash-tree
+				for(LeafNode node  = candidatesK.lastInsertedNode;node != null; node = node.nextLeafNode){
+					// for each list of candidate itemsets stored in that node
+					for(List<Itemset> listCandidate: node.candidates){
+						// if the list is not null
+						if(listCandidate != null){
+							// for each candidate itemset
+							for(int i=0; i<listCandidate.size(); i++){
+								Itemset candidate = listCandidate.get(i);
+								// if enough support, save the itemset
+								if (candidate.getAbsoluteSupport() >= minsupRelative) {
+									saveItemsetToFile(candidate);
+								}else{
+									// otherwise remove it
+									listCandidate.remove(i);  
+								}
 							}
-						}
-					}	
-				}
+						}	
+					}
 				
-			}
-			// continue recursively if some new itemsets were generated
-			// during the current iteration
-			k++;
-		}while(previousItemsetCount != itemsetCount);
+				}
+				// continue recursively if some new itemsets were generated
+				// during the current iteration
+				k++;
+			}while(previousItemsetCount != itemsetCount);
+		}finally{
+			// stop the threads even if an exception occurred
+			counter.shutdown();
+		}
 
 		// save endtime
 		endTimestamp = System.currentTimeMillis();
@@ -448,6 +452,16 @@ public class AlgoAprioriHT {
 	
 
 
+	/**
+	 * Set the number of threads to be used for calculating the support of the candidates.
+	 * With more than one thread, the transactions are split between the threads and each
+	 * thread counts the candidates of the hash-tree in its own array of supports.
+	 * @param threadCount the number of threads (default: 1)
+	 */
+	public void setThreadCount(int threadCount) {
+		this.threadCount = threadCount;
+	}
+
 	/**
 	 * Method to print statistics about the execution of the algorithm.
 	 */
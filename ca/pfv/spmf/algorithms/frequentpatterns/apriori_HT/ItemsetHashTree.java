@@ -17,6 +17,7 @@ package ca.pfv.spmf.algorithms.frequentpatterns.apriori_HT;
 */
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import ca.pfv.spmf.algorithms.ArraysAlgos;
@@ -89,6 +90,15 @@ public class ItemsetHashTree {
 				((LeafNode)node).candidates[branchIndex] = list;
 			}
 			list.add(itemset);
+			// remember the id of the itemset (its insertion order), at the same position
+			int[] ids = ((LeafNode)node).candidateIds[branchIndex];
+			if(ids == null){
+				ids = new int[4];
+			}else if(list.size() > ids.length){
+				ids = Arrays.copyOf(ids, ids.length * 2);
+			}
+			ids[list.size() - 1] = candidateCount - 1;
+			((LeafNode)node).candidateIds[branchIndex] = ids;
 		}else{
 			Node nextNode = ((InnerNode)node).childs[branchIndex];
 			if(nextNode == null){
@@ -125,6 +135,9 @@ public class ItemsetHashTree {
 	class LeafNode extends Node{
 		// contains a list of list of candidates
 		final List<Itemset> [] candidates = new ArrayList[branch_count];
+		// the ids of the candidates, at the same positions as in the lists of candidates
+		// (they are not updated if candidates are removed from the lists)
+		final int [][] candidateIds = new int[branch_count][];
 		// a pointer to the leaf node that was created just before this one.
 		// It is used to navigate quickly between leaves.
 		LeafNode nextLeafNode = null;
@@ -136,7 +149,40 @@ public class ItemsetHashTree {
 	 * @param transaction the transaction.
 	 */
 	public void updateSupportCount(int[] transaction) {
-		updateSupportCount(transaction, root, 0, new int[]{});
+		updateSupportCount(transaction, root, 0, new int[]{}, null);
+	}
+
+	/**
+	 * This method increase the support count of all itemsets contained in the hash-tree
+	 * that are contained in a transaction, in an array of support counts instead of in the itemsets.
+	 * Several threads can call this method at the same time with different arrays.
+	 * @param transaction the transaction.
+	 * @param supports the support counts, where the position of an itemset is its id
+	 *           (0 for the first itemset inserted in the tree, 1 for the second one...)
+	 */
+	public void updateSupportCount(int[] transaction, int[] supports) {
+		updateSupportCount(transaction, root, 0, new int[]{}, supports);
+	}
+
+	/**
+	 * This method adds support counts calculated by updateSupportCount(int[], int[])
+	 * to the support of the itemsets in the hash-tree.
+	 * It must be called before removing itemsets from the tree.
+	 * @param supports the support counts, where the position of an itemset is its id
+	 */
+	public void addSupportCounts(int[] supports) {
+		// for each leaf node
+		for(LeafNode node = lastInsertedNode; node != null; node = node.nextLeafNode){
+			// for each list of candidates of the leaf node
+			for(int i = 0; i < branch_count; i++){
+				List<Itemset> listCandidates = node.candidates[i];
+				if(listCandidates != null){
+					for(int j = 0; j < listCandidates.size(); j++){
+						listCandidates.get(j).support += supports[node.candidateIds[i][j]];
+					}
+				}
+			}
+		}
 	}
 
 	/**
@@ -146,8 +192,9 @@ public class ItemsetHashTree {
 	 * @param node the current node that is explored
 	 * @param firstPositionToCheck the current position in the transaction to be explored
 	 * @param prefix the current prefix that is being explored
+	 * @param supports the array of support counts to update, or null to update the itemsets
 	 */
-	private void updateSupportCount(int[] transaction, InnerNode node, int firstPositionToCheck, int [] prefix) {
+	private void updateSupportCount(int[] transaction, InnerNode node, int firstPositionToCheck, int [] prefix, int[] supports) {
 		// the index of the last item in the transaction
 		int lastPosition = transaction.length -1;
 		// the index of the last item that can be the first item in lexical order of an itemset in the transaction
@@ -169,7 +216,7 @@ public class ItemsetHashTree {
 				System.arraycopy(prefix, 0, newPrefix, 0, prefix.length);
 				newPrefix[prefix.length] = itemI;
 				// we call the method recursively
-				updateSupportCount(transaction, (InnerNode) nextNode, i+1, newPrefix);
+				updateSupportCount(transaction, (InnerNode) nextNode, i+1, newPrefix, supports);
 			}else{
 				// if the node is a leaf node
 				LeafNode theNode = (LeafNode) nextNode;
@@ -182,10 +229,15 @@ public class ItemsetHashTree {
 					// if the branch is not null
 					if(listCandidates != null){
 						// we check if the resulting itemset is in this branch.
-						for(Itemset candidate: listCandidates){
+						for(int c = 0; c < listCandidates.size(); c++){
+							Itemset candidate = listCandidates.get(c);
 							// if so, we increase its support count
 							if(sameAsPrefix(candidate.itemset, prefix, itemI, itemJ)){
-								candidate.support++;
+								if(supports == null){
+									candidate.support++;
+								}else{
+									supports[theNode.candidateIds[branchIndexNextNode][c]]++;
+								}
 							}
 						}
 					}
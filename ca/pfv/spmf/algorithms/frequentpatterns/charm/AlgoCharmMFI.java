@@ -19,7 +19,6 @@ package ca.pfv.spmf.algorithms.frequentpatterns.charm;
 import java.io.BufferedWriter;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.util.Iterator;
 import java.util.List;
 
 import ca.pfv.spmf.datastructures.triangularmatrix.TriangularMatrix;
@@ -47,7 +46,7 @@ import ca.pfv.spmf.patterns.itemset_array_integers_with_tids_bitset.Itemsets;
  * @see TransactionDatabase
  * @see Itemset
  * @see Itemsets
- * @see HashTable
+ * @see ClosedItemsetIndex
  * @see AlgoCharm_Bitset
  * @author Philippe Fournier-Viger
  */
@@ -64,6 +63,8 @@ public class AlgoCharmMFI {
 	protected Itemsets maximalItemsets;
 	/** object to write the output file */
 	BufferedWriter writer = null; 
+	/** the number of inclusion checks performed between two itemsets */
+	private long containmentCheckCount; 
 	
 	/**
 	 * Default constructor
@@ -93,6 +94,7 @@ public class AlgoCharmMFI {
 		
 		// record the start time of the algorithm
 		startTimestamp = System.currentTimeMillis();
+		containmentCheckCount = 0;
 
 		// get the size of the largest closed itemset.
 		int maxItemsetLength = frequentClosed.getLevels().size();
@@ -147,26 +149,41 @@ public class AlgoCharmMFI {
 	 * @param maximalItemsets the current set of maximal itemsets
 	 */
 	private void findMaximal(List<Itemset> ti, List<Itemset> tip1, Itemsets maximalItemsets) {
-		// for each itemset of j
-		for (Itemset itemsetJ : tip1) {
-			// iterates over the itemsets of size i
-			Iterator<Itemset> iter = ti.iterator();
-			while (iter.hasNext()) {
-				Itemset itemsetI = (Itemset) iter.next();
+		// the position where the next itemset of size i that is kept will be moved
+		int kept = 0;
+		// for each itemset of size i
+		for (int i = 0; i < ti.size(); i++) {
+			Itemset itemsetI = ti.get(i);
+			int[] itemsI = itemsetI.getItems();
+			int supportI = itemsetI.getAbsoluteSupport();
+			boolean maximal = true;
+			// iterates over the itemsets of size j
+			for (Itemset itemsetJ : tip1) {
+				// A superset cannot have a higher support, so in that case
+				// the items are not compared.
+				if (itemsetJ.getAbsoluteSupport() > supportI) {
+					continue;
+				}
+				containmentCheckCount++;
 				// if the current itemset of size i is contained
 				// in the current itemset of size J
-				if (itemsetJ.containsAll(itemsetI) ) {
-					// Then, it means that the itemset of size I is not maximal so we remove it
-					iter.remove();
-					// We decrease the current number of maximal itemsets.
-					maximalItemsets.decreaseItemsetCount();
-					// NOTE: IF WE WOULD LIKE TO MAKE THIS MORE EFFICIENT
-					// WE COULD USE LINKED-LIST TO STORE ITEMSETS 
-					// INSTEAD OF ARRAY LISTS.....
-					// THE COST FOR THE REMOVE OPERATION MAY BE SMALLER...
-				}	
+				int[] itemsJ = itemsetJ.getItems();
+				if (ClosedItemsetIndex.containsAll(itemsJ, 0, itemsJ.length, itemsI, itemsI.length)) {
+					maximal = false;
+					break;
+				}
+			}
+			if (maximal) {
+				// keep the itemset
+				ti.set(kept++, itemsetI);
+			} else {
+				// Then, it means that the itemset of size I is not maximal so we remove it.
+				// We decrease the current number of maximal itemsets.
+				maximalItemsets.decreaseItemsetCount();
 			}
 		}
+		// remove the itemsets that are not maximal (they are at the end of the list)
+		ti.subList(kept, ti.size()).clear();
 	}
 
 	/**
@@ -179,6 +196,7 @@ public class AlgoCharmMFI {
 				+ transactionCount);
 		System.out.println(" Frequent maximal itemsets count : "
 				+ maximalItemsets.getItemsetsCount());
+		System.out.println(" Inclusion checks : " + containmentCheckCount);
 		System.out.println(" Total time ~ " + temps + " ms");
 		System.out.println("===================================================");
 	}
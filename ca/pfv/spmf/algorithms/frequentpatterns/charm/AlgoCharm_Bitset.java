@@ -30,7 +30,9 @@ import java.util.Map;
 import java.util.Map.Entry;
 
 import ca.pfv.spmf.algorithms.ArraysAlgos;
+import ca.pfv.spmf.datastructures.roaringbitmap.RoaringBitmap;
 import ca.pfv.spmf.datastructures.triangularmatrix.TriangularMatrix;
+import ca.pfv.spmf.input.transaction_database_array_integers.CompactTransactionDatabase;
 import ca.pfv.spmf.input.transaction_database_list_integers.TransactionDatabase;
 import ca.pfv.spmf.patterns.itemset_array_integers_with_tids_bitset.Itemset;
 import ca.pfv.spmf.patterns.itemset_array_integers_with_tids_bitset.Itemsets;
@@ -65,6 +67,8 @@ public class AlgoCharm_Bitset {
 	private int minsupRelative;  
 	/** the transaction database **/
 	protected TransactionDatabase database; 
+	/** the number of transactions in the database **/
+	protected int databaseSize;
 
 	/**  start time of the last execution */
 	protected long startTimestamp;
@@ -84,8 +88,14 @@ public class AlgoCharm_Bitset {
 	/ itemsets of size 2.  */
 	private TriangularMatrix matrix; // the triangular matrix
 
-	/** The hash table for storing itemsets for closeness checking (an optimization) */
-	private HashTable hash;
+	/** The index for storing itemsets for closeness checking (an optimization) */
+	private ClosedItemsetIndex hash;
+
+	/** if true, the tidsets are stored as compressed bitmaps (RoaringBitmap) instead of BitSets */
+	private boolean useCompressedBitmaps = false;
+
+	/** a buffer for reading the tids of a compressed bitmap (to calculate the sum of its tids) */
+	private int[] tidBuffer;
 	
 	/**
 	 * Default constructor
@@ -101,12 +111,45 @@ public class AlgoCharm_Bitset {
 	 * @param output an output file path for writing the result or if null the result is saved into memory and returned
 	 * @param minsup the minimum support
 	 * @param useTriangularMatrixOptimization if true the triangular matrix optimization will be applied.
-	 * @param hashTableSize the size of the hashtable (e.g. 10,000).
+	 * @param hashTableSize the initial size of the hashtable (e.g. 10,000). It is enlarged if needed.
 	 * @return the set of closed itemsets found if the result is kept into memory or null otherwise.
 	 * @throws IOException exception if error while writing the file.
 	 */
 	public Itemsets runAlgorithm(String output, TransactionDatabase database, double minsup,
 			boolean useTriangularMatrixOptimization, int hashTableSize) throws IOException {
+		return runAlgorithm(output, database, null, minsup, useTriangularMatrixOptimization, hashTableSize);
+	}
+
+	/**
+	 * Run the algorithm on a transaction database stored in arrays. If the items of the
+	 * database were recoded, the itemsets found contain the recoded items.
+	 * @param database a transaction database
+	 * @param output an output file path for writing the result or if null the result is saved into memory and returned
+	 * @param minsup the minimum support
+	 * @param useTriangularMatrixOptimization if true the triangular matrix optimization will be applied.
+	 * @param hashTableSize the initial size of the hashtable (e.g. 10,000). It is enlarged if needed.
+	 * @return the set of closed itemsets found if the result is kept into memory or null otherwise.
+	 * @throws IOException exception if error while writing the file.
+	 */
+	public Itemsets runAlgorithm(String output, CompactTransactionDatabase database, double minsup,
+			boolean useTriangularMatrixOptimization, int hashTableSize) throws IOException {
+		return runAlgorithm(output, null, database, minsup, useTriangularMatrixOptimization, hashTableSize);
+	}
+
+	/**
+	 * Run the algorithm on one of the two kinds of transaction database.
+	 * @param database a transaction database (or null)
+	 * @param compactDatabase a transaction database stored in arrays (or null)
+	 * @param output an output file path for writing the result or if null the result is saved into memory and returned
+	 * @param minsup the minimum support
+	 * @param useTriangularMatrixOptimization if true the triangular matrix optimization will be applied.
+	 * @param hashTableSize the initial size of the hashtable (e.g. 10,000). It is enlarged if needed.
+	 * @return the set of closed itemsets found if the result is kept into memory or null otherwise.
+	 * @throws IOException exception if error while writing the file.
+	 */
+	private Itemsets runAlgorithm(String output, TransactionDatabase database, 
+			CompactTransactionDatabase compactDatabase, double minsup,
+			boolean useTriangularMatrixOptimization, int hashTableSize) throws IOException {
 
 		// Reset the tool to assess the maximum memory usage (for statistics)
 		MemoryLogger.getInstance().reset();
@@ -120,20 +163,22 @@ public class AlgoCharm_Bitset {
 			writer = new BufferedWriter(new FileWriter(output)); 
 		}
 		
-		// Create the hash table to store itemsets for closeness checking
-		this.hash = new HashTable(hashTableSize);
+		// Create the index to store itemsets for closeness checking
+		this.hash = new ClosedItemsetIndex(hashTableSize);
 
 		// reset the number of itemset found to 0
 		itemsetCount = 0;
 
 		this.database = database;
+		this.databaseSize = (database != null) ? database.size() : compactDatabase.size();
+		tidBuffer = useCompressedBitmaps ? new int[databaseSize] : null;
 		
 		// record the start time
 		startTimestamp = System.currentTimeMillis();
 		
 		// convert from an absolute minsup to a relative minsup by multiplying
 		// by the database size
-		this.minsupRelative = (int) Math.ceil(minsup * database.size());
+		this.minsupRelative = (int) Math.ceil(minsup * databaseSize);
 
 		// (1) First database pass : calculate tidsets of each item.
 		// This map will contain the tidset of each item
@@ -141,8 +186,12 @@ public class AlgoCharm_Bitset {
 		final Map<Integer, BitSetSupport> mapItemTIDS = new HashMap<Integer, BitSetSupport>();
 		// for each transaction
 		int maxItemId = 0;
-		maxItemId = calculateSupportSingleItems(database, mapItemTIDS,
-				maxItemId);
+		if(database != null) {
+			maxItemId = calculateSupportSingleItems(database, mapItemTIDS,
+					maxItemId);
+		}else {
+			maxItemId = calculateSupportSingleItems(compactDatabase, mapItemTIDS);
+		}
 
 		// If the user chose to use the triangular matrix optimization
 		// for counting the support of itemsets of size 2.
@@ -151,16 +200,20 @@ public class AlgoCharm_Bitset {
 			matrix = new TriangularMatrix(maxItemId + 1);
 			// for each transaction, take each itemset of size 2,
 			// and update the triangular matrix.
-			for (List<Integer> itemset : database.getTransactions()) {
-				Object[] array = itemset.toArray();
-				// for each item i in the transaction
-				for (int i = 0; i < itemset.size(); i++) {
-					Integer itemI = (Integer) array[i];
-					// compare with each other item j in the same transaction
-					for (int j = i + 1; j < itemset.size(); j++) {
-						Integer itemJ = (Integer) array[j];
-						// update the matrix count by 1 for the pair i, j
-						matrix.incrementCount(itemI, itemJ);
+			if(compactDatabase != null) {
+				compactDatabase.updateMatrix(matrix);
+			}else {
+				for (List<Integer> itemset : database.getTransactions()) {
+					Object[] array = itemset.toArray();
+					// for each item i in the transaction
+					for (int i = 0; i < itemset.size(); i++) {
+						Integer itemI = (Integer) array[i];
+						// compare with each other item j in the same transaction
+						for (int j = i + 1; j < itemset.size(); j++) {
+							Integer itemJ = (Integer) array[j];
+							// update the matrix count by 1 for the pair i, j
+							matrix.incrementCount(itemI, itemJ);
+						}
 					}
 				}
 			}
@@ -345,6 +398,36 @@ loopJ:		for(int j=i+1; j < frequentItems.size(); j++) {
 	}
 
 
+	/**
+	 * This method scans a database stored in arrays to calculate the support of each single item
+	 * @param database the transaction database
+	 * @param mapItemTIDS  a map to store the tidset corresponding to each item
+	 * @return the maximum item id appearing in this database
+	 */
+	private int calculateSupportSingleItems(CompactTransactionDatabase database,
+			final Map<Integer, BitSetSupport> mapItemTIDS) {
+		int[][] tidsets = database.calculateItemTidsets();
+		int maxItemId = 0;
+		for (int item = 0; item < tidsets.length; item++) {
+			// if the item appears in the database
+			if (tidsets[item].length > 0) {
+				BitSetSupport tidset = newBitSetSupport();
+				for (int tid : tidsets[item]) {
+					// we add the transaction id to the tidset of the item
+					tidset.set(tid);
+					// and to the sum of tids
+					tidset.tidSum += tid;
+				}
+				// the support of the item is the number of transactions containing it
+				tidset.support = tidsets[item].length;
+				tidset.runOptimize();
+				mapItemTIDS.put(item, tidset);
+				maxItemId = item;
+			}
+		}
+		return maxItemId;
+	}
+
 	private int calculateSupportSingleItems(TransactionDatabase database,
 			final Map<Integer, BitSetSupport> mapItemTIDS, int maxItemId) {
 		for (int i = 0; i < database.size(); i++) {
@@ -357,7 +440,7 @@ loopJ:		for(int j=i+1; j < frequentItems.size(); j++) {
 				BitSetSupport tids = mapItemTIDS.get(item);
 				// If no tidset, then we create one
 				if(tids == null){
-					tids = new BitSetSupport();
+					tids = newBitSetSupport();
 					mapItemTIDS.put(item, tids);
 					// we remember the largest item seen until now
 					if (item > maxItemId) {
@@ -365,11 +448,16 @@ loopJ:		for(int j=i+1; j < frequentItems.size(); j++) {
 					}
 				}
 				// we add the current transaction id to the tidset of the item
-				tids.bitset.set(i);
+				tids.set(i);
 				// we increase the support of that item
 				tids.support++;
+				// and we add the transaction id to the sum of tids
+				tids.tidSum += i;
 			}
 		}
+		for(BitSetSupport tids : mapItemTIDS.values()){
+			tids.runOptimize();
+		}
 		return maxItemId;
 	}
 
@@ -384,13 +472,11 @@ loopJ:		for(int j=i+1; j < frequentItems.size(); j++) {
 	private BitSetSupport performANDFirstTime(BitSetSupport tidsetI,
 			BitSetSupport tidsetJ, int supportIJ) {
 		// Create the new tidset and perform the logical AND to intersect the tidset
-		BitSetSupport bitsetSupportIJ = new BitSetSupport();
-		bitsetSupportIJ.bitset = (BitSet)tidsetI.bitset.clone();
-		bitsetSupportIJ.bitset.and(tidsetJ.bitset);
-		// set the support as the support provided as parameter
-		bitsetSupportIJ.support = supportIJ;
-		// return the new tidset
-		return bitsetSupportIJ;
+		if(useCompressedBitmaps){
+			return performANDCompressed(tidsetI, tidsetJ);
+		}
+		// the support is counted again in the same pass as the sum of tids
+		return performANDWords(tidsetI, tidsetJ);
 	}
 
 	/**
@@ -402,14 +488,75 @@ loopJ:		for(int j=i+1; j < frequentItems.size(); j++) {
 	private BitSetSupport performAND(BitSetSupport tidsetI,
 			BitSetSupport tidsetJ) {
 		// Create the new tidset and perform the logical AND to intersect the tidset
+		if(useCompressedBitmaps){
+			return performANDCompressed(tidsetI, tidsetJ);
+		}
+		return performANDWords(tidsetI, tidsetJ);
+	}
+
+	/**
+	 * Perform the intersection of two tidsets stored as words. The support and the sum
+	 * of tids (used to perform the closeness check) are calculated from each word of
+	 * the new tidset as it is written.
+	 * @param tidsetI the first tidset
+	 * @param tidsetJ the second tidset
+	 * @return the resulting tidset and its support
+	 */
+	private BitSetSupport performANDWords(BitSetSupport tidsetI,
+			BitSetSupport tidsetJ) {
 		BitSetSupport bitsetSupportIJ = new BitSetSupport();
-		bitsetSupportIJ.bitset = (BitSet)tidsetI.bitset.clone();
-		bitsetSupportIJ.bitset.and(tidsetJ.bitset);
-		// set the support as the cardinality of the new tidset
-		bitsetSupportIJ.support = bitsetSupportIJ.bitset.cardinality();
+		long[] wordsI = tidsetI.words;
+		long[] wordsJ = tidsetJ.words;
+		long[] words = new long[Math.min(wordsI.length, wordsJ.length)];
+		int support = 0;
+		long tidSum = 0;
+		for (int k = 0; k < words.length; k++) {
+			long word = wordsI[k] & wordsJ[k];
+			if (word != 0) {
+				words[k] = word;
+				support += Long.bitCount(word);
+				tidSum += ClosedItemsetIndex.tidSumOf(k, word);
+			}
+		}
+		bitsetSupportIJ.words = words;
+		bitsetSupportIJ.support = support;
+		bitsetSupportIJ.tidSum = tidSum;
 		// return the new tidset
 		return bitsetSupportIJ;
 	}
+
+	/**
+	 * Perform the intersection of two tidsets stored as compressed bitmaps.
+	 * @param tidsetI the first tidset
+	 * @param tidsetJ the second tidset
+	 * @return the resulting tidset and its support
+	 */
+	private BitSetSupport performANDCompressed(BitSetSupport tidsetI,
+			BitSetSupport tidsetJ) {
+		BitSetSupport bitsetSupportIJ = new BitSetSupport();
+		bitsetSupportIJ.roaringBitmap = RoaringBitmap.and(tidsetI.roaringBitmap, tidsetJ.roaringBitmap);
+		// the tids are read a single time to calculate the support and the sum of tids
+		int support = bitsetSupportIJ.roaringBitmap.toArray(tidBuffer);
+		long tidSum = 0;
+		for (int i = 0; i < support; i++) {
+			tidSum += tidBuffer[i];
+		}
+		bitsetSupportIJ.support = support;
+		bitsetSupportIJ.tidSum = tidSum;
+		return bitsetSupportIJ;
+	}
+
+	/**
+	 * Create an empty tidset of the type chosen by the user (BitSet or compressed bitmap).
+	 * @return the tidset
+	 */
+	private BitSetSupport newBitSetSupport() {
+		BitSetSupport tidset = new BitSetSupport();
+		if(useCompressedBitmaps){
+			tidset.roaringBitmap = new RoaringBitmap();
+		}
+		return tidset;
+	}
 	
 	/**
 	 * This method process all itemsets from an equivalence class to generate larger itemsets,
@@ -572,16 +719,39 @@ loopJ:		for(int j=i+1; j < frequentItems.size(); j++) {
 		System.out.println("=============  CHARM v96e Bitset - STATS =============");
 		long temps = endTime - startTimestamp;
 		System.out.println(" Transactions count from database : "
-				+ database.size());
+				+ databaseSize);
 		System.out.println(" Frequent closed itemsets count : "
 				+ itemsetCount);
 		System.out.println(" Total time ~ " + temps + " ms");
 		System.out.println(" Maximum memory usage : "
 				+ MemoryLogger.getInstance().getMaxMemory() + " mb");
+		printIndexStats();
 		System.out
 				.println("===================================================");
 	}
 
+	/**
+	 * Set whether the tidsets should be stored as compressed bitmaps (RoaringBitmap)
+	 * instead of BitSets (default: false). The size of a BitSet depends on the largest
+	 * tid that it contains, while the size of a compressed bitmap depends on the number
+	 * of tids, which uses much less memory for large sparse databases.
+	 * The closed itemsets saved to memory still contain a BitSet.
+	 * @param useCompressedBitmaps true to use compressed bitmaps
+	 */
+	public void setUseCompressedBitmaps(boolean useCompressedBitmaps) {
+		this.useCompressedBitmaps = useCompressedBitmaps;
+	}
+
+	/**
+	 * Print statistics about the index used for the closeness check to System.out.
+	 */
+	protected void printIndexStats() {
+		System.out.println(" Closeness index : " + hash.size() + " itemsets, "
+				+ hash.getCapacity() + " positions, " + hash.getRehashCount() + " rehash(es)");
+		System.out.println(" Closeness checks : " + hash.getLookupCount() + ", itemsets compared : "
+				+ hash.getProbeCount() + ", collisions : " + hash.getCollisionCount());
+	}
+
 	/**
 	 * Get the set of frequent itemsets.
 	 * @return the frequent itemsets (Itemsets).
@@ -596,8 +766,48 @@ loopJ:		for(int j=i+1; j < frequentItems.size(); j++) {
 	 * of a bitset in Java is very expensive.
 	 */
 	public class BitSetSupport{
-		BitSet bitset = new BitSet();
+		// the tidset as words: the tid i is in the tidset if the bit (i % 64)
+		// of words[i / 64] is set
+		long[] words = new long[0];
 		int support;
+		// the sum of the tids of the tidset (used as hash code for the closeness check)
+		long tidSum;
+		// the tidset if compressed bitmaps are used (the bitset is then not used)
+		RoaringBitmap roaringBitmap;
+
+		/**
+		 * Add a tid to the tidset.
+		 * @param tid the tid
+		 */
+		void set(int tid){
+			if(roaringBitmap != null){
+				roaringBitmap.set(tid);
+			}else{
+				int index = tid >>> 6;
+				// if the tid is after the last word, the array of words is enlarged
+				if(index >= words.length){
+					words = Arrays.copyOf(words, Math.max(index + 1, words.length * 2));
+				}
+				words[index] |= 1L << tid;
+			}
+		}
+
+		/**
+		 * Compress the runs of tids of a compressed bitmap, after all the tids have been added.
+		 */
+		void runOptimize(){
+			if(roaringBitmap != null){
+				roaringBitmap.runOptimize();
+			}
+		}
+
+		/**
+		 * Get the tidset as a BitSet.
+		 * @return the bitset
+		 */
+		BitSet toBitSet(){
+			return roaringBitmap == null ? BitSet.valueOf(words) : roaringBitmap.toBitSet();
+		}
 	}
 	
 	/**
@@ -618,33 +828,34 @@ loopJ:		for(int j=i+1; j < frequentItems.size(); j++) {
 		// Sort the resulting itemset
 		Arrays.sort(prefixSuffix);
 		
-		// Create an instance of "Itemset" for that itemset to put in hash table
-		ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemset itemset = new ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemset(prefixSuffix);
-		itemset.setAbsoluteSupport(tidset.support);
-
-		// Calculate the hash code of that itemset 
-		int hashcode = hash.hashCode(tidset.bitset);
-		
-		// Check in the hash table to see if the itemset has 
-		// a superset already in the hash table. If not, then it is
+		// Check in the index to see if the itemset has 
+		// a superset already in the index. If not, then it is
 		// a closed itemset and we should output it as well
-		// as insert it in the hash table.
-		if (!hash.containsSupersetOf(itemset, hashcode)) {
+		// as insert it in the index. The sum of tids of the tidset
+		// is used as hash code.
+		if (!hash.containsSupersetOf(prefixSuffix, tidset.support, tidset.tidSum)) {
 			// increase the itemset count
 			itemsetCount++;
 			// if the result should be saved to memory
 			if (writer == null) {
 				// save it to memory with its tidset
-				Itemset itemsetWithTidset = new Itemset(prefixSuffix, tidset.bitset, tidset.support);
-				closedItemsets.addItemset(itemsetWithTidset, itemset.size());
+				Itemset itemsetWithTidset = new Itemset(prefixSuffix, tidset.toBitSet(), tidset.support);
+				closedItemsets.addItemset(itemsetWithTidset, prefixSuffix.length);
 			} else {
 				// otherwise if the result should be saved to a file,
 				// then write it to the output file
-				writer.write(itemset.toString() + " #SUP: " + itemset.support);
+				StringBuilder buffer = new StringBuilder();
+				for (int item : prefixSuffix) {
+					buffer.append(item);
+					buffer.append(' ');
+				}
+				buffer.append(" #SUP: ");
+				buffer.append(tidset.support);
+				writer.write(buffer.toString());
 				writer.newLine();
 			}
-			// add the itemset to the hashtable
-			hash.put(itemset, hashcode);
+			// add the itemset to the index
+			hash.put(prefixSuffix, tidset.support, tidset.tidSum);
 		}
 	}
 
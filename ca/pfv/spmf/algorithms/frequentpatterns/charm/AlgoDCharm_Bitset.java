@@ -16,9 +16,6 @@ package ca.pfv.spmf.algorithms.frequentpatterns.charm;
 * SPMF. If not, see <http://www.gnu.org/licenses/>.
 */
 
-import java.util.BitSet;
-import java.util.Map;
-
 import ca.pfv.spmf.datastructures.triangularmatrix.TriangularMatrix;
 import ca.pfv.spmf.input.transaction_database_list_integers.TransactionDatabase;
 import ca.pfv.spmf.patterns.itemset_array_integers_with_tids_bitset.Itemset;
@@ -66,94 +63,12 @@ public class AlgoDCharm_Bitset extends AlgoCharm_Bitset{
 	public void printStats() {
 		System.out.println("=============  dCharm vALTERNATE-Bitset - STATS =============");
 		long temps = endTime - startTimestamp;
-		System.out.println(" Transactions count from database : " + database.size());
+		System.out.println(" Transactions count from database : " + databaseSize);
 		System.out.println(" Frequent itemsets count : " + itemsetCount);
 		System.out.println(" Total time ~ " + temps + " ms");
 		System.out.println(" Maximum memory usage : "
 				+ MemoryLogger.getInstance().getMaxMemory() + " mb");
+		printIndexStats();
 		System.out.println("===================================================");
 	}
-	
-	/**
-	 * This method scans the database to calculate the support of each single item
-	 * @param database the transaction database
-	 * @param mapItemTIDS  a map to store the tidset corresponding to each item
-	 * @return the maximum item id appearing in this database
-	 */
-	private int calculateSupportSingleItems(TransactionDatabase database,
-			final Map<Integer, BitSetSupport> mapItemTIDS) {
-		
-		// (1) First database pass : calculate diffsets of each item.
-		int maxItemId = 0;
-		// for each transaction
-		for (int i = 0; i < database.size(); i++) {
-			// Add the transaction id to the set of all transaction ids
-			// for each item in that transaction
-			
-			// For each item
-			for (Integer item : database.getTransactions().get(i)) {
-				// Get the current tidset of that item
-				BitSetSupport tids = mapItemTIDS.get(item);
-				// If none, then we create one
-				if(tids == null){
-					tids = new BitSetSupport();
-					// For a new item, we sets all the bits of its diffset to true
-					tids.bitset.set(0, database.size(), true);
-					mapItemTIDS.put(item, tids);
-					// we remember the largest item seen until now
-					if (item > maxItemId) {
-						maxItemId = item;
-					}
-				}
-				//We set to false the bit corresponding to this transaction
-				// in the diffset of that item
-				tids.bitset.set(i, false);
-				// we increase the support of that item
-				tids.support++;
-			}
-		}	
-		return maxItemId;
-	}
-
-	
-	/**
-	 * Perform the intersection of two diffsets for itemsets containing more than one item.
-	 * @param tidsetI the first diffset
-	 * @param tidsetJ the second diffset
-	 * @return the resulting diffset and its support
-	 */
-	private BitSetSupport performAND(BitSetSupport tidsetI, BitSetSupport tidsetJ) {
-		// Create the new diffset 
-		BitSetSupport bitsetSupportIJ = new BitSetSupport();
-		// Calculate the diffset 
-		bitsetSupportIJ.bitset = (BitSet)tidsetJ.bitset.clone();
-		bitsetSupportIJ.bitset.andNot(tidsetI.bitset);
-		// Calculate the support
-		bitsetSupportIJ.support = tidsetI.support - bitsetSupportIJ.bitset.cardinality();
-		// return the new diffset
-		return bitsetSupportIJ;
-	}
-	
-	/**
-	 * Perform the intersection of two diffsets representing single items.
-	 * @param tidsetI the first diffset
-	 * @param tidsetJ the second diffset
-	 * @param supportIJ the support of the intersection (already known) so it does not need to 
-	 *                  be calculated again
-	 * @return  the resulting diffset and its support
-	 */
-	private BitSetSupport performANDFirstTime(BitSetSupport tidsetI,
-			BitSetSupport tidsetJ, int supportIJ) {
-		// Create the new diffset and perform the logical AND to intersect the diffsets
-		BitSetSupport bitsetSupportIJ = new BitSetSupport();
-		//Calculate the diffset
-		bitsetSupportIJ.bitset = (BitSet)tidsetJ.bitset.clone();
-		bitsetSupportIJ.bitset.andNot(tidsetI.bitset);
-		// Calculate the support
-		bitsetSupportIJ.support = tidsetI.support - bitsetSupportIJ.bitset.cardinality();
-		// return the new tidset
-		return bitsetSupportIJ;
-	}
-
-
 }
@@ -0,0 +1,278 @@
+package ca.pfv.spmf.algorithms.frequentpatterns.charm;
+/* This file is copyright (c) 2008-2014 Philippe Fournier-Viger
+*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+*
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+import java.util.Arrays;
+
+/**
+ * This class is an index of the closed itemsets found by the Charm algorithm,
+ * used to perform the closeness check.
+ * <br/><br/>
+ *
+ * As in the original Charm hash table, an itemset is stored at a position given by
+ * the sum of the tids of its tidset. Two itemsets having the same tidset have the
+ * same sum, so a superset having the same support is always found at the same position.
+ * The sum is not calculated by this class: it is calculated by the Charm algorithm
+ * at the same time as the tidset (see tidSumOf()).
+ * <br/><br/>
+ *
+ * The entries of a position are packed one after the other in an array of integers
+ * as (hash, support, length, item 1, item 2... item length), so that no object is
+ * created for the itemsets. The number of positions is doubled and the entries are
+ * redistributed when the index becomes too full.
+ *
+ * @see AlgoCharm_Bitset
+ * @see AlgoDCharm_Bitset
+ * @author Philippe Fournier-Viger
+ */
+class ClosedItemsetIndex {
+
+	// the maximum number of itemsets per position before the index is enlarged
+	private static final double LOAD_FACTOR = 0.75;
+	// the size of the header of an entry (hash, support, length)
+	private static final int HEADER = 3;
+
+	// the entries of each position (the number of positions is a power of 2)
+	private int[][] buckets;
+	// the number of integers used in the array of each position
+	private int[] bucketSizes;
+	// the number of itemsets in the index
+	private int size = 0;
+
+	// statistics
+	private long lookupCount = 0;     // the number of calls to containsSupersetOf()
+	private long probeCount = 0;      // the number of entries compared during lookups
+	private long collisionCount = 0;  // the number of entries compared that had another tidset
+	private int rehashCount = 0;      // the number of times that the index was enlarged
+
+	/**
+	 * Constructor.
+	 * @param initialCapacity the initial number of positions (rounded up to a power of 2)
+	 */
+	public ClosedItemsetIndex(int initialCapacity) {
+		int capacity = 16;
+		while (capacity < initialCapacity && capacity < (1 << 30)) {
+			capacity <<= 1;
+		}
+		buckets = new int[capacity][];
+		bucketSizes = new int[capacity];
+	}
+
+	/**
+	 * Check if the index contains a superset of a given itemset having the same support.
+	 * @param itemset the itemset (sorted by increasing order)
+	 * @param support the support of the itemset
+	 * @param tidSum the sum of the tids of the tidset of the itemset
+	 * @return true if the index contains at least one superset, otherwise false.
+	 */
+	public boolean containsSupersetOf(int[] itemset, int support, long tidSum) {
+		lookupCount++;
+		int hash = hash(tidSum);
+		int position = hash & (buckets.length - 1);
+		int[] bucket = buckets[position];
+		int end = bucketSizes[position];
+		// for each entry at that position
+		for (int i = 0; i < end; i += HEADER + bucket[i + 2]) {
+			probeCount++;
+			// if the entry does not have the same tidset, it cannot be a superset
+			// having the same support
+			if (bucket[i] != hash || bucket[i + 1] != support) {
+				collisionCount++;
+				continue;
+			}
+			if (containsAll(bucket, i + HEADER, bucket[i + 2], itemset, itemset.length)) {
+				return true;
+			}
+		}
+		// Otherwise no superset is in the index, so return false
+		return false;
+	}
+
+	/**
+	 * Add an itemset to the index.
+	 * @param itemset the itemset (sorted by increasing order)
+	 * @param support the support of the itemset
+	 * @param tidSum the sum of the tids of the tidset of the itemset
+	 */
+	public void put(int[] itemset, int support, long tidSum) {
+		// if the index is too full, the number of positions is doubled
+		if (size + 1 > buckets.length * LOAD_FACTOR && buckets.length < (1 << 30)) {
+			rehash(buckets.length << 1);
+		}
+		int hash = hash(tidSum);
+		int position = hash & (buckets.length - 1);
+		int start = reserve(position, HEADER + itemset.length);
+		int[] bucket = buckets[position];
+		bucket[start] = hash;
+		bucket[start + 1] = support;
+		bucket[start + 2] = itemset.length;
+		System.arraycopy(itemset, 0, bucket, start + HEADER, itemset.length);
+		size++;
+	}
+
+	/**
+	 * Reserve space at the end of the array of a position.
+	 * @param position the position
+	 * @param length the number of integers to be added
+	 * @return the index of the first integer reserved
+	 */
+	private int reserve(int position, int length) {
+		int start = bucketSizes[position];
+		int[] bucket = buckets[position];
+		if (bucket == null) {
+			buckets[position] = new int[Math.max(16, length)];
+		} else if (start + length > bucket.length) {
+			buckets[position] = Arrays.copyOf(bucket, Math.max(bucket.length * 2, start + length));
+		}
+		bucketSizes[position] = start + length;
+		return start;
+	}
+
+	/**
+	 * Move all the entries to a larger number of positions.
+	 * @param capacity the new number of positions
+	 */
+	private void rehash(int capacity) {
+		rehashCount++;
+		int[][] oldBuckets = buckets;
+		int[] oldSizes = bucketSizes;
+		buckets = new int[capacity][];
+		bucketSizes = new int[capacity];
+		for (int oldPosition = 0; oldPosition < oldBuckets.length; oldPosition++) {
+			int[] bucket = oldBuckets[oldPosition];
+			int end = oldSizes[oldPosition];
+			for (int i = 0; i < end; i += HEADER + bucket[i + 2]) {
+				// the stored hash gives the new position without the tidset
+				int length = HEADER + bucket[i + 2];
+				int start = reserve(bucket[i] & (capacity - 1), length);
+				System.arraycopy(bucket, i, buckets[bucket[i] & (capacity - 1)], start, length);
+			}
+		}
+	}
+
+	/**
+	 * Mix the bits of a sum of tids so that the low bits can be used as position.
+	 * @param tidSum the sum of tids
+	 * @return the hash
+	 */
+	private static int hash(long tidSum) {
+		int hash = (int) (tidSum ^ (tidSum >>> 32));
+		hash *= 0x9E3779B9;
+		return hash ^ (hash >>> 16);
+	}
+
+	/**
+	 * Check if a sorted itemset stored in an array contains another sorted itemset.
+	 * @param itemset1 an array containing the first itemset
+	 * @param start1 the position of the first item of the first itemset in the array
+	 * @param length1 the number of items of the first itemset
+	 * @param itemset2 an array containing the second itemset (starting at position 0)
+	 * @param length2 the number of items of the second itemset
+	 * @return true if the first itemset contains all the items of the second one
+	 */
+	static boolean containsAll(int[] itemset1, int start1, int length1, int[] itemset2, int length2) {
+		if (length1 < length2) {
+			return false;
+		}
+		int i = start1;
+		int end1 = start1 + length1;
+		// for each item of the second itemset, search it in the first itemset
+		for (int j = 0; j < length2; j++) {
+			int item = itemset2[j];
+			while (i < end1 && itemset1[i] < item) {
+				i++;
+			}
+			// if there are not enough items left or the item is not there
+			if (end1 - i < length2 - j || itemset1[i] != item) {
+				return false;
+			}
+			i++;
+		}
+		return true;
+	}
+
+	/**
+	 * Calculate the sum of the positions of the bits set to 1 in a word of a tidset.
+	 * The sum is calculated with one bit count for each bit of the position in the
+	 * word, rather than by iterating over the bits.
+	 * @param index the index of the word in the tidset (the word contains the tids
+	 *        index * 64 to index * 64 + 63)
+	 * @param word the word
+	 * @return the sum
+	 */
+	static long tidSumOf(int index, long word) {
+		// the position of the first bit of the word multiplied by the number of bits
+		long sum = ((long) index << 6) * Long.bitCount(word);
+		// plus the positions of the bits in the word
+		sum += Long.bitCount(word & 0xAAAAAAAAAAAAAAAAL)
+				+ (Long.bitCount(word & 0xCCCCCCCCCCCCCCCCL) << 1)
+				+ (Long.bitCount(word & 0xF0F0F0F0F0F0F0F0L) << 2)
+				+ (Long.bitCount(word & 0xFF00FF00FF00FF00L) << 3)
+				+ (Long.bitCount(word & 0xFFFF0000FFFF0000L) << 4)
+				+ (Long.bitCount(word & 0xFFFFFFFF00000000L) << 5);
+		return sum;
+	}
+
+	/**
+	 * Get the number of itemsets in the index.
+	 * @return the number of itemsets
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Get the current number of positions of the index.
+	 * @return the number of positions
+	 */
+	public int getCapacity() {
+		return buckets.length;
+	}
+
+	/**
+	 * Get the number of closeness checks performed.
+	 * @return the number of checks
+	 */
+	public long getLookupCount() {
+		return lookupCount;
+	}
+
+	/**
+	 * Get the number of itemsets compared during the closeness checks.
+	 * @return the number of itemsets
+	 */
+	public long getProbeCount() {
+		return probeCount;
+	}
+
+	/**
+	 * Get the number of itemsets compared during the closeness checks that
+	 * had a different tidset (or support) than the itemset checked.
+	 * @return the number of collisions
+	 */
+	public long getCollisionCount() {
+		return collisionCount;
+	}
+
+	/**
+	 * Get the number of times that the number of positions was doubled.
+	 * @return the number of times
+	 */
+	public int getRehashCount() {
+		return rehashCount;
+	}
+}
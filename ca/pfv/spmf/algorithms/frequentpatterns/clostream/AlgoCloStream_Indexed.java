@@ -0,0 +1,451 @@
+package ca.pfv.spmf.algorithms.frequentpatterns.clostream;
+/* This file is copyright (c) 2008-2014 Philippe Fournier-Viger
+*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+*
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemset;
+
+/**
+ * This is an implementation of the CloStream algorithm for mining closed itemsets
+ * from a stream, designed for streams with a high rate of transactions. It finds
+ * the same closed itemsets as AlgoCloSteam, but:
+ * <ul>
+ * <li>the closed itemsets are stored as arrays of items and an array of support counts,</li>
+ * <li>the cid list of each item is a growable array of int, and the cid lists
+ *  are stored in an array indexed by item,</li>
+ * <li>the temporary table of the paper is a hash table keyed by the content of
+ *  the itemsets, instead of a list that is scanned for each intersection,</li>
+ * <li>the union of the cid lists of a transaction is calculated with an array of marks
+ *  rather than a set of Integer objects,</li>
+ * <li>all these structures are kept from one transaction to the next, so that processing
+ *  a transaction does not create any object except the new closed itemsets.</li>
+ * </ul>
+ * Transactions can be processed one at a time or by batches (processBatch()).
+ * As in the paper, the cid of a new closed itemset X is only added to the cid lists
+ * of the items of X.
+ * <br/><br/>
+ *
+ * CloStream was proposed by S.J Yen et al.(2009)
+ * in the proceedings of the IEA-AIE 2009 conference, pp.773.
+ *
+ *@see AlgoCloSteam
+ *@see Itemset
+ *@author Philippe Fournier-Viger
+ */
+public class AlgoCloStream_Indexed {
+
+	// the items of each closed itemset (the position of an itemset is its cid).
+	// The cid 0 is the empty set. The items of a cid are null if the closed
+	// itemset has been removed (see AlgoCloStream_SlidingWindow).
+	int[][] closedItemsets = new int[64][];
+	// the support of each closed itemset
+	int[] closedSupports = new int[64];
+	// the number of cids (including the empty set)
+	int closedCount = 0;
+
+	// the cid list of each item (the position of a list is the item)
+	int[][] cidLists = new int[0][];
+	// the number of cids in the cid list of each item
+	int[] cidListSizes = new int[0];
+
+	// for each cid, the number of the last transaction where it has been
+	// found in the union of the cid lists
+	int[] cidMarks = new int[64];
+	// the number of the current transaction
+	private int transactionMark = 0;
+	// the cids of the union of the cid lists of the current transaction
+	int[] cidUnion = new int[64];
+
+	// the temporary table (as described in the paper): for each entry, an itemset and a cid
+	private int[][] tempItemsets = new int[16][];
+	private int[] tempCids = new int[16];
+	// the hash code of the itemset of each entry
+	private int[] tempHashes = new int[16];
+	// the number of entries
+	private int tempCount = 0;
+	// the hash table of the entries (position of the entry + 1, or 0 if the slot is empty)
+	private int[] tempSlots = new int[32];
+
+	// a buffer to calculate the intersection of a transaction and a closed itemset
+	int[] intersectionBuffer = new int[16];
+
+	// the number of transactions processed
+	private long transactionCount = 0;
+
+	/**
+	 * Constructor that also initialize the algorithm
+	 */
+	public AlgoCloStream_Indexed() {
+		// add the empty set with a support of 0 in the list of closed sets
+		addClosedItemset(new int[0], 0);
+	}
+
+	/**
+	 * This method process a new transaction from a stream to update
+	 * the set of closed itemsets.
+	 * @param transaction a transaction (Itemset)
+	 */
+	public void processNewTransaction(Itemset transaction){
+		processNewTransaction(transaction.getItems());
+	}
+
+	/**
+	 * This method process a batch of transactions from a stream to update
+	 * the set of closed itemsets. The structures used for processing a transaction
+	 * are enlarged one time for the whole batch.
+	 * @param transactions the transactions, where each transaction is an array of items
+	 *         sorted by ascending order (without duplicates)
+	 */
+	public void processBatch(int[][] transactions){
+		// find the largest item and the largest transaction of the batch
+		int maxItem = -1;
+		int maxLength = 0;
+		for(int[] transaction : transactions){
+			if(transaction.length > 0){
+				maxItem = Math.max(maxItem, transaction[transaction.length - 1]);
+			}
+			maxLength = Math.max(maxLength, transaction.length);
+		}
+		ensureItemCapacity(maxItem);
+		ensureTransactionCapacity(maxLength);
+		// process the transactions
+		for(int[] transaction : transactions){
+			processTransaction(transaction);
+		}
+	}
+
+	/**
+	 * This method process a new transaction from a stream to update
+	 * the set of closed itemsets.
+	 * @param transaction a transaction, which is an array of items sorted by ascending
+	 *         order (without duplicates). The array is not modified.
+	 */
+	public void processNewTransaction(int[] transaction){
+		if(transaction.length > 0){
+			ensureItemCapacity(transaction[transaction.length - 1]);
+		}
+		ensureTransactionCapacity(transaction.length);
+		processTransaction(transaction);
+	}
+
+	/**
+	 * Process a transaction, once the structures have been enlarged for it.
+	 * @param transaction the transaction
+	 */
+	void processTransaction(int[] transaction){
+		transactionCount++;
+		// an empty transaction only contains the empty set, whose support is not used
+		if(transaction.length == 0){
+			return;
+		}
+
+		// Line 02 of the pseudocode in the article
+		// We add the transaction in the temporary table with the cid of the empty set
+		clearTemporaryTable();
+		System.arraycopy(transaction, 0, intersectionBuffer, 0, transaction.length);
+		putInTemporaryTable(transaction.length, 0);
+
+		// Line 03  of the pseudocode in the article
+		// Calculate the union of the cid lists of items in the transaction.
+		int unionSize = calculateCidUnion(transaction);
+
+		// Line 04  of the pseudocode in the article
+		// For each cid in the combined set of cids
+		for(int i = 0; i < unionSize; i++){
+			int cid = cidUnion[i];
+			// calculate the intersection of the closed itemset and the transaction
+			int length = intersect(transaction, closedItemsets[cid]);
+			// if the intersection is in Temp, it is associated with the closed
+			// itemset having the highest support. Otherwise, it is added with this cid.
+			putInTemporaryTable(length, cid);
+		}
+
+		// For each entry in the temporary table
+		int entryCount = tempCount;
+		for(int i = 0; i < entryCount; i++){
+			int[] x = tempItemsets[i];
+			int c = tempCids[i];
+			// if the itemset is the same as the closed itemset
+			if(Arrays.equals(x, closedItemsets[c])){
+				// we have to increase its support
+				closedSupports[c]++;
+			}else{
+				// otherwise the itemset "x" is added to the table of closed itemsets.
+				// Its support count is set to the support of the closed itemset + 1.
+				int newCid = addClosedItemset(x, closedSupports[c] + 1);
+				// Finally, we add the cid of x to the cid list of each item of x
+				for(int item : x){
+					addToCidList(item, newCid);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Calculate the union of the cid lists of the items of a transaction, without
+	 * the cids of the closed itemsets that have been removed. The result is written in
+	 * cidUnion. A cid is in the union if it is marked with the number of the transaction.
+	 * @param transaction the transaction
+	 * @return the number of cids in the union
+	 */
+	int calculateCidUnion(int[] transaction){
+		transactionMark++;
+		if(transactionMark == Integer.MAX_VALUE){
+			// the marks start again from 1
+			Arrays.fill(cidMarks, 0);
+			transactionMark = 1;
+		}
+		int unionSize = 0;
+		for(int item : transaction){
+			int[] cidlist = cidLists[item];
+			int size = cidListSizes[item];
+			for(int i = 0; i < size; i++){
+				int cid = cidlist[i];
+				if(cidMarks[cid] != transactionMark){
+					cidMarks[cid] = transactionMark;
+					if(closedItemsets[cid] != null){
+						cidUnion[unionSize++] = cid;
+					}
+				}
+			}
+		}
+		return unionSize;
+	}
+
+	/**
+	 * Calculate the intersection of a transaction and a closed itemset.
+	 * The result is written in the intersection buffer.
+	 * @param transaction the transaction
+	 * @param closedItemset the closed itemset
+	 * @return the number of items in the intersection
+	 */
+	int intersect(int[] transaction, int[] closedItemset){
+		int length = 0;
+		int i = 0;
+		int j = 0;
+		while(i < transaction.length && j < closedItemset.length){
+			if(transaction[i] < closedItemset[j]){
+				i++;
+			}else if(transaction[i] > closedItemset[j]){
+				j++;
+			}else{
+				intersectionBuffer[length++] = transaction[i];
+				i++;
+				j++;
+			}
+		}
+		return length;
+	}
+
+	/**
+	 * Add the itemset in the intersection buffer to the temporary table with a cid.
+	 * If the itemset is already in the table, it keeps the cid of the closed itemset
+	 * having the highest support.
+	 * @param length the number of items in the intersection buffer
+	 * @param cid the cid
+	 */
+	private void putInTemporaryTable(int length, int cid){
+		// calculate the hash code of the itemset
+		int hash = 1;
+		for(int i = 0; i < length; i++){
+			hash = 31 * hash + intersectionBuffer[i];
+		}
+		hash ^= (hash >>> 16);
+
+		// search the itemset in the table by linear probing
+		int mask = tempSlots.length - 1;
+		int slot = hash & mask;
+		while(tempSlots[slot] != 0){
+			int entry = tempSlots[slot] - 1;
+			if(tempHashes[entry] == hash && isEqualToBuffer(tempItemsets[entry], length)){
+				// we found it. If the support of cid is higher, we keep cid.
+				if(closedSupports[cid] > closedSupports[tempCids[entry]]){
+					tempCids[entry] = cid;
+				}
+				return;
+			}
+			slot = (slot + 1) & mask;
+		}
+
+		// the itemset is not in the table, so it is added
+		if(tempCount == tempItemsets.length){
+			tempItemsets = Arrays.copyOf(tempItemsets, tempCount * 2);
+			tempCids = Arrays.copyOf(tempCids, tempCount * 2);
+			tempHashes = Arrays.copyOf(tempHashes, tempCount * 2);
+		}
+		// if the itemset is a closed itemset, its array is reused
+		int[] closedItemset = closedItemsets[cid];
+		tempItemsets[tempCount] = (closedItemset.length == length) ? closedItemset
+				: Arrays.copyOf(intersectionBuffer, length);
+		tempCids[tempCount] = cid;
+		tempHashes[tempCount] = hash;
+		tempCount++;
+		tempSlots[slot] = tempCount;
+
+		// if the table is more than half full, it is enlarged
+		if(tempCount * 2 > tempSlots.length){
+			rehashTemporaryTable();
+		}
+	}
+
+	/**
+	 * Check if an itemset is the same as the itemset in the intersection buffer.
+	 * @param itemset the itemset
+	 * @param length the number of items in the intersection buffer
+	 * @return true if they are the same
+	 */
+	private boolean isEqualToBuffer(int[] itemset, int length){
+		if(itemset.length != length){
+			return false;
+		}
+		for(int i = 0; i < length; i++){
+			if(itemset[i] != intersectionBuffer[i]){
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Double the size of the hash table of the temporary table.
+	 */
+	private void rehashTemporaryTable(){
+		tempSlots = new int[tempSlots.length * 2];
+		int mask = tempSlots.length - 1;
+		for(int entry = 0; entry < tempCount; entry++){
+			int slot = tempHashes[entry] & mask;
+			while(tempSlots[slot] != 0){
+				slot = (slot + 1) & mask;
+			}
+			tempSlots[slot] = entry + 1;
+		}
+	}
+
+	/**
+	 * Remove all the entries of the temporary table.
+	 */
+	private void clearTemporaryTable(){
+		// only the slots that are used are cleared
+		int mask = tempSlots.length - 1;
+		for(int entry = 0; entry < tempCount; entry++){
+			int slot = tempHashes[entry] & mask;
+			while(tempSlots[slot] != entry + 1){
+				slot = (slot + 1) & mask;
+			}
+			tempSlots[slot] = 0;
+			tempItemsets[entry] = null;
+		}
+		tempCount = 0;
+	}
+
+	/**
+	 * Add a closed itemset.
+	 * @param itemset the items of the closed itemset
+	 * @param support its support
+	 * @return the cid of the closed itemset
+	 */
+	int addClosedItemset(int[] itemset, int support){
+		if(closedCount == closedItemsets.length){
+			int newLength = closedCount * 2;
+			closedItemsets = Arrays.copyOf(closedItemsets, newLength);
+			closedSupports = Arrays.copyOf(closedSupports, newLength);
+			cidMarks = Arrays.copyOf(cidMarks, newLength);
+			cidUnion = new int[newLength];
+		}
+		closedItemsets[closedCount] = itemset;
+		closedSupports[closedCount] = support;
+		return closedCount++;
+	}
+
+	/**
+	 * Add a cid to the cid list of an item.
+	 * @param item the item
+	 * @param cid the cid
+	 */
+	void addToCidList(int item, int cid){
+		int[] cidlist = cidLists[item];
+		int size = cidListSizes[item];
+		if(cidlist == null){
+			cidlist = new int[4];
+			cidLists[item] = cidlist;
+		}else if(size == cidlist.length){
+			cidlist = Arrays.copyOf(cidlist, size * 2);
+			cidLists[item] = cidlist;
+		}
+		cidlist[size] = cid;
+		cidListSizes[item] = size + 1;
+	}
+
+	/**
+	 * Enlarge the array of cid lists so that it contains an item.
+	 * @param maxItem the item
+	 */
+	void ensureItemCapacity(int maxItem){
+		if(maxItem >= cidLists.length){
+			int newLength = Math.max(maxItem + 1, cidLists.length * 2);
+			cidLists = Arrays.copyOf(cidLists, newLength);
+			cidListSizes = Arrays.copyOf(cidListSizes, newLength);
+		}
+	}
+
+	/**
+	 * Enlarge the intersection buffer so that it can contain a transaction.
+	 * @param length the length of the transaction
+	 */
+	void ensureTransactionCapacity(int length){
+		if(length > intersectionBuffer.length){
+			intersectionBuffer = new int[Math.max(length, intersectionBuffer.length * 2)];
+		}
+	}
+
+	/**
+	 * Get the current list of closed itemsets without the empty set.
+	 * @return a List of closed itemsets
+	 */
+	public List<Itemset> getClosedItemsets() {
+		List<Itemset> list = new ArrayList<Itemset>(closedCount);
+		// the cid 0 is the empty set
+		for(int cid = 1; cid < closedCount; cid++){
+			if(closedItemsets[cid] == null){
+				continue;
+			}
+			Itemset itemset = new Itemset(closedItemsets[cid]);
+			itemset.setAbsoluteSupport(closedSupports[cid]);
+			list.add(itemset);
+		}
+		return list;
+	}
+
+	/**
+	 * Get the number of closed itemsets found until now (without the empty set).
+	 * @return the number of closed itemsets
+	 */
+	public int getClosedItemsetCount() {
+		return closedCount - 1;
+	}
+
+	/**
+	 * Get the number of transactions processed until now.
+	 * @return the number of transactions
+	 */
+	public long getTransactionCount() {
+		return transactionCount;
+	}
+}
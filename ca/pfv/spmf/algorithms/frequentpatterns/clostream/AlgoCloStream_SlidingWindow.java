@@ -0,0 +1,310 @@
+package ca.pfv.spmf.algorithms.frequentpatterns.clostream;
+/* This file is copyright (c) 2008-2014 Philippe Fournier-Viger
+*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+*
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+import java.util.Arrays;
+
+import ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemset;
+
+/**
+ * This is a version of the CloStream algorithm that maintains the closed itemsets of a
+ * sliding window over a stream, rather than of all the transactions of the stream.
+ * The window contains at most a given number of transactions (count-based window)
+ * and/or the transactions whose timestamp is not older than a given duration
+ * before the timestamp of the latest transaction (timestamp-based window).
+ * <br/><br/>
+ *
+ * When a transaction T leaves the window, the support of each closed itemset C that
+ * is included in T is decreased by one. C is then removed if its support is 0, or if
+ * it is not closed anymore. This is the case if there is a closed itemset D that
+ * is a proper superset of C with the same support. Since C was closed before the removal,
+ * D must be a closed itemset that is not included in T and whose support is the
+ * support of C minus one before the removal, so only these itemsets are checked.
+ * <br/><br/>
+ *
+ * The cids of the removed closed itemsets are not reused immediately. When more
+ * than half of the cids are removed, the closed itemsets are renumbered and the
+ * cid lists are rebuilt, so that the memory used stays proportional to the
+ * number of closed itemsets of the window rather than to the length of the stream.
+ * <br/><br/>
+ *
+ * CloStream was proposed by S.J Yen et al.(2009)
+ * in the proceedings of the IEA-AIE 2009 conference, pp.773.
+ *
+ *@see AlgoCloStream_Indexed
+ *@see Itemset
+ *@author Philippe Fournier-Viger
+ */
+public class AlgoCloStream_SlidingWindow extends AlgoCloStream_Indexed {
+
+	// the maximum number of transactions in the window
+	private final int windowSize;
+	// the maximum difference between the timestamp of the latest transaction
+	// and the timestamp of a transaction in the window
+	private final long windowDuration;
+
+	// the transactions of the window, stored in a circular array
+	private int[][] windowTransactions = new int[16][];
+	// the timestamp of each transaction of the window
+	private long[] windowTimestamps = new long[16];
+	// the position of the oldest transaction of the window in the circular array
+	private int windowStart = 0;
+	// the number of transactions in the window
+	private int windowCount = 0;
+
+	// the timestamp of the latest transaction
+	private long currentTimestamp = Long.MIN_VALUE;
+
+	// the number of cids of closed itemsets that have been removed
+	private int removedCount = 0;
+	// the cids of the closed itemsets whose support has been decreased
+	private int[] decreasedCids = new int[64];
+	// the number of times that the cids have been renumbered
+	private int compactionCount = 0;
+
+	/**
+	 * Constructor for a count-based window
+	 * @param windowSize the maximum number of transactions in the window
+	 */
+	public AlgoCloStream_SlidingWindow(int windowSize) {
+		this(windowSize, Long.MAX_VALUE);
+	}
+
+	/**
+	 * Constructor for a window that is count-based, timestamp-based or both.
+	 * @param windowSize the maximum number of transactions in the window
+	 *         (Integer.MAX_VALUE for a timestamp-based window)
+	 * @param windowDuration a transaction is removed from the window when the
+	 *         timestamp of the latest transaction is larger than its timestamp + windowDuration
+	 *         (Long.MAX_VALUE for a count-based window)
+	 */
+	public AlgoCloStream_SlidingWindow(int windowSize, long windowDuration) {
+		if(windowSize < 1 || windowDuration < 0){
+			throw new IllegalArgumentException("The window must contain at least one transaction");
+		}
+		this.windowSize = windowSize;
+		this.windowDuration = windowDuration;
+	}
+
+	/**
+	 * This method process a new transaction from a stream to update the set of closed
+	 * itemsets. The transactions that are too old are removed from the window first.
+	 * @param transaction a transaction, which is an array of items sorted by ascending
+	 *         order (without duplicates). The array should not be modified after this call.
+	 * @param timestamp the timestamp of the transaction (it must not be smaller
+	 *         than the timestamp of the previous transaction)
+	 */
+	public void processNewTransaction(int[] transaction, long timestamp){
+		advanceTime(timestamp);
+		processNewTransaction(transaction);
+	}
+
+	/**
+	 * This method process a batch of transactions having the same timestamp from a stream
+	 * to update the set of closed itemsets.
+	 * @param transactions the transactions, where each transaction is an array of items
+	 *         sorted by ascending order (without duplicates)
+	 * @param timestamp the timestamp of the transactions (it must not be smaller
+	 *         than the timestamp of the previous transaction)
+	 */
+	public void processBatch(int[][] transactions, long timestamp){
+		advanceTime(timestamp);
+		processBatch(transactions);
+	}
+
+	/**
+	 * Set the current time and remove the transactions that are too old from the window,
+	 * without processing a new transaction.
+	 * @param timestamp the current time (it must not be smaller than the timestamp
+	 *         of the previous transaction)
+	 */
+	public void advanceTime(long timestamp){
+		if(timestamp < currentTimestamp){
+			throw new IllegalArgumentException("The timestamps must be in ascending order");
+		}
+		currentTimestamp = timestamp;
+		// remove the transactions that are too old
+		while(windowCount > 0 && currentTimestamp - windowTimestamps[windowStart] > windowDuration){
+			removeOldestTransaction();
+		}
+	}
+
+	/**
+	 * Process a transaction. If the window is full, the oldest transaction
+	 * is removed before.
+	 * @param transaction the transaction
+	 */
+	@Override
+	void processTransaction(int[] transaction){
+		if(windowCount == windowSize){
+			removeOldestTransaction();
+		}
+		super.processTransaction(transaction);
+
+		// add the transaction to the window
+		if(windowCount == windowTransactions.length){
+			// enlarge the circular array
+			int[][] newTransactions = new int[windowCount * 2][];
+			long[] newTimestamps = new long[windowCount * 2];
+			for(int i = 0; i < windowCount; i++){
+				int position = (windowStart + i) % windowCount;
+				newTransactions[i] = windowTransactions[position];
+				newTimestamps[i] = windowTimestamps[position];
+			}
+			windowTransactions = newTransactions;
+			windowTimestamps = newTimestamps;
+			windowStart = 0;
+		}
+		int position = (windowStart + windowCount) % windowTransactions.length;
+		windowTransactions[position] = transaction;
+		windowTimestamps[position] = currentTimestamp;
+		windowCount++;
+	}
+
+	/**
+	 * Remove the oldest transaction of the window and update the closed itemsets.
+	 */
+	private void removeOldestTransaction(){
+		int[] transaction = windowTransactions[windowStart];
+		windowTransactions[windowStart] = null;
+		windowStart = (windowStart + 1) % windowTransactions.length;
+		windowCount--;
+
+		// decrease the support of the closed itemsets that are included in the transaction.
+		// These closed itemsets are in the union of the cid lists of its items.
+		int unionSize = calculateCidUnion(transaction);
+		if(decreasedCids.length < unionSize){
+			decreasedCids = new int[cidUnion.length];
+		}
+		int decreasedCount = 0;
+		for(int i = 0; i < unionSize; i++){
+			int cid = cidUnion[i];
+			int[] closedItemset = closedItemsets[cid];
+			if(intersect(transaction, closedItemset) == closedItemset.length){
+				closedSupports[cid]--;
+				decreasedCids[decreasedCount++] = cid;
+			}
+		}
+
+		// remove the closed itemsets that are not closed anymore
+		for(int i = 0; i < decreasedCount; i++){
+			int cid = decreasedCids[i];
+			if(closedSupports[cid] == 0 || hasSupersetWithSameSupport(cid, transaction)){
+				closedItemsets[cid] = null;
+				removedCount++;
+			}
+		}
+
+		// if more than half of the cids are removed, the cids are renumbered
+		if(removedCount > 64 && removedCount * 2 > closedCount){
+			compact();
+		}
+	}
+
+	/**
+	 * Check if a closed itemset C, whose support has just been decreased because a
+	 * transaction has been removed, has a proper superset that is a closed itemset
+	 * with the same support. This superset cannot be included in the removed transaction.
+	 * @param cid the cid of C
+	 * @param transaction the removed transaction
+	 * @return true if there is such superset
+	 */
+	private boolean hasSupersetWithSameSupport(int cid, int[] transaction){
+		int[] itemset = closedItemsets[cid];
+		int support = closedSupports[cid];
+		// the supersets of C are in the cid list of each item of C,
+		// so we scan the smallest cid list of an item of C
+		int smallestItem = itemset[0];
+		for(int item : itemset){
+			if(cidListSizes[item] < cidListSizes[smallestItem]){
+				smallestItem = item;
+			}
+		}
+		int[] cidlist = cidLists[smallestItem];
+		int size = cidListSizes[smallestItem];
+		for(int i = 0; i < size; i++){
+			int otherCid = cidlist[i];
+			int[] other = closedItemsets[otherCid];
+			if(otherCid == cid || other == null || closedSupports[otherCid] != support
+					|| other.length <= itemset.length){
+				continue;
+			}
+			// check that the other itemset contains C and is not included in the transaction
+			if(intersect(other, itemset) == itemset.length
+					&& intersect(transaction, other) < other.length){
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Renumber the closed itemsets so that the cids of the removed closed
+	 * itemsets are not used anymore, and rebuild the cid lists.
+	 */
+	private void compact(){
+		int newCount = 0;
+		for(int cid = 0; cid < closedCount; cid++){
+			if(closedItemsets[cid] != null){
+				closedItemsets[newCount] = closedItemsets[cid];
+				closedSupports[newCount] = closedSupports[cid];
+				newCount++;
+			}
+		}
+		// the arrays are reduced to twice the number of closed itemsets
+		int newLength = Math.max(64, newCount * 2);
+		closedItemsets = Arrays.copyOf(closedItemsets, newLength);
+		closedSupports = Arrays.copyOf(closedSupports, newLength);
+		cidMarks = new int[newLength];
+		cidUnion = new int[newLength];
+		decreasedCids = new int[64];
+		closedCount = newCount;
+		removedCount = 0;
+
+		// rebuild the cid lists (the cid 0 is the empty set)
+		Arrays.fill(cidLists, null);
+		Arrays.fill(cidListSizes, 0);
+		for(int cid = 1; cid < closedCount; cid++){
+			for(int item : closedItemsets[cid]){
+				addToCidList(item, cid);
+			}
+		}
+		compactionCount++;
+	}
+
+	@Override
+	public int getClosedItemsetCount() {
+		return super.getClosedItemsetCount() - removedCount;
+	}
+
+	/**
+	 * Get the number of transactions in the window.
+	 * @return the number of transactions
+	 */
+	public int getWindowTransactionCount() {
+		return windowCount;
+	}
+
+	/**
+	 * Get the number of times that the closed itemsets have been renumbered
+	 * to free the memory used by the removed closed itemsets.
+	 * @return the number of times
+	 */
+	public int getCompactionCount() {
+		return compactionCount;
+	}
+}
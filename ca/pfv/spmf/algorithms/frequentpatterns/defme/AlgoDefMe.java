@@ -28,6 +28,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
+import ca.pfv.spmf.datastructures.roaringbitmap.RoaringBitmap;
 import ca.pfv.spmf.datastructures.triangularmatrix.TriangularMatrix;
 import ca.pfv.spmf.input.transaction_database_list_integers.TransactionDatabase;
 import ca.pfv.spmf.patterns.itemset_array_integers_with_tids_bitset.Itemset;
@@ -80,6 +81,9 @@ public class AlgoDefMe {
 	/** A map containing the tidset (i.e. cover) of each item represented as a bitset */
 	private Map<Integer, BitSetSupport> mapItemTIDS; 
 
+	/** if true, the tidsets are stored as compressed bitmaps (RoaringBitmap) instead of BitSets */
+	private boolean useCompressedBitmaps = false;
+
 	/**
 	 * Default constructor
 	 */
@@ -136,10 +140,17 @@ public class AlgoDefMe {
 				// If none, then we create one
 				if(tids == null){
 					tids = new BitSetSupport();
+					if(useCompressedBitmaps){
+						tids.roaringBitmap = new RoaringBitmap();
+					}
 					mapItemTIDS.put(item, tids);
 				}
 				// we add the current transaction id to the tidset of the item
-				tids.bitset.set(i);
+				if(useCompressedBitmaps){
+					tids.roaringBitmap.set(i);
+				}else{
+					tids.bitset.set(i);
+				}
 				// we increase the support of that item
 				tids.support++;
 			}
@@ -170,12 +181,29 @@ public class AlgoDefMe {
 			}}); 
 		
 
-		// Create the tidset of the empty set 
-		BitSet tidsetEmptySet = new BitSet(database.size());
-		tidsetEmptySet.set(0, database.size());
-		
-		// Initial call of the defme procedure 
-		defme(new int[] {}, tidsetEmptySet, database.size(), frequentItems, 0, new BitSet[0]);
+		if(useCompressedBitmaps){
+			// Create the tidset of the empty set as a compressed bitmap
+			// (it is stored as runs) and compress the tidsets of items
+			RoaringBitmap tidsetEmptySet = new RoaringBitmap();
+			for(int i = 0; i < database.size(); i++){
+				tidsetEmptySet.set(i);
+			}
+			tidsetEmptySet.runOptimize();
+			for(BitSetSupport tidset : mapItemTIDS.values()){
+				tidset.roaringBitmap.runOptimize();
+			}
+			
+			// Initial call of the defme procedure 
+			defmeCompressed(new int[] {}, tidsetEmptySet, database.size(), frequentItems, 0,
+					new RoaringBitmap[0]);
+		}else{
+			// Create the tidset of the empty set 
+			BitSet tidsetEmptySet = new BitSet(database.size());
+			tidsetEmptySet.set(0, database.size());
+			
+			// Initial call of the defme procedure 
+			defme(new int[] {}, tidsetEmptySet, database.size(), frequentItems, 0, new BitSet[0]);
+		}
 		
 		// we check the memory usage
 		MemoryLogger.getInstance().checkMemory();
@@ -264,6 +292,60 @@ public class AlgoDefMe {
 		}
 	}
 
+	/**
+	 * This is the same procedure as defme() but the tidsets and critical objects
+	 * are stored as compressed bitmaps.
+	 * @param itemsetX The itemset X.
+	 * @param tidsetX  The tidset (cover) of X.
+	 * @param supportX The support of X
+	 * @param frequentItems The set of frequent items
+	 * @param posTail  The set "tail" is defined as the interval [postail, frequentItems.size()-1] in "frequentItems".
+	 * @param critItemsetX The critical objects of each item from the itemset X, stored in an array.
+	 * @throws IOException if an error occured while writing result to disk
+	 */
+	private void defmeCompressed(int[] itemsetX, RoaringBitmap tidsetX, int supportX,
+			List<Integer> frequentItems, int posTail, RoaringBitmap[] critItemsetX) throws IOException {
+		
+		// check if for all e in X,  COV*(X, e) != emptyset
+		for(RoaringBitmap covStarXe : critItemsetX) {
+			if(covStarXe.isEmpty()) {
+				return;
+			}
+		}
+		
+		// save the itemset (the tidset is only needed if the result is kept in memory)
+		save(itemsetX, writer == null ? tidsetX.toBitSet() : null, supportX);
+		
+		// for all e in tail
+		for(int i=posTail; i< frequentItems.size(); i++) {
+			Integer e = frequentItems.get(i);
+			RoaringBitmap tidsetE = mapItemTIDS.get(e).roaringBitmap;
+			
+			// Calculate the support of XU{e} before creating its tidset,
+			// since XU{e} is often infrequent
+			int supportXe = RoaringBitmap.andCardinality(tidsetX, tidsetE);
+			if(supportXe < minsupRelative) {
+				continue;
+			}
+			
+			// Calculate Xe, i.e. X U {e}, and cov(Xe)
+			int[] xe = new int[itemsetX.length+1];
+			System.arraycopy(itemsetX, 0, xe, 0, itemsetX.length);
+			xe[itemsetX.length] = e;
+			RoaringBitmap tidsetXe = RoaringBitmap.and(tidsetX, tidsetE);
+			
+			// ==  Calculate critical objects (cov*(Y, e)) for each item e in Y = XU{e} == 
+			RoaringBitmap[] critItemsetY = new RoaringBitmap[xe.length];
+			critItemsetY[critItemsetY.length-1] = RoaringBitmap.andNot(tidsetX, tidsetE);
+			for(int j=0; j< itemsetX.length; j++) {
+				critItemsetY[j] = RoaringBitmap.and(critItemsetX[j], tidsetE);
+			}
+				
+			// recursive call to explore patterns by extending XU{e} with items from "tail"
+			defmeCompressed(xe, tidsetXe, supportXe, frequentItems, i+1, critItemsetY);
+		}
+	}
+
 	/**
 	 * Save an itemset to disk or memory (depending on what the user chose).
 	 * @param itemsetArray the itemset to be saved
@@ -317,6 +399,18 @@ public class AlgoDefMe {
 	public Itemsets getItemsets() {
 		return generators;
 	}
+
+	/**
+	 * Set whether the tidsets should be stored as compressed bitmaps (RoaringBitmap)
+	 * instead of BitSets (default: false). The size of a BitSet depends on the largest
+	 * tid that it contains, while the size of a compressed bitmap depends on the number
+	 * of tids, which uses much less memory for large sparse databases.
+	 * The itemsets saved to memory still contain a BitSet.
+	 * @param useCompressedBitmaps true to use compressed bitmaps
+	 */
+	public void setUseCompressedBitmaps(boolean useCompressedBitmaps) {
+		this.useCompressedBitmaps = useCompressedBitmaps;
+	}
 	
 	/**
 	 * Anonymous inner class to store a bitset and its cardinality
@@ -328,5 +422,7 @@ public class AlgoDefMe {
 	public class BitSetSupport{
 		BitSet bitset = new BitSet();
 		int support;
+		// the tidset if compressed bitmaps are used (the bitset is then not used)
+		RoaringBitmap roaringBitmap;
 	}
 }
@@ -0,0 +1,245 @@
+package ca.pfv.spmf.algorithms.frequentpatterns.eclat;
+/* This file is copyright (c) 2008-2014 Philippe Fournier-Viger
+*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+*
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+import java.util.Arrays;
+
+/**
+ * This class represents a set of tids used by AlgoEclat_Adaptive. It is either a tidset or
+ * a diffset (this is decided by the equivalence class that contains it) and it is
+ * stored either as a sorted array of tids or as a bitmap of 64-bit words.
+ * <br/><br/>
+ *
+ * The static methods intersect() and subtract() combine two sets stored in the same way
+ * and count the tids of the result while it is created, so that the support is
+ * known without calculating a cardinality afterwards. Sorted arrays are combined
+ * with a galloping search, which is efficient when one set is much smaller than the other.
+ * The tids of a result are first written in a buffer provided by the caller (that must
+ * be large enough for all the tids of the database) and then copied to an array of the
+ * right size.
+ *
+ * @see AlgoEclat_Adaptive
+ * @author Philippe Fournier-Viger
+ */
+class AdaptiveTidset {
+
+	/** the tids sorted by increasing order (null if this set is stored as a bitmap) */
+	int[] tids;
+	/** the bitmap (null if this set is stored as an array of tids) */
+	long[] words;
+	/** the number of tids in this set */
+	int size;
+	/** the support of the itemset (equal to size for a tidset but not for a diffset) */
+	int support;
+
+	/**
+	 * Check if this set is stored as a bitmap.
+	 * @return true if it is a bitmap, false if it is an array of tids
+	 */
+	boolean isBitmap() {
+		return words != null;
+	}
+
+	/**
+	 * Create a set stored as an array of tids.
+	 * @param tids the tids sorted by increasing order (the array is not copied)
+	 * @param size the number of tids in the array
+	 * @return the set
+	 */
+	static AdaptiveTidset fromArray(int[] tids, int size) {
+		AdaptiveTidset set = new AdaptiveTidset();
+		set.tids = tids;
+		set.size = size;
+		set.support = size;
+		return set;
+	}
+
+	/**
+	 * Convert a set stored as an array of tids to a bitmap.
+	 * @param set the set
+	 * @param wordCount the number of words of the bitmap (enough for the largest tid)
+	 * @return a new set stored as a bitmap
+	 */
+	static AdaptiveTidset toBitmap(AdaptiveTidset set, int wordCount) {
+		AdaptiveTidset bitmap = new AdaptiveTidset();
+		bitmap.words = new long[wordCount];
+		for (int i = 0; i < set.size; i++) {
+			bitmap.words[set.tids[i] >>> 6] |= 1L << set.tids[i];
+		}
+		bitmap.size = set.size;
+		bitmap.support = set.support;
+		return bitmap;
+	}
+
+	/**
+	 * Calculate the intersection of two sets stored in the same way.
+	 * @param setA the first set
+	 * @param setB the second set
+	 * @param toBitmap if true and the two sets are bitmaps, the result is a bitmap. Otherwise, it
+	 *          is an array of tids.
+	 * @param buffer a buffer for writing the tids of the result
+	 * @return the intersection
+	 */
+	static AdaptiveTidset intersect(AdaptiveTidset setA, AdaptiveTidset setB, boolean toBitmap,
+			int[] buffer) {
+		if (setA.isBitmap()) {
+			return combineBitmaps(setA.words, setB.words, false, Integer.MAX_VALUE, toBitmap, buffer);
+		}
+		// iterate over the smallest array and search its tids in the largest one
+		if (setA.size > setB.size) {
+			AdaptiveTidset temp = setA;
+			setA = setB;
+			setB = temp;
+		}
+		int[] tidsA = setA.tids;
+		int[] tidsB = setB.tids;
+		int count = 0;
+		int position = 0;
+		for (int i = 0; i < setA.size; i++) {
+			int tid = tidsA[i];
+			position = gallop(tidsB, position, setB.size, tid);
+			if (position == setB.size) {
+				break;
+			}
+			if (tidsB[position] == tid) {
+				buffer[count++] = tid;
+				position++;
+			}
+		}
+		return fromArray(Arrays.copyOf(buffer, count), count);
+	}
+
+	/**
+	 * Calculate the tids of a set that do not appear in another set stored in the same way.
+	 * The calculation stops as soon as the result contains more than a given number of tids.
+	 * @param setA the first set
+	 * @param setB the set of tids to be removed from the first set
+	 * @param limit the maximum number of tids in the result
+	 * @param toBitmap if true and the two sets are bitmaps, the result is a bitmap. Otherwise, it
+	 *          is an array of tids.
+	 * @param buffer a buffer for writing the tids of the result
+	 * @return the difference (its support is not calculated) or null if it
+	 *          contains more than "limit" tids.
+	 */
+	static AdaptiveTidset subtract(AdaptiveTidset setA, AdaptiveTidset setB, int limit,
+			boolean toBitmap, int[] buffer) {
+		if (limit < 0) {
+			return null;
+		}
+		if (setA.isBitmap()) {
+			return combineBitmaps(setA.words, setB.words, true, limit, toBitmap, buffer);
+		}
+		int[] tidsA = setA.tids;
+		int[] tidsB = setB.tids;
+		int count = 0;
+		int position = 0;
+		for (int i = 0; i < setA.size; i++) {
+			int tid = tidsA[i];
+			position = gallop(tidsB, position, setB.size, tid);
+			if (position < setB.size && tidsB[position] == tid) {
+				position++;
+				continue;
+			}
+			// if the result is too large, stop
+			if (count == limit) {
+				return null;
+			}
+			buffer[count++] = tid;
+		}
+		return fromArray(Arrays.copyOf(buffer, count), count);
+	}
+
+	/**
+	 * Calculate the AND (or AND NOT) of two bitmaps and count the tids of the result.
+	 * @param wordsA the first bitmap
+	 * @param wordsB the second bitmap
+	 * @param andNot if true calculate A AND NOT B, otherwise A AND B
+	 * @param limit the maximum number of tids allowed in the result
+	 * @param toBitmap if true the result is a bitmap, otherwise an array of tids
+	 * @param buffer a buffer for writing the tids of the result if it is an array
+	 * @return the result or null if it contains more than "limit" tids
+	 */
+	private static AdaptiveTidset combineBitmaps(long[] wordsA, long[] wordsB, boolean andNot,
+			int limit, boolean toBitmap, int[] buffer) {
+		long[] resultWords = toBitmap ? new long[wordsA.length] : null;
+		int count = 0;
+		for (int k = 0; k < wordsA.length; k++) {
+			long word = andNot ? wordsA[k] & ~wordsB[k] : wordsA[k] & wordsB[k];
+			if (word == 0) {
+				continue;
+			}
+			int bitCount = Long.bitCount(word);
+			// if the result is too large, stop
+			if (count + bitCount > limit) {
+				return null;
+			}
+			if (toBitmap) {
+				resultWords[k] = word;
+			} else {
+				// convert the bits of the word to tids
+				int base = k << 6;
+				for (int i = 0; i < bitCount; i++) {
+					buffer[count + i] = base + Long.numberOfTrailingZeros(word);
+					word &= word - 1;
+				}
+			}
+			count += bitCount;
+		}
+		AdaptiveTidset set = new AdaptiveTidset();
+		if (toBitmap) {
+			set.words = resultWords;
+		} else {
+			set.tids = Arrays.copyOf(buffer, count);
+		}
+		set.size = count;
+		set.support = count;
+		return set;
+	}
+
+	/**
+	 * Find the position of the first tid that is not smaller than a given tid
+	 * in a sorted array, by doubling the distance from the start position
+	 * until a larger tid is found and then doing a binary search.
+	 * @param tids the sorted array
+	 * @param from the start position
+	 * @param end the end position (exclusive)
+	 * @param tid the tid
+	 * @return the position (end if all the tids are smaller)
+	 */
+	private static int gallop(int[] tids, int from, int end, int tid) {
+		int high = from;
+		int step = 1;
+		while (high < end && tids[high] < tid) {
+			from = high + 1;
+			high += step;
+			step <<= 1;
+		}
+		if (high > end) {
+			high = end;
+		}
+		// binary search between from and high
+		while (from < high) {
+			int middle = (from + high) >>> 1;
+			if (tids[middle] < tid) {
+				from = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return from;
+	}
+}
@@ -60,7 +60,7 @@ public class AlgoDEclat extends AlgoEclat{
 		System.out.println("=============  dECLAT v0.96j - STATS =============");
 		long temps = endTime - startTimestamp;
 		System.out.println(" Transactions count from database : "
-				+ database.size());
+				+ databaseSize);
 		System.out.println(" Frequent itemsets count : "
 				+ itemsetCount);
 		System.out.println(" Total time ~ " + temps + " ms");
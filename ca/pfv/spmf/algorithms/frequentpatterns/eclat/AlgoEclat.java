@@ -30,6 +30,7 @@ import java.util.Map.Entry;
 import java.util.Set;
 
 import ca.pfv.spmf.datastructures.triangularmatrix.TriangularMatrix;
+import ca.pfv.spmf.input.transaction_database_array_integers.CompactTransactionDatabase;
 import ca.pfv.spmf.input.transaction_database_list_integers.TransactionDatabase;
 import ca.pfv.spmf.patterns.itemset_array_integers_with_tids.Itemset;
 import ca.pfv.spmf.patterns.itemset_array_integers_with_tids.Itemsets;
@@ -64,6 +65,8 @@ public class AlgoEclat {
 	private int minsupRelative;  
 	/** the transaction database **/
 	protected TransactionDatabase database; 
+	/** the number of transactions in the database **/
+	protected int databaseSize;
 
 	/**  start time of the last execution */
 	protected long startTimestamp;
@@ -102,6 +105,37 @@ public class AlgoEclat {
 	 */
 	public Itemsets runAlgorithm(String output, TransactionDatabase database, double minsupp,
 			boolean useTriangularMatrixOptimization) throws IOException {
+		return runAlgorithm(output, database, null, minsupp, useTriangularMatrixOptimization);
+	}
+
+	/**
+	 * Run the algorithm on a transaction database stored in arrays. If the items of the
+	 * database were recoded, the itemsets found contain the recoded items.
+	 * @param database a transaction database
+	 * @param output an output file path for writing the result or if null the result is saved into memory and returned
+	 * @param minsupp the minimum support
+	 * @param useTriangularMatrixOptimization if true the triangular matrix optimization will be applied.
+	 * @return the result
+	 * @throws IOException exception if error while writing the file.
+	 */
+	public Itemsets runAlgorithm(String output, CompactTransactionDatabase database, double minsupp,
+			boolean useTriangularMatrixOptimization) throws IOException {
+		return runAlgorithm(output, null, database, minsupp, useTriangularMatrixOptimization);
+	}
+
+	/**
+	 * Run the algorithm on one of the two kinds of transaction database.
+	 * @param database a transaction database (or null)
+	 * @param compactDatabase a transaction database stored in arrays (or null)
+	 * @param output an output file path for writing the result or if null the result is saved into memory and returned
+	 * @param minsupp the minimum support
+	 * @param useTriangularMatrixOptimization if true the triangular matrix optimization will be applied.
+	 * @return the result
+	 * @throws IOException exception if error while writing the file.
+	 */
+	private Itemsets runAlgorithm(String output, TransactionDatabase database, 
+			CompactTransactionDatabase compactDatabase, double minsupp,
+			boolean useTriangularMatrixOptimization) throws IOException {
 		
 		MemoryLogger.getInstance().reset();
 		
@@ -118,20 +152,22 @@ public class AlgoEclat {
 		itemsetCount =0;
 
 		this.database = database;
+		this.databaseSize = (database != null) ? database.size() : compactDatabase.size();
 		
 		// record the start time
 		startTimestamp = System.currentTimeMillis();
 		
 		// convert from an absolute minsup to a relative minsup by multiplying
 		// by the database size
-		this.minsupRelative = (int) Math.ceil(minsupp * database.size());
+		this.minsupRelative = (int) Math.ceil(minsupp * databaseSize);
 
 		// (1) First database pass : calculate tidsets of each item.
 		// This map will contain the tidset of each item
 		// Key: item   Value :  tidset
 		final Map<Integer, Set<Integer>> mapItemCount = new HashMap<Integer, Set<Integer>>();
 		// for each transaction
-		int maxItemId = calculateSupportSingleItems(database, mapItemCount);
+		int maxItemId = (database != null) ? calculateSupportSingleItems(database, mapItemCount)
+				: calculateSupportSingleItems(compactDatabase, mapItemCount);
 
 		// if the user chose to use the triangular matrix optimization
 		// for counting the support of itemsets of size 2.
@@ -140,16 +176,20 @@ public class AlgoEclat {
 			matrix = new TriangularMatrix(maxItemId + 1);
 			// for each transaction, take each itemset of size 2,
 			// and update the triangular matrix.
-			for (List<Integer> itemset : database.getTransactions()) {
-				Object[] array = itemset.toArray();
-				// for each item i in the transaction
-				for (int i = 0; i < itemset.size(); i++) {
-					Integer itemI = (Integer) array[i];
-					// compare with each other item j in the same transaction
-					for (int j = i + 1; j < itemset.size(); j++) {
-						Integer itemJ = (Integer) array[j];
-						// update the matrix count by 1 for the pair i, j
-						matrix.incrementCount(itemI, itemJ);
+			if(compactDatabase != null) {
+				compactDatabase.updateMatrix(matrix);
+			}else {
+				for (List<Integer> itemset : database.getTransactions()) {
+					Object[] array = itemset.toArray();
+					// for each item i in the transaction
+					for (int i = 0; i < itemset.size(); i++) {
+						Integer itemI = (Integer) array[i];
+						// compare with each other item j in the same transaction
+						for (int j = i + 1; j < itemset.size(); j++) {
+							Integer itemJ = (Integer) array[j];
+							// update the matrix count by 1 for the pair i, j
+							matrix.incrementCount(itemI, itemJ);
+						}
 					}
 				}
 			}
@@ -265,6 +305,30 @@ loopJ:		for(int j=i+1; j < frequentItems.size(); j++) {
 		return frequentItemsets; 
 	}
 
+	/**
+	 * This method scans a database stored in arrays to calculate the support of each single item
+	 * @param database the transaction database
+	 * @param mapItemTIDS  a map to store the tidset corresponding to each item
+	 * @return the maximum item id appearing in this database
+	 */
+	private int calculateSupportSingleItems(CompactTransactionDatabase database,
+			final Map<Integer, Set<Integer>> mapItemCount) {
+		int[][] tidsets = database.calculateItemTidsets();
+		int maxItemId = 0;
+		for (int item = 0; item < tidsets.length; item++) {
+			// if the item appears in the database
+			if (tidsets[item].length > 0) {
+				Set<Integer> tidset = new HashSet<Integer>();
+				for (int tid : tidsets[item]) {
+					tidset.add(tid);
+				}
+				mapItemCount.put(item, tidset);
+				maxItemId = item;
+			}
+		}
+		return maxItemId;
+	}
+
 	/**
 	 * This method scans the database to calculate the support of each single item
 	 * @param database the transaction database
@@ -571,7 +635,7 @@ loopJ:		for(int j=i+1; j < frequentItems.size(); j++) {
 		System.out.println("=============  ECLAT v0.96 - STATS =============");
 		long temps = endTime - startTimestamp;
 		System.out.println(" Transactions count from database : "
-				+ database.size());
+				+ databaseSize);
 		System.out.println(" Frequent itemsets count : "
 				+ itemsetCount);
 		System.out.println(" Total time ~ " + temps + " ms");
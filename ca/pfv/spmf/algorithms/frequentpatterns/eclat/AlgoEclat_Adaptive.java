@@ -0,0 +1,518 @@
+package ca.pfv.spmf.algorithms.frequentpatterns.eclat;
+/* This file is copyright (c) 2008-2014 Philippe Fournier-Viger
+*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+*
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import ca.pfv.spmf.datastructures.triangularmatrix.TriangularMatrix;
+import ca.pfv.spmf.input.transaction_database_array_integers.CompactTransactionDatabase;
+import ca.pfv.spmf.input.transaction_database_list_integers.TransactionDatabase;
+import ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemset;
+import ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemsets;
+import ca.pfv.spmf.tools.MemoryLogger;
+
+/**
+ * This is an implementation of the ECLAT algorithm that chooses how the tidsets are
+ * represented for each equivalence class, rather than using the same representation
+ * for the whole execution as AlgoEclat (sets of integers), AlgoEclat_Bitset (bitsets)
+ * and AlgoDEclat / AlgoDEclat_Bitset (diffsets).
+ * <br/><br/>
+ *
+ * The itemsets of an equivalence class all have the same prefix P. When the equivalence class
+ * of a prefix PX is created, its representation is chosen as follows:
+ * <ul>
+ * <li>diffsets are used if the equivalence class of P already uses diffsets, or if
+ *  the itemsets PY of the class of P have on average a support larger than half the support of P
+ *  (the diffsets of the itemsets PXY are then expected to be smaller than their tidsets),</li>
+ * <li>the tidsets (or diffsets) are stored as bitmaps if the class of P uses bitmaps and
+ *  the expected number of tids per set is larger than the number of transactions / 64
+ *  (a bitmap then uses at most twice the memory of an array of tids and is combined
+ *  with a few operations per word rather than per tid). Otherwise, they
+ *  are stored as sorted arrays of tids that are intersected with a galloping search.</li>
+ * </ul>
+ * The supports are calculated while performing the intersections (see AdaptiveTidset).
+ * Since the tidsets have different representations, the itemsets kept in memory
+ * only contain their support.
+ * <br/><br/>
+ *
+ * Eclat was proposed by ZAKI (2000) and diffsets in:
+ * <br/><br/>
+ *
+ * Zaki, M. J. (2000). Scalable algorithms for association mining. Knowledge and Data Engineering, IEEE Transactions on, 12(3), 372-390.
+ * <br/><br/>
+ *
+ * M. J. Zaki and K. Gouda. Fast vertical mining using Diffsets. Technical Report 01-1, Computer Science
+ * Dept., Rensselaer Polytechnic Institute, March 2001.
+ * <br/><br/>
+ *
+ * This  version  saves the result to a file
+ * or keep it into memory if no output path is provided
+ * by the user to the runAlgorithm method().
+ *
+ * @see AdaptiveTidset
+ * @see TriangularMatrix
+ * @see TransactionDatabase
+ * @see Itemset
+ * @see Itemsets
+ * @author Philippe Fournier-Viger
+ */
+public class AlgoEclat_Adaptive {
+
+	/** relative minimum support **/
+	private int minsupRelative;
+	/** the number of transactions in the database **/
+	protected int databaseSize;
+
+	/**  start time of the last execution */
+	protected long startTimestamp;
+	/** end  time of the last execution */
+	protected long endTime;
+
+	/**
+	 The  patterns that are found
+	 (if the user want to keep them into memory) */
+	protected Itemsets frequentItemsets;
+	/** object to write the output file */
+	BufferedWriter writer = null;
+	/** the number of patterns found */
+	protected int itemsetCount;
+
+	/** For optimization with a triangular matrix for counting
+	/ itemsets of size 2 (null if not used).  */
+	private TriangularMatrix matrix;
+
+	/** a buffer for writing the tids of a new tidset (or diffset) */
+	private int[] buffer;
+
+	/** the number of equivalence classes using each representation (for statistics) */
+	private int arrayClassCount;
+	private int bitmapClassCount;
+	private int diffsetClassCount;
+
+	/**
+	 * Default constructor
+	 */
+	public AlgoEclat_Adaptive() {
+
+	}
+
+	/**
+	 * Run the algorithm.
+	 * @param database a transaction database
+	 * @param output an output file path for writing the result or if null the result is saved into memory and returned
+	 * @param minsupp the minimum support
+	 * @param useTriangularMatrixOptimization if true the triangular matrix optimization will be applied.
+	 * @return the result
+	 * @throws IOException exception if error while writing the file.
+	 */
+	public Itemsets runAlgorithm(String output, TransactionDatabase database, double minsupp,
+			boolean useTriangularMatrixOptimization) throws IOException {
+		return runAlgorithm(output, database, null, minsupp, useTriangularMatrixOptimization);
+	}
+
+	/**
+	 * Run the algorithm on a transaction database stored in arrays. If the items of the
+	 * database were recoded, the itemsets found contain the recoded items.
+	 * @param database a transaction database
+	 * @param output an output file path for writing the result or if null the result is saved into memory and returned
+	 * @param minsupp the minimum support
+	 * @param useTriangularMatrixOptimization if true the triangular matrix optimization will be applied.
+	 * @return the result
+	 * @throws IOException exception if error while writing the file.
+	 */
+	public Itemsets runAlgorithm(String output, CompactTransactionDatabase database, double minsupp,
+			boolean useTriangularMatrixOptimization) throws IOException {
+		return runAlgorithm(output, null, database, minsupp, useTriangularMatrixOptimization);
+	}
+
+	/**
+	 * Run the algorithm on one of the two kinds of transaction database.
+	 * @param database a transaction database (or null)
+	 * @param compactDatabase a transaction database stored in arrays (or null)
+	 * @param output an output file path for writing the result or if null the result is saved into memory and returned
+	 * @param minsupp the minimum support
+	 * @param useTriangularMatrixOptimization if true the triangular matrix optimization will be applied.
+	 * @return the result
+	 * @throws IOException exception if error while writing the file.
+	 */
+	private Itemsets runAlgorithm(String output, TransactionDatabase database,
+			CompactTransactionDatabase compactDatabase, double minsupp,
+			boolean useTriangularMatrixOptimization) throws IOException {
+
+		MemoryLogger.getInstance().reset();
+
+		// if the user want to keep the result into memory
+		if(output == null){
+			writer = null;
+			frequentItemsets =  new Itemsets("FREQUENT ITEMSETS");
+	    }else{ // if the user want to save the result to a file
+	    	frequentItemsets = null;
+			writer = new BufferedWriter(new FileWriter(output));
+		}
+
+		// reset the statistics
+		itemsetCount = 0;
+		arrayClassCount = 0;
+		bitmapClassCount = 0;
+		diffsetClassCount = 0;
+		matrix = null;
+
+		this.databaseSize = (database != null) ? database.size() : compactDatabase.size();
+
+		// record the start time
+		startTimestamp = System.currentTimeMillis();
+
+		// convert from an absolute minsup to a relative minsup by multiplying
+		// by the database size
+		this.minsupRelative = (int) Math.ceil(minsupp * databaseSize);
+
+		// (1) First database pass : calculate the tidset of each item as a sorted array.
+		// The tids of the item "i" are tidsOfItems[i][0] ... tidsOfItems[i][supports[i]-1].
+		int maxItemId = 0;
+		if (database != null) {
+			for (List<Integer> transaction : database.getTransactions()) {
+				for (Integer item : transaction) {
+					maxItemId = Math.max(maxItemId, item);
+				}
+			}
+		} else {
+			maxItemId = Math.max(maxItemId, compactDatabase.getMaxItem());
+		}
+		int[][] tidsOfItems = new int[maxItemId + 1][];
+		int[] supports = new int[maxItemId + 1];
+		for (int tid = 0; tid < databaseSize; tid++) {
+			if (database != null) {
+				for (Integer item : database.getTransactions().get(tid)) {
+					addTid(tidsOfItems, supports, item, tid);
+				}
+			} else {
+				int[] items = compactDatabase.getItems();
+				int end = compactDatabase.getTransactionEnd(tid);
+				for (int i = compactDatabase.getTransactionStart(tid); i < end; i++) {
+					addTid(tidsOfItems, supports, items[i], tid);
+				}
+			}
+		}
+
+		// if the user chose to use the triangular matrix optimization
+		// for counting the support of itemsets of size 2.
+		if (useTriangularMatrixOptimization) {
+			// We create the triangular matrix.
+			matrix = new TriangularMatrix(maxItemId + 1);
+			// for each transaction, take each itemset of size 2,
+			// and update the triangular matrix.
+			for (int tid = 0; tid < databaseSize; tid++) {
+				int[] transaction;
+				int start;
+				int end;
+				if (database != null) {
+					List<Integer> itemset = database.getTransactions().get(tid);
+					transaction = new int[itemset.size()];
+					for (int i = 0; i < transaction.length; i++) {
+						transaction[i] = itemset.get(i);
+					}
+					start = 0;
+					end = transaction.length;
+				} else {
+					transaction = compactDatabase.getItems();
+					start = compactDatabase.getTransactionStart(tid);
+					end = compactDatabase.getTransactionEnd(tid);
+				}
+				// for each item i in the transaction
+				for (int i = start; i < end; i++) {
+					// compare with each other item j in the same transaction
+					for (int j = i + 1; j < end; j++) {
+						// update the matrix count by 1 for the pair i, j
+						matrix.incrementCount(transaction[i], transaction[j]);
+					}
+				}
+			}
+		}
+
+		// (2) create the list of frequent single items
+		List<Integer> frequentItems = new ArrayList<Integer>();
+		long totalSupport = 0;
+		for (int item = 0; item <= maxItemId; item++) {
+			if (supports[item] > 0 && supports[item] >= minsupRelative) {
+				frequentItems.add(item);
+				totalSupport += supports[item];
+			}
+		}
+
+		// Sort the list of items by the total order of increasing support.
+		// This total order is suggested in the article by Zaki.
+		final int[] itemSupports = supports;
+		Collections.sort(frequentItems, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer arg0, Integer arg1) {
+				int compare = itemSupports[arg0] - itemSupports[arg1];
+				return (compare == 0) ? arg0 - arg1 : compare;
+			}});
+
+		if (frequentItems.size() > 0) {
+			buffer = new int[databaseSize];
+			// The tidsets of single items are stored as bitmaps if they contain on average
+			// more tids than the number of transactions / 64.
+			boolean bitmaps = totalSupport * 64 >= (long) frequentItems.size() * databaseSize;
+			int wordCount = (databaseSize + 63) >>> 6;
+			List<AdaptiveTidset> tidsets = new ArrayList<AdaptiveTidset>();
+			for (Integer item : frequentItems) {
+				AdaptiveTidset tidset = AdaptiveTidset.fromArray(tidsOfItems[item], supports[item]);
+				tidsets.add(bitmaps ? AdaptiveTidset.toBitmap(tidset, wordCount) : tidset);
+				tidsOfItems[item] = null;
+			}
+			// The single items form the equivalence class of the empty prefix,
+			// which is processed like the other equivalence classes.
+			processEquivalenceClass(new int[0], databaseSize, frequentItems, tidsets, false);
+			buffer = null;
+		}
+
+		// we check the memory usage
+		MemoryLogger.getInstance().checkMemory();
+
+		// We have finish the search.
+		// Therefore, we close the output file writer if the result was saved to a file
+		if(writer != null){
+			writer.close();
+		}
+
+		// record the end time for statistics
+		endTime = System.currentTimeMillis();
+
+		// Return all frequent itemsets found or null if the result was saved to a file.
+		return frequentItemsets;
+	}
+
+	/**
+	 * Add a tid at the end of the array of tids of an item.
+	 * @param tidsOfItems the arrays of tids of all items
+	 * @param supports the number of tids of each item
+	 * @param item the item
+	 * @param tid the tid
+	 */
+	private void addTid(int[][] tidsOfItems, int[] supports, int item, int tid) {
+		int[] tids = tidsOfItems[item];
+		if (tids == null) {
+			tids = new int[8];
+			tidsOfItems[item] = tids;
+		} else if (supports[item] == tids.length) {
+			// if the array is full, it is enlarged
+			tids = Arrays.copyOf(tids, tids.length * 2);
+			tidsOfItems[item] = tids;
+		}
+		tids[supports[item]++] = tid;
+	}
+
+	/**
+	 * This method process all itemsets from an equivalence class to generate larger itemsets.
+	 * Each itemset of the class is saved and combined with the following itemsets of the
+	 * class to create its own equivalence class, whose representation is chosen
+	 * from the statistics of this class.
+	 * @param prefix  a common prefix to all itemsets of the equivalence class
+	 * @param supportPrefix the support of the prefix
+	 * @param equivalenceClassItems  a list of suffixes of itemsets in the current equivalence class.
+	 * @param equivalenceClassTidsets a list of tidsets (or diffsets) of itemsets of the current equivalence class.
+	 * @param diffsets true if equivalenceClassTidsets contains diffsets with respect to the prefix
+	 * @throws IOException if error while writting the output to file
+	 */
+	private void processEquivalenceClass(int[] prefix, int supportPrefix, List<Integer> equivalenceClassItems,
+			List<AdaptiveTidset> equivalenceClassTidsets, boolean diffsets) throws IOException {
+
+		// the tidsets of a class are all stored in the same way
+		boolean bitmaps = equivalenceClassTidsets.get(0).isBitmap();
+		if (diffsets) {
+			diffsetClassCount++;
+		} else if (bitmaps) {
+			bitmapClassCount++;
+		} else {
+			arrayClassCount++;
+		}
+
+		// Calculate the average support of the itemsets of this class divided by the support
+		// of the prefix, and the average number of tids stored per itemset.
+		long totalSupport = 0;
+		long totalSize = 0;
+		for (AdaptiveTidset tidset : equivalenceClassTidsets) {
+			totalSupport += tidset.support;
+			totalSize += tidset.size;
+		}
+		double supportRatio = totalSupport / ((double) supportPrefix * equivalenceClassItems.size());
+		double averageSize = totalSize / (double) equivalenceClassItems.size();
+
+		// For each itemset "prefix" + "i"
+		for (int i = 0; i < equivalenceClassItems.size(); i++) {
+			int itemI = equivalenceClassItems.get(i);
+			// get the tidset and support of that itemset
+			AdaptiveTidset tidsetI = equivalenceClassTidsets.get(i);
+
+			// save the itemset "prefix + "i" since it is frequent
+			save(prefix, itemI, tidsetI.support);
+
+			// Choose the representation of the equivalence class of prefix + i and the
+			// expected number of tids of each set of that class.
+			boolean childDiffsets;
+			double expectedSize;
+			if (diffsets) {
+				// once diffsets are used, they are used for all the larger itemsets
+				childDiffsets = true;
+				expectedSize = averageSize;
+			} else if (supportRatio > 0.5) {
+				// the diffset of prefix+i+j should be smaller than its tidset
+				childDiffsets = true;
+				expectedSize = (1 - supportRatio) * tidsetI.support;
+			} else {
+				childDiffsets = false;
+				expectedSize = supportRatio * tidsetI.support;
+			}
+			boolean childBitmaps = bitmaps && expectedSize * 64 >= databaseSize;
+			// the maximum size of a diffset for prefix + i + j to be frequent
+			int maximumDiffsetSize = tidsetI.support - minsupRelative;
+
+			// create the empty equivalence class for storing all itemsets of the
+			// equivalence class starting with prefix + i
+			List<Integer> equivalenceClassISuffixItems = new ArrayList<Integer>();
+			List<AdaptiveTidset> equivalenceITidsets = new ArrayList<AdaptiveTidset>();
+
+			// For each itemset "prefix" + j"
+			for (int j = i + 1; j < equivalenceClassItems.size(); j++) {
+				int itemJ = equivalenceClassItems.get(j);
+
+				// if the triangular matrix optimization is activated and i and j are
+				// single items, we check if "ij" is frequent according to the matrix.
+				if (matrix != null && prefix.length == 0
+						&& matrix.getSupportForItems(itemI, itemJ) < minsupRelative) {
+					continue;
+				}
+
+				// Get the tidset (or diffset) of the itemset prefix + "j"
+				AdaptiveTidset tidsetJ = equivalenceClassTidsets.get(j);
+
+				// Calculate the tidset or diffset of prefix + i + j and its support
+				AdaptiveTidset tidsetIJ;
+				if (diffsets) {
+					// d(PIJ) = d(PJ) - d(PI)
+					tidsetIJ = AdaptiveTidset.subtract(tidsetJ, tidsetI, maximumDiffsetSize, childBitmaps, buffer);
+				} else if (childDiffsets) {
+					// d(PIJ) = t(PI) - t(PJ)
+					tidsetIJ = AdaptiveTidset.subtract(tidsetI, tidsetJ, maximumDiffsetSize, childBitmaps, buffer);
+				} else {
+					// t(PIJ) = t(PI) intersected with t(PJ)
+					tidsetIJ = AdaptiveTidset.intersect(tidsetI, tidsetJ, childBitmaps, buffer);
+				}
+				// the subtraction returns null if the diffset is too large
+				if (tidsetIJ == null) {
+					continue;
+				}
+				if (childDiffsets) {
+					tidsetIJ.support = tidsetI.support - tidsetIJ.size;
+				}
+
+				// If the itemset prefix+i+j is frequent, then we add it to the
+				// equivalence class of itemsets having the prefix "prefix"+i
+				if (tidsetIJ.support >= minsupRelative) {
+					equivalenceClassISuffixItems.add(itemJ);
+					equivalenceITidsets.add(tidsetIJ);
+				}
+			}
+
+			// If there is more than an itemset in the equivalence class
+			// then we recursively process that equivalence class to find larger itemsets
+			if (equivalenceClassISuffixItems.size() > 0) {
+				// We create the itemset prefix + i
+				int newPrefix[] = new int[prefix.length + 1];
+				System.arraycopy(prefix, 0, newPrefix, 0, prefix.length);
+				newPrefix[prefix.length] = itemI;
+				// Recursive call
+				processEquivalenceClass(newPrefix, tidsetI.support, equivalenceClassISuffixItems,
+						equivalenceITidsets, childDiffsets);
+			}
+		}
+
+		// we check the memory usage
+		MemoryLogger.getInstance().checkMemory();
+	}
+
+	/**
+	 * Save an itemset to disk or memory (depending on what the user chose).
+	 * @param prefix the prefix of the itemset to be saved
+	 * @param suffixItem  the last item to be appended to the itemset
+	 * @param support the support of this itemset
+	 * @throws IOException if an error occurrs when writing to disk.
+	 */
+	private void save(int[] prefix, int suffixItem, int support) throws IOException {
+		// increase the itemset count
+		itemsetCount++;
+		// if the result should be saved to memory
+		if(writer == null){
+			// append the prefix with the suffix
+			int[] itemsetArray = new int[prefix.length+1];
+			System.arraycopy(prefix, 0, itemsetArray, 0, prefix.length);
+			itemsetArray[prefix.length] = suffixItem;
+			// Create an object "Itemset" and add it to the set of frequent itemsets
+			Itemset itemset = new Itemset(itemsetArray);
+			itemset.setAbsoluteSupport(support);
+			frequentItemsets.addItemset(itemset, itemset.size());
+		}else{
+			// if the result should be saved to a file
+			// write it to the output file
+			StringBuffer buffer = new StringBuffer();
+			for(int item: prefix) {
+				buffer.append(item);
+				buffer.append(" ");
+			}
+			buffer.append(suffixItem);
+			// as well as its support
+			buffer.append(" #SUP: ");
+			buffer.append(support);
+			writer.write(buffer.toString());
+			writer.newLine();
+		}
+	}
+
+	/**
+	 * Print statistics about the algorithm execution to System.out.
+	 */
+	public void printStats() {
+		System.out.println("=============  ECLAT Adaptive tidsets - STATS =============");
+		long temps = endTime - startTimestamp;
+		System.out.println(" Transactions count from database : "
+				+ databaseSize);
+		System.out.println(" Frequent itemsets count : "
+				+ itemsetCount);
+		System.out.println(" Equivalence classes with tid arrays : " + arrayClassCount
+				+ ", bitmaps : " + bitmapClassCount + ", diffsets : " + diffsetClassCount);
+		System.out.println(" Total time ~ " + temps + " ms");
+		System.out.println(" Maximum memory usage : "
+				+ MemoryLogger.getInstance().getMaxMemory() + " mb");
+		System.out.println("===================================================");
+	}
+
+	/**
+	 * Get the set of frequent itemsets found by the algorithm.
+	 * @return the frequent itemsets (Itemsets).
+	 */
+	public Itemsets getItemsets() {
+		return frequentItemsets;
+	}
+}
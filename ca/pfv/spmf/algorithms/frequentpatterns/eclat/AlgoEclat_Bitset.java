@@ -28,6 +28,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
+import ca.pfv.spmf.datastructures.roaringbitmap.RoaringBitmap;
 import ca.pfv.spmf.datastructures.triangularmatrix.TriangularMatrix;
 import ca.pfv.spmf.input.transaction_database_list_integers.TransactionDatabase;
 import ca.pfv.spmf.patterns.itemset_array_integers_with_tids_bitset.Itemset;
@@ -82,6 +83,9 @@ public class AlgoEclat_Bitset {
 	/ itemsets of size 2.  */
 	private TriangularMatrix matrix; // the triangular matrix
 
+	/** if true, the tidsets are stored as compressed bitmaps (RoaringBitmap) instead of BitSets */
+	private boolean useCompressedBitmaps = false;
+
 	/**
 	 * Default constructor
 	 */
@@ -168,7 +172,7 @@ public class AlgoEclat_Bitset {
 				// add the item to the list of frequent items
 				frequentItems.add(item);
 				// output the item
-				saveSingleItem(item, support, tidset.bitset);
+				saveSingleItem(item, support, tidset);
 			}
 		}
 		
@@ -296,6 +300,9 @@ loopJ:		for(int j=i+1; j < frequentItems.size(); j++) {
 				// If none, then we create one
 				if(tids == null){
 					tids = new BitSetSupport();
+					if(useCompressedBitmaps){
+						tids.roaringBitmap = new RoaringBitmap();
+					}
 					mapItemTIDS.put(item, tids);
 					// we remember the largest item seen until now
 					if (item > maxItemId) {
@@ -303,11 +310,22 @@ loopJ:		for(int j=i+1; j < frequentItems.size(); j++) {
 					}
 				}
 				// we add the current transaction id to the tidset of the item
-				tids.bitset.set(i);
+				if(useCompressedBitmaps){
+					tids.roaringBitmap.set(i);
+				}else{
+					tids.bitset.set(i);
+				}
 				// we increase the support of that item
 				tids.support++;
 			}
 		}
+		// if compressed bitmaps are used, the chunks containing long runs of
+		// transactions are compressed now that all the tids have been added
+		if(useCompressedBitmaps){
+			for(BitSetSupport tids : mapItemTIDS.values()){
+				tids.roaringBitmap.runOptimize();
+			}
+		}
 		return maxItemId;
 	}
 
@@ -321,6 +339,11 @@ loopJ:		for(int j=i+1; j < frequentItems.size(); j++) {
 			BitSetSupport tidsetJ) {
 		// Create the new tidset and perform the logical AND to intersect the tidset
 		BitSetSupport bitsetSupportIJ = new BitSetSupport();
+		if(useCompressedBitmaps){
+			bitsetSupportIJ.roaringBitmap = RoaringBitmap.and(tidsetI.roaringBitmap, tidsetJ.roaringBitmap);
+			bitsetSupportIJ.support = bitsetSupportIJ.roaringBitmap.cardinality();
+			return bitsetSupportIJ;
+		}
 		bitsetSupportIJ.bitset = (BitSet)tidsetI.bitset.clone();
 		bitsetSupportIJ.bitset.and(tidsetJ.bitset);
 		// set the support as the cardinality of the new tidset
@@ -341,8 +364,12 @@ loopJ:		for(int j=i+1; j < frequentItems.size(); j++) {
 			BitSetSupport tidsetJ, int supportIJ) {
 		// Create the new tidset and perform the logical AND to intersect the tidset
 		BitSetSupport bitsetSupportIJ = new BitSetSupport();
-		bitsetSupportIJ.bitset = (BitSet)tidsetI.bitset.clone();
-		bitsetSupportIJ.bitset.and(tidsetJ.bitset);
+		if(useCompressedBitmaps){
+			bitsetSupportIJ.roaringBitmap = RoaringBitmap.and(tidsetI.roaringBitmap, tidsetJ.roaringBitmap);
+		}else{
+			bitsetSupportIJ.bitset = (BitSet)tidsetI.bitset.clone();
+			bitsetSupportIJ.bitset.and(tidsetJ.bitset);
+		}
 		// set the support as the support provided as parameter
 		bitsetSupportIJ.support = supportIJ;
 		// return the new tidset
@@ -514,7 +541,7 @@ loopJ:		for(int j=i+1; j < frequentItems.size(); j++) {
 			itemsetArray[prefix.length] = suffixItem;
 			// Create an object "Itemset" and add it to the set of frequent itemsets
 			Itemset itemset = new Itemset(itemsetArray);
-			itemset.setTIDs(tidset.bitset, tidset.support);
+			itemset.setTIDs(tidset.toBitSet(), tidset.support);
 			frequentItemsets.addItemset(itemset, itemset.size());
 		}else{
 			// if the result should be saved to a file
@@ -540,14 +567,14 @@ loopJ:		for(int j=i+1; j < frequentItems.size(); j++) {
 	 * @param tidset the tidset of this itemset
 	 * @throws IOException if an error occurrs when writing to disk.
 	 */
-	private void saveSingleItem(int item, int support, BitSet tidset) throws IOException {
+	private void saveSingleItem(int item, int support, BitSetSupport tidset) throws IOException {
 		// increase the itemset count
 		itemsetCount++;
 		// if the result should be saved to memory
 		if(writer == null){
 			// add it to the set of frequent itemsets
 			Itemset itemset = new Itemset(new int[] {item});
-			itemset.setTIDs(tidset, support);
+			itemset.setTIDs(tidset.toBitSet(), support);
 			frequentItemsets.addItemset(itemset, itemset.size());
 		}else{
 			// if the result should be saved to a file
@@ -584,6 +611,18 @@ loopJ:		for(int j=i+1; j < frequentItems.size(); j++) {
 		return frequentItemsets;
 	}
 
+	/**
+	 * Set whether the tidsets should be stored as compressed bitmaps (RoaringBitmap)
+	 * instead of BitSets (default: false). The size of a BitSet depends on the largest
+	 * tid that it contains, while the size of a compressed bitmap depends on the number
+	 * of tids, which uses much less memory for large sparse databases.
+	 * The itemsets saved to memory still contain a BitSet.
+	 * @param useCompressedBitmaps true to use compressed bitmaps
+	 */
+	public void setUseCompressedBitmaps(boolean useCompressedBitmaps) {
+		this.useCompressedBitmaps = useCompressedBitmaps;
+	}
+
 	/**
 	 * Anonymous inner class to store a bitset and its cardinality
 	 * (an itemset's tidset and its support).
@@ -594,5 +633,15 @@ loopJ:		for(int j=i+1; j < frequentItems.size(); j++) {
 	public class BitSetSupport{
 		BitSet bitset = new BitSet();
 		int support;
+		// the tidset if compressed bitmaps are used (the bitset is then not used)
+		RoaringBitmap roaringBitmap;
+
+		/**
+		 * Get the tidset as a BitSet.
+		 * @return the bitset
+		 */
+		BitSet toBitSet(){
+			return roaringBitmap == null ? bitset : roaringBitmap.toBitSet();
+		}
 	}
 }
@@ -0,0 +1,452 @@
+package ca.pfv.spmf.algorithms.frequentpatterns.estDec;
+/* This file is copyright (c) 2008-2014 Philippe Fournier-Viger
+*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+*
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This is a version of the estDec algorithm where the transactions of the stream are
+ * inserted in the tree by a worker thread, so that the thread that receives the
+ * transactions is not blocked while the tree is updated or pruned.
+ * <br/><br/>
+ *
+ * The transactions are added to a bounded queue by submitTransaction(), which only
+ * waits if the queue is full. The worker thread takes the transactions from the queue
+ * by batches and inserts them in the tree. Every pruningInterval transactions, the
+ * nodes to be removed by force pruning are searched by another thread, in a snapshot
+ * of the tree taken when the search is started. The nodes are not copied: each node
+ * saves its counter, tid and children the first time that the worker thread modifies it
+ * after the snapshot (see estTree.takeSnapshot()). This search does not modify the tree,
+ * while the worker thread continues inserting transactions. The nodes found are then
+ * removed by the worker thread between two batches if their support is still less than
+ * the minimum significance threshold. Since the pruning is not done exactly every
+ * 1000 transactions, the counts estimated for new itemsets may be slightly different
+ * from those of Algo_estDec.
+ * <br/><br/>
+ *
+ * The throughput and the pruning latency (the time between the start of a search and
+ * the removal of the nodes found) are available while the stream is processed.
+ *
+ * @see Algo_estDec
+ * @see estTree
+ * @author Philippe Fournier-Viger
+ */
+public class Algo_estDec_Async {
+	// a transaction indicating the end of the stream to the worker thread
+	private static final int[] END_OF_STREAM = new int[0];
+
+	// the "monitoring lattice" tree (the worker thread holds its lock while
+	// inserting transactions)
+	private final estTree tree;
+
+	// the transactions waiting to be inserted in the tree
+	private final BlockingQueue<int[]> queue;
+	// the maximum number of transactions inserted at a time by the worker thread
+	private final int batchSize;
+	// the number of transactions between two force prunings
+	private volatile int pruningInterval = 1000;
+
+	// the thread inserting the transactions in the tree
+	private final Thread workerThread;
+	// the thread searching the nodes to be pruned
+	private final ExecutorService pruningExecutor;
+	// the search of the nodes to be pruned that is running (only used by the worker thread)
+	private Future<PruningResult> pendingPruning = null;
+	// the tid when the last search was started (only used by the worker thread)
+	private int lastPruningK = 0;
+	// an exception thrown by the worker thread
+	private volatile Throwable error = null;
+
+	// for stats
+	private final AtomicLong submittedCount = new AtomicLong(); // transactions submitted
+	private volatile long insertedCount = 0; // transactions inserted in the tree
+	private volatile long batchCount = 0;  // batches inserted in the tree
+	private volatile long firstSubmissionTimestamp = 0;
+	private volatile long lastInsertionTimestamp = 0;
+	private volatile long pruningCount = 0; // force prunings done
+	private volatile long prunedNodeCount = 0; // nodes removed by force pruning
+	private volatile long sumPruningLatency = 0;
+	private volatile long maxPruningLatency = 0;
+	private long miningTime = 0;
+	private double maxMemory = 0;
+
+	/**
+	 * The nodes found by a search of the nodes to be pruned.
+	 */
+	private static class PruningResult {
+		// the time when the search was started
+		long startTimestamp;
+		// the nodes to be removed and their parents
+		List<estNode> parents = new ArrayList<estNode>();
+		List<estNode> nodes = new ArrayList<estNode>();
+	}
+
+	/**
+	 * Constructor
+	 * @param mins minimum support
+	 * @param queueCapacity the maximum number of transactions waiting to be inserted in the tree
+	 * @param batchSize the maximum number of transactions inserted at a time in the tree
+	 */
+	public Algo_estDec_Async(double mins, int queueCapacity, int batchSize) {
+		// create the "Monitoring Lattice" tree
+		tree = new estTree(mins);
+		queue = new ArrayBlockingQueue<int[]>(queueCapacity);
+		this.batchSize = Math.max(1, batchSize);
+
+		pruningExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+			public Thread newThread(Runnable runnable) {
+				// the thread should not prevent the program from exiting
+				Thread thread = new Thread(runnable, "estDec pruning");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		workerThread = new Thread(new Runnable() {
+			public void run() {
+				insertTransactions();
+			}
+		}, "estDec insertion");
+		workerThread.setDaemon(true);
+		workerThread.start();
+	}
+
+	/**
+	 * Set the decay rate. This method should be called before submitting transactions.
+	 * @param b  decay base
+	 * @param h decay-base life
+	 */
+	public void setDecayRate(double b, double h) {
+		synchronized (tree) {
+			tree.setDecayRate(b, h);
+		}
+	}
+
+	/**
+	 * Set the number of transactions between two force prunings (default: 1000).
+	 * @param pruningInterval the number of transactions
+	 */
+	public void setPruningInterval(int pruningInterval) {
+		this.pruningInterval = Math.max(1, pruningInterval);
+	}
+
+	/**
+	 * Add a transaction to the queue of transactions to be inserted in the tree.
+	 * This method waits only if the queue is full.
+	 * @param transaction an array of integers (it should not be modified after this call)
+	 * @throws InterruptedException if the thread is interrupted while waiting
+	 */
+	public void submitTransaction(int[] transaction) throws InterruptedException {
+		if (firstSubmissionTimestamp == 0) {
+			firstSubmissionTimestamp = System.currentTimeMillis();
+		}
+		// wait until there is space in the queue, unless the worker thread has stopped
+		while (!queue.offer(transaction, 100, TimeUnit.MILLISECONDS)) {
+			checkError();
+		}
+		submittedCount.incrementAndGet();
+	}
+
+	/**
+	 * Submit the transactions of an input file.
+	 * @param input   the input file path
+	 * @throws IOException if error reading the file
+	 * @throws InterruptedException if the thread is interrupted while waiting
+	 */
+	public void processTransactionFromFile(String input) throws IOException, InterruptedException {
+		// read the input file
+		BufferedReader reader = new BufferedReader(new FileReader(input));
+		String line;
+
+		// for each line (transaction)
+		while (((line = reader.readLine()) != null)) {
+			String[] lineSplited = line.split(" ");
+			int[] transaction = new int[lineSplited.length];
+			for (int i = 0; i < lineSplited.length; i++) {
+				transaction[i] = Integer.parseInt(lineSplited[i]);
+			}
+			submitTransaction(transaction);
+		}
+		reader.close();
+	}
+
+	/**
+	 * Wait until all the transactions submitted have been inserted in the tree.
+	 * @throws InterruptedException if the thread is interrupted while waiting
+	 */
+	public void flush() throws InterruptedException {
+		synchronized (this) {
+			while (insertedCount < submittedCount.get()) {
+				checkError();
+				wait(100);
+			}
+		}
+		checkError();
+	}
+
+	/**
+	 * Insert the transactions of the queue in the tree until the end of the stream.
+	 * This method is run by the worker thread.
+	 */
+	private void insertTransactions() {
+		List<int[]> batch = new ArrayList<int[]>(batchSize);
+		try {
+			boolean end = false;
+			while (!end) {
+				// wait for a transaction and then take the other transactions of the batch
+				batch.add(queue.take());
+				queue.drainTo(batch, batchSize - 1);
+
+				int count = 0;
+				synchronized (tree) {
+					for (int[] transaction : batch) {
+						if (transaction == END_OF_STREAM) {
+							end = true;
+							break;
+						}
+						tree.updateParams(transaction);
+						tree.insertItemset(transaction);
+						count++;
+					}
+					// remove the nodes found by the last search, and start a new search if needed
+					updatePruning();
+				}
+				batch.clear();
+
+				synchronized (this) {
+					insertedCount += count;
+					batchCount++;
+					lastInsertionTimestamp = System.currentTimeMillis();
+					notifyAll();
+				}
+			}
+		} catch (Throwable e) {
+			error = e;
+			// keep the interrupted status of the thread
+			if (e instanceof InterruptedException) {
+				Thread.currentThread().interrupt();
+			}
+		} finally {
+			synchronized (this) {
+				notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * Remove the nodes found by the last search of the nodes to be pruned if the search
+	 * is finished, and start a new search every pruningInterval transactions.
+	 * This method is called by the worker thread while it holds the lock of the tree.
+	 * @throws InterruptedException if the thread is interrupted
+	 * @throws ExecutionException if the search has thrown an exception
+	 */
+	private void updatePruning() throws InterruptedException, ExecutionException {
+		if (pendingPruning != null && pendingPruning.isDone()) {
+			PruningResult result = pendingPruning.get();
+			pendingPruning = null;
+			// remove the nodes that still have a support less than minsig
+			int removed = 0;
+			for (int i = 0; i < result.nodes.size(); i++) {
+				if (tree.pruneNode(result.parents.get(i), result.nodes.get(i))) {
+					removed++;
+				}
+			}
+			long latency = System.currentTimeMillis() - result.startTimestamp;
+			pruningCount++;
+			prunedNodeCount += removed;
+			sumPruningLatency += latency;
+			maxPruningLatency = Math.max(maxPruningLatency, latency);
+		}
+
+		if (pendingPruning == null && tree.getK() - lastPruningK >= pruningInterval) {
+			// the search is done in a snapshot of the current state of the tree
+			final int snapshotEpoch = tree.takeSnapshot();
+			final int snapshotK = tree.getK();
+			final double snapshotN = tree.N;
+			final long startTimestamp = System.currentTimeMillis();
+			lastPruningK = snapshotK;
+			pendingPruning = pruningExecutor.submit(new Callable<PruningResult>() {
+				public PruningResult call() {
+					PruningResult result = new PruningResult();
+					result.startTimestamp = startTimestamp;
+					tree.findNodesToPrune(tree.root, snapshotEpoch, snapshotK, snapshotN,
+							result.parents, result.nodes);
+					return result;
+				}
+			});
+		}
+	}
+
+	/**
+	 * Throw an exception if the worker thread has stopped because of an error.
+	 */
+	private void checkError() {
+		if (error != null) {
+			throw new IllegalStateException("The insertion of the transactions has failed", error);
+		}
+	}
+
+	/**
+	 * Mine recent frequent itemsets from the current tree and
+	 * save the result to a file. The transactions submitted before are inserted first.
+	 * @param outputPath the output file path
+	 * @throws IOException if error writing the file
+	 * @throws InterruptedException if the thread is interrupted while waiting
+	 */
+	public void performMining_saveResultToFile(String outputPath) throws IOException, InterruptedException {
+		flush();
+		long startMiningTimeStamp = System.currentTimeMillis();
+		synchronized (tree) {
+			tree.patternMining_saveToFile(outputPath);
+		}
+		checkMemory();
+		miningTime = System.currentTimeMillis() - startMiningTimeStamp;
+	}
+
+	/**
+	 * Mine recent frequent itemsets from the current tree and
+	 * save the result to memory. The transactions submitted before are inserted first.
+	 * @return the frequent itemsets with their support
+	 * @throws IOException if error
+	 * @throws InterruptedException if the thread is interrupted while waiting
+	 */
+	public Hashtable<List<Integer>, Double> performMining_saveResultToMemory() throws IOException, InterruptedException {
+		flush();
+		long startMiningTimeStamp = System.currentTimeMillis();
+		Hashtable<List<Integer>, Double> patterns;
+		synchronized (tree) {
+			patterns = tree.patternMining_saveToMemory();
+		}
+		checkMemory();
+		miningTime = System.currentTimeMillis() - startMiningTimeStamp;
+		return patterns;
+	}
+
+	/**
+	 * Insert the transactions that have been submitted and stop the threads.
+	 * No transaction should be submitted after calling this method.
+	 * @throws InterruptedException if the thread is interrupted while waiting
+	 */
+	public void close() throws InterruptedException {
+		if (workerThread.isAlive()) {
+			queue.put(END_OF_STREAM);
+			workerThread.join();
+		}
+		pruningExecutor.shutdown();
+		checkError();
+	}
+
+	/**
+	 * Check the current memory consumption to record the maximum memory usage.
+	 */
+	private void checkMemory() {
+		double currentMemory = (Runtime.getRuntime().totalMemory() -  Runtime.getRuntime().freeMemory())
+				/ 1024d / 1024d;
+		if (currentMemory > maxMemory) {
+			maxMemory = currentMemory;
+		}
+	}
+
+	/**
+	 * Get the number of transactions inserted in the tree.
+	 * @return the number of transactions
+	 */
+	public long getInsertedTransactionCount() {
+		return insertedCount;
+	}
+
+	/**
+	 * Get the number of transactions waiting in the queue.
+	 * @return the number of transactions
+	 */
+	public int getQueuedTransactionCount() {
+		return queue.size();
+	}
+
+	/**
+	 * Get the number of transactions inserted in the tree per second, since
+	 * the first transaction was submitted.
+	 * @return the throughput
+	 */
+	public double getThroughput() {
+		long time = lastInsertionTimestamp - firstSubmissionTimestamp;
+		return insertedCount == 0 ? 0 : insertedCount * 1000d / Math.max(1, time);
+	}
+
+	/**
+	 * Get the number of force prunings done.
+	 * @return the number of force prunings
+	 */
+	public long getPruningCount() {
+		return pruningCount;
+	}
+
+	/**
+	 * Get the number of nodes removed by force pruning.
+	 * @return the number of nodes
+	 */
+	public long getPrunedNodeCount() {
+		return prunedNodeCount;
+	}
+
+	/**
+	 * Get the average time between the start of a search of the nodes to be pruned
+	 * and the removal of the nodes found.
+	 * @return the time in ms
+	 */
+	public double getAveragePruningLatency() {
+		return pruningCount == 0 ? 0 : sumPruningLatency / (double) pruningCount;
+	}
+
+	/**
+	 * Get the maximum time between the start of a search of the nodes to be pruned
+	 * and the removal of the nodes found.
+	 * @return the time in ms
+	 */
+	public long getMaxPruningLatency() {
+		return maxPruningLatency;
+	}
+
+	/**
+	 * Print statistics about the algorithm execution to the console.
+	 */
+	public void printStats() {
+		System.out.println("=============  ESTDEC (ASYNCHRONOUS) - STATS =============");
+		System.out.println(" Frequent itemsets count : " + tree.patternCount);
+		System.out.println(" Maximum memory usage : " + maxMemory + " mb");
+		System.out.println(" Transactions inserted : " + insertedCount + " in " + batchCount + " batches");
+		System.out.println(" Throughput ~ " + (long) getThroughput() + " transactions/s");
+		System.out.println(" Force prunings : " + pruningCount + " (" + prunedNodeCount + " nodes removed)");
+		System.out.println(" Pruning latency ~ " + getAveragePruningLatency() + " ms (max: " + maxPruningLatency + " ms)");
+		System.out.println(" mining time ~ " + miningTime + " ms");
+		System.out.println("===================================================");
+	}
+}
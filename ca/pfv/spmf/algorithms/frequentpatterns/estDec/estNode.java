@@ -1,6 +1,5 @@
 package ca.pfv.spmf.algorithms.frequentpatterns.estDec;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 
 /**
  * This is an implementation of a estTree node. <br\>
@@ -32,11 +31,31 @@ import java.util.List;
  * @author Azadeh Soltani
  */
 public class estNode {
-	Integer itemID; // item id
-	double counter; // frequency counter
-	int tid; // last tid
+	// an empty array of children
+	private static final estNode[] NO_CHILDREN = new estNode[0];
+	private static final int[] NO_IDS = new int[0];
 
-	List<estNode> children; // children nodes
+	int itemID; // item id
+	// the counter and the tid can be read by another thread while the tree is
+	// updated (see getCounter())
+	volatile double counter; // frequency counter
+	volatile int tid; // last tid
+
+	// the item ids of the children nodes, sorted by ascending order
+	int[] childIDs;
+	// children nodes, in the same order as their ids. A new array is created
+	// each time that a child is added or removed, so that the children can be
+	// read by another thread while the tree is updated (see Algo_estDec_Async).
+	volatile estNode[] children;
+
+	// the counter, tid and children of this node when the last snapshot of the tree
+	// was taken. They are saved by saveSnapshot() before the node is modified for the
+	// first time after the snapshot (see estTree.takeSnapshot()).
+	private double snapshotCounter;
+	private int snapshotTid;
+	private estNode[] snapshotChildren;
+	// the snapshot for which the state of this node was saved
+	private volatile int snapshotEpoch = 0;
 
 	/**
 	 * constructor
@@ -44,21 +63,19 @@ public class estNode {
 	 * @param count the count 
 	 * @param k  the last transaction id
 	 */
-	estNode(Integer item, double count, int k) {
+	estNode(int item, double count, int k) {
 		itemID = item;
 		counter = count;
 		tid = k;
-		children = new ArrayList<estNode>();
+		childIDs = NO_IDS;
+		children = NO_CHILDREN;
 	}
 
 	/**
 	 * Default constructor
 	 */
 	estNode() {
-		itemID = -1;
-		counter = 0;
-		tid = 0;
-		children = new ArrayList<estNode>();
+		this(-1, 0, 0);
 	}
 
 	/**
@@ -69,14 +86,8 @@ public class estNode {
 	 * @return the node or null
 	 */
 	public estNode getChildWithID(int id) {
-		if (children == null)
-			return null;
-		for (estNode child : children) {
-			if (child.itemID == id) {
-				return child;
-			}
-		}
-		return null;
+		int index = Arrays.binarySearch(childIDs, id);
+		return index >= 0 ? children[index] : null;
 	}
 
 	/**
@@ -86,16 +97,118 @@ public class estNode {
 	 * @param id
 	 */
 	public int getChildIndexWithID(int id) {
-		if (children == null)
-			return -1;
-		int i = 0;
-		for (estNode child : children) {
-			if (child.itemID == id) {
-				return i;
+		int index = Arrays.binarySearch(childIDs, id);
+		return index >= 0 ? index : -1;
+	}
+
+	/**
+	 * Add a child to this node. This node must not have a child with the same id.
+	 * @param child the child
+	 */
+	void addChild(estNode child) {
+		// find the position of the child
+		int index = -Arrays.binarySearch(childIDs, child.itemID) - 1;
+		int count = childIDs.length;
+		int[] newIDs = new int[count + 1];
+		estNode[] newChildren = new estNode[count + 1];
+		System.arraycopy(childIDs, 0, newIDs, 0, index);
+		System.arraycopy(children, 0, newChildren, 0, index);
+		newIDs[index] = child.itemID;
+		newChildren[index] = child;
+		System.arraycopy(childIDs, index, newIDs, index + 1, count - index);
+		System.arraycopy(children, index, newChildren, index + 1, count - index);
+		childIDs = newIDs;
+		children = newChildren;
+	}
+
+	/**
+	 * Remove the child at a given position.
+	 * @param index the position
+	 */
+	void removeChild(int index) {
+		int count = childIDs.length;
+		if (count == 1) {
+			childIDs = NO_IDS;
+			children = NO_CHILDREN;
+			return;
+		}
+		int[] newIDs = new int[count - 1];
+		estNode[] newChildren = new estNode[count - 1];
+		System.arraycopy(childIDs, 0, newIDs, 0, index);
+		System.arraycopy(children, 0, newChildren, 0, index);
+		System.arraycopy(childIDs, index + 1, newIDs, index, count - index - 1);
+		System.arraycopy(children, index + 1, newChildren, index, count - index - 1);
+		childIDs = newIDs;
+		children = newChildren;
+	}
+
+	/**
+	 * Remove the children that are marked in an array.
+	 * @param removed an array where removed[i] is true if the child at position i is removed
+	 * @param removedCount the number of children to be removed
+	 */
+	void removeChildren(boolean[] removed, int removedCount) {
+		int count = childIDs.length;
+		int[] newIDs = new int[count - removedCount];
+		estNode[] newChildren = new estNode[count - removedCount];
+		int j = 0;
+		for (int i = 0; i < count; i++) {
+			if (!removed[i]) {
+				newIDs[j] = childIDs[i];
+				newChildren[j] = children[i];
+				j++;
 			}
-			i++;
 		}
-		return -1;
+		childIDs = newIDs;
+		children = newChildren;
+	}
+
+	/**
+	 * Save the state of this node for a snapshot of the tree, if it has not been saved
+	 * yet. This method must be called before the node is modified.
+	 * @param epoch the number of the snapshot
+	 */
+	void saveSnapshot(int epoch) {
+		if (snapshotEpoch != epoch) {
+			snapshotCounter = counter;
+			snapshotTid = tid;
+			snapshotChildren = children;
+			// the state is saved before the number of the snapshot is written,
+			// so that another thread that reads this number also reads the state
+			snapshotEpoch = epoch;
+		}
+	}
+
+	/**
+	 * Get the children of this node in a snapshot of the tree. This method can
+	 * be called by another thread while the tree is updated.
+	 * @param epoch the number of the snapshot
+	 * @return the children
+	 */
+	estNode[] getChildren(int epoch) {
+		// the current children are read before the number of the snapshot: if they
+		// have been replaced after the snapshot, the saved children are returned
+		estNode[] current = children;
+		return snapshotEpoch == epoch ? snapshotChildren : current;
+	}
+
+	/**
+	 * Get the counter of this node in a snapshot of the tree, as it would be after
+	 * calling update(k, 0, d). This method can be called by another thread while
+	 * the tree is updated.
+	 * @param epoch the number of the snapshot
+	 * @param k the current transaction id of the snapshot
+	 * @param d the decay rate
+	 * @return the counter
+	 */
+	double getCounter(int epoch, int k, double d) {
+		// the current values are read before the number of the snapshot (see getChildren())
+		double currentCounter = counter;
+		int currentTid = tid;
+		if (snapshotEpoch == epoch) {
+			return snapshotCounter * Math.pow(d, k - snapshotTid);
+		}
+		return currentCounter * Math.pow(d, k - currentTid);
 	}
 
 	/**
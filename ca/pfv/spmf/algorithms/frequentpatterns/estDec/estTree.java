@@ -55,6 +55,9 @@ public class estTree {
 	
 	estNode root; // tree root
 
+	// the number of the last snapshot of the tree (0 if no snapshot was taken)
+	int epoch = 0;
+
 	/**
 	 * Constructor
 	 */
@@ -104,12 +107,13 @@ public class estTree {
 			return;
 
 		// get item at position "ind" in the transaction
-		Integer item = transaction[ind];
+		int item = transaction[ind];
 		
 		// look if there is a node for this item in the est-Tree
 		estNode child = currentNode.getChildWithID(item);
 		if (child != null) {
 			// update count of the node
+			child.saveSnapshot(epoch);
 			child.update(k, 1, d);
 			// if the support is enough
 			if (child.computeSupport(N) >= minsig)
@@ -129,10 +133,11 @@ public class estTree {
 	 * 
 	 * @param it  the item
 	 ********************************************************************/
-	void insertItem(Integer it) {
+	void insertItem(int it) {
 		// create the node with a count of 0
 		double c = 0;// (getN(k-1)*minsig)*d+1;
-		root.children.add(new estNode(it, c, k));
+		root.saveSnapshot(epoch);
+		root.addChild(new estNode(it, c, k));
 	}
 
 	/********************************************************************
@@ -225,7 +230,7 @@ public class estTree {
 		if (ind >= transaction.size())
 			return;
 
-		Integer item = transaction.get(ind);
+		int item = transaction.get(ind);
 		// look if there is a node already in the est-Tree 
 		estNode child = currentNode.getChildWithID(item);
 		
@@ -240,15 +245,18 @@ public class estTree {
 			// with itemId=item counter=c, tid=k
 			if (c / N >= minsig) {
 				child = new estNode(item, c, k);
-				currentNode.children.add(child);
+				currentNode.saveSnapshot(epoch);
+				currentNode.addChild(child);
 			}
 		}// if child
 		else {
 			if (child.counter / N < minsig) {
 				// if its support is less than minsig delete the node
-				if (currentNode.itemID != -1)
-					currentNode.children.remove(currentNode
+				if (currentNode.itemID != -1) {
+					currentNode.saveSnapshot(epoch);
+					currentNode.removeChild(currentNode
 							.getChildIndexWithID(item));
+				}
 			} else {
 				// if its support is greater than minsig continue the recursion
 				// with this subtree
@@ -265,14 +273,85 @@ public class estTree {
 	 * @param root  t
 	 ********************************************************************/
 	void forcePruning(estNode root) {
-		for (int i = 0; i < root.children.size(); ++i) {
-			estNode node = root.children.get(i);
+		estNode[] children = root.children;
+		// the children to be removed are marked and then removed all at once
+		boolean[] removed = null;
+		int removedCount = 0;
+		for (int i = 0; i < children.length; ++i) {
+			estNode node = children[i];
+			node.saveSnapshot(epoch);
 			node.update(k, 0, d);
-			if (node.computeSupport(N) < minsig && root.itemID != -1)
-				root.children.remove(i--);
-			else
+			if (node.computeSupport(N) < minsig && root.itemID != -1) {
+				if (removed == null)
+					removed = new boolean[children.length];
+				removed[i] = true;
+				removedCount++;
+			} else
 				forcePruning(node);
 		}
+		if (removedCount > 0) {
+			root.saveSnapshot(epoch);
+			root.removeChildren(removed, removedCount);
+		}
+	}
+
+	/********************************************************************
+	 * Take a snapshot of the tree. The nodes are not copied: each node saves its
+	 * state the first time that it is modified after the snapshot, so that the
+	 * snapshot can be read by findNodesToPrune() while the tree is updated.
+	 * A new snapshot must not be taken while the previous one is being read.
+	 * 
+	 * @return the number of the snapshot
+	 ********************************************************************/
+	int takeSnapshot() {
+		return ++epoch;
+	}
+
+	/********************************************************************
+	 * Recursive method for finding the nodes that should be removed by force
+	 * pruning in a snapshot of the tree. This method does not modify the tree,
+	 * so that it can be called by another thread while the tree is updated.
+	 * The nodes found should be removed by calling pruneNode().
+	 * 
+	 * @param root the root of the current subtree
+	 * @param snapshotEpoch the number of the snapshot (see takeSnapshot())
+	 * @param snapshotK the tid of the snapshot
+	 * @param snapshotN |Dk| for the snapshot
+	 * @param parents the list where the parent of each node found is added
+	 * @param nodes the list where the nodes found are added
+	 ********************************************************************/
+	void findNodesToPrune(estNode root, int snapshotEpoch, int snapshotK, double snapshotN,
+			List<estNode> parents, List<estNode> nodes) {
+		for (estNode node : root.getChildren(snapshotEpoch)) {
+			double counter = node.getCounter(snapshotEpoch, snapshotK, d);
+			if (counter / snapshotN < minsig && root.itemID != -1) {
+				parents.add(root);
+				nodes.add(node);
+			} else
+				findNodesToPrune(node, snapshotEpoch, snapshotK, snapshotN, parents, nodes);
+		}
+	}
+
+	/********************************************************************
+	 * Remove a node found by findNodesToPrune() if it is still in the tree
+	 * and its support is still less than minsig. This method must not be called
+	 * while the tree is updated by another thread.
+	 * 
+	 * @param parent the parent of the node
+	 * @param node the node
+	 * @return true if the node has been removed
+	 ********************************************************************/
+	boolean pruneNode(estNode parent, estNode node) {
+		int index = parent.getChildIndexWithID(node.itemID);
+		if (index < 0 || parent.children[index] != node)
+			return false;
+		node.saveSnapshot(epoch);
+		node.update(k, 0, d);
+		if (node.computeSupport(N) >= minsig)
+			return false;
+		parent.saveSnapshot(epoch);
+		parent.removeChild(index);
+		return true;
 	}
 
 	/********************************************************************
@@ -285,6 +364,7 @@ public class estTree {
 		for (estNode node : root.children) {
 			List<Integer> patt2 = new ArrayList<Integer>(pattern);
 			patt2.add(node.itemID);
+			node.saveSnapshot(epoch);
 			node.update(k, 0, d);
 			double s = node.computeSupport(N);
 			if (s > minsup) {
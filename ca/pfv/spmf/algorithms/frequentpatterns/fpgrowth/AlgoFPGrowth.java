@@ -18,12 +18,11 @@
  */
 
 
-import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -31,7 +30,10 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
+import ca.pfv.spmf.input.reader.TransactionFileReader;
 import ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemset;
 import ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemsets;
 import ca.pfv.spmf.tools.MemoryLogger;
@@ -66,12 +68,36 @@ public class AlgoFPGrowth {
 	
 	BufferedWriter writer = null; // object to write the output file
 	
+	// the line separator used by the writer
+	private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+	
 	// The  patterns that are found 
 	// (if the user want to keep them into memory)
 	protected Itemsets patterns = null;
 	
 	
 	private MemoryLogger memoryLogger = null;
+	
+	// if true, the FP-trees are stored in arrays of integers (FPTreeArray)
+	// instead of FPNode objects (FPTree)
+	private boolean useArrayTree = false;
+	
+	// the number of threads used to mine the FP-tree (1 means that 
+	// the tree is mined by the calling thread)
+	private int threadCount = 1;
+	
+	// the minimum number of nodes that a conditional tree should have to be
+	// split in one task per item when mining with several threads
+	private static final int SPLIT_THRESHOLD = 1000;
+	
+	// buffers for building the conditional trees stored in arrays
+	// (the first is used with a single thread, the second with several threads)
+	private FPTreeArray.Buffers arrayBuffers = null;
+	private ThreadLocal<FPTreeArray.Buffers> threadArrayBuffers = null;
+	
+	// the itemsets found by each thread that are not yet written
+	// (used only with several threads)
+	private ThreadLocal<OutputBuffer> threadOutput = null;
 
 
 	/**
@@ -120,6 +146,22 @@ public class AlgoFPGrowth {
 		// relative minimum support
 		this.relativeMinsupp = (int) Math.ceil(minsupp * transactionCount);
 		
+		// if the user wants the array based FP-tree, we use it
+		if(useArrayTree){
+			runWithArrayTree(input, mapSupport);
+			
+			// close the output file if the result was saved to a file
+			if(writer != null){
+				writer.close();
+			}
+			// record the execution end time
+			endTime= System.currentTimeMillis();
+			// check the memory usage
+			memoryLogger.checkMemory();
+			// return the result (if saved to memory)
+			return patterns;
+		}
+		
 		// (2) Scan the database again to build the initial FP-Tree
 		// Before inserting a transaction in the FPTree, we sort the items
 		// by descending order of support.  We ignore items that
@@ -127,24 +169,16 @@ public class AlgoFPGrowth {
 		FPTree tree = new FPTree();
 		
 		// read the file
-		BufferedReader reader = new BufferedReader(new FileReader(input));
-		String line;
+		TransactionFileReader reader = new TransactionFileReader(input);
 		// for each line (transaction) until the end of the file
-		while( ((line = reader.readLine())!= null)){ 
-			// if the line is  a comment, is  empty or is a
-			// kind of metadata
-			if (line.isEmpty() == true ||
-					line.charAt(0) == '#' || line.charAt(0) == '%'
-							|| line.charAt(0) == '@') {
-				continue;
-			}
-			
-			String[] lineSplited = line.split(" ");
+		while(reader.nextTransaction()){ 
+			int[] items = reader.getValues();
+			int length = reader.getLength();
 //			Set<Integer> alreadySeen = new HashSet<Integer>();
 			List<Integer> transaction = new ArrayList<Integer>();
 			// for each item in the transaction
-			for(String itemString : lineSplited){  
-				Integer item = Integer.parseInt(itemString);
+			for(int i = 0; i < length; i++){  
+				Integer item = items[i];
 				// only add items that have the minimum support
 				if( //alreadySeen.contains(item)  == false  &&
 						mapSupport.get(item) >= relativeMinsupp){
@@ -180,7 +214,13 @@ public class AlgoFPGrowth {
 		int[] prefixAlpha = new int[0];
 		// if at least an item is frequent
 		if(tree.headerList.size() > 0) {
-			fpgrowth(tree, prefixAlpha, transactionCount, mapSupport);
+			if(threadCount > 1 && tree.hasMoreThanOnePath){
+				// mine the conditional trees of the items with several threads
+				runTask(new FPGrowthTask(tree, mapSupport, prefixAlpha, transactionCount,
+						0, tree.headerList.size()));
+			}else{
+				fpgrowth(tree, prefixAlpha, transactionCount, mapSupport);
+			}
 		}
 		
 		// close the output file if the result was saved to a file
@@ -207,24 +247,15 @@ public class AlgoFPGrowth {
 			final Map<Integer, Integer> mapSupport)
 			throws FileNotFoundException, IOException {
 		//Create object for reading the input file
-		BufferedReader reader = new BufferedReader(new FileReader(input));
-		String line;
+		TransactionFileReader reader = new TransactionFileReader(input);
 		// for each line (transaction) until the end of file
-		while( ((line = reader.readLine())!= null)){ 
-			// if the line is  a comment, is  empty or is a
-			// kind of metadata
-			if (line.isEmpty() == true ||
-					line.charAt(0) == '#' || line.charAt(0) == '%'
-							|| line.charAt(0) == '@') {
-				continue;
-			}
-			
-			// split the line into items
-			String[] lineSplited = line.split(" ");
+		while(reader.nextTransaction()){ 
+			int[] items = reader.getValues();
+			int length = reader.getLength();
 			// for each item
-			for(String itemString : lineSplited){  
+			for(int i = 0; i < length; i++){  
 				// increase the support count of the item
-				Integer item = Integer.parseInt(itemString);
+				Integer item = items[i];
 				// increase the support count of the item
 				Integer count = mapSupport.get(item);
 				if(count == null){
@@ -273,93 +304,304 @@ public class AlgoFPGrowth {
 	private void fpgrowthMoreThanOnePath(FPTree tree, int [] prefixAlpha, int prefixSupport, Map<Integer, Integer> mapSupport) throws IOException {
 		// For each frequent item in the header table list of the tree in reverse order.
 		for(int i= tree.headerList.size()-1; i>=0; i--){
-			// get the item
-			Integer item = tree.headerList.get(i);
-			
-			// get the support of the item
-			int support = mapSupport.get(item);
-			// if the item is not frequent, we skip it
-			if(support <  relativeMinsupp){
-				continue;
-			}
-			// Create Beta by concatening Alpha with the current item
-			// and add it to the list of frequent patterns
-			int [] beta = new int[prefixAlpha.length+1];
-			System.arraycopy(prefixAlpha, 0, beta, 0, prefixAlpha.length);
-			beta[prefixAlpha.length] = item;
-			
-			// calculate the support of beta
-			int betaSupport = (prefixSupport < support) ? prefixSupport: support;
-			// save beta to the output file
-			saveItemset(beta, betaSupport);
-			
-			// === Construct beta's conditional pattern base ===
-			// It is a subdatabase which consists of the set of prefix paths
-			// in the FP-tree co-occuring with the suffix pattern.
-			List<List<FPNode>> prefixPaths = new ArrayList<List<FPNode>>();
-			FPNode path = tree.mapItemNodes.get(item);
-			while(path != null){
-				// if the path is not just the root node
-				if(path.parent.itemID != -1){
-					// create the prefixpath
-					List<FPNode> prefixPath = new ArrayList<FPNode>();
-					// add this node.
-					prefixPath.add(path);   // NOTE: we add it just to keep its support,
-					// actually it should not be part of the prefixPath
-					
-					//Recursively add all the parents of this node.
-					FPNode parent = path.parent;
-					while(parent.itemID != -1){
-						prefixPath.add(parent);
-						parent = parent.parent;
-					}
-					// add the path to the list of prefixpaths
-					prefixPaths.add(prefixPath);
+			mineHeaderItem(tree, i, prefixAlpha, prefixSupport, mapSupport, false);
+		}
+	}
+
+	/**
+	 * Mine the conditional tree of an item of the header table of an FP-tree.
+	 * @param tree  the FP-tree
+	 * @param i the position of the item in the header table
+	 * @param prefixAlpha  the current prefix, named "alpha"
+	 * @param prefixSupport the support of the prefix
+	 * @param mapSupport the frequency of items in the FP-Tree
+	 * @param canFork if true, a large conditional tree is mined by a new task
+	 *                (should only be true inside a FPGrowthTask)
+	 * @throws IOException  exception if error writing the output file
+	 */
+	private void mineHeaderItem(FPTree tree, int i, int[] prefixAlpha, int prefixSupport,
+			Map<Integer, Integer> mapSupport, boolean canFork) throws IOException {
+		// get the item
+		Integer item = tree.headerList.get(i);
+		
+		// get the support of the item
+		int support = mapSupport.get(item);
+		// if the item is not frequent, we skip it
+		if(support <  relativeMinsupp){
+			return;
+		}
+		// Create Beta by concatening Alpha with the current item
+		// and add it to the list of frequent patterns
+		int [] beta = new int[prefixAlpha.length+1];
+		System.arraycopy(prefixAlpha, 0, beta, 0, prefixAlpha.length);
+		beta[prefixAlpha.length] = item;
+		
+		// calculate the support of beta
+		int betaSupport = (prefixSupport < support) ? prefixSupport: support;
+		// save beta to the output file
+		saveItemset(beta, betaSupport);
+		
+		// === Construct beta's conditional pattern base ===
+		// It is a subdatabase which consists of the set of prefix paths
+		// in the FP-tree co-occuring with the suffix pattern.
+		List<List<FPNode>> prefixPaths = new ArrayList<List<FPNode>>();
+		FPNode path = tree.mapItemNodes.get(item);
+		while(path != null){
+			// if the path is not just the root node
+			if(path.parent.itemID != -1){
+				// create the prefixpath
+				List<FPNode> prefixPath = new ArrayList<FPNode>();
+				// add this node.
+				prefixPath.add(path);   // NOTE: we add it just to keep its support,
+				// actually it should not be part of the prefixPath
+				
+				//Recursively add all the parents of this node.
+				FPNode parent = path.parent;
+				while(parent.itemID != -1){
+					prefixPath.add(parent);
+					parent = parent.parent;
 				}
-				// We will look for the next prefixpath
-				path = path.nodeLink;
+				// add the path to the list of prefixpaths
+				prefixPaths.add(prefixPath);
 			}
-			
-			// (A) Calculate the frequency of each item in the prefixpath
-			// The frequency is stored in a map such that:
-			// key:  item   value: support
-			Map<Integer, Integer> mapSupportBeta = new HashMap<Integer, Integer>();
-			// for each prefixpath
-			for(List<FPNode> prefixPath : prefixPaths){
-				// the support of the prefixpath is the support of its first node.
-				int pathCount = prefixPath.get(0).counter;  
-				 // for each node in the prefixpath,
-				// except the first one, we count the frequency
-				for(int j=1; j<prefixPath.size(); j++){ 
-					FPNode node = prefixPath.get(j);
-					// if the first time we see that node id
-					if(mapSupportBeta.get(node.itemID) == null){
-						// just add the path count
-						mapSupportBeta.put(node.itemID, pathCount);
-					}else{
-						// otherwise, make the sum with the value already stored
-						mapSupportBeta.put(node.itemID, mapSupportBeta.get(node.itemID) + pathCount);
-					}
+			// We will look for the next prefixpath
+			path = path.nodeLink;
+		}
+		
+		// (A) Calculate the frequency of each item in the prefixpath
+		// The frequency is stored in a map such that:
+		// key:  item   value: support
+		Map<Integer, Integer> mapSupportBeta = new HashMap<Integer, Integer>();
+		// for each prefixpath
+		for(List<FPNode> prefixPath : prefixPaths){
+			// the support of the prefixpath is the support of its first node.
+			int pathCount = prefixPath.get(0).counter;  
+			 // for each node in the prefixpath,
+			// except the first one, we count the frequency
+			for(int j=1; j<prefixPath.size(); j++){ 
+				FPNode node = prefixPath.get(j);
+				// if the first time we see that node id
+				if(mapSupportBeta.get(node.itemID) == null){
+					// just add the path count
+					mapSupportBeta.put(node.itemID, pathCount);
+				}else{
+					// otherwise, make the sum with the value already stored
+					mapSupportBeta.put(node.itemID, mapSupportBeta.get(node.itemID) + pathCount);
 				}
 			}
-			
-			// (B) Construct beta's conditional FP-Tree
-			// Create the tree.
-			FPTree treeBeta = new FPTree();
-			// Add each prefixpath in the FP-tree.
-			for(List<FPNode> prefixPath : prefixPaths){
-				treeBeta.addPrefixPath(prefixPath, mapSupportBeta, relativeMinsupp); 
-			}  
-			// Create the header list.
-			treeBeta.createHeaderList(mapSupportBeta); 
-			
-			// Mine recursively the Beta tree if the root as child(s)
-			if(treeBeta.root.childs.size() > 0){
+		}
+		
+		// (B) Construct beta's conditional FP-Tree
+		// Create the tree.
+		FPTree treeBeta = new FPTree();
+		// Add each prefixpath in the FP-tree.
+		for(List<FPNode> prefixPath : prefixPaths){
+			treeBeta.addPrefixPath(prefixPath, mapSupportBeta, relativeMinsupp); 
+		}  
+		// Create the header list.
+		treeBeta.createHeaderList(mapSupportBeta); 
+		
+		// Mine recursively the Beta tree if the root as child(s)
+		if(treeBeta.root.childs.size() > 0){
+			if(canFork && treeBeta.hasMoreThanOnePath && treeBeta.nodeCount >= SPLIT_THRESHOLD){
+				// the tree is large, so its items are mined by tasks that idle threads can steal
+				new FPGrowthTask(treeBeta, mapSupportBeta, beta, betaSupport,
+						0, treeBeta.headerList.size()).invoke();
+			}else{
 				// recursive call
 				fpgrowth(treeBeta, beta, betaSupport, mapSupportBeta);
 			}
 		}
+	}
+
+	/**
+	 * Build the initial FP-Tree stored in arrays and mine it.
+	 * @param input the path of the input file
+	 * @param mapSupport the support of each item (key: item, value: support)
+	 * @throws IOException exception if error reading or writing files
+	 */
+	private void runWithArrayTree(String input, final Map<Integer, Integer> mapSupport) throws IOException {
+		// Give a slot to each frequent item by descending order of support
+		// (and lexical order if the same support).
+		List<Integer> frequentItems = new ArrayList<Integer>();
+		int maxItem = 0;
+		for(Map.Entry<Integer, Integer> entry : mapSupport.entrySet()){
+			if(entry.getValue() >= relativeMinsupp){
+				frequentItems.add(entry.getKey());
+				if(entry.getKey() > maxItem){
+					maxItem = entry.getKey();
+				}
+			}
+		}
+		Collections.sort(frequentItems, new Comparator<Integer>(){
+			public int compare(Integer item1, Integer item2){
+				// compare the frequency
+				int compare = mapSupport.get(item2) - mapSupport.get(item1);
+				// if the same frequency, we check the lexical ordering!
+				if(compare == 0){ 
+					return (item1 - item2);
+				}
+				// otherwise, just use the frequency
+				return compare;
+			}
+		});
+		int[] slotItem = new int[frequentItems.size()];
+		int[] slotSupport = new int[frequentItems.size()];
+		// the slot of each item (-1 if the item is not frequent)
+		int[] itemSlot = new int[maxItem + 1];
+		Arrays.fill(itemSlot, -1);
+		for(int slot = 0; slot < slotItem.length; slot++){
+			int item = frequentItems.get(slot);
+			slotItem[slot] = item;
+			slotSupport[slot] = mapSupport.get(item);
+			itemSlot[item] = slot;
+		}
+		
+		// Scan the database again to build the initial FP-Tree
+		FPTreeArray tree = new FPTreeArray(slotItem, slotSupport, 1024);
+		// buffer for the slots of a transaction
+		int[] transaction = new int[16];
+		
+		// read the file
+		TransactionFileReader reader = new TransactionFileReader(input);
+		// for each line (transaction) until the end of the file
+		while(reader.nextTransaction()){ 
+			int[] items = reader.getValues();
+			if(reader.getLength() > transaction.length){
+				transaction = new int[reader.getLength()];
+			}
+			int length = 0;
+			// for each item in the transaction
+			for(int i = 0; i < reader.getLength(); i++){  
+				int item = items[i];
+				// only add items that have the minimum support
+				if(item <= maxItem && itemSlot[item] != -1){
+					transaction[length++] = itemSlot[item];
+				}
+			}
+			// sort item in the transaction by descending order of support
+			// (which is the order of the slots)
+			Arrays.sort(transaction, 0, length);
+			// add the sorted transaction to the fptree.
+			tree.addTransaction(transaction, length, 1);
+		}
+		// close the input file
+		reader.close();
+		
+		// We create the header table for the tree
+		tree.createHeaderList();
+		
+		// We start to mine the FP-Tree by calling the recursive method.
+		// Initially, the prefix alpha is empty.
+		if(tree.headerList.length > 0) {
+			if(threadCount > 1 && tree.hasMoreThanOnePath){
+				// each thread has its own buffers for building conditional trees
+				final int slotCount = slotItem.length;
+				threadArrayBuffers = new ThreadLocal<FPTreeArray.Buffers>(){
+					protected FPTreeArray.Buffers initialValue() {
+						return new FPTreeArray.Buffers(slotCount);
+					}
+				};
+				// mine the conditional trees of the items with several threads
+				runTask(new FPGrowthTask(tree, new int[0], transactionCount, 0, tree.headerList.length));
+				threadArrayBuffers = null;
+			}else{
+				arrayBuffers = new FPTreeArray.Buffers(slotItem.length);
+				fpgrowth(tree, new int[0], transactionCount);
+				arrayBuffers = null;
+			}
+		}
+	}
+
+	/**
+	 * This method mines pattern from a Prefix-Tree stored in arrays recursively
+	 * @param tree  The Prefix Tree
+	 * @param prefix  The current prefix "alpha"
+	 * @param prefixSupport the support of the prefix
+	 * @throws IOException  exception if error writing the output file
+	 */
+	private void fpgrowth(FPTreeArray tree, int[] prefixAlpha, int prefixSupport) throws IOException {
+		// We need to check if there is a single path in the prefix tree or not.
+		if(tree.hasMoreThanOnePath == false){
+			// That means that there is a single path, so we 
+			// add all combinations of this path, concatenated with the prefix "alpha", to the set of patterns found.
+			addAllCombinationsForPathAndPrefix(tree, tree.nodeFirstChild[FPTreeArray.ROOT], prefixAlpha);
+			return;
+		}
+		// For each frequent item in the header table list of the tree in reverse order.
+		for(int i= tree.headerList.length-1; i>=0; i--){
+			mineHeaderItem(tree, i, prefixAlpha, prefixSupport, false);
+		}
+	}
+
+	/**
+	 * Mine the conditional tree of an item of the header table of an FP-tree stored in arrays.
+	 * @param tree  the FP-tree
+	 * @param i the position of the item in the header table
+	 * @param prefixAlpha  the current prefix, named "alpha"
+	 * @param prefixSupport the support of the prefix
+	 * @param canFork if true, a large conditional tree is mined by a new task
+	 *                (should only be true inside a FPGrowthTask)
+	 * @throws IOException  exception if error writing the output file
+	 */
+	private void mineHeaderItem(FPTreeArray tree, int i, int[] prefixAlpha, int prefixSupport,
+			boolean canFork) throws IOException {
+		int slot = tree.headerList[i];
+		// get the support of the item
+		int support = tree.slotSupport[slot];
+		// if the item is not frequent, we skip it
+		if(support <  relativeMinsupp){
+			return;
+		}
+		// Create Beta by concatening Alpha with the current item
+		// and add it to the list of frequent patterns
+		int [] beta = new int[prefixAlpha.length+1];
+		System.arraycopy(prefixAlpha, 0, beta, 0, prefixAlpha.length);
+		beta[prefixAlpha.length] = tree.slotItem[slot];
+		
+		// calculate the support of beta
+		int betaSupport = (prefixSupport < support) ? prefixSupport: support;
+		// save beta to the output file
+		saveItemset(beta, betaSupport);
+		
+		// Construct beta's conditional FP-Tree
+		FPTreeArray.Buffers buffers = (threadArrayBuffers != null) ? threadArrayBuffers.get() : arrayBuffers;
+		FPTreeArray treeBeta = tree.createConditionalTree(slot, relativeMinsupp, buffers);
+		
+		// Mine recursively the Beta tree if the root as child(s)
+		if(treeBeta != null){
+			if(canFork && treeBeta.hasMoreThanOnePath && treeBeta.nodeCount >= SPLIT_THRESHOLD){
+				// the tree is large, so its items are mined by tasks that idle threads can steal
+				new FPGrowthTask(treeBeta, beta, betaSupport, 0, treeBeta.headerList.length).invoke();
+			}else{
+				// recursive call
+				fpgrowth(treeBeta, beta, betaSupport);
+			}
+		}
+	}
+
+	/**
+	 * This method is for adding recursively all combinations of nodes in a path of
+	 * a tree stored in arrays, concatenated with a given prefix, to the set of patterns found.
+	 * @param tree the tree
+	 * @param node the current node of the path
+	 * @param prefix  the prefix
+	 * @throws IOException exception if error while writing the output file
+	 */
+	private void addAllCombinationsForPathAndPrefix(FPTreeArray tree, int node, int[] prefix) throws IOException {
+		// Concatenate the node item to the current prefix
+		int [] itemset = new int[prefix.length+1];
+		System.arraycopy(prefix, 0, itemset, 0, prefix.length);
+		itemset[prefix.length] = tree.slotItem[tree.nodeSlot[node]];
+
+		// save the resulting itemset to the file with its support
+		saveItemset(itemset, tree.nodeCounter[node]);
 		
+		int child = tree.nodeFirstChild[node];
+		if(child != FPTreeArray.NONE) {
+			addAllCombinationsForPathAndPrefix(tree, child, itemset);
+			addAllCombinationsForPathAndPrefix(tree, child, prefix);
+		}
 	}
 
 	/**
@@ -392,13 +634,39 @@ public class AlgoFPGrowth {
 	 * keep into memory if the user prefer that the result be saved into memory.
 	 */
 	private void saveItemset(int [] itemset, int support) throws IOException {
-		// increase the number of itemsets found for statistics purpose
-		itemsetCount++;
-		
 		// We sort the itemset before showing it to the user so that it is
 		// in lexical order.
 		Arrays.sort(itemset);
 		
+		// if several threads are used, the itemset is first kept in the buffer of the thread
+		if(threadOutput != null){
+			OutputBuffer buffer = threadOutput.get();
+			buffer.itemsetCount++;
+			if(writer != null){
+				for(int i=0; i< itemset.length; i++){
+					buffer.text.append(itemset[i]);
+					if(i != itemset.length-1){
+						buffer.text.append(' ');
+					}
+				}
+				buffer.text.append(" #SUP: ");
+				buffer.text.append(support);
+				buffer.text.append(LINE_SEPARATOR);
+				// if the buffer is large, we write it
+				if(buffer.text.length() >= OutputBuffer.MAX_SIZE){
+					flushThreadOutput();
+				}
+			}else{
+				Itemset itemsetObj = new Itemset(itemset);
+				itemsetObj.setAbsoluteSupport(support);
+				buffer.itemsets.add(itemsetObj);
+			}
+			return;
+		}
+		
+		// increase the number of itemsets found for statistics purpose
+		itemsetCount++;
+		
 		// if the result should be saved to a file
 		if(writer != null){
 			// Create a string buffer
@@ -426,6 +694,168 @@ public class AlgoFPGrowth {
 		}
 	}
 
+	/**
+	 * Write the itemsets kept in the buffer of the current thread to the output file
+	 * (or add them to the patterns kept in memory).
+	 * @throws IOException exception if error while writing the output file
+	 */
+	private void flushThreadOutput() throws IOException {
+		OutputBuffer buffer = threadOutput.get();
+		if(buffer.itemsetCount == 0){
+			return;
+		}
+		// only one thread at a time can write the result
+		synchronized (this) {
+			if(writer != null){
+				writer.write(buffer.text.toString());
+			}else{
+				for(Itemset itemset : buffer.itemsets){
+					patterns.addItemset(itemset, itemset.size());
+				}
+			}
+			itemsetCount += buffer.itemsetCount;
+		}
+		buffer.text.setLength(0);
+		buffer.itemsets.clear();
+		buffer.itemsetCount = 0;
+	}
+
+	/**
+	 * Run a task with a pool of threads and wait until it is finished.
+	 * @param task the task for mining an FP-tree
+	 * @throws IOException exception if error while writing the output file
+	 */
+	private void runTask(FPGrowthTask task) throws IOException {
+		threadOutput = new ThreadLocal<OutputBuffer>(){
+			protected OutputBuffer initialValue() {
+				return new OutputBuffer();
+			}
+		};
+		ForkJoinPool pool = new ForkJoinPool(threadCount);
+		try{
+			pool.invoke(task);
+		}catch(RuntimeException e){
+			// an exception while writing the result is wrapped by the task, and the pool
+			// may wrap it again when it is thrown in this thread
+			for(Throwable cause = e; cause != null; cause = cause.getCause()){
+				if(cause instanceof UncheckedIOException){
+					throw ((UncheckedIOException) cause).getCause();
+				}
+				if(cause instanceof IOException){
+					throw (IOException) cause;
+				}
+			}
+			throw e;
+		}finally{
+			pool.shutdown();
+			threadOutput = null;
+		}
+	}
+
+	/**
+	 * The itemsets found by a thread that have not been written yet.
+	 */
+	private static class OutputBuffer {
+		// the maximum number of characters before the buffer is written
+		static final int MAX_SIZE = 65536;
+		// the itemsets as text (if the result is saved to a file)
+		StringBuilder text = new StringBuilder();
+		// the itemsets (if the result is kept in memory)
+		List<Itemset> itemsets = new ArrayList<Itemset>();
+		// the number of itemsets in the buffer
+		int itemsetCount = 0;
+	}
+
+	/**
+	 * A task that mines the conditional trees of a range of items of the header table
+	 * of an FP-Tree. A range of several items is split in two tasks, so that idle
+	 * threads can steal the work of the busy threads. A large conditional tree
+	 * is also mined by a new task, so that a very frequent item is not mined
+	 * by a single thread.
+	 */
+	private class FPGrowthTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		// the tree (only one of the two is used)
+		private final FPTree tree;
+		private final FPTreeArray arrayTree;
+		// the frequency of items in the tree (for FPTree)
+		private final Map<Integer, Integer> mapSupport;
+		// the prefix of the tree and its support
+		private final int[] prefixAlpha;
+		private final int prefixSupport;
+		// the range of positions of the items in the header table [start, end[
+		private final int start;
+		private final int end;
+
+		/**
+		 * Constructor for a tree made of FPNode objects
+		 */
+		FPGrowthTask(FPTree tree, Map<Integer, Integer> mapSupport, int[] prefixAlpha,
+				int prefixSupport, int start, int end) {
+			this.tree = tree;
+			this.arrayTree = null;
+			this.mapSupport = mapSupport;
+			this.prefixAlpha = prefixAlpha;
+			this.prefixSupport = prefixSupport;
+			this.start = start;
+			this.end = end;
+		}
+
+		/**
+		 * Constructor for a tree stored in arrays
+		 */
+		FPGrowthTask(FPTreeArray arrayTree, int[] prefixAlpha, int prefixSupport, int start, int end) {
+			this.tree = null;
+			this.arrayTree = arrayTree;
+			this.mapSupport = null;
+			this.prefixAlpha = prefixAlpha;
+			this.prefixSupport = prefixSupport;
+			this.start = start;
+			this.end = end;
+		}
+
+		/**
+		 * Create a task for a subrange of the items of this task
+		 */
+		private FPGrowthTask subTask(int start, int end) {
+			if(tree != null){
+				return new FPGrowthTask(tree, mapSupport, prefixAlpha, prefixSupport, start, end);
+			}
+			return new FPGrowthTask(arrayTree, prefixAlpha, prefixSupport, start, end);
+		}
+
+		@Override
+		protected void compute() {
+			// if there is more than one item, we split the range in two tasks
+			if(end - start > 1){
+				int middle = (start + end) >>> 1;
+				invokeAll(subTask(start, middle), subTask(middle, end));
+				return;
+			}
+			try{
+				if(tree != null){
+					mineHeaderItem(tree, start, prefixAlpha, prefixSupport, mapSupport, true);
+				}else{
+					mineHeaderItem(arrayTree, start, prefixAlpha, prefixSupport, true);
+				}
+				// write the itemsets found by this thread
+				flushThreadOutput();
+			}catch(IOException e){
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+
+	/**
+	 * Set the number of threads to be used for mining the FP-tree. With more than one
+	 * thread, the conditional trees of the items are mined in parallel and the
+	 * itemsets are found in a different order.
+	 * @param threadCount the number of threads (default: 1)
+	 */
+	public void setThreadCount(int threadCount) {
+		this.threadCount = threadCount;
+	}
+
 	/**
 	 * Print statistics about the algorithm execution to System.out.
 	 */
@@ -441,6 +871,17 @@ public class AlgoFPGrowth {
 				.println("===================================================");
 	}
 
+	/**
+	 * Choose if the FP-trees should be stored in arrays of integers (FPTreeArray)
+	 * rather than with an object per node (FPTree). The array representation
+	 * avoids creating objects when building the conditional trees and is faster
+	 * on databases having many distinct items. The result is the same.
+	 * @param useArrayTree true to use the array representation (default: false)
+	 */
+	public void setUseArrayTree(boolean useArrayTree) {
+		this.useArrayTree = useArrayTree;
+	}
+
 	/**
 	 * Get the number of transactions in the last transaction database read.
 	 * @return the number of transactions.
@@ -52,6 +52,9 @@ public class FPTree {
 	
 	// root of the tree
 	FPNode root = new FPNode(); // null node
+	
+	// number of nodes in the tree (without the root)
+	int nodeCount = 0;
 
 	/**
 	 * Constructor
@@ -74,6 +77,7 @@ public class FPTree {
 			if(child == null){ 
 				// there is no node, we create a new one
 				FPNode newNode = new FPNode();
+				nodeCount++;
 				newNode.itemID = item;
 				newNode.parent = currentNode;
 				// we link the new node to its parrent
@@ -144,6 +148,7 @@ public class FPTree {
 			if(child == null){ 
 				// there is no node, we create a new one
 				FPNode newNode = new FPNode();
+				nodeCount++;
 				newNode.itemID = pathItem.itemID;
 				newNode.parent = currentNode;
 				newNode.counter = pathCount;  // set its support
@@ -0,0 +1,329 @@
+package ca.pfv.spmf.algorithms.frequentpatterns.fpgrowth;
+
+/* This file is copyright (c) 2008-2013 Philippe Fournier-Viger
+*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+*
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+import java.util.Arrays;
+
+/**
+ * This is an implementation of a FPTree as used by the FPGrowth algorithm, where
+ * the nodes are not objects but positions in parallel arrays of integers
+ * (item slot, counter, parent, node link, first child and next sibling).
+ * <br/><br/>
+ *
+ * The items of a tree are identified by "slots". Slots are dense ids that follow
+ * the support order of the initial tree (slot 0 is the most frequent item), so the
+ * header table is simply indexed by slot. Because items are inserted by
+ * decreasing support, the parent of a node always has a smaller slot than the node.
+ * A conditional tree only contains the items of its prefix paths and thus has
+ * its own (smaller) set of slots.
+ * <br/><br/>
+ *
+ * Building a conditional tree does not create any object per node.
+ *
+ * @see FPTree
+ * @see AlgoFPGrowth
+ * @author Philippe Fournier-Viger
+ */
+public class FPTreeArray {
+	// the node 0 is the root of the tree
+	static final int ROOT = 0;
+	// value used for "no node"
+	static final int NONE = -1;
+
+	// the original item id of each slot
+	int[] slotItem;
+	// the support of each slot in this tree
+	int[] slotSupport;
+	// the number of slots
+	int slotCount;
+
+	// the first node of each slot (header table) and the last node
+	// of each slot (to append new nodes to the node links)
+	int[] headerFirst;
+	int[] headerLast;
+
+	// List of slots in the header table, by decreasing order of support
+	int[] headerList = null;
+
+	// the nodes, stored in parallel arrays
+	int[] nodeSlot;       // slot of the item of each node (-1 for the root)
+	int[] nodeCounter;    // frequency counter (a.k.a. support)
+	int[] nodeParent;     // parent node
+	int[] nodeLink;       // next node with the same item
+	int[] nodeFirstChild; // first child node
+	int[] nodeNextSibling; // next child of the same parent
+	// the number of nodes (including the root)
+	int nodeCount = 0;
+
+	// flag that indicate if the tree has more than one path
+	boolean hasMoreThanOnePath = false;
+
+	/**
+	 * Buffers used to build conditional trees. They are cleaned after each
+	 * conditional tree, so the same buffers can be reused for all the trees
+	 * mined by a thread, as long as they are at least as large as the
+	 * number of slots of the initial tree.
+	 */
+	static final class Buffers {
+		final int[] support;
+		final int[] slotMap;
+		final int[] touched;
+		final int[] path;
+
+		/**
+		 * Constructor
+		 * @param size the number of slots of the initial tree
+		 */
+		Buffers(int size) {
+			support = new int[size];
+			slotMap = new int[size];
+			touched = new int[size];
+			path = new int[size];
+		}
+	}
+
+	/**
+	 * Constructor
+	 * @param slotItem the original item id of each slot
+	 * @param slotSupport the support of each slot in this tree
+	 * @param nodeCapacity the expected number of nodes (the arrays grow if needed)
+	 */
+	FPTreeArray(int[] slotItem, int[] slotSupport, int nodeCapacity){
+		this.slotItem = slotItem;
+		this.slotSupport = slotSupport;
+		this.slotCount = slotItem.length;
+
+		headerFirst = new int[slotCount];
+		headerLast = new int[slotCount];
+		Arrays.fill(headerFirst, NONE);
+		Arrays.fill(headerLast, NONE);
+
+		int capacity = Math.max(nodeCapacity, 2);
+		nodeSlot = new int[capacity];
+		nodeCounter = new int[capacity];
+		nodeParent = new int[capacity];
+		nodeLink = new int[capacity];
+		nodeFirstChild = new int[capacity];
+		nodeNextSibling = new int[capacity];
+
+		// create the root node (null node)
+		createNode(NONE, NONE, 0);
+	}
+
+	/**
+	 * Create a new node and return its position.
+	 * @param slot the slot of the item
+	 * @param parent the parent node
+	 * @param counter the support of the node
+	 * @return the new node
+	 */
+	private int createNode(int slot, int parent, int counter) {
+		// if the arrays are full, we double their size
+		if(nodeCount == nodeSlot.length){
+			int capacity = nodeCount * 2;
+			nodeSlot = Arrays.copyOf(nodeSlot, capacity);
+			nodeCounter = Arrays.copyOf(nodeCounter, capacity);
+			nodeParent = Arrays.copyOf(nodeParent, capacity);
+			nodeLink = Arrays.copyOf(nodeLink, capacity);
+			nodeFirstChild = Arrays.copyOf(nodeFirstChild, capacity);
+			nodeNextSibling = Arrays.copyOf(nodeNextSibling, capacity);
+		}
+		int node = nodeCount++;
+		nodeSlot[node] = slot;
+		nodeCounter[node] = counter;
+		nodeParent[node] = parent;
+		nodeLink[node] = NONE;
+		nodeFirstChild[node] = NONE;
+		nodeNextSibling[node] = NONE;
+		return node;
+	}
+
+	/**
+	 * Method for adding a transaction or a prefix path to the fp-tree.
+	 * @param slots the slots of the items, by increasing order of slot
+	 * @param length the number of slots to read from the array
+	 * @param count the support of the transaction (1 for a transaction,
+	 *              the path count for a prefix path)
+	 */
+	void addTransaction(int[] slots, int length, int count) {
+		int currentNode = ROOT;
+		// For each item in the transaction
+		for(int i = 0; i < length; i++){
+			int slot = slots[i];
+			// look if there is a node already in the FP-Tree
+			int child = nodeFirstChild[currentNode];
+			while(child != NONE && nodeSlot[child] != slot){
+				child = nodeNextSibling[child];
+			}
+			if(child == NONE){
+				// there is no node, we create a new one
+				int newNode = createNode(slot, currentNode, count);
+				// check if more than one path
+				if(!hasMoreThanOnePath && nodeFirstChild[currentNode] != NONE) {
+					hasMoreThanOnePath = true;
+				}
+				// we link the new node to its parent
+				// (the first child stays the oldest child)
+				int first = nodeFirstChild[currentNode];
+				if(first == NONE){
+					nodeFirstChild[currentNode] = newNode;
+				}else{
+					nodeNextSibling[newNode] = nodeNextSibling[first];
+					nodeNextSibling[first] = newNode;
+				}
+				// We update the header table and the node links
+				if(headerFirst[slot] == NONE){
+					headerFirst[slot] = newNode;
+				}else{
+					nodeLink[headerLast[slot]] = newNode;
+				}
+				headerLast[slot] = newNode;
+
+				currentNode = newNode;
+			}else{
+				// there is a node already, we update it
+				nodeCounter[child] += count;
+				currentNode = child;
+			}
+		}
+	}
+
+	/**
+	 * Method for creating the list of items in the header table,
+	 *  in descending order of support (and lexical order for ties).
+	 */
+	void createHeaderList() {
+		// count the slots that appear in the tree
+		int size = 0;
+		for(int slot = 0; slot < slotCount; slot++){
+			if(headerFirst[slot] != NONE){
+				size++;
+			}
+		}
+		// First, find the lexical rank of each slot.
+		// The key of a slot is its item (high bits) followed by the slot (low bits)
+		long[] keys = new long[size];
+		int pos = 0;
+		for(int slot = 0; slot < slotCount; slot++){
+			if(headerFirst[slot] != NONE){
+				keys[pos++] = ((long)slotItem[slot] << 32) | slot;
+			}
+		}
+		Arrays.sort(keys);
+		int[] slotsByItem = new int[size];
+		for(int i = 0; i < size; i++){
+			slotsByItem[i] = (int) keys[i];
+		}
+		// Then, sort by support and by reverse lexical rank, so that the
+		// reverse of this order is the order of the header table
+		for(int i = 0; i < size; i++){
+			int slot = slotsByItem[i];
+			keys[i] = ((long)slotSupport[slot] << 32) | (size - 1 - i);
+		}
+		Arrays.sort(keys);
+		headerList = new int[size];
+		for(int i = 0; i < size; i++){
+			int rank = size - 1 - (int) keys[i];
+			headerList[size - 1 - i] = slotsByItem[rank];
+		}
+	}
+
+	/**
+	 * Build the conditional FP-Tree of an item of this tree, that is the tree of the
+	 * prefix paths co-occuring with this item.
+	 * @param slot the slot of the item
+	 * @param relativeMinsupp the minimum support
+	 * @param buffers the buffers to be used (they are clean when the method returns)
+	 * @return the conditional tree or null if it would contain no frequent item.
+	 */
+	FPTreeArray createConditionalTree(int slot, int relativeMinsupp, Buffers buffers) {
+		int[] bufferSupport = buffers.support;
+		int[] bufferSlotMap = buffers.slotMap;
+		int[] bufferTouched = buffers.touched;
+		int[] bufferPath = buffers.path;
+
+		// (A) Calculate the frequency of each item in the prefix paths
+		int touchedCount = 0;
+		int pathLengthSum = 0;
+		for(int node = headerFirst[slot]; node != NONE; node = nodeLink[node]){
+			// the support of the prefixpath is the support of its first node.
+			int pathCount = nodeCounter[node];
+			for(int parent = nodeParent[node]; parent != ROOT; parent = nodeParent[parent]){
+				int parentSlot = nodeSlot[parent];
+				if(bufferSupport[parentSlot] == 0){
+					bufferTouched[touchedCount++] = parentSlot;
+				}
+				bufferSupport[parentSlot] += pathCount;
+				pathLengthSum++;
+			}
+		}
+
+		// (B) give a new slot to each frequent item, keeping the support order
+		Arrays.sort(bufferTouched, 0, touchedCount);
+		int betaSlotCount = 0;
+		for(int i = 0; i < touchedCount; i++){
+			int touched = bufferTouched[i];
+			if(bufferSupport[touched] >= relativeMinsupp){
+				bufferSlotMap[touched] = betaSlotCount++;
+			}else{
+				bufferSlotMap[touched] = NONE;
+			}
+		}
+
+		FPTreeArray treeBeta = null;
+		if(betaSlotCount > 0){
+			int[] betaItem = new int[betaSlotCount];
+			int[] betaSupport = new int[betaSlotCount];
+			for(int i = 0; i < touchedCount; i++){
+				int touched = bufferTouched[i];
+				int betaSlot = bufferSlotMap[touched];
+				if(betaSlot != NONE){
+					betaItem[betaSlot] = slotItem[touched];
+					betaSupport[betaSlot] = bufferSupport[touched];
+				}
+			}
+
+			// (C) Construct beta's conditional FP-Tree
+			treeBeta = new FPTreeArray(betaItem, betaSupport, pathLengthSum + 1);
+			for(int node = headerFirst[slot]; node != NONE; node = nodeLink[node]){
+				int pathCount = nodeCounter[node];
+				// the parents are visited by decreasing slot, so we fill the path backward
+				int length = 0;
+				for(int parent = nodeParent[node]; parent != ROOT; parent = nodeParent[parent]){
+					int betaSlot = bufferSlotMap[nodeSlot[parent]];
+					if(betaSlot != NONE){
+						bufferPath[length++] = betaSlot;
+					}
+				}
+				for(int i = 0, j = length - 1; i < j; i++, j--){
+					int temp = bufferPath[i];
+					bufferPath[i] = bufferPath[j];
+					bufferPath[j] = temp;
+				}
+				treeBeta.addTransaction(bufferPath, length, pathCount);
+			}
+			treeBeta.createHeaderList();
+		}
+
+		// reset the buffers for the next conditional tree
+		for(int i = 0; i < touchedCount; i++){
+			bufferSupport[bufferTouched[i]] = 0;
+		}
+		return treeBeta;
+	}
+}
@@ -19,14 +19,10 @@ package ca.pfv.spmf.algorithms.frequentpatterns.hui_miner;
 */
 
 
-import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.ByteArrayOutputStream;
-import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.io.ObjectOutputStream;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -36,6 +32,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
+import ca.pfv.spmf.input.reader.TransactionFileReader;
+
 /**
  * This is an implementation of the "FHM" algorithm for High-Utility Itemsets Mining
  * as described in the conference paper : <br/><br/>
@@ -63,6 +61,12 @@ public class AlgoFHM {
 	
 	// writer to write the output file 
 	BufferedWriter writer = null;  
+
+	// if true, the utility lists are stored in arrays of integers (CompactUtilityList)
+	private boolean useCompactUtilityLists = false;
+	
+	// the compact utility lists reused at each depth of the search
+	private CompactUtilityList.Pool pool = null;
 	
 	// NEW OPTIMIZATION - FMAP  (FAST)
 	Map<Integer, Map<Integer, Integer>> mapFMAP;  // PAIR OF ITEMS , item --> item, twu
@@ -110,31 +114,21 @@ public class AlgoFHM {
 		mapItemToTWU = new HashMap<Integer, Integer>();
 
 		// We scan the database a first time to calculate the TWU of each item.
-		BufferedReader myInput = null;
-		String thisLine;
+		TransactionFileReader myInput = null;
 		try {
 			// prepare the object for reading the file
-			myInput = new BufferedReader(new InputStreamReader( new FileInputStream(new File(input))));
+			myInput = new TransactionFileReader(input);
 			// for each line (transaction) until the end of file
-			while ((thisLine = myInput.readLine()) != null) {
-				// if the line is  a comment, is  empty or is a
-				// kind of metadata
-				if (thisLine.isEmpty() == true ||
-						thisLine.charAt(0) == '#' || thisLine.charAt(0) == '%'
-								|| thisLine.charAt(0) == '@') {
-					continue;
-				}
-				
-				// split the transaction according to the : separator
-				String split[] = thisLine.split(":"); 
+			while (myInput.nextTransaction()) {
+				// the transaction is divided by the : separator
+				int values[] = myInput.getValues();
 				// the first part is the list of items
-				String items[] = split[0].split(" "); 
+				int itemCount = myInput.getSegmentEnd(0);
 				// the second part is the transaction utility
-				int transactionUtility = Integer.parseInt(split[1]);  
+				int transactionUtility = values[myInput.getSegmentStart(1)];  
 				// for each item, we add the transaction utility to its TWU
-				for(int i=0; i <items.length; i++){
-					// convert item to integer
-					Integer item = Integer.parseInt(items[i]);
+				for(int i=0; i <itemCount; i++){
+					Integer item = values[i];
 					// get the current TWU of that item
 					Integer twu = mapItemToTWU.get(item);
 					// add the utility of the item in the current transaction to its twu
@@ -182,26 +176,18 @@ public class AlgoFHM {
 		// OF 1-ITEMSETS  HAVING TWU  >= minutil (promising items)
 		try {
 			// prepare object for reading the file
-			myInput = new BufferedReader(new InputStreamReader(new FileInputStream(new File(input))));
+			myInput = new TransactionFileReader(input);
 			// variable to count the number of transaction
 			int tid =0;
 			// for each line (transaction) until the end of file
-			while ((thisLine = myInput.readLine()) != null) {
-				// if the line is  a comment, is  empty or is a
-				// kind of metadata
-				if (thisLine.isEmpty() == true ||
-						thisLine.charAt(0) == '#' || thisLine.charAt(0) == '%'
-								|| thisLine.charAt(0) == '@') {
-					continue;
-				}
-				
-				// split the line according to the separator
-				String split[] = thisLine.split(":");
-				// get the list of items
-				String items[] = split[0].split(" ");
-				// get the list of utility values corresponding to each item
+			while (myInput.nextTransaction()) {
+				// the line is divided by the separator
+				int values[] = myInput.getValues();
+				// get the number of items
+				int itemCount = myInput.getSegmentEnd(0);
+				// get the position of the utility values corresponding to each item
 				// for that transaction
-				String utilityValues[] = split[2].split(" ");
+				int utilityStart = myInput.getSegmentStart(2);
 				
 				// Copy the transaction into lists but 
 				// without items with TWU < minutility
@@ -214,11 +200,10 @@ public class AlgoFHM {
 				// Create a list to store items
 				List<Pair> revisedTransaction = new ArrayList<Pair>();
 				// for each item
-				for(int i=0; i <items.length; i++){
-					/// convert values to integers
+				for(int i=0; i <itemCount; i++){
 					Pair pair = new Pair();
-					pair.item = Integer.parseInt(items[i]);
-					pair.utility = Integer.parseInt(utilityValues[i]);
+					pair.item = values[i];
+					pair.utility = values[utilityStart + i];
 					// if the item has enough utility
 					if(mapItemToTWU.get(pair.item) >= minUtility){
 						// add it
@@ -287,7 +272,22 @@ public class AlgoFHM {
 		checkMemory();
 
 		// Mine the database recursively
-		fhm(new int[0], null, listOfUtilityLists, minUtility);
+		if(useCompactUtilityLists){
+			// copy the utility lists of items to arrays
+			List<CompactUtilityList> compactLists = new ArrayList<CompactUtilityList>();
+			for(UtilityList uList : listOfUtilityLists){
+				compactLists.add(CompactUtilityList.copyOf(uList));
+			}
+			// the lists of elements are not needed anymore
+			listOfUtilityLists = null;
+			mapItemToUtilityList = null;
+			
+			pool = new CompactUtilityList.Pool();
+			fhmCompact(new int[0], null, compactLists, minUtility);
+			pool = null;
+		}else{
+			fhm(new int[0], null, listOfUtilityLists, minUtility);
+		}
 		
 		// check the memory usage again and close the file.
 		checkMemory();
@@ -371,6 +371,70 @@ public class AlgoFHM {
 		}
 	}
 	
+	/**
+	 * This is the recursive method to find all high utility itemsets when the
+	 * utility lists are stored in arrays (see setUseCompactUtilityLists()).
+	 * The utility lists of the extensions of pX are obtained from the pool and are 
+	 * reused when the next extension of the prefix is explored.
+	 * @param prefix  This is the current prefix. Initially, it is empty.
+	 * @param pUL This is the Utility List of the prefix. Initially, it is empty.
+	 * @param ULs The utility lists corresponding to each extension of the prefix.
+	 * @param minUtility The minUtility threshold.
+	 * @throws IOException
+	 */
+	private void fhmCompact(int [] prefix, CompactUtilityList pUL, List<CompactUtilityList> ULs, 
+			int minUtility) throws IOException {
+		
+		// For each extension X of prefix P
+		for(int i=0; i< ULs.size(); i++){
+			CompactUtilityList X = ULs.get(i);
+
+			// If pX is a high utility itemset.
+			// we save the itemset:  pX 
+			if(X.sumIutils >= minUtility){
+				// save to file
+				writeOut(prefix, X.item, X.sumIutils);
+			}
+			
+			// If the sum of the remaining utilities for pX
+			// is higher than minUtility, we explore extensions of pX.
+			// (this is the pruning condition)
+			if(X.sumIutils + X.sumRutils >= minUtility){
+				// This list will contain the utility lists of pX extensions.
+				List<CompactUtilityList> exULs = pool.newLevel(prefix.length);
+				// For each extension of p appearing
+				// after X according to the ascending order
+				for(int j=i+1; j < ULs.size(); j++){
+					CompactUtilityList Y = ULs.get(j);
+					
+					// ======================== NEW OPTIMIZATION USED IN FHM
+					Map<Integer, Integer> mapTWUF = mapFMAP.get(X.item);
+					if(mapTWUF != null) {
+						Integer twuF = mapTWUF.get(Y.item);
+						if(twuF != null && twuF < minUtility) {
+							continue;
+						}
+					}
+					candidateCount++;
+					// =========================== END OF NEW OPTIMIZATION
+					
+					// we construct the extension pXY 
+					// and add it to the list of extensions of pX
+					CompactUtilityList temp = pool.obtain(prefix.length, Y.item, 
+							Math.min(X.size, Y.size));
+					temp.construct(pUL, X, Y);
+				}
+				// We create new prefix pX
+				int [] newPrefix = new int[prefix.length+1];
+				System.arraycopy(prefix, 0, newPrefix, 0, prefix.length);
+				newPrefix[prefix.length] = X.item;
+				
+				// We make a recursive call to discover all itemsets with the prefix pXY
+				fhmCompact(newPrefix, X, exULs, minUtility); 
+			}
+		}
+	}
+	
 	/**
 	 * This method constructs the utility list of pXY
 	 * @param P :  the utility list of prefix P.
@@ -519,4 +583,14 @@ public class AlgoFHM {
         double maxMemory = baos.size() / 1024d / 1024d;
         return maxMemory;
     }
-}
\ No newline at end of file
+
+	/**
+	 * Set if the utility lists should be stored in arrays of integers with
+	 * a merge-join construction, rather than in lists of Element objects. 
+	 * This uses less memory and is generally faster.
+	 * @param useCompactUtilityLists true to use the arrays (default: false)
+	 */
+	public void setUseCompactUtilityLists(boolean useCompactUtilityLists) {
+		this.useCompactUtilityLists = useCompactUtilityLists;
+	}
+}
@@ -54,6 +54,12 @@ public class AlgoHUIMiner {
 	Map<Integer, Integer> mapItemToTWU;
 	
 	BufferedWriter writer = null;  // writer to write the output file
+
+	// if true, the utility lists are stored in arrays of integers (CompactUtilityList)
+	private boolean useCompactUtilityLists = false;
+	
+	// the compact utility lists reused at each depth of the search
+	private CompactUtilityList.Pool pool = null;
 	
 	// this class represent an item and its utility in a transaction
 	class Pair{
@@ -235,7 +241,22 @@ public class AlgoHUIMiner {
 		checkMemory();
 
 		// Mine the database recursively
-		huiMiner(new int[0], null, listOfUtilityLists, minUtility);
+		if(useCompactUtilityLists){
+			// copy the utility lists of items to arrays
+			List<CompactUtilityList> compactLists = new ArrayList<CompactUtilityList>();
+			for(UtilityList uList : listOfUtilityLists){
+				compactLists.add(CompactUtilityList.copyOf(uList));
+			}
+			// the lists of elements are not needed anymore
+			listOfUtilityLists = null;
+			mapItemToUtilityList = null;
+			
+			pool = new CompactUtilityList.Pool();
+			huiMinerCompact(new int[0], null, compactLists, minUtility);
+			pool = null;
+		}else{
+			huiMiner(new int[0], null, listOfUtilityLists, minUtility);
+		}
 		
 		// check the memory usage again and close the file.
 		checkMemory();
@@ -299,6 +320,59 @@ public class AlgoHUIMiner {
 		}
 	}
 	
+	/**
+	 * This is the recursive method to find all high utility itemsets when the
+	 * utility lists are stored in arrays (see setUseCompactUtilityLists()).
+	 * The utility lists of the extensions of pX are obtained from the pool and are 
+	 * reused when the next extension of the prefix is explored.
+	 * @param prefix  This is the current prefix. Initially, it is empty.
+	 * @param pUL This is the Utility List of the prefix. Initially, it is empty.
+	 * @param ULs The utility lists corresponding to each extension of the prefix.
+	 * @param minUtility The minUtility threshold.
+	 * @throws IOException
+	 */
+	private void huiMinerCompact(int [] prefix, CompactUtilityList pUL, List<CompactUtilityList> ULs, 
+			int minUtility) throws IOException {
+		
+		// For each extension X of prefix P
+		for(int i=0; i< ULs.size(); i++){
+			CompactUtilityList X = ULs.get(i);
+
+			// If pX is a high utility itemset.
+			// we save the itemset:  pX 
+			if(X.sumIutils >= minUtility){
+				// save to file
+				writeOut(prefix, X.item, X.sumIutils);
+			}
+			
+			// If the sum of the remaining utilities for pX
+			// is higher than minUtility, we explore extensions of pX.
+			// (this is the pruning condition)
+			if(X.sumIutils + X.sumRutils >= minUtility){
+				// This list will contain the utility lists of pX extensions.
+				List<CompactUtilityList> exULs = pool.newLevel(prefix.length);
+				// For each extension of p appearing
+				// after X according to the ascending order
+				for(int j=i+1; j < ULs.size(); j++){
+					CompactUtilityList Y = ULs.get(j);
+					
+					// we construct the extension pXY 
+					// and add it to the list of extensions of pX
+					CompactUtilityList temp = pool.obtain(prefix.length, Y.item, 
+							Math.min(X.size, Y.size));
+					temp.construct(pUL, X, Y);
+				}
+				// We create new prefix pX
+				int [] newPrefix = new int[prefix.length+1];
+				System.arraycopy(prefix, 0, newPrefix, 0, prefix.length);
+				newPrefix[prefix.length] = X.item;
+				
+				// We make a recursive call to discover all itemsets with the prefix pXY
+				huiMinerCompact(newPrefix, X, exULs, minUtility); 
+			}
+		}
+	}
+	
 	/**
 	 * This method constructs the utility list of pXY
 	 * @param P :  the utility list of prefix P.
@@ -420,4 +494,14 @@ public class AlgoHUIMiner {
 		System.out.println(" High-utility itemsets count : " + huiCount); 
 		System.out.println("===================================================");
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Set if the utility lists should be stored in arrays of integers with
+	 * a merge-join construction, rather than in lists of Element objects. 
+	 * This uses less memory and is generally faster.
+	 * @param useCompactUtilityLists true to use the arrays (default: false)
+	 */
+	public void setUseCompactUtilityLists(boolean useCompactUtilityLists) {
+		this.useCompactUtilityLists = useCompactUtilityLists;
+	}
+}
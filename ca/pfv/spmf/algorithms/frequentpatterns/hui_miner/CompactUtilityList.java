@@ -0,0 +1,207 @@
+package ca.pfv.spmf.algorithms.frequentpatterns.hui_miner;
+
+/* This file is copyright (c) 2008-2014 Philippe Fournier-Viger
+*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+*
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class represents a UtilityList stored in three parallel arrays of integers
+ * (the tids, the item utilities and the remaining utilities) instead of a list
+ * of Element objects. The elements are sorted by increasing tid, so that the
+ * utility list of pXY can be constructed by a merge-join of the utility lists
+ * of P, pX and pY rather than by a binary search for each element.
+ * <br/><br/>
+ *
+ * The utility lists are reused from one extension to the next by the Pool class,
+ * which keeps the utility lists created at each depth of the search.
+ *
+ * @see UtilityList
+ * @see AlgoHUIMiner
+ * @see AlgoFHM
+ * @author Philippe Fournier-Viger
+ */
+class CompactUtilityList {
+	int item;  // the item
+	int sumIutils = 0;  // the sum of item utilities
+	int sumRutils = 0;  // the sum of remaining utilities
+
+	int[] tids;  // the tid of each element
+	int[] iutils;  // the item utility of each element
+	int[] rutils;  // the remaining utility of each element
+	int size = 0;  // the number of elements
+
+	/**
+	 * Constructor.
+	 * @param item the item that is used for this utility list
+	 * @param capacity the initial number of elements that can be stored
+	 */
+	public CompactUtilityList(int item, int capacity){
+		this.item = item;
+		tids = new int[capacity];
+		iutils = new int[capacity];
+		rutils = new int[capacity];
+	}
+
+	/**
+	 * Create a compact utility list containing the same elements as a UtilityList.
+	 * @param list the utility list
+	 * @return the compact utility list
+	 */
+	public static CompactUtilityList copyOf(UtilityList list){
+		CompactUtilityList compact = new CompactUtilityList(list.item, list.elements.size());
+		for(Element element : list.elements){
+			compact.addElement(element.tid, element.iutils, element.rutils);
+		}
+		return compact;
+	}
+
+	/**
+	 * Remove all the elements of this utility list so that it can be reused.
+	 * @param item the new item of this utility list
+	 * @param capacity the number of elements that should fit without enlarging the arrays
+	 */
+	void reset(int item, int capacity){
+		this.item = item;
+		sumIutils = 0;
+		sumRutils = 0;
+		size = 0;
+		if(tids.length < capacity){
+			tids = new int[capacity];
+			iutils = new int[capacity];
+			rutils = new int[capacity];
+		}
+	}
+
+	/**
+	 * Method to add an element to this utility list and update the sums at the same time.
+	 * @param tid the tid of the element (larger than the tid of the last element)
+	 * @param iutil the item utility
+	 * @param rutil the remaining utility
+	 */
+	public void addElement(int tid, int iutil, int rutil){
+		// if the arrays are full, they are enlarged
+		if(size == tids.length){
+			int newCapacity = Math.max(4, size * 2);
+			tids = Arrays.copyOf(tids, newCapacity);
+			iutils = Arrays.copyOf(iutils, newCapacity);
+			rutils = Arrays.copyOf(rutils, newCapacity);
+		}
+		tids[size] = tid;
+		iutils[size] = iutil;
+		rutils[size] = rutil;
+		size++;
+		sumIutils += iutil;
+		sumRutils += rutil;
+	}
+
+	/**
+	 * Fill this utility list with the elements of pXY.
+	 * Since the elements of each utility list are sorted by tid, the three lists
+	 * are scanned a single time.
+	 * @param P :  the utility list of prefix P (null if P is empty).
+	 * @param px : the utility list of pX
+	 * @param py : the utility list of pY
+	 */
+	void construct(CompactUtilityList P, CompactUtilityList px, CompactUtilityList py){
+		int posY = 0;
+		int posP = 0;
+		// for each element in the utility list of pX
+		for(int posX = 0; posX < px.size; posX++){
+			int tid = px.tids[posX];
+			// skip the elements of pY having a smaller tid
+			while(posY < py.size && py.tids[posY] < tid){
+				posY++;
+			}
+			// if there is no more element in pY, no more element can be added
+			if(posY == py.size){
+				return;
+			}
+			if(py.tids[posY] != tid){
+				continue;
+			}
+			// if the prefix p is null
+			if(P == null){
+				addElement(tid, px.iutils[posX] + py.iutils[posY], py.rutils[posY]);
+			}else{
+				// find the element in the utility list of p with the same tid
+				while(posP < P.size && P.tids[posP] < tid){
+					posP++;
+				}
+				if(posP < P.size && P.tids[posP] == tid){
+					addElement(tid, px.iutils[posX] + py.iutils[posY] - P.iutils[posP],
+							py.rutils[posY]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * This class keeps the compact utility lists created at each depth of the search
+	 * so that their arrays are reused. The utility lists of the extensions of
+	 * a prefix of length k are stored at depth k and are overwritten when
+	 * the next prefix of the same length is extended, after the extensions
+	 * of the previous one have been fully explored.
+	 */
+	static class Pool {
+		// the utility lists allocated at each depth
+		private final List<List<CompactUtilityList>> allocated = new ArrayList<List<CompactUtilityList>>();
+		// the utility lists currently used at each depth
+		private final List<List<CompactUtilityList>> levels = new ArrayList<List<CompactUtilityList>>();
+
+		/**
+		 * Release the utility lists of a depth so that they can be reused.
+		 * @param depth the depth (the length of the prefix)
+		 * @return the list that will contain the utility lists obtained for this depth
+		 */
+		List<CompactUtilityList> newLevel(int depth){
+			while(levels.size() <= depth){
+				allocated.add(new ArrayList<CompactUtilityList>());
+				levels.add(new ArrayList<CompactUtilityList>());
+			}
+			List<CompactUtilityList> level = levels.get(depth);
+			level.clear();
+			return level;
+		}
+
+		/**
+		 * Obtain an empty utility list for a depth and add it to the list
+		 * returned by the last call to newLevel() for this depth.
+		 * @param depth the depth (the length of the prefix)
+		 * @param item the item of the utility list
+		 * @param capacity the maximum number of elements that it will contain
+		 * @return the utility list
+		 */
+		CompactUtilityList obtain(int depth, int item, int capacity){
+			List<CompactUtilityList> level = levels.get(depth);
+			List<CompactUtilityList> lists = allocated.get(depth);
+			CompactUtilityList list;
+			if(level.size() < lists.size()){
+				list = lists.get(level.size());
+				list.reset(item, capacity);
+			}else{
+				list = new CompactUtilityList(item, capacity);
+				lists.add(list);
+			}
+			level.add(list);
+			return list;
+		}
+	}
+}
@@ -273,4 +273,10 @@ abstract class AbstractItemsetTree {
 	 */
 	public abstract int getSupportOfItemset(int[] s);
 
+	/**
+	 * Add a transaction to the itemset tree.
+	 * @param transaction the transaction to be added (array of ints)
+	 */
+	public abstract void addTransaction(int[] transaction);
+
 }
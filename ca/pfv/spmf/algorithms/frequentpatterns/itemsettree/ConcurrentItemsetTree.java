@@ -0,0 +1,294 @@
+package ca.pfv.spmf.algorithms.frequentpatterns.itemsettree;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * This class gives access to an itemset-tree (ItemsetTree) to several threads at the same time,
+ * so that the tree can be queried while transactions are added. The queries are performed
+ * at the same time, while a transaction is added only when no query is performed
+ * (read/write lock).
+ * <br/><br/>
+ *
+ * The supports of the itemsets that were queried recently are kept in a cache of fixed
+ * size, where the itemset that was not queried for the longest time is removed first (LRU).
+ * Each time that a transaction is added, the "epoch" of the tree is increased, and the
+ * supports in the cache that were calculated in a previous epoch are not used anymore.
+ *
+ * Copyright (c) 2008-2014 Philippe Fournier-Viger
+ *
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ *
+ * SPMF is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * SPMF. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * @see ItemsetTree
+ */
+public class ConcurrentItemsetTree {
+
+	// the itemset tree
+	private final ItemsetTree tree;
+
+	// the lock: the queries take the read lock and the insertions take the write lock
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+	// the number of times that the tree was modified
+	private volatile long epoch = 0;
+
+	// the cache: for each itemset, its support and the epoch when it was calculated
+	// (ordered from the least recently used to the most recently used)
+	private final LinkedHashMap<ItemsetKey, long[]> cache;
+
+	// for statistics
+	private final AtomicLong cacheHitCount = new AtomicLong();  // number of supports found in the cache
+	private final AtomicLong cacheMissCount = new AtomicLong(); // number of supports calculated
+
+	/**
+	 * Constructor for an empty tree
+	 * @param cacheCapacity the maximum number of supports kept in the cache (0 for no cache)
+	 */
+	public ConcurrentItemsetTree(int cacheCapacity) {
+		this(new ItemsetTree(), cacheCapacity);
+	}
+
+	/**
+	 * Constructor for an existing tree. After this call, the tree should
+	 * only be accessed through this object.
+	 * @param tree the tree
+	 * @param cacheCapacity the maximum number of supports kept in the cache (0 for no cache)
+	 */
+	public ConcurrentItemsetTree(ItemsetTree tree, final int cacheCapacity) {
+		this.tree = tree;
+		// if the tree is empty, create its root
+		if(tree.root == null){
+			tree.root = new ItemsetTreeNode(null, 0);
+		}
+		// a LinkedHashMap ordered by access removes the least recently used support
+		this.cache = new LinkedHashMap<ItemsetKey, long[]>(16, 0.75f, true){
+			private static final long serialVersionUID = 1L;
+
+			protected boolean removeEldestEntry(Map.Entry<ItemsetKey, long[]> eldest) {
+				return size() > cacheCapacity;
+			}
+		};
+	}
+
+	/**
+	 * Build the itemset-tree based on an input file containing transactions.
+	 * The transactions that were added before are removed.
+	 * @param input an input file
+	 * @throws IOException exception if error while reading the file
+	 */
+	public void buildTree(String input) throws IOException {
+		lock.writeLock().lock();
+		try {
+			epoch++;
+			tree.buildTree(input);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Add a transaction to the itemset tree.
+	 * @param transaction the transaction to be added (array of ints sorted by lexical order)
+	 */
+	public void addTransaction(int[] transaction) {
+		lock.writeLock().lock();
+		try {
+			epoch++;
+			tree.addTransaction(transaction);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Add several transactions to the itemset tree. The queries are blocked
+	 * until all the transactions have been added.
+	 * @param transactions the transactions to be added (arrays of ints sorted by lexical order)
+	 */
+	public void addTransactions(int[][] transactions) {
+		lock.writeLock().lock();
+		try {
+			epoch++;
+			for(int[] transaction : transactions){
+				tree.addTransaction(transaction);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Get the support of a given itemset s.
+	 * @param s the itemset (sorted by lexical order)
+	 * @return the support as an integer.
+	 */
+	public int getSupportOfItemset(int[] s) {
+		return getSupportOfItemsets(new int[][]{s})[0];
+	}
+
+	/**
+	 * Get the support of several itemsets. The supports are calculated
+	 * on the same version of the tree (no transaction is added during the call).
+	 * @param itemsets the itemsets (each one sorted by lexical order)
+	 * @return the support of each itemset
+	 */
+	public int[] getSupportOfItemsets(int[][] itemsets) {
+		int[] supports = new int[itemsets.length];
+		boolean[] calculated = new boolean[itemsets.length];
+		ItemsetKey[] keys = new ItemsetKey[itemsets.length];
+		lock.readLock().lock();
+		try {
+			// the epoch cannot change while the read lock is held
+			long currentEpoch = epoch;
+			// look for the supports in the cache
+			int missCount = 0;
+			synchronized (cache) {
+				for(int i = 0; i < itemsets.length; i++){
+					keys[i] = new ItemsetKey(itemsets[i]);
+					long[] cached = cache.get(keys[i]);
+					if(cached != null && cached[1] == currentEpoch){
+						supports[i] = (int) cached[0];
+					}else{
+						calculated[i] = true;
+						missCount++;
+					}
+				}
+			}
+			cacheHitCount.addAndGet(itemsets.length - missCount);
+			cacheMissCount.addAndGet(missCount);
+			if(missCount == 0){
+				return supports;
+			}
+			// calculate the other supports
+			for(int i = 0; i < itemsets.length; i++){
+				if(calculated[i]){
+					supports[i] = tree.getSupportOfItemset(keys[i].itemset);
+				}
+			}
+			// save them in the cache
+			synchronized (cache) {
+				for(int i = 0; i < itemsets.length; i++){
+					if(calculated[i]){
+						cache.put(keys[i], new long[]{supports[i], currentEpoch});
+					}
+				}
+			}
+			return supports;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Get the frequent itemsets subsuming a given itemset for a given minimum support value.
+	 * @param is  the itemset (sorted by lexical order)
+	 * @param minsup the minimum support threshold (integer)
+	 * @return an hashtable containing the frequent itemsets
+	 */
+	public HashTableIT getFrequentItemsetSubsuming(int[] is, int minsup) {
+		lock.readLock().lock();
+		try {
+			return tree.getFrequentItemsetSubsuming(is, minsup);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Generate all association rules with a given itemset as antecedent.
+	 * @param s  the itemset to be used as antecedent (sorted by lexical order)
+	 * @param minsup  the minsup threshold to be used
+	 * @param minconf the minconf threshold to be used
+	 * @return a list of association rules
+	 */
+	public List<AssociationRuleIT> generateRules(int[] s, int minsup, double minconf) {
+		lock.readLock().lock();
+		try {
+			return tree.generateRules(s, minsup, minconf);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Get the number of times that the tree was modified.
+	 * @return the epoch
+	 */
+	public long getEpoch() {
+		return epoch;
+	}
+
+	/**
+	 * Get the number of supports that were found in the cache.
+	 * @return the number of supports
+	 */
+	public long getCacheHitCount() {
+		return cacheHitCount.get();
+	}
+
+	/**
+	 * Get the number of supports that were calculated with the tree.
+	 * @return the number of supports
+	 */
+	public long getCacheMissCount() {
+		return cacheMissCount.get();
+	}
+
+	/**
+	 * Return a string representation of the tree.
+	 */
+	public String toString() {
+		lock.readLock().lock();
+		try {
+			return tree.toString();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * An itemset used as key of the cache (a copy of the itemset is made
+	 * so that the caller can modify its array).
+	 */
+	private static class ItemsetKey {
+		// the itemset
+		final int[] itemset;
+		// the hash code of the itemset
+		final int hashCode;
+
+		/**
+		 * Constructor
+		 * @param itemset the itemset
+		 */
+		ItemsetKey(int[] itemset){
+			this.itemset = itemset.clone();
+			this.hashCode = Arrays.hashCode(itemset);
+		}
+
+		public int hashCode() {
+			return hashCode;
+		}
+
+		public boolean equals(Object other) {
+			return other instanceof ItemsetKey && Arrays.equals(itemset, ((ItemsetKey) other).itemset);
+		}
+	}
+}
@@ -131,9 +131,8 @@ public class ItemsetTree extends AbstractItemsetTree implements Serializable{
 			// the root node + 1
 			ItemsetTreeNode newNode = new ItemsetTreeNode(s, r.support +1);
 			// set the childs and parent pointers.
-			newNode.childs.add(r);
-			parentOfR.childs.remove(r);
-			parentOfR.childs.add(newNode);
+			newNode.addChild(r);
+			parentOfR.replaceChild(r, newNode);
 //			r.parent = newNode;
 			return;  // return
 		}
@@ -146,15 +145,14 @@ public class ItemsetTree extends AbstractItemsetTree implements Serializable{
 			// the root +1.
 			ItemsetTreeNode newNode = new ItemsetTreeNode(l, r.support +1);
 			// set the node childs and parent pointers
-			newNode.childs.add(r);
-			parentOfR.childs.remove(r);
-			parentOfR.childs.add(newNode);
+			newNode.addChild(r);
+			parentOfR.replaceChild(r, newNode);
 //			r.parent = newNode;
 			// append second children which is the itemset to be added with a 
 			// support of 1
 			ItemsetTreeNode newNode2 = new ItemsetTreeNode(s, 1);
 			// update pointers for the new node
-			newNode.childs.add(newNode2);
+			newNode.addChild(newNode2);
 //			newNode2.parent = newNode;
 			return;
 		}
@@ -163,8 +161,13 @@ public class ItemsetTree extends AbstractItemsetTree implements Serializable{
 		int indexLastItemOfR = (sr == null)? 0 : sr.length;
 		// increase the support of the root
 		r.support++;
-		// for each child of the root
-		for(ItemsetTreeNode ci : r.childs){
+		// The itemsets of the childs of the root start with the itemset of the root
+		// and have different items after it. Thus, the only child that can share
+		// more items with s than the root is the one having the same item as s after
+		// the itemset of the root. This child is found by a binary search.
+		int index = r.indexOfChild(s[indexLastItemOfR]);
+		if(index >= 0){
+			ItemsetTreeNode ci = r.childs.get(index);
 			
 			// if one children of the root is the itemset to be inserted s,
 			// then increase its support and stop
@@ -178,11 +181,8 @@ public class ItemsetTree extends AbstractItemsetTree implements Serializable{
 				// create a new node between ci and r in the tree
 				// and update child /parents pointers
 				ItemsetTreeNode newNode = new ItemsetTreeNode(s, ci.support+ 1);
-				newNode.childs.add(ci);
-//				newNode.parent = r;
-				r.childs.remove(ci);
-				r.childs.add(newNode);
-//				ci.parent = newNode;
+				newNode.addChild(ci);
+				r.childs.set(index, newNode);
 				return;
 			}
 			
@@ -194,29 +194,21 @@ public class ItemsetTree extends AbstractItemsetTree implements Serializable{
 			}
 
 			// case 5
-			// if ci and s have a common ancestor that is larger than r:
-			if(ci.itemset[indexLastItemOfR] == s[indexLastItemOfR]){
-				// find the largest common ancestor
-				int[] ancestor = getLargestCommonAncestor(s, ci.itemset);
-				// create a new node for the ancestor itemset just found with the support
-				// of ci + 1
-				ItemsetTreeNode newNode = new ItemsetTreeNode(ancestor, ci.support+ 1);
-				// set r as aprent
-//				newNode.parent = r;
-				r.childs.add(newNode);
-				// add ci as a childre of the new node
-				newNode.childs.add(ci);
-//				ci.parent = newNode;
-				r.childs.remove(ci);
-				// create another new node for s with a support of 1, which
-				// will be the child of the first new node
-				ItemsetTreeNode newNode2 = new ItemsetTreeNode(s, 1);
-//				newNode2.parent = newNode;
-				newNode.childs.add(newNode2);
-				// end
-				return;
-			}
-			
+			// ci and s have a common ancestor that is larger than r:
+			// find the largest common ancestor
+			int[] ancestor = getLargestCommonAncestor(s, ci.itemset);
+			// create a new node for the ancestor itemset just found with the support
+			// of ci + 1, which replaces ci as child of r
+			ItemsetTreeNode newNode = new ItemsetTreeNode(ancestor, ci.support+ 1);
+			r.childs.set(index, newNode);
+			// add ci as a childre of the new node
+			newNode.addChild(ci);
+			// create another new node for s with a support of 1, which
+			// will be the child of the first new node
+			ItemsetTreeNode newNode2 = new ItemsetTreeNode(s, 1);
+			newNode.addChild(newNode2);
+			// end
+			return;
 		}
 		
 		// Otherwise, case 1:
@@ -224,7 +216,7 @@ public class ItemsetTree extends AbstractItemsetTree implements Serializable{
 		// below the node r.
 		ItemsetTreeNode newNode = new ItemsetTreeNode(s, 1);
 //		newNode.parent = r;
-		r.childs.add(newNode);
+		r.childs.add(-(index + 1), newNode);
 		
 	}
 
@@ -296,8 +288,13 @@ public class ItemsetTree extends AbstractItemsetTree implements Serializable{
 	private int count(int[] s, ItemsetTreeNode root) {
 		// the variable count will be used to count the support
 		int count =0;
-		// for each child of the root
-		for(ItemsetTreeNode ci : root.childs){
+		// The itemsets of the subtree start with the itemset of the root, followed by larger items.
+		// Thus, only the childs whose item after the itemset of the root is not larger than the
+		// smallest item of s that is not in the root can have s in their subtree.
+		int childCount = root.countChildsUpTo(smallestItemNotIn(s, root.itemset));
+		// for each of these childs of the root
+		for(int i = 0; i < childCount; i++){
+			ItemsetTreeNode ci = root.childs.get(i);
 			// if the first item of the itemset that we are looking for
 			// is smaller than the first item of the child, we need to look
 			// further in that tree.
@@ -318,6 +315,29 @@ public class ItemsetTree extends AbstractItemsetTree implements Serializable{
 	}
 
 
+	/**
+	 * Get the smallest item of an itemset that is not in another itemset.
+	 * @param itemset the itemset (sorted)
+	 * @param other the other itemset (sorted, or null for the empty set)
+	 * @return the item or Integer.MAX_VALUE if all the items are in the other itemset
+	 */
+	private int smallestItemNotIn(int[] itemset, int[] other) {
+		if(other == null){
+			return itemset[0];
+		}
+		int j = 0;
+		for(int item : itemset){
+			// skip the smaller items of the other itemset
+			while(j < other.length && other[j] < item){
+				j++;
+			}
+			if(j == other.length || other[j] != item){
+				return item;
+			}
+		}
+		return Integer.MAX_VALUE;
+	}
+
 	/**
 	 * Check if an itemset is contained in another
 	 * @param itemset1 the first itemset
@@ -377,8 +397,11 @@ public class ItemsetTree extends AbstractItemsetTree implements Serializable{
 	 * @param hash  the hashtable for storing the result
 	 */
 	private void selectiveMining(int[] s, HashSet<Integer> seti,  ItemsetTreeNode t, HashTableIT hash) {
-		// for all child nodes of the given root of the subtree
-		for(ItemsetTreeNode ci : t.childs){
+		// for all child nodes of the given root of the subtree that can
+		// have s in their subtree (see the method count())
+		int childCount = t.countChildsUpTo(smallestItemNotIn(s, t.itemset));
+		for(int i = 0; i < childCount; i++){
+			ItemsetTreeNode ci = t.childs.get(i);
 			// if the first item of s is smaller or equal to the
 			// first item of the child
 			if(ci.itemset[0]  <= s[0]){
@@ -1,8 +1,8 @@
 package ca.pfv.spmf.algorithms.frequentpatterns.itemsettree;
 
 import java.io.Serializable;
-import java.util.Collection;
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.List;
 /**
  * This class represents an itemset-tree node.
  * 
@@ -30,8 +30,10 @@ public class ItemsetTreeNode implements Serializable{
 	int[] itemset;
 	// the support
 	int support;
-	// the list of childs
-	Collection<ItemsetTreeNode> childs = new HashSet<ItemsetTreeNode>();
+	// the list of childs. The itemset of each child starts with the itemset of this node,
+	// and in an ItemsetTree, the childs are sorted by the item that follows (which is different
+	// for each child).
+	List<ItemsetTreeNode> childs = new ArrayList<ItemsetTreeNode>(0);
 	
 	/**
 	 * The constructor
@@ -43,6 +45,62 @@ public class ItemsetTreeNode implements Serializable{
 		this.support = support;
 	}
 
+	/**
+	 * Find the child whose itemset has a given item after the itemset of this node
+	 * (binary search).
+	 * @param item the item
+	 * @return the position of the child, or (-(insertion point) - 1) if there is no such child
+	 */
+	int indexOfChild(int item){
+		int position = (itemset == null) ? 0 : itemset.length;
+		int low = 0;
+		int high = childs.size() - 1;
+		while(low <= high){
+			int middle = (low + high) >>> 1;
+			int childItem = childs.get(middle).itemset[position];
+			if(childItem < item){
+				low = middle + 1;
+			}else if(childItem > item){
+				high = middle - 1;
+			}else{
+				return middle;
+			}
+		}
+		return -(low + 1);
+	}
+
+	/**
+	 * Get the number of childs whose itemset has an item that is not larger than a given item
+	 * after the itemset of this node. These childs are the first childs.
+	 * @param item the item
+	 * @return the number of childs
+	 */
+	int countChildsUpTo(int item){
+		int index = indexOfChild(item);
+		return (index >= 0) ? index + 1 : -(index + 1);
+	}
+
+	/**
+	 * Add a child to this node, at its position in the list of childs.
+	 * @param child the child
+	 */
+	void addChild(ItemsetTreeNode child){
+		int position = (itemset == null) ? 0 : itemset.length;
+		int index = indexOfChild(child.itemset[position]);
+		childs.add(-(index + 1), child);
+	}
+
+	/**
+	 * Replace a child of this node by another node having the same item after
+	 * the itemset of this node.
+	 * @param child the child
+	 * @param newChild the node replacing it
+	 */
+	void replaceChild(ItemsetTreeNode child, ItemsetTreeNode newChild){
+		int position = (itemset == null) ? 0 : itemset.length;
+		childs.set(indexOfChild(child.itemset[position]), newChild);
+	}
+
 	/**
 	 * Return a string representation of this node
 	 * @param buffer a strinbuffer for appending a string representation
@@ -0,0 +1,519 @@
+package ca.pfv.spmf.algorithms.frequentpatterns.itemsettree;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectStreamException;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class saves an itemset-tree (ItemsetTree or MemoryEfficientItemsetTree) to a binary
+ * file (a snapshot) and loads it, faster and with less space than Java serialization.
+ * <br/><br/>
+ *
+ * The file contains a header, then a record of four integers for each node, and then the
+ * items of all the nodes. The nodes are stored in pre-order (a node is followed by the nodes
+ * of its subtree) and the record of a node contains: its support, the position of its first
+ * item in the items, its number of items (-1 if its itemset is null) and the number of
+ * nodes of its subtree. Thus, the first child of a node is the next node, and the next
+ * child is the node after the subtree of the previous child.
+ * <br/><br/>
+ *
+ * When a snapshot is loaded, the file is mapped in memory and only the root node is created.
+ * The child nodes of a node are created the first time that they are used, so that
+ * a large tree can be loaded quickly and the nodes that are never queried are not created.
+ * <br/><br/>
+ *
+ * After a snapshot is saved, the transactions that are added to the tree can be appended
+ * at the end of the file (a checkpoint) instead of saving the whole tree again. When the
+ * snapshot is loaded, the transactions of the checkpoints are added to the tree again.
+ * A checkpoint that was not completely written (e.g. because the program was stopped)
+ * is ignored, and it is overwritten by the next checkpoint that is appended.
+ *
+ * Copyright (c) 2008-2014 Philippe Fournier-Viger
+ *
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ *
+ * SPMF is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * SPMF. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * @see ItemsetTree
+ * @see MemoryEfficientItemsetTree
+ */
+public class ItemsetTreeSnapshot {
+
+	// the first integer of a snapshot
+	private static final int MAGIC = 0x53504954;
+	// the version of the format
+	private static final int VERSION = 1;
+	// the first integer of a checkpoint
+	private static final int CHECKPOINT_MAGIC = 0x43484b50;
+	// the size of the header in bytes (magic, version, type of tree, node count, item count)
+	private static final int HEADER_SIZE = 20;
+	// the number of integers in the record of a node
+	private static final int RECORD_SIZE = 4;
+
+	// the types of tree
+	private static final int ITEMSET_TREE = 0;
+	private static final int MEMORY_EFFICIENT_ITEMSET_TREE = 1;
+
+	/**
+	 * Save an itemset tree to a snapshot file (the file is replaced if it exists).
+	 * @param tree the tree
+	 * @param output the path of the file
+	 * @throws IOException exception if error while writing the file
+	 */
+	public static void save(ItemsetTree tree, String output) throws IOException {
+		save(tree, ITEMSET_TREE, output);
+	}
+
+	/**
+	 * Save a memory efficient itemset tree to a snapshot file (the file is replaced if it exists).
+	 * @param tree the tree
+	 * @param output the path of the file
+	 * @throws IOException exception if error while writing the file
+	 */
+	public static void save(MemoryEfficientItemsetTree tree, String output) throws IOException {
+		save(tree, MEMORY_EFFICIENT_ITEMSET_TREE, output);
+	}
+
+	/**
+	 * Load an itemset tree from a snapshot file, and add the transactions of its checkpoints.
+	 * @param input the path of the file
+	 * @return the tree
+	 * @throws IOException exception if error while reading the file or if it is not
+	 *         the snapshot of an itemset tree
+	 */
+	public static ItemsetTree loadItemsetTree(String input) throws IOException {
+		ItemsetTree tree = new ItemsetTree();
+		load(tree, ITEMSET_TREE, input);
+		return tree;
+	}
+
+	/**
+	 * Load a memory efficient itemset tree from a snapshot file, and add the
+	 * transactions of its checkpoints.
+	 * @param input the path of the file
+	 * @return the tree
+	 * @throws IOException exception if error while reading the file or if it is not
+	 *         the snapshot of a memory efficient itemset tree
+	 */
+	public static MemoryEfficientItemsetTree loadMemoryEfficientItemsetTree(String input) throws IOException {
+		MemoryEfficientItemsetTree tree = new MemoryEfficientItemsetTree();
+		load(tree, MEMORY_EFFICIENT_ITEMSET_TREE, input);
+		return tree;
+	}
+
+	/**
+	 * Append a checkpoint containing some transactions to a snapshot file. The transactions
+	 * should have been added to the tree after the snapshot was saved. The checkpoint is
+	 * written after the last complete checkpoint (an incomplete checkpoint is overwritten).
+	 * The method returns when the checkpoint has been written to the disk.
+	 * @param snapshot the path of the snapshot file
+	 * @param transactions the transactions
+	 * @throws IOException exception if error while writing the file or if it is not a snapshot
+	 */
+	public static void appendCheckpoint(String snapshot, int[][] transactions) throws IOException {
+		// the checkpoint is prepared in memory, and then written with a single write
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream stream = new DataOutputStream(bytes);
+		int itemCount = 0;
+		for(int[] transaction : transactions){
+			itemCount += transaction.length;
+		}
+		stream.writeInt(CHECKPOINT_MAGIC);
+		stream.writeInt(transactions.length);
+		stream.writeInt(itemCount);
+		for(int[] transaction : transactions){
+			stream.writeInt(transaction.length);
+		}
+		for(int[] transaction : transactions){
+			for(int item : transaction){
+				stream.writeInt(item);
+			}
+		}
+		stream.close();
+
+		RandomAccessFile file = new RandomAccessFile(snapshot, "rw");
+		try {
+			FileChannel channel = file.getChannel();
+			// remove the incomplete checkpoint at the end of the file, if there is one
+			long end = findCheckpointsEnd(channel, readHeader(channel, -1, snapshot), snapshot);
+			if(channel.size() > end){
+				channel.truncate(end);
+			}
+			ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+			while(buffer.hasRemaining()){
+				end += channel.write(buffer, end);
+			}
+			channel.force(true);
+		} finally {
+			file.close();
+		}
+	}
+
+	/**
+	 * Save a tree to a snapshot file.
+	 * @param tree the tree
+	 * @param type the type of tree
+	 * @param output the path of the file
+	 * @throws IOException exception if error while writing the file
+	 */
+	private static void save(AbstractItemsetTree tree, int type, String output) throws IOException {
+		if(tree.root == null){
+			tree.root = new ItemsetTreeNode(null, 0);
+		}
+		// count the nodes and the items
+		long[] counts = new long[2];
+		countNodesAndItems(tree.root, counts);
+		long recordBytes = counts[0] * RECORD_SIZE * 4;
+		long itemBytes = counts[1] * 4;
+		if(recordBytes > Integer.MAX_VALUE || itemBytes > Integer.MAX_VALUE){
+			throw new IOException("The tree is too large to be saved as a snapshot");
+		}
+
+		RandomAccessFile file = new RandomAccessFile(output, "rw");
+		try {
+			file.setLength(0);
+			file.setLength(HEADER_SIZE + recordBytes + itemBytes);
+			FileChannel channel = file.getChannel();
+			// write the header
+			MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+			header.putInt(MAGIC);
+			header.putInt(VERSION);
+			header.putInt(type);
+			header.putInt((int) counts[0]);
+			header.putInt((int) counts[1]);
+			// write the nodes
+			MappedByteBuffer recordBuffer = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_SIZE, recordBytes);
+			MappedByteBuffer itemBuffer = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_SIZE + recordBytes, itemBytes);
+			writeNode(tree.root, recordBuffer.asIntBuffer(), itemBuffer.asIntBuffer(), new int[2]);
+			header.force();
+			recordBuffer.force();
+			itemBuffer.force();
+		} finally {
+			file.close();
+		}
+	}
+
+	/**
+	 * Count the nodes and items of a subtree.
+	 * @param node the root of the subtree
+	 * @param counts the number of nodes and items, which are increased
+	 */
+	private static void countNodesAndItems(ItemsetTreeNode node, long[] counts) {
+		counts[0]++;
+		if(node.itemset != null){
+			counts[1] += node.itemset.length;
+		}
+		for(ItemsetTreeNode child : node.childs){
+			countNodesAndItems(child, counts);
+		}
+	}
+
+	/**
+	 * Write the records and items of a subtree in pre-order.
+	 * @param node the root of the subtree
+	 * @param records the records of the nodes
+	 * @param items the items of the nodes
+	 * @param positions the position of the next record and of the next item
+	 * @return the number of nodes of the subtree
+	 */
+	private static int writeNode(ItemsetTreeNode node, IntBuffer records, IntBuffer items, int[] positions) {
+		int record = positions[0]++ * RECORD_SIZE;
+		records.put(record, node.support);
+		records.put(record + 1, positions[1]);
+		if(node.itemset == null){
+			records.put(record + 2, -1);
+		}else{
+			records.put(record + 2, node.itemset.length);
+			for(int item : node.itemset){
+				items.put(positions[1]++, item);
+			}
+		}
+		// write the childs after the node
+		int subtreeSize = 1;
+		for(ItemsetTreeNode child : node.childs){
+			subtreeSize += writeNode(child, records, items, positions);
+		}
+		records.put(record + 3, subtreeSize);
+		return subtreeSize;
+	}
+
+	/**
+	 * Load a tree from a snapshot file, and add the transactions of its checkpoints.
+	 * @param tree an empty tree
+	 * @param type the type of the tree
+	 * @param input the path of the file
+	 * @throws IOException exception if error while reading the file or if the type is not correct
+	 */
+	private static void load(AbstractItemsetTree tree, int type, String input) throws IOException {
+		RandomAccessFile file = new RandomAccessFile(input, "r");
+		try {
+			FileChannel channel = file.getChannel();
+			// read the header
+			int[] counts = readHeader(channel, type, input);
+			long recordBytes = (long) counts[0] * RECORD_SIZE * 4;
+			long itemBytes = (long) counts[1] * 4;
+			long checkpointStart = HEADER_SIZE + recordBytes + itemBytes;
+			long checkpointEnd = findCheckpointsEnd(channel, counts, input);
+
+			// map the nodes and create the root (the mapping stays valid after the file is closed)
+			SnapshotData data = new SnapshotData(
+					channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, recordBytes).asIntBuffer(),
+					channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + recordBytes, itemBytes).asIntBuffer());
+			tree.root = data.createNode(0);
+
+			// add the transactions of the complete checkpoints (an incomplete checkpoint is ignored)
+			channel.position(checkpointStart);
+			long remaining = checkpointEnd - checkpointStart;
+			DataInputStream stream = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+			while(remaining > 0){
+				stream.readInt();
+				int transactionCount = stream.readInt();
+				int checkpointItemCount = stream.readInt();
+				remaining -= 12 + ((long) transactionCount + checkpointItemCount) * 4;
+				int[][] transactions = new int[transactionCount][];
+				for(int i = 0; i < transactionCount; i++){
+					transactions[i] = new int[stream.readInt()];
+				}
+				for(int[] transaction : transactions){
+					for(int i = 0; i < transaction.length; i++){
+						transaction[i] = stream.readInt();
+					}
+					tree.addTransaction(transaction);
+				}
+			}
+		} finally {
+			file.close();
+		}
+	}
+
+	/**
+	 * Read the header of a snapshot file.
+	 * @param channel the file
+	 * @param type the type of the tree, or -1 for any type
+	 * @param path the path of the file
+	 * @return the number of nodes and the number of items
+	 * @throws IOException exception if error while reading the file or if it is not a snapshot
+	 *         of the given type
+	 */
+	private static int[] readHeader(FileChannel channel, int type, String path) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		if(readFully(channel, header, 0) < HEADER_SIZE || header.getInt(0) != MAGIC){
+			throw new IOException("The file is not an itemset tree snapshot: " + path);
+		}
+		if(header.getInt(4) != VERSION){
+			throw new IOException("The version of the snapshot is not supported: " + path);
+		}
+		if(type != -1 && header.getInt(8) != type){
+			throw new IOException("The snapshot is for another type of itemset tree: " + path);
+		}
+		int[] counts = new int[]{header.getInt(12), header.getInt(16)};
+		long checkpointStart = HEADER_SIZE + (long) counts[0] * RECORD_SIZE * 4 + (long) counts[1] * 4;
+		if(channel.size() < checkpointStart){
+			throw new IOException("The snapshot is incomplete: " + path);
+		}
+		return counts;
+	}
+
+	/**
+	 * Find the end of the last complete checkpoint of a snapshot file (or the end of the
+	 * nodes if there is no checkpoint). Only the header of each checkpoint is read.
+	 * @param channel the file
+	 * @param counts the number of nodes and the number of items of the snapshot
+	 * @param path the path of the file
+	 * @return the position in bytes
+	 * @throws IOException exception if error while reading the file or if a checkpoint is corrupted
+	 */
+	private static long findCheckpointsEnd(FileChannel channel, int[] counts, String path) throws IOException {
+		long position = HEADER_SIZE + (long) counts[0] * RECORD_SIZE * 4 + (long) counts[1] * 4;
+		long size = channel.size();
+		ByteBuffer header = ByteBuffer.allocate(12);
+		while(readFully(channel, header, position) == 12){
+			if(header.getInt(0) != CHECKPOINT_MAGIC || header.getInt(4) < 0 || header.getInt(8) < 0){
+				throw new IOException("The checkpoints of the snapshot are corrupted: " + path);
+			}
+			long end = position + 12 + ((long) header.getInt(4) + header.getInt(8)) * 4;
+			// if the checkpoint is incomplete, it is ignored
+			if(end > size){
+				break;
+			}
+			position = end;
+		}
+		return position;
+	}
+
+	/**
+	 * Read bytes from a file until a buffer is full or the end of the file is reached.
+	 * @param channel the file
+	 * @param buffer the buffer (it is cleared before reading)
+	 * @param position the position of the first byte
+	 * @return the number of bytes read
+	 * @throws IOException exception if error while reading the file
+	 */
+	private static int readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		buffer.clear();
+		while(buffer.hasRemaining()){
+			int count = channel.read(buffer, position + buffer.position());
+			if(count < 0){
+				break;
+			}
+		}
+		return buffer.position();
+	}
+
+	/**
+	 * The nodes of a snapshot mapped in memory.
+	 */
+	private static class SnapshotData {
+		// the records of the nodes
+		private final IntBuffer records;
+		// the items of the nodes
+		private final IntBuffer items;
+
+		/**
+		 * Constructor
+		 * @param records the records of the nodes
+		 * @param items the items of the nodes
+		 */
+		SnapshotData(IntBuffer records, IntBuffer items) {
+			this.records = records;
+			this.items = items;
+		}
+
+		/**
+		 * Create a node from its record. Its childs will be created when they are used.
+		 * @param index the position of the node in pre-order
+		 * @return the node
+		 */
+		ItemsetTreeNode createNode(int index) {
+			int record = index * RECORD_SIZE;
+			int length = records.get(record + 2);
+			int[] itemset = null;
+			if(length >= 0){
+				itemset = new int[length];
+				int offset = records.get(record + 1);
+				for(int i = 0; i < length; i++){
+					itemset[i] = items.get(offset + i);
+				}
+			}
+			ItemsetTreeNode node = new ItemsetTreeNode(itemset, records.get(record));
+			// if the node has childs, they are created later
+			if(records.get(record + 3) > 1){
+				node.childs = new LazyChildList(this, index);
+			}
+			return node;
+		}
+
+		/**
+		 * Create the childs of a node.
+		 * @param index the position of the node in pre-order
+		 * @return the childs
+		 */
+		List<ItemsetTreeNode> createChilds(int index) {
+			List<ItemsetTreeNode> childs = new ArrayList<ItemsetTreeNode>();
+			int end = index + records.get(index * RECORD_SIZE + 3);
+			// the first child is the next node and the next child is after the subtree of a child
+			for(int child = index + 1; child < end; child += records.get(child * RECORD_SIZE + 3)){
+				childs.add(createNode(child));
+			}
+			return childs;
+		}
+	}
+
+	/**
+	 * The list of childs of a node loaded from a snapshot. The childs are created
+	 * the first time that the list is used.
+	 */
+	private static class LazyChildList extends AbstractList<ItemsetTreeNode> implements Serializable {
+		private static final long serialVersionUID = 1L;
+
+		// the snapshot (null after the childs have been created)
+		private transient SnapshotData data;
+		// the position of the node in pre-order
+		private final int index;
+		// the childs, or null if they have not been created yet
+		private volatile List<ItemsetTreeNode> childs = null;
+
+		/**
+		 * Constructor
+		 * @param data the snapshot
+		 * @param index the position of the node in pre-order
+		 */
+		LazyChildList(SnapshotData data, int index) {
+			this.data = data;
+			this.index = index;
+		}
+
+		/**
+		 * Get the childs, and create them if it is the first time.
+		 * Several threads can call this method at the same time.
+		 * @return the childs
+		 */
+		private List<ItemsetTreeNode> getChilds() {
+			List<ItemsetTreeNode> list = childs;
+			if(list == null){
+				synchronized (this) {
+					list = childs;
+					if(list == null){
+						list = data.createChilds(index);
+						childs = list;
+						data = null;
+					}
+				}
+			}
+			return list;
+		}
+
+		public ItemsetTreeNode get(int i) {
+			return getChilds().get(i);
+		}
+
+		public int size() {
+			return getChilds().size();
+		}
+
+		public ItemsetTreeNode set(int i, ItemsetTreeNode node) {
+			return getChilds().set(i, node);
+		}
+
+		public void add(int i, ItemsetTreeNode node) {
+			getChilds().add(i, node);
+		}
+
+		public ItemsetTreeNode remove(int i) {
+			return getChilds().remove(i);
+		}
+
+		/**
+		 * The childs are serialized as a normal list.
+		 * @return the list that is serialized instead of this one
+		 * @throws ObjectStreamException never
+		 */
+		private Object writeReplace() throws ObjectStreamException {
+			return new ArrayList<ItemsetTreeNode>(getChilds());
+		}
+	}
+}
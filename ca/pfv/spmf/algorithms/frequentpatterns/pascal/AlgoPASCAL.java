@@ -30,7 +30,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
-import ca.pfv.spmf.algorithms.ArraysAlgos;
+import ca.pfv.spmf.algorithms.frequentpatterns.apriori.CandidateTrie;
 import ca.pfv.spmf.algorithms.frequentpatterns.apriori_HT.ItemsetHashTree;
 import ca.pfv.spmf.tools.MemoryLogger;
 
@@ -215,21 +215,43 @@ public class AlgoPASCAL {
 		// The loop will stop when no candidates can be generated.
 		List<ItemsetPascal> level = null;
 		k = 2;
+		// the prefix trie storing the frequent itemsets of size k-1 and the candidates of size k
+		CandidateTrie<ItemsetPascal> trie = new CandidateTrie<ItemsetPascal>();
+		for (ItemsetPascal itemset : frequent1) {
+			trie.addItemset(itemset.itemset, itemset);
+		}
+		// the method to create a candidate (all its subsets are frequent)
+		CandidateTrie.CandidateFactory<ItemsetPascal> factory = new CandidateTrie.CandidateFactory<ItemsetPascal>() {
+			public ItemsetPascal createCandidate(int[] itemset, List<ItemsetPascal> subsets) {
+				ItemsetPascal candidate = new ItemsetPascal(itemset);
+				// ------ CODE SPECIFIC TO PASCAL --------
+				for (ItemsetPascal subset : subsets) {
+					// if a subset is not a generator, then
+					// the candidate itemset is also not a generator
+					if (subset.isGenerator == false) {
+						candidate.isGenerator = false;
+					}
+					// we remember the lowest support of the subsets
+					if (subset.getAbsoluteSupport() < candidate.pred_sup) {
+						candidate.pred_sup = subset.getAbsoluteSupport();
+					}
+				}
+				// if the candidate is not a generator then the support  of this
+				// itemset is the same as the lowest support of its subsets of size k-1
+				if (candidate.isGenerator == false) {
+					candidate.support = candidate.pred_sup;
+				}
+				// ------ END CODE SPECIFIC TO PASCAL --------
+				return candidate;
+			}
+		};
 		do {
 			// we check the memory usage
 			MemoryLogger.getInstance().checkMemory();
 
-			// Generate candidates of size K
-			List<ItemsetPascal> candidatesK;
-
-			// if we are at level k=2, we use an optimization to generate
-			// candidates
-			if (k == 2) {
-				candidatesK = generateCandidate2(frequent1);
-			} else {
-				// otherwise we use the regular way to generate candidates
-				candidatesK = generateCandidateSizeK(level);
-			}
+			// Generate candidates of size K by joining the itemsets of size k-1
+			// that have the same parent in the trie
+			List<ItemsetPascal> candidatesK = trie.generateCandidates(factory);
 
 			// we add the number of candidates generated to the total
 			totalCandidateCount += candidatesK.size();
@@ -237,66 +259,28 @@ public class AlgoPASCAL {
 			
 			// We scan the database one time to calculate the support
 			// of each candidates and keep those with higher suport.
-			for (ItemsetPascal candidate : candidatesK) {
+			// Each transaction is compared with the trie of candidates.
+			int[] supports = new int[candidatesK.size()];
+			for (int[] transaction : database) {
+				trie.countTransaction(transaction, supports);
+			}
+			for (int id = 0; id < candidatesK.size(); id++) {
+				ItemsetPascal candidate = candidatesK.get(id);
 				// CODE SPECIFIC TO PASCAL
 				// PRUNING STRATEGY
-				// for each itemset that is a generator, if the support
-				// is the same as the minimum of its subsets, then
-				// it is not a generator and we want to remember that
-				if(candidate.isGenerator == false) {
-					continue;
+				// the support of an itemset that is not a generator
+				// is the minimum support of its subsets
+				if (candidate.isGenerator) {
+					candidate.support += supports[id];
 				}
 				// END CODE SPECIFIC TO PASCAL
-				
-				// For each transaction:
-				loop:	for (int[] transaction : database) {
-						// NEW OPTIMIZATION 2013: Skip transactions shorter than k!
-						if (transaction.length < k) {
-							// System.out.println("test");
-							continue;
-						}
-						// END OF NEW OPTIMIZATION
-
-						
-							// a variable that will be use to check if
-							// all items of candidate are in this transaction
-							int pos = 0;
-							// for each item in this transaction
-							for (int item : transaction) {
-								
-								// if the item correspond to the current item of
-								// candidate
-								if (item == candidate.itemset[pos]) {
-									// we will try to find the next item of candidate
-									// next
-									pos++;
-									// if we found all items of candidate in this
-									// transaction
-									if (pos == candidate.itemset.length) {
-										// we increase the support of this candidate
-										candidate.support++;
-										continue loop;
-									}
-									// Because of lexical order, we don't need to
-									// continue scanning the transaction if the current
-									// item
-									// is larger than the one that we search in
-									// candidate.
-								} else if (item > candidate.itemset[pos]) {
-									continue loop;
-								}
-
-							}
-						}
-				
 			}
 
-	
-
 			// We build the level k+1 with all the candidates that have
 			// a support higher than the minsup threshold.
 			level = new ArrayList<ItemsetPascal>();
-			for (ItemsetPascal candidate : candidatesK) {
+			for (int id = 0; id < candidatesK.size(); id++) {
+				ItemsetPascal candidate = candidatesK.get(id);
 				// if the support is > minsup
 				if (candidate.getAbsoluteSupport() >= minsupRelative) {
 					
@@ -314,6 +298,9 @@ public class AlgoPASCAL {
 					level.add(candidate);
 					// the itemset is frequent so save it into results
 					saveItemsetToFile(candidate);
+				} else {
+					// otherwise it is not used to generate the next candidates
+					trie.removeCandidate(id);
 				}
 			}
 			// we will generate larger itemsets next.
@@ -331,178 +318,6 @@ public class AlgoPASCAL {
 		}
 	}
 
-	/**
-	 * This method generates candidates itemsets of size 2 based on itemsets of
-	 * size 1.
-	 * 
-	 * @param frequent1
-	 *            the list of frequent itemsets of size 1.
-	 * @return a List of Itemset that are the candidates of size 2.
-	 */
-	private List<ItemsetPascal> generateCandidate2(List<ItemsetPascal> frequent1) {
-		List<ItemsetPascal> candidates = new ArrayList<ItemsetPascal>();
-
-		// For each itemset I1 and I2 of level k-1
-		for (int i = 0; i < frequent1.size(); i++) {
-			ItemsetPascal itemset1 = frequent1.get(i);
-			int item1 = itemset1.get(0);
-			for (int j = i + 1; j < frequent1.size(); j++) {
-				ItemsetPascal itemset2 = frequent1.get(j);
-				int item2 = itemset2.get(0);
-				
-				// CODE SPECIFIC TO PASCAL
-				ItemsetPascal itemset = new ItemsetPascal(new int[] { item1, item2 });
-				itemset.isGenerator 
-				   = itemset1.isGenerator && itemset2.isGenerator;
-				itemset.pred_sup = Math.min(itemset1.getAbsoluteSupport(), itemset2.getAbsoluteSupport());
-				if(itemset.isGenerator == false) {
-					itemset.support = itemset.pred_sup;
-				}
-				// END OF CODE SPECIFIC TO PASCAL
-						
-				// Create a new candidate by combining itemset1 and itemset2
-				candidates.add(itemset);
-			}
-		}
-		return candidates;
-	}
-
-	/**
-	 * Method to generate itemsets of size k from frequent itemsets of size K-1.
-	 * 
-	 * @param levelK_1
-	 *            frequent itemsets of size k-1
-	 * @return itemsets of size k
-	 */
-	protected List<ItemsetPascal> generateCandidateSizeK(List<ItemsetPascal> levelK_1) {
-		// create a variable to store candidates
-		List<ItemsetPascal> candidates = new ArrayList<ItemsetPascal>();
-
-		// For each itemset I1 and I2 of level k-1
-		loop1: for (int i = 0; i < levelK_1.size(); i++) {
-			int[] itemset1 = levelK_1.get(i).itemset;
-			loop2: for (int j = i + 1; j < levelK_1.size(); j++) {
-				int[] itemset2 = levelK_1.get(j).itemset;
-
-				// we compare items of itemset1 and itemset2.
-				// If they have all the same k-1 items and the last item of
-				// itemset1 is smaller than
-				// the last item of itemset2, we will combine them to generate a
-				// candidate
-				for (int k = 0; k < itemset1.length; k++) {
-					// if they are the last items
-					if (k == itemset1.length - 1) {
-						// the one from itemset1 should be smaller (lexical
-						// order)
-						// and different from the one of itemset2
-						if (itemset1[k] >= itemset2[k]) {
-							continue loop1;
-						}
-					}
-					// if they are not the last items, and
-					else if (itemset1[k] < itemset2[k]) {
-						continue loop2; // we continue searching
-					} else if (itemset1[k] > itemset2[k]) {
-						continue loop1; // we stop searching: because of lexical
-										// order
-					}
-				}
-
-				// Create a new candidate by combining itemset1 and itemset2
-				int newItemset[] = new int[itemset1.length + 1];
-				System.arraycopy(itemset1, 0, newItemset, 0, itemset1.length);
-				newItemset[itemset1.length] = itemset2[itemset2.length - 1];
-
-				// The candidate is tested to see if its subsets of size k-1 are
-				// included in
-				// level k-1 (they are frequent).
-				ItemsetPascal newItemsetPascal = new ItemsetPascal(newItemset);
-				if (allSubsetsOfSizeK_1AreFrequent(newItemsetPascal, levelK_1)) {
-					// ------ CODE SPECIFIC TO PASCAL --------
-					// if the candidate is not a generator then the support  of this
-					// itemset is the same as the lowest support of its subsets of size k-1
-					if(newItemsetPascal.isGenerator == false) {
-						newItemsetPascal.support = newItemsetPascal.pred_sup;
-					}
-					// ------ END CODE SPECIFIC TO PASCAL --------
-					candidates.add(newItemsetPascal);
-				}
-			}
-		}
-		return candidates; // return the set of candidates
-	}
-
-	/**
-	 * Method to check if all the subsets of size k-1 of a candidate of size k
-	 * are freuqnet
-	 * 
-	 * @param candidate
-	 *            a candidate itemset of size k
-	 * @param levelK_1
-	 *            the frequent itemsets of size k-1
-	 * @return true if all the subsets are frequet
-	 */
-	protected boolean allSubsetsOfSizeK_1AreFrequent(ItemsetPascal candidateItemset,
-			List<ItemsetPascal> levelK_1) {
-		int[] candidate = candidateItemset.itemset;
-		
-		// generate all subsets by always each item from the candidate, one by
-		// one
-		for (int posRemoved = 0; posRemoved < candidate.length; posRemoved++) {
-
-			// perform a binary search to check if the subset appears in level
-			// k-1.
-			int first = 0;
-			int last = levelK_1.size() - 1;
-
-			// variable to remember if we found the subset
-			boolean found = false;
-			// the binary search
-			while (first <= last) {
-	        	int middle = ( first + last ) >>> 1; // divide by 2
-
-				if (ArraysAlgos.sameAs(levelK_1.get(middle).getItems(), candidate, posRemoved) < 0) {
-					first = middle + 1; // the itemset compared is larger than
-										// the subset according to the lexical
-										// order
-				} else if (ArraysAlgos.sameAs(levelK_1.get(middle).getItems(), candidate, posRemoved) > 0) {
-					last = middle - 1; // the itemset compared is smaller than
-										// the subset is smaller according to
-										// the lexical order
-				} else {
-					// WE HAVE FOUND IT
-					found = true; 
-					
-					// ------ CODE SPECIFIC TO PASCAL --------
-					// CHECK IF THE SUBSET IS A GENERATOR
-					int supportMiddle = levelK_1.get(middle).getAbsoluteSupport();
-					boolean isAGenerator = levelK_1.get(middle).isGenerator;
-					if(isAGenerator == false) {
-						// IF NOT THEN THE candidate itemset is also not a generator
-						candidateItemset.isGenerator = false;
-					}
-					
-					// if the support of this subset is smaller than the 
-					// support of all subsets until now, we remember it.
-					if(supportMiddle < candidateItemset.pred_sup) {
-						candidateItemset.pred_sup = supportMiddle;
-					}
-					// ------ END OF CODE SPECIFIC TO PASCAL --------
-					
-					break;
-				}
-			}
-
-			if (found == false) { // if we did not find it, that means that
-									// candidate is not a frequent itemset
-									// because
-				// at least one of its subsets does not appear in level k-1.
-				return false;
-			}
-		}
-		return true;
-	}
-
 	/**
 	 * Method to save a frequent itemset to file
 	 * 
@@ -20,8 +20,12 @@
 import java.io.BufferedWriter;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import ca.pfv.spmf.algorithms.frequentpatterns.apriori.CandidateTrie;
 
 /**
  * This is an implementation of the U-Apriori algorithm as described by :<br/><br/>
@@ -52,6 +56,10 @@ public class AlgoUApriori {
 	// write to file
 	BufferedWriter writer = null;	
 	
+	// the items and the existential probabilities of the items of each transaction
+	private int[][] transactionItems;
+	private double[][] transactionProbabilities;
+	
 	/**
 	 * Constructor
 	 * @param database the database for applying this algorithm
@@ -77,21 +85,35 @@ public class AlgoUApriori {
 		// prepare the output file
 		writer = new BufferedWriter(new FileWriter(output)); 
 		
+		// convert the transactions to arrays of items and probabilities
+		// for scanning them with the trie
+		transactionItems = new int[database.size()][];
+		transactionProbabilities = new double[database.size()][];
+		for (int i = 0; i < database.size(); i++) {
+			List<ItemUApriori> items = database.getTransactions().get(i).getItems();
+			transactionItems[i] = new int[items.size()];
+			transactionProbabilities[i] = new double[items.size()];
+			for (int j = 0; j < items.size(); j++) {
+				transactionItems[i][j] = items.get(j).getId();
+				transactionProbabilities[i][j] = items.get(j).getProbability();
+			}
+		}
+		
 		// Generate candidates with size k = 1 (all itemsets of size 1)
+		// and store them in a prefix trie
 		k=1;
-		Set<ItemsetUApriori> candidatesSize1 = generateCandidateSize1();
+		CandidateTrie<ItemsetUApriori> trie = generateCandidateSize1();
 		
 		// increase the number of candidates generated
-		totalCandidateCount+=candidatesSize1.size();
+		totalCandidateCount+=trie.getCandidateCount();
 
 		// calculate the support of each candidate of size 1
 		// by scanning the database
-		calculateSupportForEachCandidate(candidatesSize1);
+		calculateSupportForEachCandidate(trie);
 		
 		// To build level 1, we keep only the frequent candidates.
 		// We scan the database one time to calculate the support of each candidate.
-		Set<ItemsetUApriori> level = createLevelWithFrequentCandidates(minsupp,
-				candidatesSize1);
+		List<ItemsetUApriori> level = createLevelWithFrequentCandidates(minsupp, trie);
 
 		// Now this is the recursive step
 		// itemsets of size k will be generated recursively starting from k=2
@@ -100,26 +122,27 @@ public class AlgoUApriori {
 		k = 2;
 		// While the level is not empty
 		while (!level.isEmpty()  ) {
-			// Generate candidates of size K
-			Set<ItemsetUApriori> candidatesK = generateCandidateSizeK(level);
+			// Generate candidates of size K by joining the itemsets of size k-1
+			// that have the same parent in the trie
+			List<ItemsetUApriori> candidatesK = trie.generateCandidates(candidateFactory);
 			// increase the candidate count
 			totalCandidateCount+=candidatesK.size();
 
 			// We scan the database one time to calculate the support
 			// of each candidates.
-			calculateSupportForEachCandidate(candidatesK);
+			calculateSupportForEachCandidate(trie);
 
 			// We build the level k+1 with all the candidates that have
 			// a support higher than the minsup threshold.
-			Set<ItemsetUApriori> levelK = createLevelWithFrequentCandidates(
-					minsupp, candidatesK);
-			level = levelK; // We keep only the last level... 
+			level = createLevelWithFrequentCandidates(minsupp, trie); // We keep only the last level... 
 			k++;
 		}
 		// close the output file
 		writer.close();
 		// record end time
 		endTimestamp = System.currentTimeMillis();
+		transactionItems = null;
+		transactionProbabilities = null;
 	}
 
 	/**
@@ -134,23 +157,29 @@ public class AlgoUApriori {
 	}
 	
 	/**
-	 * Take a set of candidates and compare them with the min expected support to keep
-	 * only the itemset meeting that  minimum threshold.
+	 * Take the candidates stored in a trie and compare them with the min expected support to keep
+	 * only the itemset meeting that  minimum threshold. The other candidates are removed from the trie.
 	 * @param minsupp  the minimum expected threshold
-	 * @param candidatesK  a set of itemsets of size k
-	 * @return  the set of frequent itemsets of size k 
+	 * @param trie  the trie containing the candidates of size k
+	 * @return  the frequent itemsets of size k 
 	 * @throws IOException exception if error writing output file
 	 */
-	protected Set<ItemsetUApriori> createLevelWithFrequentCandidates(double minsupp,Set<ItemsetUApriori> candidatesK) throws IOException {
-		Set<ItemsetUApriori> levelK = new HashSet<ItemsetUApriori>();
+	protected List<ItemsetUApriori> createLevelWithFrequentCandidates(double minsupp,
+			CandidateTrie<ItemsetUApriori> trie) throws IOException {
+		List<ItemsetUApriori> levelK = new ArrayList<ItemsetUApriori>();
+		List<ItemsetUApriori> candidatesK = trie.getCandidates();
 		// for each itemset
-		for (ItemsetUApriori candidate : candidatesK) { 
+		for (int id = 0; id < candidatesK.size(); id++) { 
+			ItemsetUApriori candidate = candidatesK.get(id);
 			// check if it has enough support
 			if (candidate.getExpectedSupport() >= minsupp) {
 				// if yes add it to the set of frequent itemset of size k
 				levelK.add(candidate);
 				// save the itemset to the output file
 				saveItemsetToFile(candidate);
+			}else{
+				// otherwise it is not used to generate the next candidates
+				trie.removeCandidate(id);
 			}
 		}
 		// return frequent k-itemsets 
@@ -158,156 +187,71 @@ public class AlgoUApriori {
 	}
 	
 	/**
-	 * Calculate the support of a set of candidates by scanning the database.
-	 * @param candidatesK  a set of candidates of size k
+	 * Calculate the support of the candidates stored in a trie by scanning the database.
+	 * The expected support of a candidate in a transaction is the product of the 
+	 * existential probabilities of its items in the transaction.
+	 * @param trie  the trie containing the candidates of size k
 	 */
-	protected void calculateSupportForEachCandidate(
-			Set<ItemsetUApriori> candidatesK) {
+	protected void calculateSupportForEachCandidate(CandidateTrie<ItemsetUApriori> trie) {
 		// increase database scan count
 		databaseScanCount++;
-		// for each transaction
-		for (ItemsetUApriori transaction : database.getTransactions()) {
-			// For each candidate of level K, we increase its support
-			// if it is included in the transaction.
-			
-			// for each candidate
-		candidateLoop : for (ItemsetUApriori candidate : candidatesK) {
-			
-				// initialize the expected support to 0
-				double expectedSupport = 0;
-				
-				// for each item in candidate we will try to find it
-				for(ItemUApriori item : candidate.getItems()){
-					boolean found = false;
-					
-					// for each item in the transaction
-					for(ItemUApriori itemT : transaction.getItems()){
-						
-						// if we found the item
-						if(item.getId() == itemT.getId()){
-							found = true;
-							// update the expected support
-							if(expectedSupport == 0){
-								expectedSupport = itemT.getProbability();
-							}else{
-								expectedSupport *= itemT.getProbability();
-							}
-							break;
-						}
-						// if the lexical order is not respected then it is impossible
-						// that this item will be in this transaction so 
-						// we stop searching for that item
-						else if (item.getId() < itemT.getId()){
-							break;
-						}
-					}	
-					// if the last item that we searched was not found
-					// then the full itemset is not here, so we stop
-					if(found == false){
-						continue candidateLoop;
-					}
-				}
-				// If the candidate itemset was completely found,
-				// we increase the support of the candidate its calculated 
-				// expected support.
-				candidate.increaseSupportBy(expectedSupport);
-			}
+		double[] expectedSupports = new double[trie.getCandidateCount()];
+		// for each transaction, we increase the support of the candidates
+		// included in the transaction.
+		for (int i = 0; i < transactionItems.length; i++) {
+			trie.countTransaction(transactionItems[i], transactionProbabilities[i], expectedSupports);
+		}
+		// update the expected support of the candidates
+		List<ItemsetUApriori> candidatesK = trie.getCandidates();
+		for (int id = 0; id < expectedSupports.length; id++) {
+			candidatesK.get(id).increaseSupportBy(expectedSupports[id]);
 		}
 	}
 
 	/**
 	 * Generate candidate itemsets containing a single item.
-	 * @return a set of candidate itemsets
+	 * @return a trie containing the candidate itemsets
 	 */
-	protected Set<ItemsetUApriori> generateCandidateSize1() {
+	protected CandidateTrie<ItemsetUApriori> generateCandidateSize1() {
+		// sort the items by lexical order, as required by the trie
+		List<ItemUApriori> items = new ArrayList<ItemUApriori>(database.getAllItems());
+		Collections.sort(items, new Comparator<ItemUApriori>() {
+			public int compare(ItemUApriori o1, ItemUApriori o2) {
+				return o1.getId() - o2.getId();
+			}
+		});
 		// create the set of candidates as empty
-		Set<ItemsetUApriori> candidates = new HashSet<ItemsetUApriori>(); 
+		CandidateTrie<ItemsetUApriori> candidates = new CandidateTrie<ItemsetUApriori>(); 
 		// for each item
-		for (ItemUApriori item : database.getAllItems()) {
+		for (ItemUApriori item : items) {
 			// simply add it to the set of candidates
 			ItemsetUApriori itemset = new ItemsetUApriori();
 			itemset.addItem(item);
-			candidates.add(itemset);
-		}
-		return candidates;
-	}
-
-	/**
-	 * Generate candidate itemsets of size K by using HWTUIs of size k-1
-	 * @param levelK_1   itemsets of size k-1
-	 * @return  candidates of size K
-	 */
-	protected Set<ItemsetUApriori> generateCandidateSizeK(Set<ItemsetUApriori> levelK_1) {
-		// a set to store candidates
-		Set<ItemsetUApriori> candidates = new HashSet<ItemsetUApriori>();
-
-		// For each itemset I1 and I2 of level k-1
-		Object[] itemsets = levelK_1.toArray();
-		for(int i=0; i< levelK_1.size(); i++){
-			ItemsetUApriori itemset1 = (ItemsetUApriori)itemsets[i];
-			for(int j=0; j< levelK_1.size(); j++){
-				ItemsetUApriori itemset2 = (ItemsetUApriori)itemsets[j];
-				
-				// If I1 is smaller than I2 according to lexical order and
-				// they share all the same items except the last one.
-				ItemUApriori missing = itemset1.allTheSameExceptLastItem(itemset2);
-				if(missing != null ){
-					// Then, create a new candidate by combining itemset1 and itemset2
-					ItemsetUApriori candidate = new ItemsetUApriori();
-					for(ItemUApriori item : itemset1.getItems()){
-						candidate.addItem(item);
-					}
-					candidate.addItem(missing);
-
-					// The candidate is tested to see if its subsets of size k-1 are included in
-					// level k-1 (they are frequent).
-					if(allSubsetsOfSizeK_1AreFrequent(candidate,levelK_1)){
-						// if it pass the test, add it to the set of candidates
-						candidates.add(candidate);
-					}
-				}
-			}
+			candidates.addItemset(new int[]{item.getId()}, itemset);
 		}
-		// return the set of candidates
 		return candidates;
 	}
 
 	/**
-	 * Check if all subsets of size k-1 of a candidate itemset of size k are frequent.
-	 * @param candidate  the candidate itemset
-	 * @param levelK_1  frequent itemsets of size k-1
-	 * @return true if all subsets are frequent, otherwise false
+	 * The method to create a candidate itemset of size K from its subsets of size k-1
+	 * (it is only called if all the subsets are frequent).
 	 */
-	protected boolean allSubsetsOfSizeK_1AreFrequent(ItemsetUApriori candidate, Set<ItemsetUApriori> levelK_1) {
-		// To generate all the set of size K-1, we will proceed
-		// by removing each item, one by one.
-		
-		//if only one item, return true because the empty set is always frequent
-		if(candidate.size() == 1){
-			return true;
-		}
-		// for each item
-		for(ItemUApriori item : candidate.getItems()){
-			// copy the itemset without this item to get a suset
-			ItemsetUApriori subset = candidate.cloneItemSetMinusOneItem(item);
-			boolean found = false;
-			// we scan itemsets of size k-1
-			for(ItemsetUApriori itemset : levelK_1){
-				// if we found the subset, then set found to true 
-				// and stop this loop
-				if(itemset.isEqualTo(subset)){
-					found = true;  
-					break;
-				}
-			}
-			// if the subset was not found, then we return false
-			if(found == false){
-				return false;
+	private final CandidateTrie.CandidateFactory<ItemsetUApriori> candidateFactory 
+			= new CandidateTrie.CandidateFactory<ItemsetUApriori>() {
+		public ItemsetUApriori createCandidate(int[] itemset, List<ItemsetUApriori> subsets) {
+			// the subset without the last item contains the k-1 first items and
+			// the subset without the item before the last one contains the last item
+			ItemsetUApriori itemset1 = subsets.get(itemset.length - 1);
+			ItemsetUApriori itemset2 = subsets.get(itemset.length - 2);
+			// create a new candidate by combining itemset1 and itemset2
+			ItemsetUApriori candidate = new ItemsetUApriori();
+			for(ItemUApriori item : itemset1.getItems()){
+				candidate.addItem(item);
 			}
+			candidate.addItem(itemset2.get(itemset2.size() - 1));
+			return candidate;
 		}
-		// all the subsets were found, so we return true
-		return true;
-	}
+	};
 
 	/**
 	 * Print statistics about the latest execution.
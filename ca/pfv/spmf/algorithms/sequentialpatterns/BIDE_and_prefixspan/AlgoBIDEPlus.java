@@ -14,6 +14,7 @@ import java.util.Set;
 import ca.pfv.spmf.input.sequence_database_list_integers.Sequence;
 import ca.pfv.spmf.input.sequence_database_list_integers.SequenceDatabase;
 import ca.pfv.spmf.patterns.itemset_list_integers_without_support.Itemset;
+import ca.pfv.spmf.tools.ConcurrentResultWriter;
 import ca.pfv.spmf.tools.MemoryLogger;
 
 
@@ -62,6 +63,14 @@ public class AlgoBIDEPlus {
 	// The sequential patterns that are found 
 	// (if the user want to keep them into memory)
 	private SequentialPatterns patterns = null;
+	
+	// the number of threads used to mine the projected databases of the frequent
+	// items (1 means that the patterns are found by the calling thread)
+	private int threadCount = 1;
+	
+	// the object used to save the patterns found by several threads
+	// (used only with several threads)
+	private ConcurrentResultWriter<SequentialPattern> concurrentWriter = null;
 		
 	// Map: key: item   value:  another item that followed the first item + support
 	// (could be replaced with a triangular matrix...)
@@ -141,54 +150,88 @@ public class AlgoBIDEPlus {
 		}
 			
 		
-		// For each frequent item
-loop1:	for(Entry<Integer, Set<Integer>> entry : mapSequenceID.entrySet()){
+		// find the frequent items
+		final List<Entry<Integer, Set<Integer>>> frequentItems = new ArrayList<Entry<Integer, Set<Integer>>>();
+		for(Entry<Integer, Set<Integer>> entry : mapSequenceID.entrySet()){
 			// if the item is frequent
 			if(entry.getValue().size() >= minsuppAbsolute){ 
-				
-				// build the projected database with this item
-				Integer item = entry.getKey();
-				List<PseudoSequenceBIDE> projectedContext = buildProjectedContextSingleItem(item, initialDatabase,  false, entry.getValue());
-
-				// Create the prefix with this item
-				SequentialPattern prefix = new SequentialPattern();  
-				prefix.addItemset(new Itemset(item));
-				// set the sequence IDS of this prefix
-				prefix.setSequenceIDs(entry.getValue());
-				
-				// variable to store the largest support of patterns
-				// that will be found starting with this prefix
-				if(projectedContext.size() >= minsuppAbsolute) {
-					int successorSupport = 0;
-					
-					if(!checkBackScanPruning(prefix, entry.getValue())) {
-						successorSupport =  recursion(prefix, projectedContext); // r�cursion;
-					}
-					
-					// Finally, because this prefix has support > minsup
-					// and passed the backscan pruning,
-					// we check if it has no sucessor with support >= minsup
-					// (a forward extension)
-					// IF no forward extension
-					if(successorSupport != entry.getValue().size()){    // ######### MODIFICATION ####
-						// IF there is also no backward extension
-						if(!checkBackwardExtension(prefix, entry.getValue())){ 
-							// the pattern is closed and we save it
-							savePattern(prefix);  
-						}
-					}
-				}else {
-					if(!checkBackwardExtension(prefix, entry.getValue())){ 
-						// the pattern is closed and we save it
-						savePattern(prefix);  
+				frequentItems.add(entry);
+			}
+		}
+		
+		// For each frequent item
+		if(threadCount <= 1){
+			for(Entry<Integer, Set<Integer>> entry : frequentItems){
+				mineFrequentItem(entry.getKey(), entry.getValue());
+			}
+		}else{
+			// the projected databases of the frequent items are mined in parallel
+			concurrentWriter = new ConcurrentResultWriter<SequentialPattern>(writer);
+			try{
+				ProjectionTask.run(new ProjectionTask.ItemMiner() {
+					public void mineItem(int index) throws IOException {
+						Entry<Integer, Set<Integer>> entry = frequentItems.get(index);
+						mineFrequentItem(entry.getKey(), entry.getValue());
 					}
-				}	
+				}, frequentItems.size(), threadCount);
+			}finally{
+				List<SequentialPattern> found = new ArrayList<SequentialPattern>();
+				patternCount += concurrentWriter.finish(found);
+				if(patterns != null){
+					patterns.addAll(found);
+				}
+				concurrentWriter = null;
 			}
-		}		
+		}
 		// check the memory usage for statistics
 		MemoryLogger.getInstance().checkMemory();
 	}
 	
+	/**
+	 * Find the patterns starting with a frequent item.
+	 * @param item the item
+	 * @param sequenceIDs the IDs of the sequences containing the item
+	 * @throws IOException exception if some error occurs while writing the output file.
+	 */
+	private void mineFrequentItem(Integer item, Set<Integer> sequenceIDs) throws IOException {
+		// build the projected database with this item
+		List<PseudoSequenceBIDE> projectedContext = buildProjectedContextSingleItem(item, initialDatabase,  false, sequenceIDs);
+
+		// Create the prefix with this item
+		SequentialPattern prefix = new SequentialPattern();  
+		prefix.addItemset(new Itemset(item));
+		// set the sequence IDS of this prefix
+		prefix.setSequenceIDs(sequenceIDs);
+		
+		// variable to store the largest support of patterns
+		// that will be found starting with this prefix
+		if(projectedContext.size() >= minsuppAbsolute) {
+			int successorSupport = 0;
+			
+			if(!checkBackScanPruning(prefix, sequenceIDs)) {
+				successorSupport =  recursion(prefix, projectedContext); // r�cursion;
+			}
+			
+			// Finally, because this prefix has support > minsup
+			// and passed the backscan pruning,
+			// we check if it has no sucessor with support >= minsup
+			// (a forward extension)
+			// IF no forward extension
+			if(successorSupport != sequenceIDs.size()){    // ######### MODIFICATION ####
+				// IF there is also no backward extension
+				if(!checkBackwardExtension(prefix, sequenceIDs)){ 
+					// the pattern is closed and we save it
+					savePattern(prefix);  
+				}
+			}
+		}else {
+			if(!checkBackwardExtension(prefix, sequenceIDs)){ 
+				// the pattern is closed and we save it
+				savePattern(prefix);  
+			}
+		}	
+	}
+	
 	/**
 	 * Method to check if a prefix has a backward-extension (see Bide+ article for full details).
 	 * This method do it a little bit differently than the BIDE+ article since
@@ -736,9 +779,6 @@ loop1:	for(PseudoSequenceBIDE sequence : database){
 	 * @throws IOException exception if error while writing the output file.
 	 */
 	private void savePattern(SequentialPattern prefix) throws IOException {
-		// increase the number of pattern found for statistics purposes
-		patternCount++; 
-	
 		// if the result should be saved to a file
 		if(writer != null){
 		
@@ -764,14 +804,34 @@ loop1:	for(PseudoSequenceBIDE sequence : database){
 			r.append(" #SUP: ");
 			r.append(prefix.getSequenceIDs().size());
 			
-			writer.write(r.toString());
-			writer.newLine();
+			// with several threads, the line is written by the buffer of the thread
+			if(concurrentWriter != null){
+				concurrentWriter.writeLine(r.toString());
+			}else{
+				// increase the number of pattern found for statistics purposes
+				patternCount++; 
+				writer.write(r.toString());
+				writer.newLine();
+			}
 		}// otherwise the result is kept into memory
-		else{
+		else if(concurrentWriter != null){
+			concurrentWriter.add(prefix);
+		}else{
+			patternCount++; 
 			patterns.addSequence(prefix, prefix.size());
 		}
 	}
 	
+	/**
+	 * Set the number of threads to be used for mining. With more than one thread, the
+	 * projected databases of the frequent items are mined in parallel and the patterns
+	 * are found in a different order.
+	 * @param threadCount the number of threads (default: 1)
+	 */
+	public void setThreadCount(int threadCount) {
+		this.threadCount = threadCount;
+	}
+	
 	/**
 	 * Print statistics about the algorithm execution to System.out.
 	 * @param size  the size of the database
@@ -12,6 +12,7 @@ import java.util.Set;
 import ca.pfv.spmf.input.sequence_database_list_integers.Sequence;
 import ca.pfv.spmf.input.sequence_database_list_integers.SequenceDatabase;
 import ca.pfv.spmf.patterns.itemset_list_integers_without_support.Itemset;
+import ca.pfv.spmf.tools.ConcurrentResultWriter;
 import ca.pfv.spmf.tools.MemoryLogger;
 
 
@@ -67,6 +68,14 @@ public class AlgoFEAT{
 	
 	boolean performPruning = true;
 	
+	// the number of threads used to mine the projected databases of the frequent
+	// items (1 means that the patterns are found by the calling thread)
+	private int threadCount = 1;
+	
+	// the object used to keep the patterns found by several threads
+	// (used only with several threads)
+	private ConcurrentResultWriter<SequentialPattern> concurrentWriter = null;
+	
 	/**
 	 * Default constructor
 	 */
@@ -256,54 +265,91 @@ public class AlgoFEAT{
 			}
 		}
 				
-		// For each item
+		// find the frequent items  (having a support >= minsup)
+		final List<Entry<Integer, Set<Integer>>> frequentItems = new ArrayList<Entry<Integer, Set<Integer>>>();
 		for(Entry<Integer, Set<Integer>> entry : mapSequenceID.entrySet()){
-			// if the item is frequent  (has a support >= minsup)
 			if(entry.getValue().size() >= minsuppRelative){ 
-				Integer item = entry.getKey();
-				
-				// Create the prefix for this projected database
-				SequentialPattern prefix = new SequentialPattern();  
-				prefix.addItemset(new Itemset(item));
-				prefix.setSequenceIDs(entry.getValue());
-
+				frequentItems.add(entry);
+			}
+		}
+		
+		// For each item
+		if(threadCount <= 1){
+			for(Entry<Integer, Set<Integer>> entry : frequentItems){
+				mineFrequentItem(entry.getKey(), entry.getValue());
+			}
+		}else{
+			// the projected databases of the frequent items are mined in parallel
+			concurrentWriter = new ConcurrentResultWriter<SequentialPattern>(null);
+			try{
+				ProjectionTask.run(new ProjectionTask.ItemMiner() {
+					public void mineItem(int index) throws IOException {
+						Entry<Integer, Set<Integer>> entry = frequentItems.get(index);
+						mineFrequentItem(entry.getKey(), entry.getValue());
+					}
+				}, frequentItems.size(), threadCount);
+			}finally{
+				concurrentWriter.finish(generators);
+				concurrentWriter = null;
+			}
+		}
+	}
+	
+	/**
+	 * Find the generators starting with a frequent item.
+	 * @param item the item
+	 * @param sequenceIDs the IDs of the sequences containing the item
+	 * @throws IOException exception if an error while writing the output file
+	 */
+	private void mineFrequentItem(Integer item, Set<Integer> sequenceIDs) throws IOException {
+		
+		// Create the prefix for this projected database
+		SequentialPattern prefix = new SequentialPattern();  
+		prefix.addItemset(new Itemset(item));
+		prefix.setSequenceIDs(sequenceIDs);
 
-				// ================ SPECIFIC TO FEAT ================
-				
-				// build the projected database for that item
-				List<PseudoSequence> projectedDatabase
-				   = buildProjectedDatabaseForSingleItem(item, initialDatabase, entry.getValue());
-				
-				boolean canPrune = false;
-				boolean isGenerator = true;
-				
-				if(initialDatabase.size() == entry.getValue().size()) {
-					// check forward pruning
-					canPrune = checkforwardPruningFor1ItemSequence(item, projectedDatabase);
-					isGenerator = false;
-				}
-				
-				// if we cannot prune, then we should check backwardPruning(newprefix, projectedDB, canprune, isgenerator)
-				// For patterns of size 1, we don't need to check the backward pruning,
-				// so we do nothing.
 
-				// The prefix is a generator
-				// We save it in the result.
-				if(isGenerator) {
-					savePattern(prefix); 
-				}
-				
-				// We make a recursive call to try to find larger sequential
-				// patterns starting with this prefix
-				if((performPruning == false || !canPrune) && maximumPatternLength >1){
-					featRecursion(prefix, projectedDatabase, 2); 
-				}else {
-					prefixPrunedCount++;
-				}
-				
-				// ================ END OF SPECIFIC TO FEAT ================	
-			}
-		}		
+		// ================ SPECIFIC TO FEAT ================
+		
+		// build the projected database for that item
+		List<PseudoSequence> projectedDatabase
+		   = buildProjectedDatabaseForSingleItem(item, initialDatabase, sequenceIDs);
+		
+		boolean canPrune = false;
+		boolean isGenerator = true;
+		
+		if(initialDatabase.size() == sequenceIDs.size()) {
+			// check forward pruning
+			canPrune = checkforwardPruningFor1ItemSequence(item, projectedDatabase);
+			isGenerator = false;
+		}
+		
+		// if we cannot prune, then we should check backwardPruning(newprefix, projectedDB, canprune, isgenerator)
+		// For patterns of size 1, we don't need to check the backward pruning,
+		// so we do nothing.
+
+		// The prefix is a generator
+		// We save it in the result.
+		if(isGenerator) {
+			savePattern(prefix); 
+		}
+		
+		// We make a recursive call to try to find larger sequential
+		// patterns starting with this prefix
+		if((performPruning == false || !canPrune) && maximumPatternLength >1){
+			featRecursion(prefix, projectedDatabase, 2); 
+		}else {
+			increasePrefixPrunedCount();
+		}
+		
+		// ================ END OF SPECIFIC TO FEAT ================	
+	}
+	
+	/**
+	 * Increase the number of prefixes that were pruned.
+	 */
+	private synchronized void increasePrefixPrunedCount() {
+		prefixPrunedCount++;
 	}
 	
 	/**
@@ -337,8 +383,12 @@ public class AlgoFEAT{
 	 * @throws IOException exception if error while writing the output file.
 	 */
 	private void savePattern(SequentialPattern prefix) throws IOException {
-		// increase the number of pattern found for statistics purposes
-		generators.add(prefix);
+		// with several threads, the pattern is kept in the buffer of the thread
+		if(concurrentWriter != null){
+			concurrentWriter.add(prefix);
+		}else{
+			generators.add(prefix);
+		}
 	}
 	
 	/**
@@ -552,7 +602,7 @@ public class AlgoFEAT{
 				if((performPruning == false || !canPrune)  && k < maximumPatternLength){
 					featRecursion(newPrefix, projectedDatabase.newSequences, k+1);
 				}else {
-					prefixPrunedCount++;
+					increasePrefixPrunedCount();
 				}
 
 				// ================ END OF SPECIFIC TO FEAT ================
@@ -904,6 +954,16 @@ loop:	for(int j = 1; j < prefixTotalSize; j++) {
 		return newPrefix;
 	}
 
+	/**
+	 * Set the number of threads to be used for mining. With more than one thread, the
+	 * projected databases of the frequent items are mined in parallel and the patterns
+	 * are found in a different order.
+	 * @param threadCount the number of threads (default: 1)
+	 */
+	public void setThreadCount(int threadCount) {
+		this.threadCount = threadCount;
+	}
+	
 	/**
 	 * Print statistics about the algorithm execution to System.out.
 	 * @param size  the size of the database
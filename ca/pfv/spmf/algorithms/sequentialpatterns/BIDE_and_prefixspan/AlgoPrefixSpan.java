@@ -4,16 +4,15 @@ import java.io.BufferedWriter;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Set;
 
 import ca.pfv.spmf.input.sequence_database_list_integers.Sequence;
 import ca.pfv.spmf.input.sequence_database_list_integers.SequenceDatabase;
 import ca.pfv.spmf.patterns.itemset_list_integers_without_support.Itemset;
+import ca.pfv.spmf.tools.ConcurrentResultWriter;
 import ca.pfv.spmf.tools.MemoryLogger;
 
 
@@ -24,6 +23,11 @@ import ca.pfv.spmf.tools.MemoryLogger;
  * NOTE: This implementation saves the pattern  to a file as soon 
  * as they are found or can keep the pattern into memory, depending
  * on what the user choose.
+ * 
+ * Each sequence is converted to an array of integers where each itemset is followed
+ * by -1. A projected database is a list of pairs (sequence, position of the first item
+ * after the prefix) stored in arrays that are reused for each level of the recursion,
+ * and the support of items is counted in arrays indexed by item.
  *
  * Copyright (c) 2008-2012 Philippe Fournier-Viger
  * 
@@ -66,6 +70,28 @@ public class AlgoPrefixSpan{
 	// maximum pattern length in terms of item count
 	private int maximumPatternLength = Integer.MAX_VALUE;
 	
+	// the sequences of the database, where each itemset is followed by -1
+	// (the infrequent items are removed)
+	private int[][] sequences;
+	// the sequence ID of each sequence
+	private int[] sequenceIDs;
+	
+	// the number of items (the largest item + 1)
+	private int itemCount;
+	
+	// the initial projected database: the index of each sequence and the
+	// position of its first item
+	private int[] initialProjectedSequences;
+	private int[] initialProjectedPositions;
+	
+	// the number of threads used to mine the projected databases of the frequent
+	// items (1 means that the patterns are found by the calling thread)
+	private int threadCount = 1;
+	
+	// the object used to save the patterns found by several threads
+	// (used only with several threads)
+	private ConcurrentResultWriter<SequentialPattern> concurrentWriter = null;
+	
 	/**
 	 * Default constructor
 	 */
@@ -151,345 +177,461 @@ public class AlgoPrefixSpan{
 		}
 		
 		// We have to scan the database to find all frequent sequential patterns of size 1.
-		// We note the sequences in which the items appear.
-		Map<Integer, Set<Integer>> mapSequenceID = findSequencesContainingItems(database);
+		// We count the number of sequences containing each item.
+		final int[] supports = findSupportOfItems(database);
 		
-		// WE CONVERT THE DATABASE ITON A PSEUDO-DATABASE, AND REMOVE
+		// WE CONVERT THE DATABASE INTO ARRAYS OF INTEGERS, AND REMOVE
 		// THE ITEMS OF SIZE 1 THAT ARE NOT FREQUENT, SO THAT THE ALGORITHM 
 		// WILL NOT CONSIDER THEM ANYMORE. 
+		convertDatabase(database, supports);
+		itemCount = supports.length;
 		
-		// Create a list of pseudosequence
-		List<PseudoSequence> initialDatabase = new ArrayList<PseudoSequence>();
-		// for each sequence in  the database
-		for(Sequence sequence : database.getSequences()){
-			// remove infrequent items
-			Sequence optimizedSequence = sequence.cloneSequenceMinusItems(mapSequenceID, minsuppAbsolute);
-			if(optimizedSequence.size() != 0){
-				// if the size is > 0, create a pseudo sequence with this sequence
-				initialDatabase.add(new PseudoSequence(optimizedSequence, 0, 0));
-			}
+		// The initial projected database contains each sequence from its first item
+		initialProjectedSequences = new int[sequences.length];
+		initialProjectedPositions = new int[sequences.length];
+		for(int i = 0; i < sequences.length; i++){
+			initialProjectedSequences[i] = i;
 		}
-				
-		// For each item
-		for(Entry<Integer, Set<Integer>> entry : mapSequenceID.entrySet()){
-			// if the item is frequent  (has a support >= minsup)
-			if(entry.getValue().size() >= minsuppAbsolute){ 
-				Integer item = entry.getKey();
-				
-				// Create the prefix for this projected database
-				SequentialPattern prefix = new SequentialPattern();  
-				prefix.addItemset(new Itemset(item));
-				prefix.setSequenceIDs(entry.getValue());
-
-				// The prefix is a frequent sequential pattern.
-				// We save it in the result.
-				savePattern(prefix);  
-
-				// build the projected database for that item
-				List<PseudoSequence> projectedContext
-				   = buildProjectedDatabaseForSingleItem(item, initialDatabase, entry.getValue());
 		
-				// We make a recursive call to try to find larger sequential
-				// patterns starting with this prefix
-				if(maximumPatternLength >1){
-					recursion(prefix, projectedContext, 2); 
-				}
+		// if there is a single thread, we grow the empty prefix to find the frequent
+		// items, and then make recursive calls to find larger sequential patterns
+		if(threadCount <= 1){
+			new ProjectionMiner().recursion(0, sequences.length);
+			return;
+		}
+		
+		// Otherwise, the projected databases of the frequent items are mined in parallel
+		final int[] frequentItems = new int[supports.length];
+		int frequentItemCount = 0;
+		for(int item = 0; item < supports.length; item++){
+			if(supports[item] >= minsuppAbsolute){
+				frequentItems[frequentItemCount++] = item;
 			}
-		}		
-	}
-	
-	/**
-	 * This method saves a sequential pattern to the output file or
-	 * in memory, depending on if the user provided an output file path or not
-	 * when he launched the algorithm
-	 * @param prefix the pattern to be saved.
-	 * @throws IOException exception if error while writing the output file.
-	 */
-	private void savePattern(SequentialPattern prefix) throws IOException {
-		// increase the number of pattern found for statistics purposes
-		patternCount++; 
-	
-		// if the result should be saved to a file
-		if(writer != null){
-			// create a stringbuffer
-			StringBuffer r = new StringBuffer("");
-			// for each itemset in this sequential pattern
-			for(Itemset itemset : prefix.getItemsets()){
-				// for each item
-				for(Integer item : itemset.getItems()){
-					r.append(item.toString()); // add the item
-					r.append(' ');
-				}
-				r.append("-1 "); // add the itemset separator
-			}		
-			// add the support
-			r.append("#SUP: ");
-			r.append(prefix.getAbsoluteSupport());
-			
-			// write the string to the file
-			writer.write(r.toString());
-			// start a new line
-			writer.newLine();
 		}
-		// otherwise the result is kept into memory
-		else{
-			patterns.addSequence(prefix, prefix.size());
+		concurrentWriter = new ConcurrentResultWriter<SequentialPattern>(writer);
+		// each thread has its own structures for building the projected databases
+		final ThreadLocal<ProjectionMiner> threadMiner = new ThreadLocal<ProjectionMiner>(){
+			protected ProjectionMiner initialValue() {
+				return new ProjectionMiner();
+			}
+		};
+		try{
+			ProjectionTask.run(new ProjectionTask.ItemMiner() {
+				public void mineItem(int index) throws IOException {
+					int item = frequentItems[index];
+					threadMiner.get().extendPrefix(0, sequences.length, item, false, supports[item]);
+				}
+			}, frequentItemCount, threadCount);
+		}finally{
+			List<SequentialPattern> found = new ArrayList<SequentialPattern>();
+			patternCount += concurrentWriter.finish(found);
+			if(patterns != null){
+				patterns.addAll(found);
+			}
+			concurrentWriter = null;
 		}
-
 	}
 	
 	/**
-	 * For each item, calculate the sequence id of sequences containing that item
+	 * For each item, calculate the number of sequences containing that item
 	 * @param database the current sequence database
-	 * @return Map of items to sequence IDs that contains each item
+	 * @return an array indicating the support of each item
 	 */
-	private Map<Integer, Set<Integer>> findSequencesContainingItems(SequenceDatabase database) {
-		// We use a map to store the sequence IDs where an item appear
-		// Key : item   Value :  a set of sequence IDs
-		Map<Integer, Set<Integer>> mapSequenceID = new HashMap<Integer, Set<Integer>>(); 
+	private int[] findSupportOfItems(SequenceDatabase database) {
+		// find the largest item
+		int maxItem = 0;
+		for(Sequence sequence : database.getSequences()){
+			for(List<Integer> itemset : sequence.getItemsets()){
+				for(Integer item : itemset){
+					if(item > maxItem){
+						maxItem = item;
+					}
+				}
+			}
+		}
+		// the support of each item and the last sequence where each item was seen
+		int[] supports = new int[maxItem + 1];
+		int[] lastSequence = new int[maxItem + 1];
+		Arrays.fill(lastSequence, -1);
+		int sequenceIndex = 0;
 		// for each sequence in the current database
 		for(Sequence sequence : database.getSequences()){
 			// for each itemset in this sequence
 			for(List<Integer> itemset : sequence.getItemsets()){
 				// for each item
 				for(Integer item : itemset){
-					// get the set of sequence IDs for this item until now
-					Set<Integer> sequenceIDs = mapSequenceID.get(item);
-					if(sequenceIDs == null){
-						// if the set does not exist, create one
-						sequenceIDs = new HashSet<Integer>();
-						mapSequenceID.put(item, sequenceIDs);
+					// if the item was not seen yet in this sequence, increase its support
+					if(lastSequence[item] != sequenceIndex){
+						lastSequence[item] = sequenceIndex;
+						supports[item]++;
 					}
-					// add the sequence ID of the current sequence to the 
-					// set of sequences IDs of this item
-					sequenceIDs.add(sequence.getId());
 				}
 			}
+			sequenceIndex++;
 		}
-		return mapSequenceID;
+		return supports;
 	}
 	
 	/**
-	 * Create a projected database by pseudo-projection with the initial database and a given item.
-	 * @param item The item to use to make the pseudo-projection
-	 * @param initialDatabase The current database.
-	 * @param sidSet  The set of sequence ids containing the item
-	 * @return the projected database.
+	 * Convert the sequences of the database to arrays of integers where each itemset 
+	 * is followed by -1. The infrequent items are removed, as well as the itemsets
+	 * and sequences that become empty.
+	 * @param database the sequence database
+	 * @param supports the support of each item
 	 */
-	private List<PseudoSequence> buildProjectedDatabaseForSingleItem(Integer item, List<PseudoSequence> initialDatabase,Set<Integer> sidSet) {
-		// We create a new projected database
-		List<PseudoSequence> sequenceDatabase = new ArrayList<PseudoSequence>();
-
-		// for each sequence in the database received as parameter
-loopSeq:for(PseudoSequence sequence : initialDatabase){ 
-
-			// if this sequence do not contain the current prefix, then skip it.
-			if(!sidSet.contains(sequence.getId())){
-				continue;
-			}
-			
-			// for each itemset of the sequence
-			for(int i = 0; i< sequence.size(); i++){
-
-				// check if the itemset contains the item that is used for the projection
-				int index = sequence.indexOfBis(i, item);
-				// if it does not, and the current item is part of a suffix if inSuffix is true
-				//   and vice-versa
-				if(index == -1 ){
-					continue;
+	private void convertDatabase(SequenceDatabase database, int[] supports) {
+		List<int[]> convertedSequences = new ArrayList<int[]>();
+		sequenceIDs = new int[database.size()];
+		int[] buffer = new int[64];
+		// for each sequence in  the database
+		for(Sequence sequence : database.getSequences()){
+			int length = 0;
+			for(List<Integer> itemset : sequence.getItemsets()){
+				// make sure that the buffer can contain the itemset and the separator
+				if(length + itemset.size() + 1 > buffer.length){
+					buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + itemset.size() + 1));
 				}
-				
-				// if the item is the last item of this itemset
-				if(index == sequence.getSizeOfItemsetAt(i)-1){ 
-					// if it is not the last itemset
-					if ((i != sequence.size()-1)){
-						// create new pseudo sequence
-						// add it to the projected database.
-						sequenceDatabase.add(new PseudoSequence( sequence, i+1, 0));
+				int itemsetStart = length;
+				// copy the frequent items
+				for(Integer item : itemset){
+					if(supports[item] >= minsuppAbsolute){
+						buffer[length++] = item;
 					}
-				}else{
-					// create a new pseudo sequence and
-					// add it to the projected database.
-					sequenceDatabase.add(new PseudoSequence(sequence, i, index+1));
 				}
-
+				// if the itemset is not empty, add the separator
+				if(length != itemsetStart){
+					buffer[length++] = -1;
+				}
+			}
+			if(length != 0){
+				sequenceIDs[convertedSequences.size()] = sequence.getId();
+				convertedSequences.add(Arrays.copyOf(buffer, length));
 			}
 		}
-//
-//		for(PseudoSequence seq : sequenceDatabase){
-//			System.out.println(seq);
-//			System.out.println("original seq: " + seq.sequence);
-//		}
-//		
-		return sequenceDatabase; // return the projected database
+		sequences = convertedSequences.toArray(new int[convertedSequences.size()][]);
 	}
 
 	/**
-	 * Create a projected database by pseudo-projection
-	 * @param item The item to use to make the pseudo-projection
-	 * @param database The current sequence database.
-	 * @param inPostFix This boolean indicates if the item "item" is part of a suffix or not.
-	 * @param sidset the set of sequence IDs of sequence containing this item
-	 * @return the projected database.
+	 * Check if the itemset at a given position of a projected sequence is cut, that is if the
+	 * items before this position in the itemset are matched by the last itemset of the prefix.
+	 * @param sequence a sequence
+	 * @param position the position of the first item of the projected sequence
+	 * @return true if the itemset is cut
 	 */
-	private List<PseudoSequence> buildProjectedDatabase(Integer item, List<PseudoSequence> database, Set<Integer> sidset, boolean inPostFix) {
-		// We create a new projected database
-		List<PseudoSequence> sequenceDatabase = new ArrayList<PseudoSequence>();
+	private static boolean isPostfix(int[] sequence, int position) {
+		return position > 0 && sequence[position - 1] != -1;
+	}
 
-		// for each sequence in the database received as parameter
-		for(PseudoSequence sequence : database){ 
-			
-			if(sidset.contains(sequence.getId()) == false){
-				continue;
-			}
-			
-			// for each itemset of the sequence
-			for(int i = 0; i< sequence.size(); i++){
-	
-				if (sequence.isPostfix(i) != inPostFix){
-					// if the item is not in a postfix, but this itemset
-					// is a postfix, then we can continue scanning from the next itemset
-					continue;
+	/**
+	 * The structures used by a thread to build the projected databases and grow the prefix.
+	 */
+	private class ProjectionMiner {
+		
+		// the support of each item when appended to the last itemset of the prefix (i-step) 
+		// or as a new itemset (s-step), in the projected database that is scanned
+		private final int[] supportsIStep = new int[itemCount];
+		private final int[] supportsSStep = new int[itemCount];
+		// the last sequence where each item was counted, to count each sequence once
+		private final int[] lastSequenceIStep = new int[itemCount];
+		private final int[] lastSequenceSStep = new int[itemCount];
+		// the items that were counted in the projected database that is scanned
+		private final int[] countedItems = new int[itemCount];
+		
+		// the projected database of each level of the recursion: the index of 
+		// each projected sequence and the position of its first item
+		private int[][] projectedSequences = new int[16][];
+		private int[][] projectedPositions = new int[16][];
+		
+		// the current prefix, where each itemset is followed by -1
+		private int[] prefix = new int[32];
+		private int prefixLength = 0;
+		
+		/**
+		 * Constructor
+		 */
+		ProjectionMiner() {
+			Arrays.fill(lastSequenceIStep, -1);
+			Arrays.fill(lastSequenceSStep, -1);
+			projectedSequences[0] = initialProjectedSequences;
+			projectedPositions[0] = initialProjectedPositions;
+		}
+		
+		/**
+		 * This method saves a sequential pattern (the current prefix) to the output file or
+		 * in memory, depending on if the user provided an output file path or not
+		 * when he launched the algorithm
+		 * @param support the support of the prefix
+		 * @param sequenceIDsOfPrefix the IDs of the sequences containing the prefix
+		 *        (only if the result is kept into memory)
+		 * @throws IOException exception if error while writing the output file.
+		 */
+		private void savePattern(int support, Set<Integer> sequenceIDsOfPrefix) throws IOException {
+			// if the result should be saved to a file
+			if(writer != null){
+				// create a stringbuffer
+				StringBuffer r = new StringBuffer("");
+				// for each item or itemset separator in the prefix
+				for(int i = 0; i < prefixLength; i++){
+					if(prefix[i] == -1){
+						r.append("-1 "); // add the itemset separator
+					}else{
+						r.append(prefix[i]); // add the item
+						r.append(' ');
+					}
 				}
-
-				// check if the itemset contains the item that we use for the projection
-				int index = sequence.indexOfBis(i, item);
-				
-				// if it does not, move to next itemset
-				if(index == -1 ){
-					continue;
+				// add the support
+				r.append("#SUP: ");
+				r.append(support);
+			
+				// with several threads, the line is written by the buffer of the thread
+				if(concurrentWriter != null){
+					concurrentWriter.writeLine(r.toString());
+				}else{
+					// increase the number of pattern found for statistics purposes
+					patternCount++; 
+					// write the string to the file
+					writer.write(r.toString());
+					// start a new line
+					writer.newLine();
 				}
-				
-				// if the item is the last item of this itemset
-				if(index == sequence.getSizeOfItemsetAt(i)-1){ 
-					// if it is not the last itemset
-					if ((i != sequence.size()-1)){
-						// create new pseudo sequence
-						// add it to the projected database.
-						sequenceDatabase.add(new PseudoSequence( sequence, i+1, 0));
-						//System.out.println(sequence.getId() + "--> "+ newSequence.toString());
-//						break itemsetLoop;
+			}
+			// otherwise the result is kept into memory
+			else{
+				SequentialPattern pattern = new SequentialPattern();
+				Itemset itemset = new Itemset();
+				for(int i = 0; i < prefixLength; i++){
+					if(prefix[i] == -1){
+						pattern.addItemset(itemset);
+						itemset = new Itemset();
+					}else{
+						itemset.addItem(prefix[i]);
 					}
+				}
+				pattern.setSequenceIDs(sequenceIDsOfPrefix);
+				if(concurrentWriter != null){
+					concurrentWriter.add(pattern);
 				}else{
-					// create a new pseudo sequence and
-					// add it to the projected database.
-					sequenceDatabase.add(new PseudoSequence(sequence, i, index+1));
-					//System.out.println(sequence.getId() + "--> "+ newSequence.toString());
-//					break itemsetLoop;
+					patternCount++; 
+					patterns.addSequence(pattern, pattern.size());
 				}
 			}
 		}
-		return sequenceDatabase; // return the projected database
-	}
-	
-	/**
-	 * Method to recursively grow a given sequential pattern.
-	 * @param prefix  the current sequential pattern that we want to try to grow
-	 * @param database the current projected sequence database
-	 * @param k  the prefix length in terms of items
-	 * @throws IOException exception if there is an error writing to the output file
-	 */
-	private void recursion(SequentialPattern prefix, List<PseudoSequence> database, int k) throws IOException {	
-		// find frequent items of size 1 in the current projected database.
-		Set<Pair> pairs = findAllFrequentPairs(database);
 	
-		// For each pair found (a pair is an item with a boolean indicating if it
-		// appears in an itemset that is cut (a postfix) or not, and the sequence IDs
-		// where it appears in the projected database).
-		for(Pair pair : pairs){
-			// if the item is frequent in the current projected database
-			if(pair.getCount() >= minsuppAbsolute){
-				// create the new postfix by appending this item to the prefix
-				SequentialPattern newPrefix;
-				// if the item is part of a postfix
-				if(pair.isPostfix()){ 
-					// we append it to the last itemset of the prefix
-					newPrefix = appendItemToPrefixOfSequence(prefix, pair.getItem()); 
-				}else{ // else, we append it as a new itemset to the sequence
-					newPrefix = appendItemToSequence(prefix, pair.getItem());
+		/**
+		 * Method to recursively grow the current prefix.
+		 * @param depth the level of the projected database of the prefix (the prefix length in terms of items)
+		 * @param projectionCount the number of projected sequences in the projected database
+		 * @throws IOException exception if there is an error writing to the output file
+		 */
+		private void recursion(int depth, int projectionCount) throws IOException {	
+			int[] sequenceIndexes = projectedSequences[depth];
+			int[] positions = projectedPositions[depth];
+		
+			// find frequent items of size 1 in the current projected database.
+			// The projected sequences of a same sequence are consecutive and sorted by position.
+			int countedItemCount = 0;
+			int previousSequence = -1;
+			for(int j = 0; j < projectionCount; j++){
+				int sequenceIndex = sequenceIndexes[j];
+				int[] sequence = sequences[sequenceIndex];
+				int position = positions[j];
+				// the items of the itemset that is cut can be appended to the last itemset of the prefix
+				if(isPostfix(sequence, position)){
+					for(; sequence[position] != -1; position++){
+						int item = sequence[position];
+						if(lastSequenceIStep[item] != sequenceIndex){
+							lastSequenceIStep[item] = sequenceIndex;
+							if(supportsIStep[item]++ == 0 && supportsSStep[item] == 0){
+								countedItems[countedItemCount++] = item;
+							}
+						}
+					}
+					position++;
 				}
-				newPrefix.setSequenceIDs(pair.getSequenceIDs()); 
-
-				// build the projected database with this item
-				List<PseudoSequence> projectedDatabase = buildProjectedDatabase(pair.getItem(), database, pair.getSequenceIDs(), pair.isPostfix());
-
-				// save the pattern
-				savePattern(newPrefix);
-				// make a recursive call
-				if( k < maximumPatternLength){
-					recursion(newPrefix, projectedDatabase, k+1);
+				// the other items can be appended as a new itemset. The first projected sequence
+				// of a sequence contains the items of the others, so only this one is scanned.
+				if(sequenceIndex != previousSequence){
+					for(; position < sequence.length; position++){
+						int item = sequence[position];
+						if(item != -1 && lastSequenceSStep[item] != sequenceIndex){
+							lastSequenceSStep[item] = sequenceIndex;
+							if(supportsSStep[item]++ == 0 && supportsIStep[item] == 0){
+								countedItems[countedItemCount++] = item;
+							}
+						}
+					}
 				}
+				previousSequence = sequenceIndex;
 			}
+		
+			// keep the frequent items and reset the counters for the next projected database
+			Arrays.sort(countedItems, 0, countedItemCount);
+			int[] frequentItems = new int[countedItemCount * 2];
+			int[] frequentSupports = new int[countedItemCount * 2];
+			boolean[] frequentInPostfix = new boolean[countedItemCount * 2];
+			int frequentCount = 0;
+			for(int i = 0; i < countedItemCount; i++){
+				int item = countedItems[i];
+				if(supportsIStep[item] >= minsuppAbsolute){
+					frequentItems[frequentCount] = item;
+					frequentSupports[frequentCount] = supportsIStep[item];
+					frequentInPostfix[frequentCount++] = true;
+				}
+				if(supportsSStep[item] >= minsuppAbsolute){
+					frequentItems[frequentCount] = item;
+					frequentSupports[frequentCount] = supportsSStep[item];
+					frequentInPostfix[frequentCount++] = false;
+				}
+				supportsIStep[item] = 0;
+				supportsSStep[item] = 0;
+				lastSequenceIStep[item] = -1;
+				lastSequenceSStep[item] = -1;
+			}
+		
+			// For each frequent item (with a boolean indicating if it is appended to the last
+			// itemset of the prefix or as a new itemset)
+			for(int i = 0; i < frequentCount; i++){
+				extendPrefix(depth, projectionCount, frequentItems[i], frequentInPostfix[i], frequentSupports[i]);
+			}
+			// check the current memory usage
+			MemoryLogger.getInstance().checkMemory();
 		}
-		// check the current memory usage
-		MemoryLogger.getInstance().checkMemory();
-	}
 	
-	/**
-	 * Method to find all frequent items in a projected sequence database
-	 * @param sequences  the set of sequences
-	 * @return A list of pairs, where a pair is an item with (1) a boolean indicating if it
-	 *         is in an itemset that is "cut" and (2) the sequence IDs where it occurs.
-	 */
-	protected Set<Pair> findAllFrequentPairs(List<PseudoSequence> sequences){
-		// We use a Map the store the pairs.
-		Map<Pair, Pair> mapPairs = new HashMap<Pair, Pair>();
-		// for each sequence
-		for(PseudoSequence sequence : sequences){
-			// for each itemset
-			for(int i=0; i< sequence.size(); i++){
-				// for each item
-				for(int j=0; j < sequence.getSizeOfItemsetAt(i); j++){
-					Integer item = sequence.getItemAtInItemsetAt(j, i);
-					// create the pair corresponding to this item
-					Pair pair = new Pair(sequence.isPostfix(i), item);   
-					// get the pair object store in the map if there is one already
-					Pair oldPair = mapPairs.get(pair);
-					// if there is no pair object yet
-					if(oldPair == null){
-						// store the pair object that we created
-						mapPairs.put(pair, pair);
-					}else{
-						// otherwise use the old one
-						pair = oldPair;
+		/**
+		 * Append an item to the prefix, save the new prefix and recursively grow it.
+		 * @param depth the level of the projected database of the prefix
+		 * @param projectionCount the number of projected sequences in the projected database
+		 * @param item the item
+		 * @param inPostfix true if the item is appended to the last itemset of the prefix,
+		 *        false if it is appended as a new itemset
+		 * @param support the support of the new prefix
+		 * @throws IOException exception if there is an error writing to the output file
+		 */
+		void extendPrefix(int depth, int projectionCount, int item, boolean inPostfix, int support) throws IOException {
+			// create the new prefix by appending this item to the prefix
+			int previousLength = prefixLength;
+			if(prefixLength + 2 > prefix.length){
+				prefix = Arrays.copyOf(prefix, prefix.length * 2);
+			}
+			if(inPostfix){
+				// we append it to the last itemset of the prefix
+				prefix[prefixLength - 1] = item;
+				prefix[prefixLength++] = -1;
+			}else{
+				// else, we append it as a new itemset to the sequence
+				prefix[prefixLength++] = item;
+				prefix[prefixLength++] = -1;
+			}
+		
+			// build the projected database with this item
+			Set<Integer> sequenceIDsOfPrefix = (patterns != null) ? new HashSet<Integer>() : null;
+			int newProjectionCount = buildProjectedDatabase(depth, projectionCount, item, inPostfix, sequenceIDsOfPrefix);
+		
+			// save the pattern
+			savePattern(support, sequenceIDsOfPrefix);
+			// make a recursive call
+			if(depth + 1 < maximumPatternLength && newProjectionCount > 0){
+				recursion(depth + 1, newProjectionCount);
+			}
+		
+			// restore the prefix
+			prefixLength = previousLength;
+			if(inPostfix){
+				prefix[prefixLength - 1] = -1;
+			}
+		}
+	
+		/**
+		 * Create a projected database by pseudo-projection. The projected database is stored in the
+		 * buffers of the next level.
+		 * @param depth the level of the current projected database
+		 * @param projectionCount the number of projected sequences in the current projected database
+		 * @param item The item to use to make the pseudo-projection
+		 * @param inPostFix This boolean indicates if the item "item" is part of a suffix or not.
+		 * @param sequenceIDsOfItem a set to store the IDs of the sequences containing the item or null
+		 * @return the number of projected sequences in the new projected database
+		 */
+		private int buildProjectedDatabase(int depth, int projectionCount, int item, boolean inPostFix, Set<Integer> sequenceIDsOfItem) {
+			int[] sequenceIndexes = projectedSequences[depth];
+			int[] positions = projectedPositions[depth];
+			// get the buffers of the next level
+			if(depth + 1 == projectedSequences.length){
+				projectedSequences = Arrays.copyOf(projectedSequences, projectedSequences.length * 2);
+				projectedPositions = Arrays.copyOf(projectedPositions, projectedPositions.length * 2);
+			}
+			int[] newSequenceIndexes = projectedSequences[depth + 1];
+			int[] newPositions = projectedPositions[depth + 1];
+			if(newSequenceIndexes == null){
+				newSequenceIndexes = new int[Math.max(16, projectionCount)];
+				newPositions = new int[newSequenceIndexes.length];
+			}
+		
+			int newProjectionCount = 0;
+			int previousSequence = -1;
+			// for each projected sequence
+			for(int j = 0; j < projectionCount; j++){
+				int sequenceIndex = sequenceIndexes[j];
+				int[] sequence = sequences[sequenceIndex];
+				int position = positions[j];
+				boolean postfix = isPostfix(sequence, position);
+			
+				int end;
+				if(inPostFix){
+					// the item must be in the itemset that is cut
+					if(!postfix){
+						continue;
+					}
+					end = position;
+					while(sequence[end] != -1){
+						end++;
+					}
+				}else{
+					// the item must be after the itemset that is cut. The first projected
+					// sequence of a sequence contains the items of the others.
+					if(sequenceIndex == previousSequence){
+						continue;
+					}
+					previousSequence = sequenceIndex;
+					if(postfix){
+						while(sequence[position] != -1){
+							position++;
+						}
+					}
+					end = sequence.length;
+				}
+			
+				// for each occurrence of the item
+				for(; position < end; position++){
+					if(sequence[position] != item){
+						continue;
+					}
+					if(sequenceIDsOfItem != null){
+						sequenceIDsOfItem.add(sequenceIDs[sequenceIndex]);
+					}
+					// the projected sequence starts after the item (at the next itemset
+					// if the item is the last item of its itemset)
+					int newPosition = position + 1;
+					if(sequence[newPosition] == -1){
+						newPosition++;
+					}
+					// if it is not the end of the sequence and this projected sequence
+					// was not already created from a previous occurrence
+					if(newPosition < sequence.length && (newProjectionCount == 0 
+							|| newSequenceIndexes[newProjectionCount - 1] != sequenceIndex 
+							|| newPositions[newProjectionCount - 1] < newPosition)){
+						if(newProjectionCount == newSequenceIndexes.length){
+							newSequenceIndexes = Arrays.copyOf(newSequenceIndexes, newProjectionCount * 2);
+							newPositions = Arrays.copyOf(newPositions, newProjectionCount * 2);
+						}
+						newSequenceIndexes[newProjectionCount] = sequenceIndex;
+						newPositions[newProjectionCount++] = newPosition;
 					}
-					// record the current sequence id for that pair
-					pair.getSequenceIDs().add(sequence.getId());
 				}
 			}
+			projectedSequences[depth + 1] = newSequenceIndexes;
+			projectedPositions[depth + 1] = newPositions;
+			return newProjectionCount;
 		}
-		MemoryLogger.getInstance().checkMemory();  // check the memory for statistics.
-		// return the map of pairs
-		return mapPairs.keySet();
-	}
-
-	/**
-	 *  This method creates a copy of the sequence and add a given item 
-	 *  as a new itemset to the sequence. 
-	 *  It sets the support of the sequence as the support of the item.
-	 * @param prefix  the sequence
-	 * @param item the item
-	 * @return the new sequence
-	 */
-	private SequentialPattern appendItemToSequence(SequentialPattern prefix, Integer item) {
-		SequentialPattern newPrefix = prefix.cloneSequence();  // isSuffix
-		newPrefix.addItemset(new Itemset(item));  // cr�� un nouvel itemset   + decalage
-		return newPrefix;
-	}
-	
-	/**
-	 *  This method creates a copy of the sequence and add a given item 
-	 *  to the last itemset of the sequence. 
-	 *  It sets the support of the sequence as the support of the item.
-	 * @param prefix  the sequence
-	 * @param item the item
-	 * @return the new sequence
-	 */
-	private SequentialPattern appendItemToPrefixOfSequence(SequentialPattern prefix, Integer item) {
-		SequentialPattern newPrefix = prefix.cloneSequence();
-		Itemset itemset = newPrefix.get(newPrefix.size()-1);  // ajoute au dernier itemset
-		itemset.addItem(item);  
-		return newPrefix;
 	}
 
 	/**
@@ -531,4 +673,14 @@ loopSeq:for(PseudoSequence sequence : initialDatabase){
 		this.maximumPatternLength = maximumPatternLength;
 	}
 
+	/**
+	 * Set the number of threads to be used for mining. With more than one thread, the
+	 * projected databases of the frequent items are mined in parallel and the patterns
+	 * are found in a different order.
+	 * @param threadCount the number of threads (default: 1)
+	 */
+	public void setThreadCount(int threadCount) {
+		this.threadCount = threadCount;
+	}
+
 }
@@ -0,0 +1,113 @@
+package ca.pfv.spmf.algorithms.sequentialpatterns.BIDE_and_prefixspan;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A task that mines the projected databases of a range of frequent items of size 1,
+ * used by the algorithms of this package to mine with several threads. The projected
+ * databases of different items are independent. A range of several items is split
+ * in two tasks, so that idle threads can steal the work of the busy threads.
+ *
+ * Copyright (c) 2008-2013 Philippe Fournier-Viger
+ * 
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ *
+ * SPMF is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * SPMF is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with SPMF.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * @see ca.pfv.spmf.tools.ConcurrentResultWriter
+ */
+class ProjectionTask extends RecursiveAction {
+	private static final long serialVersionUID = 1L;
+	
+	/**
+	 * The method that mines the projected database of an item.
+	 */
+	interface ItemMiner {
+		/**
+		 * Mine the projected database of an item.
+		 * @param index the position of the item in the list of frequent items
+		 * @throws IOException exception if error while writing the output file
+		 */
+		void mineItem(int index) throws IOException;
+	}
+	
+	// the method to mine the projected database of an item
+	private final ItemMiner miner;
+	// the range of positions of the items [start, end[
+	private final int start;
+	private final int end;
+	
+	/**
+	 * Constructor
+	 * @param miner the method to mine the projected database of an item
+	 * @param start the position of the first item
+	 * @param end the position after the last item
+	 */
+	private ProjectionTask(ItemMiner miner, int start, int end) {
+		this.miner = miner;
+		this.start = start;
+		this.end = end;
+	}
+	
+	@Override
+	protected void compute() {
+		// if there is more than one item, we split the range in two tasks
+		if(end - start > 1){
+			int middle = (start + end) >>> 1;
+			invokeAll(new ProjectionTask(miner, start, middle), new ProjectionTask(miner, middle, end));
+			return;
+		}
+		try{
+			miner.mineItem(start);
+		}catch(IOException e){
+			throw new UncheckedIOException(e);
+		}
+	}
+	
+	/**
+	 * Mine the projected databases of some items with a pool of threads and wait
+	 * until it is finished.
+	 * @param miner the method to mine the projected database of an item
+	 * @param itemCount the number of items
+	 * @param threadCount the number of threads
+	 * @throws IOException exception if error while writing the output file
+	 */
+	static void run(ItemMiner miner, int itemCount, int threadCount) throws IOException {
+		if(itemCount == 0){
+			return;
+		}
+		ForkJoinPool pool = new ForkJoinPool(threadCount);
+		try{
+			pool.invoke(new ProjectionTask(miner, 0, itemCount));
+		}catch(RuntimeException e){
+			// an exception while writing the result is wrapped by the task, and the pool
+			// may wrap it again when it is thrown in this thread
+			for(Throwable cause = e; cause != null; cause = cause.getCause()){
+				if(cause instanceof UncheckedIOException){
+					throw ((UncheckedIOException) cause).getCause();
+				}
+				if(cause instanceof IOException){
+					throw (IOException) cause;
+				}
+			}
+			throw e;
+		}finally{
+			pool.shutdown();
+		}
+	}
+}
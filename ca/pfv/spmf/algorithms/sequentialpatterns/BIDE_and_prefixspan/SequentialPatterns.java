@@ -105,6 +105,16 @@ public class SequentialPatterns {
 		sequenceCount++;
 	}
 	
+	/**
+	 * Add some sequential patterns to this set of sequential patterns.
+	 * @param patterns the sequential patterns
+	 */
+	public void addAll(List<SequentialPattern> patterns){
+		for(SequentialPattern pattern : patterns){
+			addSequence(pattern, pattern.size());
+		}
+	}
+	
 	/**
 	 * Get all the sequential patterns of a given size.
 	 * @param index the size in terms of items.
@@ -3,14 +3,7 @@ package ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Set;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.concurrent.TimeUnit;
 
 import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.candidatePatternsGeneration.CandidateGenerator;
 import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.dataStructures.creators.AbstractionCreator;
@@ -86,6 +79,16 @@ public class AlgoSPADE {
      * Number of frequent patterns found by the algorithm
      */
     private int numberOfFrequentPatterns;
+    /**
+     * Number of threads used by the parallel version of the algorithm (0 for
+     * the number of available processors)
+     */
+    private int threadCount = 0;
+    /**
+     * Statistics of the threads used by the last parallel execution (null if
+     * the last execution was not parallel)
+     */
+    private List<FrequentPatternEnumeration.WorkerStatistics> workerStatistics = null;
 
     /**
      * Constructor of the class that calls SPADE algorithm.
@@ -183,7 +186,7 @@ public class AlgoSPADE {
         start = System.currentTimeMillis();
         
         //We run SPADE algorithm
-        runSPADEFromSize2PatternsParallelized2(database, candidateGenerator, (long) minSupRelative,  dfs, keepPatterns, verbose);
+        runSPADE(database, candidateGenerator, (long) minSupRelative, dfs, keepPatterns, verbose, true);
 
         //keeping the ending time
         end = System.currentTimeMillis();
@@ -206,6 +209,26 @@ public class AlgoSPADE {
      * @param verbose Flag for debugging purposes
      */
     protected void runSPADE(SequenceDatabase database, CandidateGenerator candidateGenerator, long minSupportCount, boolean dfs, boolean keepPatterns, boolean verbose) {
+        runSPADE(database, candidateGenerator, minSupportCount, dfs, keepPatterns, verbose, false);
+    }
+
+    /**
+     *
+     * The actual method for extracting frequent sequences.
+     *
+     * @param database The original database
+     * @param candidateGenerator The candidate generator used by the algorithm
+     * SPADE
+     * @param minSupportCount The minimum relative support
+     * @param dfs Flag for indicating if we want a depth first search. If false,
+     * we indicate that we want a breath-first search.
+     * @param keepPatterns flag indicating if we are interested in keeping the
+     * output of the algorithm
+     * @param verbose Flag for debugging purposes
+     * @param parallel Flag indicating if the search is done by several
+     * threads
+     */
+    private void runSPADE(SequenceDatabase database, CandidateGenerator candidateGenerator, long minSupportCount, boolean dfs, boolean keepPatterns, boolean verbose, boolean parallel) {
         //We get the equivalence classes formed by the frequent 1-patterns
         frequentItems = database.frequentItems();
         //We extract their patterns
@@ -237,7 +260,13 @@ public class AlgoSPADE {
         frequentPatternEnumeration.setFrequentPatterns(frequentItems.size());
 
         //We execute the search
-        frequentPatternEnumeration.execute(rootClass, dfs, keepPatterns, verbose, null,null);
+        if (parallel) {
+            frequentPatternEnumeration.executeParallel(rootClass, dfs, keepPatterns, verbose, null,null, threadCount > 0 ? threadCount : Runtime.getRuntime().availableProcessors());
+            workerStatistics = frequentPatternEnumeration.getWorkerStatistics();
+        } else {
+            frequentPatternEnumeration.execute(rootClass, dfs, keepPatterns, verbose, null,null);
+            workerStatistics = null;
+        }
 
         /* Once we had finished, we keep the number of frequent patterns that we 
          * finally found
@@ -334,11 +363,46 @@ public class AlgoSPADE {
         sb.append(" Max memory (mb):");
 	sb.append(MemoryLogger.getInstance().getMaxMemory());
         sb.append('\n');
+        if (workerStatistics != null) {
+            for (FrequentPatternEnumeration.WorkerStatistics statistics : workerStatistics) {
+                sb.append(" Thread ");
+                sb.append(statistics.getThreadName());
+                sb.append(" : ");
+                sb.append(statistics.getFrequentPatterns());
+                sb.append(" patterns, ");
+                sb.append(statistics.getJoins());
+                sb.append(" joins, busy ~ ");
+                sb.append(statistics.getBusyTime());
+                sb.append(" ms, waiting ~ ");
+                sb.append(statistics.getWaitingTime());
+                sb.append(" ms\n");
+            }
+        }
         sb.append(saver.print());
         sb.append("\n===================================================\n");
         return sb.toString();
     }
 
+    /**
+     * Set the number of threads used by the method runAlgorithmParallelized
+     * (by default, 0 for the number of available processors when the method is
+     * called). The method runAlgorithm always uses a single thread.
+     * @param threadCount the number of threads
+     */
+    public void setThreadCount(int threadCount) {
+        this.threadCount = threadCount;
+    }
+
+    /**
+     * It gets the statistics of the threads used by the last execution of
+     * runAlgorithmParallelized.
+     * @return the statistics of each thread or null if the last execution was
+     * not parallel
+     */
+    public List<FrequentPatternEnumeration.WorkerStatistics> getWorkerStatistics() {
+        return workerStatistics;
+    }
+
     public int getNumberOfFrequentPatterns() {
         return numberOfFrequentPatterns;
     }
@@ -374,10 +438,10 @@ public class AlgoSPADE {
 
     /**
      *
-     * The actual method for extracting frequent sequences. This method it starts
-     * with both the frequent 1-patterns and 2-patterns already found. Besides, it
-     * resolves each equivalence class formed by the 1-patterns independently.
-     * 
+     * The actual method for extracting frequent sequences with several
+     * threads. It is kept for the subclasses of previous versions and runs the
+     * same search as the method runAlgorithmParallelized.
+     *
      * @param database The original database
      * @param candidateGenerator The candidate generator used by the algorithm
      * SPADE
@@ -389,74 +453,15 @@ public class AlgoSPADE {
      * @param verbose Flag for debugging purposes
      */
     protected void runSPADEFromSize2PatternsParallelized(SequenceDatabase database, CandidateGenerator candidateGenerator, long minSupportCount, boolean dfs, boolean keepPatterns, boolean verbose) {
-
-        frequentItems = database.frequentItems();
-        Collection<Pattern> size1Patterns = getPatterns(frequentItems);
-        saver.savePatterns(size1Patterns);
-        List<EquivalenceClass> size2EquivalenceClass = database.getSize2FrecuentSequences(minSupRelative);
-        Collection<Pattern> size2Sequences = getPatterns(size2EquivalenceClass);
-        saver.savePatterns(size2Sequences);
-
-        size2EquivalenceClass = null;
-        database = null;
-
-        FrequentPatternEnumeration frequentPatternEnumeration = new FrequentPatternEnumeration(candidateGenerator, minSupRelative, saver);
-        frequentPatternEnumeration.setFrequentPatterns(size1Patterns.size() + size2Sequences.size());
-
-        size1Patterns = null;
-        size2Sequences = null;
-
-        Runtime runtime = Runtime.getRuntime();
-        int numberOfAvailableProcessors = runtime.availableProcessors();
-        ExecutorService pool = Executors.newFixedThreadPool(numberOfAvailableProcessors);
-        ArrayList<Future<Void>> set = new ArrayList<Future<Void>>();
-        while (frequentItems.size() > 0) {
-            EquivalenceClass frequentItem = frequentItems.get(frequentItems.size() - 1);
-
-            if (verbose) {
-                System.out.println("Exploring " + frequentItem);
-            }
-
-            Callable<Void> callable = new FrequentPatternEnumerationFacade(frequentPatternEnumeration, frequentItem, dfs, keepPatterns, verbose, saver);
-            Future<Void> future = pool.submit(callable);
-            set.add(future);
-            frequentItems.remove(frequentItems.size() - 1);
-            
-            // check the memory usage for statistics
-            MemoryLogger.getInstance().checkMemory();
-        }
-
-        try {
-            int cont = 1;
-            System.err.println("There are " + set.size() + " equivalence classes and " + numberOfAvailableProcessors + " available processors");
-            while (!set.isEmpty()) {
-                for (int i = 0; i < set.size(); i++) {
-                    Future<Void> future = set.get(i);
-                    if (future.isDone()) {
-                        System.err.println(cont++ + ":this thread is done.");
-                        set.remove(i);
-                        i--;
-                    }
-                }
-            }
-
-            numberOfFrequentPatterns = frequentPatternEnumeration.getFrequentPatterns();// check the memory usage for statistics
-            MemoryLogger.getInstance().checkMemory();
-
-            pool.shutdown();
-            pool.awaitTermination(1, TimeUnit.DAYS);
-        } catch (Exception e) {
-            System.err.println("Problems with the concurrency!!");
-            e.printStackTrace();
-        }
+        runSPADE(database, candidateGenerator, minSupportCount, dfs, keepPatterns, verbose, true);
     }
 
     /**
      *
-     * The actual method for extracting frequent sequences. This method it starts
-     * with both the frequent 1-patterns and 2-patterns already found. Besides, it
-     * resolves each equivalence class formed by the 1-patterns independently.
-     * 
+     * The actual method for extracting frequent sequences with several
+     * threads. It is kept for the subclasses of previous versions and runs the
+     * same search as the method runAlgorithmParallelized.
+     *
      * @param database The original database
      * @param candidateGenerator The candidate generator used by the algorithm
      * SPADE
@@ -468,52 +473,6 @@ public class AlgoSPADE {
      * @param verbose Flag for debugging purposes
      */
     protected void runSPADEFromSize2PatternsParallelized2(SequenceDatabase database, CandidateGenerator candidateGenerator, long minSupportCount, boolean dfs, boolean keepPatterns, boolean verbose) {
-        frequentItems = database.frequentItems();
-        Collection<Pattern> size1Sequences = getPatterns(frequentItems);
-        saver.savePatterns(size1Sequences);
-        List<EquivalenceClass> size2EquivalenceClasses = database.getSize2FrecuentSequences(minSupRelative);
-        Collection<Pattern> size2Sequences = getPatterns(size2EquivalenceClasses);
-        saver.savePatterns(size2Sequences);
-
-        numberOfFrequentPatterns = size1Sequences.size() + size2Sequences.size();
-        size2EquivalenceClasses = null;
-        database = null;
-
-        Runtime runtime = Runtime.getRuntime();
-        ExecutorService pool = Executors.newFixedThreadPool(runtime.availableProcessors());
-        Set<Future<Void>> set = new LinkedHashSet<Future<Void>>();
-
-        ArrayList<FrequentPatternEnumeration> enumerates = new ArrayList<FrequentPatternEnumeration>();
-
-        while (frequentItems.size() > 0) {
-            EquivalenceClass frequentAtom = frequentItems.get(frequentItems.size() - 1);
-
-            if (verbose) {
-                System.out.println("Exploring " + frequentAtom);
-            }
-            FrequentPatternEnumeration frequentPatternEnumeration = new FrequentPatternEnumeration(candidateGenerator, minSupRelative, saver);
-
-            enumerates.add(frequentPatternEnumeration);
-
-            Callable<Void> callable = new FrequentPatternEnumerationFacade(frequentPatternEnumeration, frequentAtom, dfs, keepPatterns, verbose, saver);
-            Future<Void> future = pool.submit(callable);
-            set.add(future);
-            frequentItems.remove(frequentItems.size() - 1);
-            
-            // check the memory usage for statistics
-            MemoryLogger.getInstance().checkMemory();
-        }
-
-        try {
-            pool.shutdown();
-            pool.awaitTermination(1, TimeUnit.DAYS);
-        } catch (Exception e) {
-            System.err.println("Problems with the concurrency!!");
-        }
-        FrequentPatternEnumeration fpe = new FrequentPatternEnumeration(candidateGenerator, minSup, saver);
-        numberOfFrequentPatterns += fpe.getFrequentPatterns();
-            
-        // check the memory usage for statistics
-        MemoryLogger.getInstance().checkMemory();
+        runSPADE(database, candidateGenerator, minSupportCount, dfs, keepPatterns, verbose, true);
     }
 }
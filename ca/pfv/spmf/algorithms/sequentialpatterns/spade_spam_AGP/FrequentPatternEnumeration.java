@@ -1,7 +1,10 @@
 package ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.candidatePatternsGeneration.CandidateGenerator;
 import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.dataStructures.patterns.Pattern;
@@ -53,13 +56,164 @@ public class FrequentPatternEnumeration {
      * Number of frequent patterns found by the algorithm. Initially set to
      * zero.
      */
-    private static int frequentPatterns = 0;
+    private int frequentPatterns = 0;
     public static int INTERSECTION_COUNTER = 0;
     /**
      * Saver variable to decide where the user want to save the results, if it
      * the case
      */
     private Saver saver = null;
+    /**
+     * Statistics of the current thread during a parallel execution (null
+     * otherwise)
+     */
+    private volatile ThreadLocal<WorkerStatistics> threadStatistics = null;
+    /**
+     * Statistics of the threads used by the last parallel execution
+     */
+    private List<WorkerStatistics> workerStatistics = null;
+
+    /**
+     * Statistics about the work done by a thread during a parallel execution.
+     */
+    public static class WorkerStatistics {
+
+        /**
+         * The name of the thread
+         */
+        private final String threadName;
+        /**
+         * Number of frequent patterns found by the thread
+         */
+        private int frequentPatterns = 0;
+        /**
+         * Number of joins done by the thread
+         */
+        private int joins = 0;
+        /**
+         * Time spent by the thread exploring equivalence classes (ns)
+         */
+        private long busyTime = 0;
+        /**
+         * Time during which the thread was waiting for work (ns)
+         */
+        private long waitingTime = 0;
+
+        WorkerStatistics(String threadName) {
+            this.threadName = threadName;
+        }
+
+        public String getThreadName() {
+            return threadName;
+        }
+
+        public int getFrequentPatterns() {
+            return frequentPatterns;
+        }
+
+        public int getJoins() {
+            return joins;
+        }
+
+        /**
+         * It gets the time spent by the thread exploring equivalence classes.
+         * @return the time in ms
+         */
+        public long getBusyTime() {
+            return busyTime / 1000000;
+        }
+
+        /**
+         * It gets the time during which the thread was idle or waiting for
+         * the tasks of other threads.
+         * @return the time in ms
+         */
+        public long getWaitingTime() {
+            return waitingTime / 1000000;
+        }
+    }
+
+    /**
+     * Task exploring an equivalence class in a fork-join pool. The members of
+     * the class are joined by this task and each member is then explored by
+     * a subtask as soon as all its own members are known.
+     */
+    private class EquivalenceClassTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final EquivalenceClass eq;
+        private final boolean dfs;
+        private final boolean keepPatterns;
+        private final boolean verbose;
+        private final Map<Integer, Map<Integer, Integer>> coocMapAfter;
+        private final Map<Integer, Map<Integer, Integer>> coocMapEquals;
+
+        EquivalenceClassTask(EquivalenceClass eq, boolean dfs, boolean keepPatterns, boolean verbose, Map<Integer, Map<Integer, Integer>> coocMapAfter, Map<Integer, Map<Integer, Integer>> coocMapEquals) {
+            this.eq = eq;
+            this.dfs = dfs;
+            this.keepPatterns = keepPatterns;
+            this.verbose = verbose;
+            this.coocMapAfter = coocMapAfter;
+            this.coocMapEquals = coocMapEquals;
+        }
+
+        @Override
+        protected void compute() {
+            WorkerStatistics statistics = threadStatistics.get();
+            long startTime = System.nanoTime();
+
+            List<EquivalenceClassTask> subtasks = new ArrayList<EquivalenceClassTask>();
+            //flag indicating if a new pattern has been created
+            boolean anyPatternCreated = false;
+            List<EquivalenceClass> eqMembers = eq.getClassMembers();
+
+            //For all the members of the equivalence class
+            for (int i = eqMembers.size() - 1; i >= 0; i--) {
+                EquivalenceClass child_X = eqMembers.get(i);
+                if (joinMember(eqMembers, i, keepPatterns, coocMapAfter, coocMapEquals)) {
+                    anyPatternCreated = true;
+                }
+                if (dfs) {
+                    eqMembers.remove(i);
+                    /* The members that appear before child_X cannot add 
+                     * members to it, so it can already be explored
+                     */
+                    if (anyPatternCreated) {
+                        explore(child_X, subtasks);
+                    }
+                }
+            }
+            if (!dfs && anyPatternCreated) {
+                for (int i = eqMembers.size() - 1; i >= 0; i--) {
+                    explore(eqMembers.get(i), subtasks);
+                    eqMembers.remove(i);
+                }
+            }
+            statistics.busyTime += System.nanoTime() - startTime;
+
+            // we wait for the subtasks (the thread executes other tasks meanwhile)
+            for (int i = subtasks.size() - 1; i >= 0; i--) {
+                subtasks.get(i).join();
+            }
+        }
+
+        /**
+         * Explore an equivalence class. A class having at least two members is
+         * explored by a new task. Otherwise, it is explored by this task.
+         * @param child the equivalence class
+         * @param subtasks the list of subtasks of this task
+         */
+        private void explore(EquivalenceClass child, List<EquivalenceClassTask> subtasks) {
+            if (child.getClassMembers().size() >= 2) {
+                EquivalenceClassTask subtask = new EquivalenceClassTask(child, dfs, keepPatterns, verbose, coocMapAfter, coocMapEquals);
+                subtask.fork();
+                subtasks.add(subtask);
+            } else {
+                execute(child, dfs, keepPatterns, verbose, coocMapAfter, coocMapEquals);
+            }
+        }
+    }
 
     /**
      * Standard constructor of the class.
@@ -100,88 +254,9 @@ public class FrequentPatternEnumeration {
             //we get it the member indicated by i index
             EquivalenceClass child_X = eqMembers.get(i);
 
-            // NEW CODE-PFV-2013
-            Map<Integer, Integer> cmapX = null;
-            Map<Integer, Integer> cmapX_equals = null;
-            Integer itemX = null;
-            if (coocMapAfter != null || coocMapEquals != null) {
-                itemX = (Integer) child_X.getClassIdentifier().getLastElement().getItem().getId();
-                cmapX = (coocMapAfter == null) ? null : coocMapAfter.get(itemX);
-                cmapX_equals = (coocMapEquals == null) ? null : coocMapEquals.get(itemX);
-            }
-            // END NEW CODE
-
-            //For all the members that appear before in the list
-            for (int j = i; j >= 0; j--) {
-
-                //we get it the member indicated by j index
-                EquivalenceClass child_Y = eqMembers.get(j);
-
-                // NEW CODE-PFV-2013                
-                boolean doNotExploreXY = false;
-                boolean doNotExploreYX = false;
-                boolean doNotExploreX_Y = false;
-                boolean doNotExploreY_X = false;
-                if (coocMapEquals != null) {
-                    Integer itemY = (Integer) child_Y.getClassIdentifier().getLastElement().getItem().getId();
-                    Map<Integer, Integer> cmapY = coocMapEquals.get(itemY);
-                    Integer count1 = cmapX_equals == null ? null : cmapX_equals.get(itemY);
-                    Integer count2 = cmapY == null ? null : cmapY.get(itemX);
-                    doNotExploreYX = count2 == null || count2 < minSupportAbsolute;
-                    doNotExploreXY = count1 == null || count1 < minSupportAbsolute;
-                }
-                if (coocMapAfter != null) {
-                    Integer itemY = (Integer) child_Y.getClassIdentifier().getLastElement().getItem().getId();
-                    Map<Integer, Integer> cmapY = coocMapAfter.get(itemY);
-                    Integer count1 = cmapX == null ? null : cmapX.get(itemY);
-                    Integer count2 = cmapY == null ? null : cmapY.get(itemX);
-                    doNotExploreY_X = count2 == null || count2 < minSupportAbsolute;
-                    doNotExploreX_Y = count1 == null || count1 < minSupportAbsolute;
-                }
-
-                if (doNotExploreXY && doNotExploreYX && doNotExploreX_Y && doNotExploreY_X) {
-                    continue;
-                }
-                // END NEW-CODE-PFV-2013
-
-
-                /* We obtain all the possible candidates generated by the two 
-                 * dentifiers of the chosen equivalence classes
-                 */
-                List<Pattern> extensions = candidateGenerator.generateCandidates(child_X.getClassIdentifier(), child_Y.getClassIdentifier(), (int) minSupportAbsolute, doNotExploreXY, doNotExploreYX, doNotExploreX_Y, doNotExploreY_X);
-                //For each candidate generated
-                for (Pattern extension : extensions) {
-                    IDList newIdList = candidateGenerator.join(extension, child_X, child_Y, (int) minSupportAbsolute);
-                    INTERSECTION_COUNTER++;
-                    //If the the pattern is frequent
-                    if (newIdList != null && newIdList.getSupport() >= minSupportAbsolute) {
-                        //we activated the flag
-                        anyPatternCreated = true;
-                        /*and we insert the appearances that we have in the 
-                         *IdList in the recenctly created pattern
-                         */
-
-                        newIdList.setAppearingSequences(extension);
-
-                        //We keep the pattern if the flag is activated
-                        if (keepPatterns) {
-                            keepPattern(extension);
-                        }
-                        /*And we make a new equivalence class with the new 
-                         * pattern and the IdList
-                         */
-                        EquivalenceClass newEq = new EquivalenceClass(extension);
-                        newEq.setIdList(newIdList);
-
-                        //We increment the number of frequent patterns
-                        increaseFrequentPatterns();
-
-                        /*Finally, we keep the new class as a member of the 
-                         * parent class that is its prefix
-                         */
-                        insertClassByPrefix(newEq, child_X, child_Y);
-                    }
-                }
+            //We join it with all the members that appear before in the list
+            if (joinMember(eqMembers, i, keepPatterns, coocMapAfter, coocMapEquals)) {
+                anyPatternCreated = true;
             }
             //If dfs activated
             if (dfs) {
@@ -213,6 +288,169 @@ public class FrequentPatternEnumeration {
         }
     }
 
+    /**
+     * Execution of the search of frequent patterns with several threads. The
+     * search is the same as the one of the method execute, but the
+     * equivalence classes are explored by a fork-join pool: once all the
+     * members of a class have been found, the class is explored by a new task
+     * that can be stolen by an idle thread. Thus, a large class is split in
+     * many tasks instead of being explored by a single thread.
+     *
+     * @param eq The equivalence class from we start to search for.
+     * @param dfs Flag indicating if we are interested in a depth-first search
+     * if activated. Otherwise, we understand that we are interested in a
+     * breadth-first search
+     * @param keepPatterns Flag to indicate if we want to keep the patterns
+     * found.
+     * @param verbose Flag for debugging purposes
+     * @param coocMapAfter co-occurrence map of items appearing after an item
+     * (or null)
+     * @param coocMapEquals co-occurrence map of items appearing in the same
+     * itemset as an item (or null)
+     * @param threadCount the number of threads
+     */
+    public void executeParallel(EquivalenceClass eq, boolean dfs, boolean keepPatterns, boolean verbose, Map<Integer, Map<Integer, Integer>> coocMapAfter, Map<Integer, Map<Integer, Integer>> coocMapEquals, int threadCount) {
+        // the statistics of each thread are created the first time that
+        // the thread executes a task
+        final List<WorkerStatistics> statistics = new ArrayList<WorkerStatistics>();
+        threadStatistics = new ThreadLocal<WorkerStatistics>() {
+            @Override
+            protected WorkerStatistics initialValue() {
+                WorkerStatistics workerStatistics = new WorkerStatistics(Thread.currentThread().getName());
+                synchronized (statistics) {
+                    statistics.add(workerStatistics);
+                }
+                return workerStatistics;
+            }
+        };
+
+        ForkJoinPool pool = new ForkJoinPool(threadCount);
+        long startTime = System.nanoTime();
+        try {
+            pool.invoke(new EquivalenceClassTask(eq, dfs, keepPatterns, verbose, coocMapAfter, coocMapEquals));
+        } finally {
+            pool.shutdown();
+            threadStatistics = null;
+        }
+        long totalTime = System.nanoTime() - startTime;
+
+        // we gather the statistics of the threads
+        for (WorkerStatistics workerStatistics : statistics) {
+            frequentPatterns += workerStatistics.frequentPatterns;
+            INTERSECTION_COUNTER += workerStatistics.joins;
+            workerStatistics.waitingTime = Math.max(0, totalTime - workerStatistics.busyTime);
+        }
+        this.workerStatistics = statistics;
+    }
+
+    /**
+     * Join the member of an equivalence class at a given position with itself
+     * and with all the members that appear before it. The frequent patterns
+     * that are found are inserted as members of the class that is their
+     * prefix.
+     *
+     * @param eqMembers the members of the equivalence class
+     * @param i the position of the member
+     * @param keepPatterns Flag to indicate if we want to keep the patterns
+     * found.
+     * @param coocMapAfter co-occurrence map of items appearing after an item
+     * (or null)
+     * @param coocMapEquals co-occurrence map of items appearing in the same
+     * itemset as an item (or null)
+     * @return true if a frequent pattern has been found
+     */
+    private boolean joinMember(List<EquivalenceClass> eqMembers, int i, boolean keepPatterns, Map<Integer, Map<Integer, Integer>> coocMapAfter, Map<Integer, Map<Integer, Integer>> coocMapEquals) {
+        //flag indicating if a new pattern has been created
+        boolean anyPatternCreated = false;
+        //we get it the member indicated by i index
+        EquivalenceClass child_X = eqMembers.get(i);
+
+        // NEW CODE-PFV-2013
+        Map<Integer, Integer> cmapX = null;
+        Map<Integer, Integer> cmapX_equals = null;
+        Integer itemX = null;
+        if (coocMapAfter != null || coocMapEquals != null) {
+            itemX = (Integer) child_X.getClassIdentifier().getLastElement().getItem().getId();
+            cmapX = (coocMapAfter == null) ? null : coocMapAfter.get(itemX);
+            cmapX_equals = (coocMapEquals == null) ? null : coocMapEquals.get(itemX);
+        }
+        // END NEW CODE
+
+        //For all the members that appear before in the list
+        for (int j = i; j >= 0; j--) {
+
+            //we get it the member indicated by j index
+            EquivalenceClass child_Y = eqMembers.get(j);
+
+            // NEW CODE-PFV-2013                
+            boolean doNotExploreXY = false;
+            boolean doNotExploreYX = false;
+            boolean doNotExploreX_Y = false;
+            boolean doNotExploreY_X = false;
+            if (coocMapEquals != null) {
+                Integer itemY = (Integer) child_Y.getClassIdentifier().getLastElement().getItem().getId();
+                Map<Integer, Integer> cmapY = coocMapEquals.get(itemY);
+                Integer count1 = cmapX_equals == null ? null : cmapX_equals.get(itemY);
+                Integer count2 = cmapY == null ? null : cmapY.get(itemX);
+                doNotExploreYX = count2 == null || count2 < minSupportAbsolute;
+                doNotExploreXY = count1 == null || count1 < minSupportAbsolute;
+            }
+            if (coocMapAfter != null) {
+                Integer itemY = (Integer) child_Y.getClassIdentifier().getLastElement().getItem().getId();
+                Map<Integer, Integer> cmapY = coocMapAfter.get(itemY);
+                Integer count1 = cmapX == null ? null : cmapX.get(itemY);
+                Integer count2 = cmapY == null ? null : cmapY.get(itemX);
+                doNotExploreY_X = count2 == null || count2 < minSupportAbsolute;
+                doNotExploreX_Y = count1 == null || count1 < minSupportAbsolute;
+            }
+
+            if (doNotExploreXY && doNotExploreYX && doNotExploreX_Y && doNotExploreY_X) {
+                continue;
+            }
+            // END NEW-CODE-PFV-2013
+
+
+            /* We obtain all the possible candidates generated by the two 
+             * dentifiers of the chosen equivalence classes
+             */
+            List<Pattern> extensions = candidateGenerator.generateCandidates(child_X.getClassIdentifier(), child_Y.getClassIdentifier(), (int) minSupportAbsolute, doNotExploreXY, doNotExploreYX, doNotExploreX_Y, doNotExploreY_X);
+            //For each candidate generated
+            for (Pattern extension : extensions) {
+                IDList newIdList = candidateGenerator.join(extension, child_X, child_Y, (int) minSupportAbsolute);
+                increaseJoins();
+                //If the the pattern is frequent
+                if (newIdList != null && newIdList.getSupport() >= minSupportAbsolute) {
+                    //we activated the flag
+                    anyPatternCreated = true;
+                    /*and we insert the appearances that we have in the 
+                     *IdList in the recenctly created pattern
+                     */
+
+                    newIdList.setAppearingSequences(extension);
+
+                    //We keep the pattern if the flag is activated
+                    if (keepPatterns) {
+                        keepPattern(extension);
+                    }
+                    /*And we make a new equivalence class with the new 
+                     * pattern and the IdList
+                     */
+                    EquivalenceClass newEq = new EquivalenceClass(extension);
+                    newEq.setIdList(newIdList);
+
+                    //We increment the number of frequent patterns
+                    increaseFrequentPatterns();
+
+                    /*Finally, we keep the new class as a member of the 
+                     * parent class that is its prefix
+                     */
+                    insertClassByPrefix(newEq, child_X, child_Y);
+                }
+            }
+        }
+        return anyPatternCreated;
+    }
+
     /**
      * Method to insert a class in their corresponding father. This father is
      * that is a prefix for the class given as a parameter.
@@ -243,14 +481,44 @@ public class FrequentPatternEnumeration {
     }
 
     public void setFrequentPatterns(int patronesFrecuentes) {
-        FrequentPatternEnumeration.frequentPatterns = patronesFrecuentes;
+        this.frequentPatterns = patronesFrecuentes;
+    }
+
+    /**
+     * It returns the statistics of the threads used by the last parallel
+     * execution.
+     *
+     * @return the statistics of each thread, or null if the search was not
+     * executed in parallel
+     */
+    public List<WorkerStatistics> getWorkerStatistics() {
+        return workerStatistics;
     }
 
     /**
      * Increase the number of frequent patterns
      */
-    private synchronized static void increaseFrequentPatterns() {
-        frequentPatterns++;
+    private void increaseFrequentPatterns() {
+        if (threadStatistics != null) {
+            threadStatistics.get().frequentPatterns++;
+        } else {
+            // the search can also be executed by several threads through
+            // FrequentPatternEnumerationFacade
+            synchronized (this) {
+                frequentPatterns++;
+            }
+        }
+    }
+
+    /**
+     * Increase the number of joins
+     */
+    private void increaseJoins() {
+        if (threadStatistics != null) {
+            threadStatistics.get().joins++;
+        } else {
+            INTERSECTION_COUNTER++;
+        }
     }
 
     /**
@@ -52,7 +52,7 @@ public class ItemAbstractionPairCreator {
         return instance;
     }
 
-    public ItemAbstractionPair getItemAbstractionPair(Item item, Abstraction_Generic abstraction) {
+    public synchronized ItemAbstractionPair getItemAbstractionPair(Item item, Abstraction_Generic abstraction) {
         Map<Abstraction_Generic, ItemAbstractionPair> itemPair = pailPoors.get(item);
         ItemAbstractionPair pair;
         if (itemPair != null) {
@@ -65,6 +65,7 @@ public class AlgoCMSPAM {
     // List indicating the number of bits per sequence
     List<Integer> sequencesSize = null;
     int lastBitIndex = 0;  // the last bit position that is used in bitmaps
+    BitmapLayout layout = null; // the position of the bits of each sequence in bitmaps
     // maximum pattern length in terms of item count
     private int maximumPatternLength = Integer.MAX_VALUE;
     // Map: key: item   value:  another item that followed the first item + support
@@ -165,6 +166,7 @@ public class AlgoCMSPAM {
             }
             // record the last bit position for the bitmaps
             lastBitIndex = bitIndex - 1;
+            layout = new BitmapLayout(sequencesSize, lastBitIndex);
             reader.close(); // close the input file
         } catch (Exception e) {
             e.printStackTrace();
@@ -201,11 +203,11 @@ public class AlgoCMSPAM {
                         Integer item = Integer.parseInt(token);
                         Bitmap bitmapItem = verticalDB.get(item);
                         if (bitmapItem == null) {
-                            bitmapItem = new Bitmap(lastBitIndex);
+                            bitmapItem = new Bitmap(layout);
                             verticalDB.put(item, bitmapItem);
                         }
                         // Register the bit in the bitmap for this item
-                        bitmapItem.registerBit(sid, tid, sequencesSize);
+                        bitmapItem.registerBit(sid, tid, layout);
                     }
                 }
             }
@@ -400,7 +402,7 @@ public class AlgoCMSPAM {
 
             // perform the S-STEP with that item to get a new bitmap
             Bitmap.INTERSECTION_COUNT++;
-            Bitmap newBitmap = prefixBitmap.createNewBitmapSStep(verticalDB.get(i), sequencesSize, lastBitIndex);
+            Bitmap newBitmap = prefixBitmap.createNewBitmapSStep(verticalDB.get(i), layout);
             // if the support is higher than minsup
             if (newBitmap.getSupport() >= minsup) {
                 // record that item and pattern in temporary variables
@@ -459,7 +461,7 @@ public class AlgoCMSPAM {
                 // Perform an i-step with this item and the current prefix.
                 // This creates a new bitmap
                 Bitmap.INTERSECTION_COUNT++;
-                Bitmap newBitmap = prefixBitmap.createNewBitmapIStep(verticalDB.get(i), sequencesSize, lastBitIndex);
+                Bitmap newBitmap = prefixBitmap.createNewBitmapIStep(verticalDB.get(i), layout);
                 // If the support is no less than minsup
                 if (newBitmap.getSupport() >= minsup) {
                     // record that item and pattern in temporary variables
@@ -73,6 +73,7 @@ public class AlgoSPAM{
 	// List indicating the number of bits per sequence
 	List<Integer> sequencesSize = null;
 	int lastBitIndex = 0;  // the last bit position that is used in bitmaps
+	BitmapLayout layout = null; // the position of the bits of each sequence in bitmaps
 	
 	// maximum pattern length in terms of item count
 	private int maximumPatternLength = Integer.MAX_VALUE;
@@ -152,6 +153,7 @@ public class AlgoSPAM{
 			}
 			// record the last bit position for the bitmaps
 			lastBitIndex = bitIndex -1;
+			layout = new BitmapLayout(sequencesSize, lastBitIndex);
 			reader.close(); // close the input file
 		} catch (Exception e) {
 			e.printStackTrace();
@@ -188,11 +190,11 @@ public class AlgoSPAM{
 						Integer item = Integer.parseInt(token);
 						Bitmap bitmapItem = verticalDB.get(item);
 						if(bitmapItem == null){
-							bitmapItem = new Bitmap(lastBitIndex);
+							bitmapItem = new Bitmap(layout);
 							verticalDB.put(item, bitmapItem);
 						}
 						// Register the bit in the bitmap for this item
-						bitmapItem.registerBit(sid, tid, sequencesSize);
+						bitmapItem.registerBit(sid, tid, layout);
 					}
 				}
 			}
@@ -262,7 +264,7 @@ public class AlgoSPAM{
 		// for each item in sn
 		for(Integer i : sn){
 			// perform the S-STEP with that item to get a new bitmap
-			Bitmap newBitmap = prefixBitmap.createNewBitmapSStep(verticalDB.get(i), sequencesSize,  lastBitIndex);
+			Bitmap newBitmap = prefixBitmap.createNewBitmapSStep(verticalDB.get(i), layout);
 			// if the support is higher than minsup
 			if(newBitmap.getSupport() >= minsup){
 				// record that item and pattern in temporary variables
@@ -300,7 +302,7 @@ public class AlgoSPAM{
 				
 				// Perform an i-step with this item and the current prefix.
 				// This creates a new bitmap
-				Bitmap newBitmap = prefixBitmap.createNewBitmapIStep(verticalDB.get(i), sequencesSize,  lastBitIndex);
+				Bitmap newBitmap = prefixBitmap.createNewBitmapIStep(verticalDB.get(i), layout);
 				// If the support is no less than minsup
 				if(newBitmap.getSupport() >= minsup){
 					// record that item and pattern in temporary variables
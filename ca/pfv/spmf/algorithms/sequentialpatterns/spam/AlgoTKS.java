@@ -78,6 +78,7 @@ public class AlgoTKS{
 	// List indicating the number of bits per sequence
 	List<Integer> sequencesSize = null;
 	int lastBitIndex = 0;  // the last bit position that is used in bitmaps
+	BitmapLayout layout = null; // the position of the bits of each sequence in bitmaps
 	
 	PriorityQueue<Pattern> kPatterns;  // the top k patterns found until now 
 	PriorityQueue<Candidate> candidates;  // the candidates for expansion
@@ -211,6 +212,7 @@ public class AlgoTKS{
 			}
 			// record the last bit position for the bitmaps
 			lastBitIndex = bitIndex -1;
+			layout = new BitmapLayout(sequencesSize, lastBitIndex);
 			reader.close(); // close the input file
 		} catch (Exception e) {
 			e.printStackTrace();
@@ -237,11 +239,11 @@ public class AlgoTKS{
 					// Get the bitmap for this item. If none, create a new one.
 					Bitmap bitmapItem = verticalDB.get(item);
 					if(bitmapItem == null){
-						bitmapItem = new Bitmap(lastBitIndex);
+						bitmapItem = new Bitmap(layout);
 						verticalDB.put(item, bitmapItem);
 					}
 					// Register the bit in the bitmap for this item
-					bitmapItem.registerBit(sid, tid, sequencesSize);
+					bitmapItem.registerBit(sid, tid, layout);
 				}
 			}
 		}
@@ -546,7 +548,7 @@ loopi:	for(Integer i : sn){
 			}
 			
 			// perform the S-STEP with that item to get a new bitmap
-			Bitmap newBitmap = prefixBitmap.createNewBitmapSStep(verticalDB.get(i), sequencesSize,  lastBitIndex);
+			Bitmap newBitmap = prefixBitmap.createNewBitmapSStep(verticalDB.get(i), layout);
 			// if the support is higher than minsup
 			if(newBitmap.getSupport() >= minsup){
 				// record that item and pattern in temporary variables
@@ -616,7 +618,7 @@ loop2:	for(Integer i : in){
 			
 			// Perform an i-step with this item and the current prefix.
 			// This creates a new bitmap
-			Bitmap newBitmap = prefixBitmap.createNewBitmapIStep(verticalDB.get(i), sequencesSize,  lastBitIndex);
+			Bitmap newBitmap = prefixBitmap.createNewBitmapIStep(verticalDB.get(i), layout);
 			// If the support is no less than minsup
 			if(newBitmap.getSupport() >= minsup){
 				// record that item and pattern in temporary variables
@@ -8,7 +8,6 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
-import java.util.BitSet;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -72,6 +71,7 @@ public class AlgoVGEN {
     // List indicating the number of bits per sequence
     List<Integer> sequencesSize = null;
     int lastBitIndex = 0;  // the last bit position that is used in bitmaps
+    BitmapLayout layout = null; // the position of the bits of each sequence in bitmaps
     
     // maximum pattern length in terms of item count
     private int maximumPatternLength = Integer.MAX_VALUE;
@@ -248,6 +248,7 @@ public class AlgoVGEN {
             }
             // record the last bit position for the bitmaps
             lastBitIndex = bitIndex - 1;
+            layout = new BitmapLayout(sequencesSize, lastBitIndex);
             reader.close(); // close the input file
         } catch (Exception e) {
             e.printStackTrace();
@@ -286,11 +287,11 @@ public class AlgoVGEN {
                         Integer item = Integer.parseInt(token);
                         Bitmap bitmapItem = verticalDB.get(item);
                         if (bitmapItem == null) {
-                            bitmapItem = new Bitmap(lastBitIndex);
+                            bitmapItem = new Bitmap(layout);
                             verticalDB.put(item, bitmapItem);
                         }
                         // Register the bit in the bitmap for this item
-                        bitmapItem.registerBit(sid, tid, sequencesSize);
+                        bitmapItem.registerBit(sid, tid, layout);
                     }
                 }
                 transactionCount++;
@@ -466,7 +467,7 @@ public class AlgoVGEN {
          }
         
         // THE EMPTY SET IS ALWAYS GENERATOR, SO ADD IT TO THE RESULT SET
-    	Bitmap bitmap = new Bitmap(0);
+    	Bitmap bitmap = new Bitmap(layout);
     	bitmap.setSupport(transactionCount);
     	PatternVGEN pat = new PatternVGEN(new PrefixVGEN(), bitmap);
     	List<PatternVGEN> listLevel0 = new ArrayList<PatternVGEN>();
@@ -526,7 +527,7 @@ public class AlgoVGEN {
 
             // perform the S-STEP with that item to get a new bitmap
             Bitmap.INTERSECTION_COUNT++;
-            Bitmap newBitmap = prefixBitmap.createNewBitmapSStep(verticalDB.get(i), sequencesSize, lastBitIndex);
+            Bitmap newBitmap = prefixBitmap.createNewBitmapSStep(verticalDB.get(i), layout);
             // if the support is higher than minsup
             if (newBitmap.getSupport() >= minsup) {
                 // record that item and pattern in temporary variables
@@ -604,7 +605,7 @@ public class AlgoVGEN {
                 // Perform an i-step with this item and the current prefix.
                 // This creates a new bitmap
                 Bitmap.INTERSECTION_COUNT++;
-                Bitmap newBitmap = prefixBitmap.createNewBitmapIStep(verticalDB.get(i), sequencesSize, lastBitIndex);
+                Bitmap newBitmap = prefixBitmap.createNewBitmapIStep(verticalDB.get(i), layout);
                 // If the support is no less than minsup
                 if (newBitmap.getSupport() >= minsup) {
                     // record that item and pattern in temporary variables
@@ -759,21 +760,16 @@ public class AlgoVGEN {
      */
     private boolean isThereBackwardExtension(Bitmap bitmap1, Bitmap bitmap2) {
 //    	System.out.println("is there backward?");
-//    	System.out.println(bitmap1.bitmap.toString());
-//    	System.out.println(bitmap2.bitmap.toString());
-    	BitSet bitset1 = bitmap1.bitmap;
-    	BitSet bitset2 = bitmap2.bitmap;
-    	
-    	int currentBit1 = bitset1.nextSetBit(0);
-    	int currentBit2 = bitset2.nextSetBit(0);
+    	int currentBit1 = bitmap1.nextSetBit(0);
+    	int currentBit2 = bitmap2.nextSetBit(0);
     	
     	do {
     		if(currentBit1 > currentBit2) {
     			return false;
     		}
     		
-    		currentBit1 = bitset1.nextSetBit(currentBit1+1);
-        	currentBit2 = bitset2.nextSetBit(currentBit2+1);
+    		currentBit1 = bitmap1.nextSetBit(currentBit1+1);
+        	currentBit2 = bitmap2.nextSetBit(currentBit2+1);
     	}while(currentBit1 >0);
     	
     	return true;
@@ -1,13 +1,15 @@
 package ca.pfv.spmf.algorithms.sequentialpatterns.spam;
 
-import java.util.BitSet;
-import java.util.Collections;
-import java.util.List;
-
 /**
  * Implementation of a bitmap for SPAM.
  * <br/><br/>
  * 
+ * The bits are stored in an array of words of 64 bits. The bits of each
+ * sequence are placed in a slot that does not cross the boundary between two
+ * words (see BitmapLayout), so that the S-step and I-step are performed with
+ * operations on words rather than bit by bit.
+ * <br/><br/>
+ * 
  * Copyright (c) 2008-2012 Philippe Fournier-Viger
  *  <br/><br/>
  * 
@@ -34,14 +36,16 @@ import java.util.List;
  * @see AlgoSPAM
  * @see AlgoTKS
  * @see AlgoVMSP
+ * @see AlgoVGEN
+ * @see BitmapLayout
  */
 public class Bitmap {
 
 
 	public static long INTERSECTION_COUNT = 0;
 	
-	// A bitmap is implemented using the BitSet class of Java.
-	BitSet bitmap = new BitSet();  
+	// A bitmap is implemented using an array of words of 64 bits.
+	long[] words;  
 	
 	// For calculating the support more efficiently
 	// we keep some information:
@@ -55,31 +59,31 @@ public class Bitmap {
 	
 	/**
 	 * Constructor
-	 * @param lastBitIndex the desired size of the bitset minus 1
+	 * @param layout the layout of the bits of the sequences
 	 */
-	Bitmap(int lastBitIndex){
-		this.bitmap = new BitSet(lastBitIndex+1); 
+	Bitmap(BitmapLayout layout){
+		this.words = new long[layout.wordCount]; 
 	}
 	
 	/**
 	 * Constructor
-	 * @param bitmap  a bitset to initialize this Bitmap.
+	 * @param words  an array of words to initialize this Bitmap.
 	 */
-	private Bitmap(BitSet bitmap){
-		this.bitmap = bitmap; 
+	private Bitmap(long[] words){
+		this.words = words; 
 	}
 
 	/**
 	 * Set a bit to 1 in this bitmap
 	 * @param sid the sid corresponding to that bit
 	 * @param tid the tid corresponding to that bit
-	 * @param sequencesSize the list of sequence length to know how many bits are allocated to each sequence
+	 * @param layout the layout indicating the bits allocated to each sequence
 	 */
-	public void registerBit(int sid, int tid, List<Integer> sequencesSize) {
+	public void registerBit(int sid, int tid, BitmapLayout layout) {
 		// calculate the position of the bit that we need to set to 1
-		int pos = sequencesSize.get(sid) + tid;
+		int pos = layout.bitOf(sid, tid);
 		// set the bit to 1
-		bitmap.set(pos, true);
+		words[pos >>> 6] |= 1L << pos;
 		
 		// Update the  count of bit set to 1
 		if(sid != lastSID){
@@ -94,21 +98,6 @@ public class Bitmap {
 		// remember the last SID with a bit set to 1
 		lastSID = sid;
 	}
-	
-	/**
-	 * Given the position of a bit, return the corresponding sequence ID.
-	 * @param bit  the position of the bit in the bitmap
-	 * @param sequencesSize  the list of lengths of sequence by sequence ID.
-	 * @return the corresponding sequence ID
-	 */
-	private int bitToSID(int bit, List<Integer> sequencesSize) {
-		// Do a binary search
-		int result = Collections.binarySearch(sequencesSize, bit);
-		if(result >= 0){
-			return result;
-		}
-		return 0 - result -2;
-	}
 
 	/**
 	 * Get the support of this bitmap (the number of bits set to 1)
@@ -118,96 +107,150 @@ public class Bitmap {
 		return support;
 	}
 
+	/**
+	 * Return the position of the first bit set to 1 that is at a given position
+	 * or after it.
+	 * @param fromIndex the position
+	 * @return the position of the bit or -1 if there is none
+	 */
+	int nextSetBit(int fromIndex) {
+		int w = fromIndex >>> 6;
+		if (w >= words.length) {
+			return -1;
+		}
+		long word = words[w] & (-1L << fromIndex);
+		while (true) {
+			if (word != 0) {
+				return (w << 6) + Long.numberOfTrailingZeros(word);
+			}
+			if (++w == words.length) {
+				return -1;
+			}
+			word = words[w];
+		}
+	}
+
+	/**
+	 * Return a word where the bits from a position to another position are set to 1.
+	 * @param from the first position (0 to 63)
+	 * @param to the position after the last position (from + 1 to 64)
+	 * @return the word
+	 */
+	private static long mask(int from, int to) {
+		long mask = -1L << from;
+		return to == 64 ? mask : mask & ((1L << to) - 1);
+	}
+
+	/**
+	 * Clear the bits of a word that are before the end of a sequence.
+	 * @param word the word
+	 * @param wordIndex the position of the word in the bitmap
+	 * @param end the position after the last bit of the sequence
+	 * @return the word where these bits are set to 0
+	 */
+	private static long clearUntil(long word, int wordIndex, int end) {
+		int endInWord = end - (wordIndex << 6);
+		return endInWord >= 64 ? 0 : word & (-1L << endInWord);
+	}
+
 	/**
 	 * Create a new bitmap for the s-step by doing a AND between this
 	 * bitmap and the bitmap of an item.
 	 * @param bitmapItem  the bitmap of the item used for the S-Step
-	 * @param sequencesSize the  sequence lengths
-	 * @param lastBitIndex  the last bit index
+	 * @param layout the layout indicating the bits allocated to each sequence
 	 * @return return the new bitmap
 	 */
-	Bitmap createNewBitmapSStep(Bitmap bitmapItem, List<Integer> sequencesSize, int lastBitIndex) {
+	Bitmap createNewBitmapSStep(Bitmap bitmapItem, BitmapLayout layout) {
 		//INTERSECTION_COUNT++;
 		
-		// create a new bitset that will be use for the new bitmap
-		BitSet newBitset = new BitSet(lastBitIndex); 
+		long[] itemWords = bitmapItem.words;
+		int wordCount = Math.min(words.length, itemWords.length);
 		// create the new bitmap
-		Bitmap newBitmap = new Bitmap(newBitset);
+		Bitmap newBitmap = new Bitmap(new long[wordCount]);
+		long[] newWords = newBitmap.words;
 		
-		
-		// We do an AND with the bitmap of the item and this bitmap
-		for (int bitK = bitmap.nextSetBit(0); bitK >= 0; bitK = bitmap.nextSetBit(bitK+1)) {
-			
-			// find the sid of this bit
-			int sid = bitToSID(bitK, sequencesSize);
-
-			// get the last bit for this sid
- 			int lastBitOfSID = lastBitOfSID(sid, sequencesSize, lastBitIndex);
-			
-			boolean match = false;
-			for (int bit = bitmapItem.bitmap.nextSetBit(bitK+1); bit >= 0 && bit <= lastBitOfSID; bit = bitmapItem.bitmap.nextSetBit(bit+1)) {
-				newBitmap.bitmap.set(bit);
-				
-				match = true;
+		// For each sequence, we keep the bits of the item that are after the
+		// first bit of this bitmap in the sequence
+		for (int w = 0; w < wordCount; w++) {
+			long word = words[w];
+			while (word != 0) {
+				// find the first bit of a sequence and the sid of this bit
+				int bitK = (w << 6) + Long.numberOfTrailingZeros(word);
+				int sid = layout.bitToSID(bitK);
+				int start = layout.sequenceStart[sid];
+				int end = layout.sequenceEnd[sid];
 				
-				// new
-				int tid = bit - sequencesSize.get(sid);
-//				System.out.println();
-//				System.out.println("bit " + bit);
-//				System.out.println("sid " + sid);
-//				System.out.println("seqSize " + sequencesSize.get(sid));
-//				System.out.println("tid " + tid);
-				if(firstItemsetID == -1 || tid < firstItemsetID){
-					firstItemsetID = tid;
+				boolean match = false;
+				// for each word of the sequence after that bit
+				for (int from = bitK + 1; from < end; ) {
+					int fromWord = from >>> 6;
+					if (fromWord >= wordCount) {
+						break;
+					}
+					int to = Math.min(end, (fromWord + 1) << 6);
+					long matched = itemWords[fromWord] & mask(from & 63, to - (fromWord << 6));
+					if (matched != 0) {
+						newWords[fromWord] |= matched;
+						if(!match){
+							int tid = (fromWord << 6) + Long.numberOfTrailingZeros(matched) - start;
+							if(newBitmap.firstItemsetID == -1 || tid < newBitmap.firstItemsetID){
+								newBitmap.firstItemsetID = tid;
+							}
+						}
+						match = true;
+					}
+					from = to;
 				}
-			}
-			if(match){
-				// update the support
-				if(sid != newBitmap.lastSID){
+				if(match){
+					// update the support
 					newBitmap.support++;
 					newBitmap.sidsum += sid;
+					newBitmap.lastSID = sid;
 				}
-				newBitmap.lastSID = sid;
+				
+				// skip the bits of the same sequence
+				int lastWord = (end - 1) >>> 6;
+				if (lastWord != w) {
+					if (lastWord >= wordCount) {
+						return newBitmap;
+					}
+					w = lastWord;
+					word = words[w];
+				}
+				word = clearUntil(word, w, end);
 			}
-			bitK = lastBitOfSID; // to skip the bit from the same sequence
 		}
 
 		// We return the resulting bitmap
 		return newBitmap;
 	}
 
-	private int lastBitOfSID(int sid, List<Integer> sequencesSize, int lastBitIndex) {
-		if(sid+1 >= sequencesSize.size()){
-			return lastBitIndex;
-		}else{
-			return sequencesSize.get(sid+1) -1;
-		}
-	}
-
 
 	/**
 	 * Create a new bitmap by performing the I-STEP with this
 	 * bitmap and the bitmap of an item.
 	 * @param bitmapItem the bitmap of the item
-	 * @param sequencesSize the sequence lengths
-	 * @param lastBitIndex the last bit index
+	 * @param layout the layout indicating the bits allocated to each sequence
 	 * @return the new bitmap
 	 */
-	Bitmap createNewBitmapIStep(Bitmap bitmapItem, List<Integer> sequencesSize, int lastBitIndex) {
+	Bitmap createNewBitmapIStep(Bitmap bitmapItem, BitmapLayout layout) {
 		//INTERSECTION_COUNT++;
 		
+		long[] itemWords = bitmapItem.words;
+		int wordCount = Math.min(words.length, itemWords.length);
 		// We create the new bitmap
-		BitSet newBitset = new BitSet(lastBitIndex); // TODO: USE LAST SET BIT
-		Bitmap newBitmap = new Bitmap(newBitset);
+		Bitmap newBitmap = new Bitmap(new long[wordCount]);
+		long[] newWords = newBitmap.words;
 		
 		// We do an AND with the bitmap of the item
-		for (int bit = bitmap.nextSetBit(0); bit >= 0; bit = bitmap.nextSetBit(bit+1)) {
-			if(bitmapItem.bitmap.get(bit)){ // if both bits are TRUE
-				
-				// set the bit
-				newBitmap.bitmap.set(bit);
-				// update the support
-				int sid = bitToSID(bit, sequencesSize);
+		for (int w = 0; w < wordCount; w++) {
+			long word = words[w] & itemWords[w];
+			newWords[w] = word;
+			
+			// update the support for each sequence having a bit in this word
+			while (word != 0) {
+				int bit = (w << 6) + Long.numberOfTrailingZeros(word);
+				int sid = layout.bitToSID(bit);
 				
 				if(sid != newBitmap.lastSID){
 					newBitmap.sidsum += sid;
@@ -215,30 +258,28 @@ public class Bitmap {
 				}
 				newBitmap.lastSID = sid; // remember the last SID
 				
-				// new
-				int tid = bit - sequencesSize.get(sid);
-				if(firstItemsetID == -1 || tid < firstItemsetID){
-					firstItemsetID = tid;
+				int tid = bit - layout.sequenceStart[sid];
+				if(newBitmap.firstItemsetID == -1 || tid < newBitmap.firstItemsetID){
+					newBitmap.firstItemsetID = tid;
 				}
-				// end new
 				
+				// skip the other bits of this sequence in this word
+				word = clearUntil(word, w, layout.sequenceEnd[sid]);
 			}
 		}
-		// Then do the AND
-		newBitset.and(bitmapItem.bitmap);
 		
 		// We return the resulting bitmap
 		return newBitmap;
 	}
 	
 	/**
-	 * Set the support of this bitmap without using the internal BitSet object.
+	 * Set the support of this bitmap without using the internal array of words.
 	 * This method is used by VGEN
 	 * @param support the support as an integer value.
 	 */
 	public void setSupport(int support) {
 		this.support = support;
-		bitmap = null;
+		words = null;
 	}
 
 }
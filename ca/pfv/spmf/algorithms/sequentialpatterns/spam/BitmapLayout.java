@@ -0,0 +1,119 @@
+package ca.pfv.spmf.algorithms.sequentialpatterns.spam;
+
+import java.util.List;
+
+/**
+ * The layout of the bits of the bitmaps used by SPAM and the algorithms
+ * based on it. Each sequence has a slot of one bit per itemset. A slot never
+ * crosses the boundary between two words of 64 bits (a slot longer than 64
+ * bits starts at the beginning of a word), so that the bits of a sequence
+ * can be processed with a few operations on words. The tables indicating the
+ * slot of each sequence, and the first sequence of each word, are arrays of
+ * integers, so that finding the sequence of a bit does not require a binary
+ * search.
+ * <br/><br/>
+ * 
+ * Copyright (c) 2008-2012 Philippe Fournier-Viger
+ *  <br/><br/>
+ * 
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ * <br/><br/>
+ * 
+ * SPMF is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <br/><br/>
+ * 
+ * SPMF is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <br/><br/>
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with SPMF.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * @see Bitmap
+ */
+public class BitmapLayout {
+
+	// the position of the first bit of each sequence
+	final int[] sequenceStart;
+	// the position after the last bit of each sequence
+	final int[] sequenceEnd;
+	// for each word, the first sequence that may have a bit in that word
+	final int[] wordFirstSequence;
+	// the number of words of a bitmap
+	final int wordCount;
+
+	/**
+	 * Constructor
+	 * @param sequencesSize the position of the first itemset of each sequence
+	 *        if all the itemsets of the database are numbered consecutively
+	 * @param lastBitIndex the position of the last itemset of the database
+	 */
+	public BitmapLayout(List<Integer> sequencesSize, int lastBitIndex) {
+		int sequenceCount = sequencesSize.size();
+		sequenceStart = new int[sequenceCount];
+		sequenceEnd = new int[sequenceCount];
+
+		// give a slot to each sequence
+		int position = 0;
+		for (int sid = 0; sid < sequenceCount; sid++) {
+			int nextFirstItemset = (sid + 1 < sequenceCount) ? sequencesSize.get(sid + 1) : lastBitIndex + 1;
+			int length = nextFirstItemset - sequencesSize.get(sid);
+			// if the slot would cross the boundary of a word, it starts at the next word
+			if ((length > 64 || (position & 63) + length > 64) && (position & 63) != 0) {
+				position = (position | 63) + 1;
+			}
+			sequenceStart[sid] = position;
+			position += length;
+			sequenceEnd[sid] = position;
+		}
+		wordCount = (position + 63) >>> 6;
+
+		// find the first sequence that may have a bit in each word
+		wordFirstSequence = new int[wordCount];
+		int sid = 0;
+		for (int word = 0; word < wordCount; word++) {
+			int firstBit = word << 6;
+			while (sid < sequenceCount - 1 && sequenceEnd[sid] <= firstBit) {
+				sid++;
+			}
+			wordFirstSequence[word] = sid;
+		}
+	}
+
+	/**
+	 * Get the position of the bit of an itemset.
+	 * @param sid the sequence id
+	 * @param tid the position of the itemset in the sequence
+	 * @return the position of the bit
+	 */
+	int bitOf(int sid, int tid) {
+		return sequenceStart[sid] + tid;
+	}
+
+	/**
+	 * Given the position of a bit, return the corresponding sequence ID.
+	 * @param bit the position of a bit of a sequence
+	 * @return the corresponding sequence ID
+	 */
+	int bitToSID(int bit) {
+		int sid = wordFirstSequence[bit >>> 6];
+		while (sequenceEnd[sid] <= bit) {
+			sid++;
+		}
+		return sid;
+	}
+
+	/**
+	 * Get the number of words of a bitmap.
+	 * @return the number of words
+	 */
+	public int getWordCount() {
+		return wordCount;
+	}
+}
@@ -0,0 +1,561 @@
+package ca.pfv.spmf.datastructures.kdtree;
+/* This file is copyright (c) 2008-2014 Philippe Fournier-Viger
+*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+*
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * This is an implementation of a "KD tree" that is designed for large sets of points.
+ * Like KDTree, each node of the tree is a point that is the median of the points of
+ * its subtree for a dimension, and the dimension changes at each level of the tree.
+ * But, the tree does not use an object for each node. The points are stored in a single
+ * array of double, in the order of the tree: the root of the subtree of the points at
+ * positions left ... right is the point at the position (left + right) / 2, the points
+ * of its "below" branch are at the positions before and the points of its "above"
+ * branch are at the positions after. Thus, the tree uses only the memory needed to
+ * store the points, and the points that are near in the tree are near in memory.
+ * <br/><br/>
+ *
+ * The points are referred to by their position in the array of points used to build
+ * the tree. To find the k nearest neighbors, the closest points found until now are stored
+ * in a heap of fixed size (an array of distances and an array of positions) where the
+ * farthest point is at the top. The tree is not modified by the searches, so it can be
+ * searched by several threads at the same time. The tree can be built by several threads,
+ * and a set of points can be searched by several threads.
+ *
+ * @see KDTree
+ * @author Philippe Fournier-Viger
+ */
+public class FlatKDTree {
+
+	// the number of points in the tree
+	private int pointCount = 0;
+	// the number of dimensions
+	private int dimensionCount = 0;
+	// the points in the order of the tree (row-major: the point at the position p of the
+	// tree is stored at positions p*dimensionCount ... (p+1)*dimensionCount - 1)
+	private double[] coordinates = new double[0];
+	// the position of each point of the tree in the array used to build the tree
+	private int[] pointIndices = new int[0];
+
+	// the number of threads used to build the tree and to search sets of points
+	private int threadCount = 1;
+
+	/**
+	 * Default constructor
+	 */
+	public FlatKDTree() {
+
+	}
+
+	/**
+	 * Set the number of threads used to build the tree and to search
+	 * sets of points (default: 1).
+	 * @param threadCount the number of threads
+	 */
+	public void setThreadCount(int threadCount) {
+		this.threadCount = threadCount;
+	}
+
+	/**
+	 * Get the number of points in the tree
+	 * @return the number of points
+	 */
+	public int size() {
+		return pointCount;
+	}
+
+	/**
+	 * Get the number of dimensions of the points
+	 * @return the number of dimensions
+	 */
+	public int getDimensionCount() {
+		return dimensionCount;
+	}
+
+	/**
+	 * This method build the tree from a set of points.
+	 * This method should be called only once. The array is not modified.
+	 * @param points an array of points, where each point is a double[] (all the points
+	 *        must have the same number of dimensions)
+	 */
+	public void buildtree(double[][] points) {
+		if (points.length == 0) {
+			return;
+		}
+		int dimensions = points[0].length;
+		double[] values = new double[points.length * dimensions];
+		for (int i = 0; i < points.length; i++) {
+			if (points[i].length != dimensions) {
+				throw new IllegalArgumentException("All the points must have the same number of dimensions");
+			}
+			System.arraycopy(points[i], 0, values, i * dimensions, dimensions);
+		}
+		buildtree(values, dimensions);
+	}
+
+	/**
+	 * This method build the tree from a set of points stored in a single array.
+	 * This method should be called only once. The array is not modified.
+	 * @param points the points (row-major: the point i is stored at positions
+	 *        i*dimensionCount ... (i+1)*dimensionCount - 1)
+	 * @param dimensionCount the number of dimensions of the points
+	 */
+	public void buildtree(final double[] points, int dimensionCount) {
+		if (dimensionCount < 1 || points.length % dimensionCount != 0) {
+			throw new IllegalArgumentException("The size of the array must be a multiple of the number of dimensions");
+		}
+		this.dimensionCount = dimensionCount;
+		this.pointCount = points.length / dimensionCount;
+		if (pointCount == 0) {
+			return;
+		}
+		// the points are first ordered by sorting their positions
+		pointIndices = new int[pointCount];
+		for (int i = 0; i < pointCount; i++) {
+			pointIndices[i] = i;
+		}
+
+		// The top of the tree is built by this thread until there are enough
+		// subtrees to give some subtrees to each thread.
+		final List<int[]> subtrees = new ArrayList<int[]>();
+		int minSubtreeSize = (threadCount <= 1) ? Integer.MAX_VALUE : Math.max(1024, pointCount / (threadCount * 4));
+		splitTree(points, 0, pointCount - 1, 0, minSubtreeSize, subtrees);
+
+		// the subtrees are built
+		final int[] next = new int[]{0};
+		runInParallel(new Callable<Object>() {
+			public Object call() {
+				while (true) {
+					int[] subtree;
+					synchronized (next) {
+						if (next[0] == subtrees.size()) {
+							return null;
+						}
+						subtree = subtrees.get(next[0]++);
+					}
+					buildSubtree(points, subtree[0], subtree[1], subtree[2]);
+				}
+			}
+		});
+
+		// the points are copied in the order of the tree
+		coordinates = new double[pointCount * dimensionCount];
+		final int partSize = Math.max(1, (pointCount + threadCount - 1) / threadCount);
+		final int[] nextPart = new int[]{0};
+		runInParallel(new Callable<Object>() {
+			public Object call() {
+				while (true) {
+					int start;
+					synchronized (nextPart) {
+						start = nextPart[0];
+						nextPart[0] += partSize;
+					}
+					if (start >= pointCount) {
+						return null;
+					}
+					int end = Math.min(pointCount, start + partSize);
+					for (int position = start; position < end; position++) {
+						System.arraycopy(points, pointIndices[position] * FlatKDTree.this.dimensionCount,
+								coordinates, position * FlatKDTree.this.dimensionCount, FlatKDTree.this.dimensionCount);
+					}
+				}
+			}
+		});
+	}
+
+	/**
+	 * Build the top of the subtree of the points at positions left ... right, and
+	 * keep the subtrees that are small enough to be built by a thread.
+	 * @param points the points
+	 * @param left the first position
+	 * @param right the last position
+	 * @param d the dimension used by the root of the subtree
+	 * @param minSubtreeSize the size of a subtree built by a thread
+	 * @param subtrees the subtrees to be built, as {left, right, d}
+	 */
+	private void splitTree(double[] points, int left, int right, int d, int minSubtreeSize, List<int[]> subtrees) {
+		if (right < left) {
+			return;
+		}
+		if (right - left + 1 <= minSubtreeSize) {
+			subtrees.add(new int[]{left, right, d});
+			return;
+		}
+		int median = (left + right) >>> 1;
+		select(points, left, right, median, d);
+		int nextD = (d + 1 == dimensionCount) ? 0 : d + 1;
+		splitTree(points, left, median - 1, nextD, minSubtreeSize, subtrees);
+		splitTree(points, median + 1, right, nextD, minSubtreeSize, subtrees);
+	}
+
+	/**
+	 * Build the subtree of the points at positions left ... right.
+	 * @param points the points
+	 * @param left the first position
+	 * @param right the last position
+	 * @param d the dimension used by the root of the subtree
+	 */
+	private void buildSubtree(double[] points, int left, int right, int d) {
+		// the "below" branches are built by a loop and the "above" branches by recursive calls
+		while (right > left) {
+			int median = (left + right) >>> 1;
+			select(points, left, right, median, d);
+			d = (d + 1 == dimensionCount) ? 0 : d + 1;
+			buildSubtree(points, median + 1, right, d);
+			right = median - 1;
+		}
+	}
+
+	/**
+	 * Reorder the positions left ... right of pointIndices so that the point at the position
+	 * "rank" is the one that would be there if the points were sorted by the dimension d,
+	 * the points before are not larger, and the points after are not smaller
+	 * (quickselect with the median of three points as pivot).
+	 * @param points the points
+	 * @param left the first position
+	 * @param right the last position
+	 * @param rank the position of the median
+	 * @param d the dimension
+	 */
+	private void select(double[] points, int left, int right, int rank, int d) {
+		int[] indices = pointIndices;
+		int dimensions = dimensionCount;
+		while (right > left) {
+			// choose the median of the first, middle and last points as pivot
+			int middle = (left + right) >>> 1;
+			double a = points[indices[left] * dimensions + d];
+			double b = points[indices[middle] * dimensions + d];
+			double c = points[indices[right] * dimensions + d];
+			double pivot = (a < b) ? ((b < c) ? b : ((a < c) ? c : a)) : ((a < c) ? a : ((b < c) ? c : b));
+
+			// partition the positions (Hoare)
+			int i = left;
+			int j = right;
+			while (i <= j) {
+				while (points[indices[i] * dimensions + d] < pivot) {
+					i++;
+				}
+				while (points[indices[j] * dimensions + d] > pivot) {
+					j--;
+				}
+				if (i <= j) {
+					int temp = indices[i];
+					indices[i] = indices[j];
+					indices[j] = temp;
+					i++;
+					j--;
+				}
+			}
+			// continue with the part that contains the rank
+			if (rank <= j) {
+				right = j;
+			} else if (rank >= i) {
+				left = i;
+			} else {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Get the position of the point of the tree that is the nearest to a given point.
+	 * @param targetPoint the point
+	 * @return the position of the nearest point in the array used to build the tree,
+	 *         or -1 if the tree is empty
+	 */
+	public int nearest(double[] targetPoint) {
+		int[] result = knearest(targetPoint, 1, null);
+		return (result.length == 0) ? -1 : result[0];
+	}
+
+	/**
+	 * Get the positions of the k points of the tree that are the nearest to a given point.
+	 * @param targetPoint the point
+	 * @param k the number of points
+	 * @return the positions of the k nearest points in the array used to build the tree,
+	 *         from the nearest to the farthest (less than k if the tree has less than k points)
+	 */
+	public int[] knearest(double[] targetPoint, int k) {
+		return knearest(targetPoint, k, null);
+	}
+
+	/**
+	 * Get the positions of the k points of the tree that are the nearest to a given point
+	 * and their distances to this point.
+	 * @param targetPoint the point
+	 * @param k the number of points
+	 * @param distances an array of size k where the euclidian distances of the k nearest
+	 *        points are stored (or null if the distances are not needed)
+	 * @return the positions of the k nearest points in the array used to build the tree,
+	 *         from the nearest to the farthest (less than k if the tree has less than k points)
+	 */
+	public int[] knearest(double[] targetPoint, int k, double[] distances) {
+		if (targetPoint.length != dimensionCount && pointCount > 0) {
+			throw new IllegalArgumentException("The point must have " + dimensionCount + " dimensions");
+		}
+		NeighborHeap heap = new NeighborHeap(Math.max(0, Math.min(k, pointCount)));
+		if (heap.capacity > 0) {
+			search(targetPoint, 0, pointCount - 1, 0, heap);
+		}
+		return heap.toSortedArray(distances);
+	}
+
+	/**
+	 * Get the positions of the k points of the tree that are the nearest to each point of
+	 * a set of points. The points are searched by several threads if more than one thread is used.
+	 * @param targetPoints the points
+	 * @param k the number of points
+	 * @return for each point, the positions of its k nearest points in the array used to build
+	 *         the tree, from the nearest to the farthest
+	 */
+	public int[][] knearest(final double[][] targetPoints, final int k) {
+		final int[][] result = new int[targetPoints.length][];
+		// the points are divided in small parts that are given to the threads
+		final int partSize = Math.max(1, Math.min(1024, targetPoints.length / (threadCount * 8)));
+		final int[] nextPart = new int[]{0};
+		runInParallel(new Callable<Object>() {
+			public Object call() {
+				while (true) {
+					int start;
+					synchronized (nextPart) {
+						start = nextPart[0];
+						nextPart[0] += partSize;
+					}
+					if (start >= targetPoints.length) {
+						return null;
+					}
+					int end = Math.min(targetPoints.length, start + partSize);
+					for (int i = start; i < end; i++) {
+						result[i] = knearest(targetPoints[i], k, null);
+					}
+				}
+			}
+		});
+		return result;
+	}
+
+	/**
+	 * Search the nearest points in the subtree of the points at positions left ... right.
+	 * @param target the point
+	 * @param left the first position
+	 * @param right the last position
+	 * @param d the dimension used by the root of the subtree
+	 * @param heap the nearest points found until now
+	 */
+	private void search(double[] target, int left, int right, int d, NeighborHeap heap) {
+		while (left <= right) {
+			int median = (left + right) >>> 1;
+			int offset = median * dimensionCount;
+			// try to save the root of the subtree
+			double sum = 0;
+			for (int i = 0; i < dimensionCount; i++) {
+				double difference = target[i] - coordinates[offset + i];
+				sum += difference * difference;
+			}
+			heap.tryToSave(median, sum);
+
+			int nextD = (d + 1 == dimensionCount) ? 0 : d + 1;
+			double difference = target[d] - coordinates[offset + d];
+			// explore the branch that contains the point first
+			if (difference < 0) {
+				search(target, left, median - 1, nextD, heap);
+				// explore the other branch if it can contain a point nearer than the farthest point
+				if (!heap.isFull() || difference * difference < heap.maximum()) {
+					left = median + 1;
+				} else {
+					return;
+				}
+			} else {
+				search(target, median + 1, right, nextD, heap);
+				if (!heap.isFull() || difference * difference < heap.maximum()) {
+					right = median - 1;
+				} else {
+					return;
+				}
+			}
+			d = nextD;
+		}
+	}
+
+	/**
+	 * Run a task with each thread, or with this thread if there is a single thread.
+	 * @param task the task
+	 */
+	private void runInParallel(Callable<Object> task) {
+		if (threadCount <= 1) {
+			try {
+				task.call();
+			} catch (RuntimeException e) {
+				throw e;
+			} catch (Exception e) {
+				throw new RuntimeException(e);
+			}
+			return;
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(threadCount, new ThreadFactory() {
+			public Thread newThread(Runnable runnable) {
+				// the threads should not prevent the program from exiting
+				Thread thread = new Thread(runnable);
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		try {
+			List<Future<Object>> results = new ArrayList<Future<Object>>(threadCount);
+			for (int t = 0; t < threadCount; t++) {
+				results.add(executor.submit(task));
+			}
+			for (Future<Object> result : results) {
+				result.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+			throw new RuntimeException(e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * The k nearest points found until now by a search, stored in a heap of fixed size
+	 * where the farthest point is at the top.
+	 */
+	private class NeighborHeap {
+		// the maximum number of points
+		final int capacity;
+		// the number of points
+		int size = 0;
+		// the squared distance of each point (the largest is at position 0)
+		final double[] squaredDistances;
+		// the position in the tree of each point
+		final int[] positions;
+
+		/**
+		 * Constructor
+		 * @param capacity the maximum number of points
+		 */
+		NeighborHeap(int capacity) {
+			this.capacity = capacity;
+			squaredDistances = new double[capacity];
+			positions = new int[capacity];
+		}
+
+		/**
+		 * Check if the heap contains the maximum number of points.
+		 * @return true if it is full
+		 */
+		boolean isFull() {
+			return size == capacity;
+		}
+
+		/**
+		 * Get the squared distance of the farthest point
+		 * @return the squared distance
+		 */
+		double maximum() {
+			return squaredDistances[0];
+		}
+
+		/**
+		 * Save a point if it is nearer than the farthest point or if the heap is not full.
+		 * @param position the position of the point in the tree
+		 * @param squaredDistance its squared distance to the target point
+		 */
+		void tryToSave(int position, double squaredDistance) {
+			if (size < capacity) {
+				// add the point at the bottom and move it up
+				int i = size++;
+				while (i > 0) {
+					int parent = (i - 1) >>> 1;
+					if (squaredDistances[parent] >= squaredDistance) {
+						break;
+					}
+					squaredDistances[i] = squaredDistances[parent];
+					positions[i] = positions[parent];
+					i = parent;
+				}
+				squaredDistances[i] = squaredDistance;
+				positions[i] = position;
+			} else if (squaredDistance < squaredDistances[0]) {
+				// replace the farthest point and move the point down
+				siftDown(position, squaredDistance, size);
+			}
+		}
+
+		/**
+		 * Put a point at the top of the heap and move it down.
+		 * @param position the position of the point in the tree
+		 * @param squaredDistance its squared distance
+		 * @param heapSize the number of points in the heap
+		 */
+		private void siftDown(int position, double squaredDistance, int heapSize) {
+			int i = 0;
+			while (true) {
+				int child = 2 * i + 1;
+				if (child >= heapSize) {
+					break;
+				}
+				if (child + 1 < heapSize && squaredDistances[child + 1] > squaredDistances[child]) {
+					child++;
+				}
+				if (squaredDistances[child] <= squaredDistance) {
+					break;
+				}
+				squaredDistances[i] = squaredDistances[child];
+				positions[i] = positions[child];
+				i = child;
+			}
+			squaredDistances[i] = squaredDistance;
+			positions[i] = position;
+		}
+
+		/**
+		 * Empty the heap and get the points from the nearest to the farthest.
+		 * @param distances an array where the distances are stored, or null
+		 * @return the positions of the points in the array used to build the tree
+		 */
+		int[] toSortedArray(double[] distances) {
+			int[] result = new int[size];
+			// remove the farthest point until the heap is empty
+			for (int i = size - 1; i >= 0; i--) {
+				result[i] = pointIndices[positions[0]];
+				if (distances != null) {
+					distances[i] = Math.sqrt(squaredDistances[0]);
+				}
+				size--;
+				siftDown(positions[size], squaredDistances[size], size);
+			}
+			return result;
+		}
+	}
+}
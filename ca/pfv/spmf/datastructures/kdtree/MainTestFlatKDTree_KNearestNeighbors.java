@@ -0,0 +1,78 @@
+package ca.pfv.spmf.datastructures.kdtree;
+/* This file is copyright (c) 2008-2014 Philippe Fournier-Viger
+* 
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+* 
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+* 
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+/**
+ * This test show how to use the FlatKDTree structure to find 
+ * the K nearest neighbors to one or more points and is intended for testing the FlatKDTree structure
+ * by developers.
+* 
+* @see FlatKDTree
+ * @author Philippe Fournier-Viger
+ */
+class MainTestFlatKDTree_KNearestNeighbors {
+
+	public static void main(String[] args) {
+		// create kd tree
+		FlatKDTree tree = new FlatKDTree();
+		// the tree will be built and searched by two threads
+		tree.setThreadCount(2);
+		
+		// Use a list of point to create the kd-tree
+		double[][] points = new double[6][2];
+		points[0] = new double[]{2d,3d};
+		points[1] = new double[]{5d,4d};
+		points[2] = new double[]{9d,6d};
+		points[3] = new double[]{4d,7d};
+		points[4] = new double[]{8d,1d};
+		points[5] = new double[]{7d,2d};
+		
+		// Create a KD Tree with the points
+		tree.buildtree(points);
+		System.out.println("Number of elements in tree: " + tree.size());
+	
+		// Find the 3 nearest neighboors to the point 4,4
+		double query [] = new double[]{4d,4d};
+		int k = 3;
+		double[] distances = new double[k];
+		int[] result = tree.knearest(query, k, distances);
+		
+		System.out.println("THE K NEAREST NEIGHBOORS ARE : ");
+		for(int i = 0; i < result.length; i++){
+			System.out.println(toString(points[result[i]]) + "  distance: " + distances[i]);
+		}
+		
+		// Find the 2 nearest neighboors to several points at the same time
+		double[][] queries = new double[][]{{4d,4d}, {9d,9d}, {0d,0d}};
+		int[][] results = tree.knearest(queries, 2);
+		for(int i = 0; i < queries.length; i++){
+			System.out.print("THE 2 NEAREST NEIGHBOORS OF" + toString(queries[i]) + " ARE : ");
+			for(int position : results[i]){
+				System.out.print(" (" + toString(points[position]) + " )");
+			}
+			System.out.println();
+		}
+	}
+	
+	public static String toString(double [] values){
+		StringBuffer buffer = new StringBuffer();
+		for(Double element : values ){
+			buffer.append("   " + element);
+		}
+		return buffer.toString();
+	}
+}
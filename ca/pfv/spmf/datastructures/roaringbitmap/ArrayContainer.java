@@ -0,0 +1,274 @@
+package ca.pfv.spmf.datastructures.roaringbitmap;
+/* This file is copyright (c) 2008-2014 Philippe Fournier-Viger
+*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+*
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+import java.util.Arrays;
+
+/**
+ * This class is a container of a RoaringBitmap that stores at most 4096 values
+ * in a sorted array. It is used for chunks containing few values.
+ *
+ * @see RoaringBitmap
+ * @see Container
+ * @author Philippe Fournier-Viger
+ */
+final class ArrayContainer extends Container {
+
+	/** the values sorted by increasing order */
+	char[] content;
+	/** the number of values */
+	int cardinality;
+
+	/**
+	 * Constructor.
+	 * @param capacity the initial size of the array
+	 */
+	ArrayContainer(int capacity) {
+		content = new char[capacity];
+	}
+
+	/**
+	 * Constructor.
+	 * @param content the values sorted by increasing order (the array is not copied)
+	 * @param cardinality the number of values in the array
+	 */
+	ArrayContainer(char[] content, int cardinality) {
+		this.content = content;
+		this.cardinality = cardinality;
+	}
+
+	@Override
+	Container add(char x) {
+		int position;
+		// fast path: the values are often added by increasing order
+		if (cardinality == 0 || content[cardinality - 1] < x) {
+			position = cardinality;
+		} else {
+			position = Arrays.binarySearch(content, 0, cardinality, x);
+			if (position >= 0) {
+				return this;
+			}
+			position = -position - 1;
+		}
+		// if the array is full, a bitmap is used instead
+		if (cardinality == MAX_ARRAY_SIZE) {
+			return toBitmapContainer().add(x);
+		}
+		if (cardinality == content.length) {
+			content = Arrays.copyOf(content, Math.min(MAX_ARRAY_SIZE, Math.max(4, cardinality * 2)));
+		}
+		System.arraycopy(content, position, content, position + 1, cardinality - position);
+		content[position] = x;
+		cardinality++;
+		return this;
+	}
+
+	@Override
+	boolean contains(char x) {
+		return Arrays.binarySearch(content, 0, cardinality, x) >= 0;
+	}
+
+	@Override
+	int getCardinality() {
+		return cardinality;
+	}
+
+	@Override
+	Container and(Container other) {
+		ArrayContainer result = new ArrayContainer(cardinality);
+		result.cardinality = (other instanceof ArrayContainer)
+				? intersect(this, (ArrayContainer) other, result.content)
+				: filter(other, true, result.content);
+		return result;
+	}
+
+	@Override
+	Container iand(Container other) {
+		// the result is written over the values of this container
+		cardinality = (other instanceof ArrayContainer)
+				? intersect(this, (ArrayContainer) other, content)
+				: filter(other, true, content);
+		return this;
+	}
+
+	@Override
+	Container andNot(Container other) {
+		ArrayContainer result = new ArrayContainer(cardinality);
+		result.cardinality = filter(other, false, result.content);
+		return result;
+	}
+
+	@Override
+	Container iandNot(Container other) {
+		cardinality = filter(other, false, content);
+		return this;
+	}
+
+	@Override
+	int andCardinality(Container other) {
+		if (other instanceof ArrayContainer) {
+			return intersect(this, (ArrayContainer) other, null);
+		}
+		if (other instanceof RunContainer) {
+			return ((RunContainer) other).filter(content, cardinality, true, null);
+		}
+		int count = 0;
+		for (int i = 0; i < cardinality; i++) {
+			if (other.contains(content[i])) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Keep the values of this container that are (or are not) in another container.
+	 * @param other the other container
+	 * @param keepIfContained if true, keep the values contained in the other container,
+	 *          otherwise keep the values that are not contained
+	 * @param result the array where the values kept are written
+	 * @return the number of values kept
+	 */
+	private int filter(Container other, boolean keepIfContained, char[] result) {
+		if (other instanceof RunContainer) {
+			return ((RunContainer) other).filter(content, cardinality, keepIfContained, result);
+		}
+		int count = 0;
+		for (int i = 0; i < cardinality; i++) {
+			char value = content[i];
+			if (other.contains(value) == keepIfContained) {
+				result[count++] = value;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Calculate the intersection of two ArrayContainers by a merge of their arrays.
+	 * If one array is much smaller than the other, its values are searched
+	 * in the other array by binary search instead.
+	 * @param a the first container
+	 * @param b the second container
+	 * @param result the array where the values are written (null to only count them)
+	 * @return the number of values of the intersection
+	 */
+	private static int intersect(ArrayContainer a, ArrayContainer b, char[] result) {
+		// the first container must be the smallest one. Note that the result may be written
+		// over the values of one of the containers: this is safe since the k-th value of the
+		// result is always found at a position larger than or equal to k in both arrays.
+		if (a.cardinality > b.cardinality) {
+			ArrayContainer temp = a;
+			a = b;
+			b = temp;
+		}
+		int count = 0;
+		if (a.cardinality * 64 < b.cardinality) {
+			int from = 0;
+			for (int i = 0; i < a.cardinality; i++) {
+				int position = Arrays.binarySearch(b.content, from, b.cardinality, a.content[i]);
+				if (position >= 0) {
+					if (result != null) {
+						result[count] = a.content[i];
+					}
+					count++;
+					from = position + 1;
+				} else {
+					from = -position - 1;
+				}
+			}
+			return count;
+		}
+		int i = 0;
+		int j = 0;
+		while (i < a.cardinality && j < b.cardinality) {
+			char valueA = a.content[i];
+			char valueB = b.content[j];
+			if (valueA < valueB) {
+				i++;
+			} else if (valueA > valueB) {
+				j++;
+			} else {
+				if (result != null) {
+					result[count] = valueA;
+				}
+				count++;
+				i++;
+				j++;
+			}
+		}
+		return count;
+	}
+
+	@Override
+	int nextValue(int from) {
+		int position = Arrays.binarySearch(content, 0, cardinality, (char) from);
+		if (position < 0) {
+			position = -position - 1;
+		}
+		return position < cardinality ? content[position] : -1;
+	}
+
+	@Override
+	int fillArray(int[] buffer, int offset, int high) {
+		for (int i = 0; i < cardinality; i++) {
+			buffer[offset + i] = high | content[i];
+		}
+		return cardinality;
+	}
+
+	@Override
+	Container runOptimize() {
+		// count the number of runs of consecutive values
+		int runCount = 0;
+		for (int i = 0; i < cardinality; i++) {
+			if (i == 0 || content[i] != content[i - 1] + 1) {
+				runCount++;
+			}
+		}
+		if (RunContainer.sizeInBytes(runCount) >= getSizeInBytes()) {
+			return this;
+		}
+		RunContainer runs = new RunContainer(runCount);
+		for (int i = 0; i < cardinality; i++) {
+			runs.append(content[i]);
+		}
+		return runs;
+	}
+
+	@Override
+	int getSizeInBytes() {
+		return 2 * cardinality + 4;
+	}
+
+	@Override
+	public Container clone() {
+		return new ArrayContainer(Arrays.copyOf(content, cardinality), cardinality);
+	}
+
+	/**
+	 * Convert this container to a BitmapContainer.
+	 * @return the BitmapContainer
+	 */
+	BitmapContainer toBitmapContainer() {
+		BitmapContainer bitmap = new BitmapContainer();
+		for (int i = 0; i < cardinality; i++) {
+			bitmap.words[content[i] >>> 6] |= 1L << content[i];
+		}
+		bitmap.cardinality = cardinality;
+		return bitmap;
+	}
+}
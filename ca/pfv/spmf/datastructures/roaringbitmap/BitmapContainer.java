@@ -0,0 +1,252 @@
+package ca.pfv.spmf.datastructures.roaringbitmap;
+/* This file is copyright (c) 2008-2014 Philippe Fournier-Viger
+*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+*
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+/**
+ * This class is a container of a RoaringBitmap that stores its values as a bitmap
+ * of 1024 words of 64 bits (65536 bits). It is used for chunks containing more
+ * than 4096 values. When an operation leaves 4096 values or less, the result is
+ * converted to an ArrayContainer.
+ *
+ * @see RoaringBitmap
+ * @see Container
+ * @author Philippe Fournier-Viger
+ */
+final class BitmapContainer extends Container {
+
+	/** the number of words of the bitmap */
+	static final int WORD_COUNT = 1024;
+
+	/** the bitmap */
+	long[] words;
+	/** the number of bits set to 1 */
+	int cardinality;
+
+	/**
+	 * Constructor of an empty container.
+	 */
+	BitmapContainer() {
+		words = new long[WORD_COUNT];
+	}
+
+	/**
+	 * Constructor.
+	 * @param words the bitmap (the array is not copied)
+	 * @param cardinality the number of bits set to 1
+	 */
+	BitmapContainer(long[] words, int cardinality) {
+		this.words = words;
+		this.cardinality = cardinality;
+	}
+
+	@Override
+	Container add(char x) {
+		long before = words[x >>> 6];
+		long after = before | (1L << x);
+		if (before != after) {
+			words[x >>> 6] = after;
+			cardinality++;
+		}
+		return this;
+	}
+
+	@Override
+	boolean contains(char x) {
+		return (words[x >>> 6] & (1L << x)) != 0;
+	}
+
+	@Override
+	int getCardinality() {
+		return cardinality;
+	}
+
+	@Override
+	Container and(Container other) {
+		if (other instanceof ArrayContainer) {
+			return other.and(this);
+		}
+		long[] result = new long[WORD_COUNT];
+		int count = 0;
+		if (other instanceof BitmapContainer) {
+			long[] otherWords = ((BitmapContainer) other).words;
+			for (int k = 0; k < WORD_COUNT; k++) {
+				result[k] = words[k] & otherWords[k];
+				count += Long.bitCount(result[k]);
+			}
+		} else {
+			count = ((RunContainer) other).copyRangesOf(words, result);
+		}
+		return fromWords(result, count);
+	}
+
+	@Override
+	Container iand(Container other) {
+		if (other instanceof ArrayContainer) {
+			return other.and(this);
+		}
+		if (other instanceof BitmapContainer) {
+			long[] otherWords = ((BitmapContainer) other).words;
+			int count = 0;
+			for (int k = 0; k < WORD_COUNT; k++) {
+				words[k] &= otherWords[k];
+				count += Long.bitCount(words[k]);
+			}
+			cardinality = count;
+		} else {
+			long[] result = new long[WORD_COUNT];
+			cardinality = ((RunContainer) other).copyRangesOf(words, result);
+			words = result;
+		}
+		return cardinality > MAX_ARRAY_SIZE ? this : toArrayContainer(words, cardinality);
+	}
+
+	@Override
+	Container andNot(Container other) {
+		return ((BitmapContainer) clone()).iandNot(other);
+	}
+
+	@Override
+	Container iandNot(Container other) {
+		if (other instanceof ArrayContainer) {
+			ArrayContainer array = (ArrayContainer) other;
+			for (int i = 0; i < array.cardinality; i++) {
+				char value = array.content[i];
+				long before = words[value >>> 6];
+				long after = before & ~(1L << value);
+				if (before != after) {
+					words[value >>> 6] = after;
+					cardinality--;
+				}
+			}
+		} else if (other instanceof BitmapContainer) {
+			long[] otherWords = ((BitmapContainer) other).words;
+			int count = 0;
+			for (int k = 0; k < WORD_COUNT; k++) {
+				words[k] &= ~otherWords[k];
+				count += Long.bitCount(words[k]);
+			}
+			cardinality = count;
+		} else {
+			cardinality -= ((RunContainer) other).clearRangesOf(words);
+		}
+		return cardinality > MAX_ARRAY_SIZE ? this : toArrayContainer(words, cardinality);
+	}
+
+	@Override
+	int andCardinality(Container other) {
+		if (other instanceof BitmapContainer) {
+			long[] otherWords = ((BitmapContainer) other).words;
+			int count = 0;
+			for (int k = 0; k < WORD_COUNT; k++) {
+				count += Long.bitCount(words[k] & otherWords[k]);
+			}
+			return count;
+		}
+		return other.andCardinality(this);
+	}
+
+	@Override
+	int nextValue(int from) {
+		int k = from >>> 6;
+		long word = words[k] & (-1L << from);
+		while (true) {
+			if (word != 0) {
+				return (k << 6) + Long.numberOfTrailingZeros(word);
+			}
+			if (++k == WORD_COUNT) {
+				return -1;
+			}
+			word = words[k];
+		}
+	}
+
+	@Override
+	int fillArray(int[] buffer, int offset, int high) {
+		return fillArray(words, buffer, offset, high);
+	}
+
+	/**
+	 * Write the positions of the bits set to 1 in a bitmap in an array, in increasing order.
+	 * @param words the bitmap
+	 * @param buffer the array
+	 * @param offset the position where the first value is written
+	 * @param high the high 16 bits of the values, shifted (added to each value)
+	 * @return the number of values written
+	 */
+	static int fillArray(long[] words, int[] buffer, int offset, int high) {
+		int count = 0;
+		for (int k = 0; k < words.length; k++) {
+			long word = words[k];
+			while (word != 0) {
+				buffer[offset + count++] = high | (k << 6) | Long.numberOfTrailingZeros(word);
+				word &= word - 1;
+			}
+		}
+		return count;
+	}
+
+	@Override
+	Container runOptimize() {
+		// count the number of runs: a run starts at each bit set to 1
+		// whose previous bit is 0
+		int runCount = 0;
+		long previousBit = 0;
+		for (int k = 0; k < WORD_COUNT; k++) {
+			long word = words[k];
+			runCount += Long.bitCount(word & ~((word << 1) | previousBit));
+			previousBit = word >>> 63;
+		}
+		if (RunContainer.sizeInBytes(runCount) >= getSizeInBytes()) {
+			return this;
+		}
+		RunContainer runs = new RunContainer(runCount);
+		for (int value = nextValue(0); value >= 0; value = (value == 65535) ? -1 : nextValue(value + 1)) {
+			runs.append((char) value);
+		}
+		return runs;
+	}
+
+	@Override
+	int getSizeInBytes() {
+		return WORD_COUNT * 8;
+	}
+
+	@Override
+	public Container clone() {
+		return new BitmapContainer(words.clone(), cardinality);
+	}
+
+	/**
+	 * Create an ArrayContainer containing the bits set to 1 of a bitmap.
+	 * @param words the bitmap
+	 * @param cardinality the number of bits set to 1
+	 * @return the ArrayContainer
+	 */
+	static ArrayContainer toArrayContainer(long[] words, int cardinality) {
+		ArrayContainer array = new ArrayContainer(cardinality);
+		int count = 0;
+		for (int k = 0; k < words.length; k++) {
+			long word = words[k];
+			while (word != 0) {
+				array.content[count++] = (char) ((k << 6) | Long.numberOfTrailingZeros(word));
+				word &= word - 1;
+			}
+		}
+		array.cardinality = count;
+		return array;
+	}
+}
@@ -0,0 +1,146 @@
+package ca.pfv.spmf.datastructures.roaringbitmap;
+/* This file is copyright (c) 2008-2014 Philippe Fournier-Viger
+*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+*
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+/**
+ * This abstract class represents a container of a RoaringBitmap. A container stores
+ * the low 16 bits of the integers of a RoaringBitmap that have the same high 16 bits
+ * (a chunk of 65536 integers). The low 16 bits are represented as char values
+ * since they are unsigned.
+ * <br/><br/>
+ *
+ * The operations that modify a container return the container that contains the result,
+ * which may be a container of another type (for example, an ArrayContainer becomes
+ * a BitmapContainer when it contains more than 4096 values).
+ * The operations whose name starts with "i" (iand, iandNot) reuse the memory of
+ * the container when possible, while the other ones do not modify it.
+ *
+ * @see RoaringBitmap
+ * @author Philippe Fournier-Viger
+ */
+abstract class Container implements Cloneable {
+
+	/** the maximum number of values of an ArrayContainer (a BitmapContainer uses less memory above) */
+	static final int MAX_ARRAY_SIZE = 4096;
+
+	/**
+	 * Add a value to this container.
+	 * @param x the value
+	 * @return the container containing the result
+	 */
+	abstract Container add(char x);
+
+	/**
+	 * Check if this container contains a value.
+	 * @param x the value
+	 * @return true if it contains the value
+	 */
+	abstract boolean contains(char x);
+
+	/**
+	 * Get the number of values in this container.
+	 * @return the number of values
+	 */
+	abstract int getCardinality();
+
+	/**
+	 * Calculate the intersection of this container with another container.
+	 * @param other the other container
+	 * @return a new container containing the result
+	 */
+	abstract Container and(Container other);
+
+	/**
+	 * Calculate the intersection of this container with another container,
+	 * reusing the memory of this container if possible.
+	 * @param other the other container
+	 * @return the container containing the result (this container or a new one)
+	 */
+	abstract Container iand(Container other);
+
+	/**
+	 * Calculate the values of this container that are not in another container.
+	 * @param other the other container
+	 * @return a new container containing the result
+	 */
+	abstract Container andNot(Container other);
+
+	/**
+	 * Calculate the values of this container that are not in another container,
+	 * reusing the memory of this container if possible.
+	 * @param other the other container
+	 * @return the container containing the result (this container or a new one)
+	 */
+	abstract Container iandNot(Container other);
+
+	/**
+	 * Calculate the number of values of the intersection of this container with another
+	 * container, without creating the intersection.
+	 * @param other the other container
+	 * @return the number of values
+	 */
+	abstract int andCardinality(Container other);
+
+	/**
+	 * Get the smallest value of this container that is larger than or equal to a given value.
+	 * @param from the given value (between 0 and 65535)
+	 * @return the value or -1 if there is none
+	 */
+	abstract int nextValue(int from);
+
+	/**
+	 * Write the values of this container in an array, in increasing order.
+	 * @param buffer the array
+	 * @param offset the position where the first value is written
+	 * @param high the high 16 bits of the values, shifted (added to each value)
+	 * @return the number of values written
+	 */
+	abstract int fillArray(int[] buffer, int offset, int high);
+
+	/**
+	 * Convert this container to a RunContainer (or an ArrayContainer) if it would use less memory.
+	 * @return the container using the least memory (this container or a new one)
+	 */
+	abstract Container runOptimize();
+
+	/**
+	 * Get the approximate memory used by this container.
+	 * @return the number of bytes
+	 */
+	abstract int getSizeInBytes();
+
+	/**
+	 * Make a copy of this container.
+	 * @return the copy
+	 */
+	@Override
+	public abstract Container clone();
+
+	/**
+	 * Create a container for a number of values, using the type that uses the least
+	 * memory for that number (ArrayContainer or BitmapContainer).
+	 * @param words a bitmap of 1024 words containing the values
+	 * @param cardinality the number of values
+	 * @return the container
+	 */
+	static Container fromWords(long[] words, int cardinality) {
+		if (cardinality > MAX_ARRAY_SIZE) {
+			return new BitmapContainer(words, cardinality);
+		}
+		return BitmapContainer.toArrayContainer(words, cardinality);
+	}
+}
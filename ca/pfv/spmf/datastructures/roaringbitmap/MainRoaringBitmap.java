@@ -0,0 +1,72 @@
+package ca.pfv.spmf.datastructures.roaringbitmap;
+/* This file is copyright (c) 2008-2014 Philippe Fournier-Viger
+*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+*
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+import java.util.BitSet;
+
+/**
+ * This is a class for testing the RoaringBitmap from code and it is intended for developers only.
+ *
+ * @author Philippe Fournier-Viger
+ */
+class MainRoaringBitmap {
+
+	public static void main(String[] args) {
+		RoaringBitmap bitmap1 = new RoaringBitmap();
+		bitmap1.set(1);
+		bitmap1.set(3);
+		bitmap1.set(70000);
+		bitmap1.set(70001);
+		bitmap1.set(5000000);
+		RoaringBitmap bitmap2 = new RoaringBitmap();
+		bitmap2.set(3);
+		bitmap2.set(70001);
+		bitmap2.set(5000000);
+		bitmap2.set(6000000);
+		System.out.println("bitmap1: " + bitmap1 + "  cardinality: " + bitmap1.cardinality());
+		System.out.println("bitmap2: " + bitmap2 + "  cardinality: " + bitmap2.cardinality());
+		System.out.println("bitmap1 AND bitmap2: " + RoaringBitmap.and(bitmap1, bitmap2)
+				+ "  cardinality: " + RoaringBitmap.andCardinality(bitmap1, bitmap2));
+		System.out.println("bitmap1 AND NOT bitmap2: " + RoaringBitmap.andNot(bitmap1, bitmap2));
+
+		// compare the memory used by a BitSet and a RoaringBitmap for a sparse tidset
+		// (one transaction out of 1000 in a database of 10 million transactions)
+		// and for a tidset containing a long run of transactions
+		RoaringBitmap sparse = new RoaringBitmap();
+		for (int tid = 0; tid < 10000000; tid += 1000) {
+			sparse.set(tid);
+		}
+		RoaringBitmap run = new RoaringBitmap();
+		for (int tid = 0; tid < 10000000; tid++) {
+			run.set(tid);
+		}
+		run.runOptimize();
+		printMemory("sparse tidset", sparse);
+		printMemory("tidset of consecutive tids", run);
+	}
+
+	/**
+	 * Print the memory used by a RoaringBitmap and by a BitSet containing the same values.
+	 * @param name the name of the bitmap
+	 * @param bitmap the bitmap
+	 */
+	private static void printMemory(String name, RoaringBitmap bitmap) {
+		BitSet bitset = bitmap.toBitSet();
+		System.out.println(name + " (" + bitmap.cardinality() + " tids) BitSet: "
+				+ (bitset.size() / 8) + " bytes  RoaringBitmap: " + bitmap.getSizeInBytes() + " bytes");
+	}
+}
@@ -0,0 +1,473 @@
+package ca.pfv.spmf.datastructures.roaringbitmap;
+/* This file is copyright (c) 2008-2014 Philippe Fournier-Viger
+*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+*
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * This class is a compressed bitmap for storing a set of non negative integers
+ * (for example a tidset), inspired by the Roaring bitmaps of Chambi, Lemire et al. (2016).
+ * Unlike a java.util.BitSet, whose size depends on the largest integer of the set,
+ * the memory used by a RoaringBitmap depends on the number of integers and on how they
+ * are distributed.
+ * <br/><br/>
+ *
+ * The integers are divided into chunks according to their high 16 bits. The low 16 bits
+ * of the integers of a chunk are stored in a container, which is either:
+ * <ul>
+ * <li>an ArrayContainer (a sorted array) if the chunk contains at most 4096 integers,</li>
+ * <li>a BitmapContainer (65536 bits) if the chunk contains more integers,</li>
+ * <li>a RunContainer (a list of runs of consecutive integers) if runOptimize() was called
+ * and it uses less memory than the two other types.</li>
+ * </ul>
+ * The chunks that contain no integers are not stored. The operations AND and AND NOT
+ * are performed chunk by chunk with an algorithm specific to each pair of container types.
+ * <br/><br/>
+ *
+ * The methods and(), andNot(), nextSetBit(), cardinality() and clone() behave
+ * like those of java.util.BitSet, so that an algorithm using a BitSet as tidset can use
+ * a RoaringBitmap in the same way. The static method andCardinality() calculates the size
+ * of an intersection without creating it and andInto() writes an intersection
+ * in a buffer provided by the caller.
+ *
+ * @see Container
+ * @author Philippe Fournier-Viger
+ */
+public class RoaringBitmap implements Cloneable {
+
+	/** the high 16 bits of each chunk, sorted by increasing order */
+	private char[] keys;
+	/** the container of each chunk */
+	private Container[] containers;
+	/** the number of chunks */
+	private int size = 0;
+
+	/**
+	 * Constructor of an empty bitmap.
+	 */
+	public RoaringBitmap() {
+		keys = new char[4];
+		containers = new Container[4];
+	}
+
+	/**
+	 * Constructor of an empty bitmap with a given number of chunks.
+	 * @param capacity the number of chunks
+	 */
+	private RoaringBitmap(int capacity) {
+		keys = new char[Math.max(1, capacity)];
+		containers = new Container[Math.max(1, capacity)];
+	}
+
+	/**
+	 * Add an integer to this bitmap (this is faster if integers are added by increasing order).
+	 * @param x the integer (non negative)
+	 */
+	public void set(int x) {
+		char key = (char) (x >>> 16);
+		int index;
+		// fast path: the integers are often added by increasing order
+		if (size > 0 && keys[size - 1] == key) {
+			index = size - 1;
+		} else {
+			index = (size > 0 && keys[size - 1] < key) ? -size - 1 : Arrays.binarySearch(keys, 0, size, key);
+			if (index < 0) {
+				index = -index - 1;
+				insertChunk(index, key, new ArrayContainer(4));
+			}
+		}
+		containers[index] = containers[index].add((char) x);
+	}
+
+	/**
+	 * Check if this bitmap contains an integer.
+	 * @param x the integer
+	 * @return true if the integer is in this bitmap
+	 */
+	public boolean get(int x) {
+		int index = Arrays.binarySearch(keys, 0, size, (char) (x >>> 16));
+		return index >= 0 && containers[index].contains((char) x);
+	}
+
+	/**
+	 * Get the number of integers in this bitmap.
+	 * @return the number of integers
+	 */
+	public int cardinality() {
+		int count = 0;
+		for (int i = 0; i < size; i++) {
+			count += containers[i].getCardinality();
+		}
+		return count;
+	}
+
+	/**
+	 * Check if this bitmap is empty.
+	 * @return true if it contains no integer
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Keep only the integers of this bitmap that are also in another bitmap.
+	 * The containers of this bitmap are reused when possible.
+	 * @param other the other bitmap
+	 */
+	public void and(RoaringBitmap other) {
+		int count = 0;
+		int i = 0;
+		int j = 0;
+		while (i < size && j < other.size) {
+			if (keys[i] < other.keys[j]) {
+				i++;
+			} else if (keys[i] > other.keys[j]) {
+				j++;
+			} else {
+				Container result = containers[i].iand(other.containers[j]);
+				// the chunks that become empty are removed
+				if (result.getCardinality() > 0) {
+					keys[count] = keys[i];
+					containers[count] = result;
+					count++;
+				}
+				i++;
+				j++;
+			}
+		}
+		// release the remaining containers
+		Arrays.fill(containers, count, size, null);
+		size = count;
+	}
+
+	/**
+	 * Remove from this bitmap the integers that are in another bitmap.
+	 * The containers of this bitmap are reused when possible.
+	 * @param other the other bitmap
+	 */
+	public void andNot(RoaringBitmap other) {
+		int count = 0;
+		int j = 0;
+		for (int i = 0; i < size; i++) {
+			while (j < other.size && other.keys[j] < keys[i]) {
+				j++;
+			}
+			Container result = containers[i];
+			if (j < other.size && other.keys[j] == keys[i]) {
+				result = result.iandNot(other.containers[j]);
+			}
+			// the chunks that become empty are removed
+			if (result.getCardinality() > 0) {
+				keys[count] = keys[i];
+				containers[count] = result;
+				count++;
+			}
+		}
+		Arrays.fill(containers, count, size, null);
+		size = count;
+	}
+
+	/**
+	 * Calculate the intersection of two bitmaps.
+	 * @param a the first bitmap
+	 * @param b the second bitmap
+	 * @return a new bitmap containing the intersection
+	 */
+	public static RoaringBitmap and(RoaringBitmap a, RoaringBitmap b) {
+		RoaringBitmap result = new RoaringBitmap(Math.min(a.size, b.size));
+		int i = 0;
+		int j = 0;
+		while (i < a.size && j < b.size) {
+			if (a.keys[i] < b.keys[j]) {
+				i++;
+			} else if (a.keys[i] > b.keys[j]) {
+				j++;
+			} else {
+				Container container = a.containers[i].and(b.containers[j]);
+				if (container.getCardinality() > 0) {
+					result.appendChunk(a.keys[i], container);
+				}
+				i++;
+				j++;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Calculate the integers of a bitmap that are not in another bitmap.
+	 * @param a the first bitmap
+	 * @param b the bitmap containing the integers to be removed
+	 * @return a new bitmap containing the result
+	 */
+	public static RoaringBitmap andNot(RoaringBitmap a, RoaringBitmap b) {
+		RoaringBitmap result = new RoaringBitmap(a.size);
+		int j = 0;
+		for (int i = 0; i < a.size; i++) {
+			while (j < b.size && b.keys[j] < a.keys[i]) {
+				j++;
+			}
+			Container container = (j < b.size && b.keys[j] == a.keys[i])
+					? a.containers[i].andNot(b.containers[j]) : a.containers[i].clone();
+			if (container.getCardinality() > 0) {
+				result.appendChunk(a.keys[i], container);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Calculate the number of integers of the intersection of two bitmaps
+	 * without creating the intersection.
+	 * @param a the first bitmap
+	 * @param b the second bitmap
+	 * @return the number of integers in both bitmaps
+	 */
+	public static int andCardinality(RoaringBitmap a, RoaringBitmap b) {
+		int count = 0;
+		int i = 0;
+		int j = 0;
+		while (i < a.size && j < b.size) {
+			if (a.keys[i] < b.keys[j]) {
+				i++;
+			} else if (a.keys[i] > b.keys[j]) {
+				j++;
+			} else {
+				count += a.containers[i].andCardinality(b.containers[j]);
+				i++;
+				j++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Write the integers of the intersection of this bitmap with another bitmap
+	 * in an array provided by the caller, in increasing order. No bitmap is created,
+	 * except for chunks where both containers are RunContainers or BitmapContainers.
+	 * @param other the other bitmap
+	 * @param buffer the array (it must be large enough for the whole intersection)
+	 * @return the number of integers written
+	 */
+	public int andInto(RoaringBitmap other, int[] buffer) {
+		int count = 0;
+		int i = 0;
+		int j = 0;
+		while (i < size && j < other.size) {
+			if (keys[i] < other.keys[j]) {
+				i++;
+			} else if (keys[i] > other.keys[j]) {
+				j++;
+			} else {
+				int high = keys[i] << 16;
+				Container containerA = containers[i];
+				Container containerB = other.containers[j];
+				// if one of the containers is an array, its values are searched in the other one
+				if (containerB instanceof ArrayContainer) {
+					Container temp = containerA;
+					containerA = containerB;
+					containerB = temp;
+				}
+				if (containerA instanceof ArrayContainer) {
+					ArrayContainer array = (ArrayContainer) containerA;
+					for (int k = 0; k < array.cardinality; k++) {
+						if (containerB.contains(array.content[k])) {
+							buffer[count++] = high | array.content[k];
+						}
+					}
+				} else {
+					count += containerA.and(containerB).fillArray(buffer, count, high);
+				}
+				i++;
+				j++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Get the smallest integer of this bitmap that is larger than or equal to a given integer.
+	 * As with a BitSet, the integers can be iterated as follows:<br/>
+	 * for (int x = bitmap.nextSetBit(0); x >= 0; x = bitmap.nextSetBit(x + 1)) {...}
+	 * @param from the given integer
+	 * @return the integer or -1 if there is none
+	 */
+	public int nextSetBit(int from) {
+		char key = (char) (from >>> 16);
+		int index = Arrays.binarySearch(keys, 0, size, key);
+		if (index >= 0) {
+			int value = containers[index].nextValue(from & 0xFFFF);
+			if (value >= 0) {
+				return (key << 16) | value;
+			}
+			index++;
+		} else {
+			index = -index - 1;
+		}
+		// otherwise, it is the first integer of the next chunk
+		return index < size ? (keys[index] << 16) | containers[index].nextValue(0) : -1;
+	}
+
+	/**
+	 * Write all the integers of this bitmap in an array, in increasing order.
+	 * @param buffer the array (it must be large enough)
+	 * @return the number of integers written
+	 */
+	public int toArray(int[] buffer) {
+		int count = 0;
+		for (int i = 0; i < size; i++) {
+			count += containers[i].fillArray(buffer, count, keys[i] << 16);
+		}
+		return count;
+	}
+
+	/**
+	 * Convert the containers of this bitmap to RunContainers when this reduces
+	 * the memory used. This should be called after all the integers have been added.
+	 */
+	public void runOptimize() {
+		for (int i = 0; i < size; i++) {
+			containers[i] = containers[i].runOptimize();
+		}
+	}
+
+	/**
+	 * Get the approximate memory used by this bitmap.
+	 * @return the number of bytes
+	 */
+	public long getSizeInBytes() {
+		long bytes = 16 + 2L * keys.length + 4L * containers.length;
+		for (int i = 0; i < size; i++) {
+			bytes += containers[i].getSizeInBytes();
+		}
+		return bytes;
+	}
+
+	/**
+	 * Convert this bitmap to a BitSet.
+	 * @return the BitSet
+	 */
+	public BitSet toBitSet() {
+		BitSet bitset = new BitSet();
+		for (int x = nextSetBit(0); x >= 0; x = nextSetBit(x + 1)) {
+			bitset.set(x);
+		}
+		return bitset;
+	}
+
+	/**
+	 * Create a bitmap containing the same integers as a BitSet.
+	 * @param bitset the BitSet
+	 * @return the bitmap
+	 */
+	public static RoaringBitmap valueOf(BitSet bitset) {
+		RoaringBitmap bitmap = new RoaringBitmap();
+		for (int x = bitset.nextSetBit(0); x >= 0; x = bitset.nextSetBit(x + 1)) {
+			bitmap.set(x);
+		}
+		return bitmap;
+	}
+
+	/**
+	 * Make a copy of this bitmap.
+	 * @return the copy
+	 */
+	@Override
+	public RoaringBitmap clone() {
+		RoaringBitmap copy = new RoaringBitmap(size);
+		for (int i = 0; i < size; i++) {
+			copy.appendChunk(keys[i], containers[i].clone());
+		}
+		return copy;
+	}
+
+	/**
+	 * Check if this bitmap contains the same integers as another object.
+	 * @param object the other object
+	 * @return true if the other object is a RoaringBitmap with the same integers
+	 */
+	@Override
+	public boolean equals(Object object) {
+		if (!(object instanceof RoaringBitmap)) {
+			return false;
+		}
+		RoaringBitmap other = (RoaringBitmap) object;
+		if (size != other.size || cardinality() != other.cardinality()) {
+			return false;
+		}
+		for (int i = 0; i < size; i++) {
+			if (keys[i] != other.keys[i]
+					|| containers[i].andCardinality(other.containers[i]) != containers[i].getCardinality()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public int hashCode() {
+		int hash = 0;
+		for (int x = nextSetBit(0); x >= 0; x = nextSetBit(x + 1)) {
+			hash = 31 * hash + x;
+		}
+		return hash;
+	}
+
+	/**
+	 * Get a string representation of this bitmap (as for a BitSet).
+	 * @return the string
+	 */
+	@Override
+	public String toString() {
+		StringBuilder buffer = new StringBuilder("{");
+		for (int x = nextSetBit(0); x >= 0; x = nextSetBit(x + 1)) {
+			if (buffer.length() > 1) {
+				buffer.append(", ");
+			}
+			buffer.append(x);
+		}
+		return buffer.append('}').toString();
+	}
+
+	/**
+	 * Insert a chunk at a given position.
+	 * @param index the position
+	 * @param key the high 16 bits of the chunk
+	 * @param container the container of the chunk
+	 */
+	private void insertChunk(int index, char key, Container container) {
+		if (size == keys.length) {
+			keys = Arrays.copyOf(keys, size * 2);
+			containers = Arrays.copyOf(containers, size * 2);
+		}
+		System.arraycopy(keys, index, keys, index + 1, size - index);
+		System.arraycopy(containers, index, containers, index + 1, size - index);
+		keys[index] = key;
+		containers[index] = container;
+		size++;
+	}
+
+	/**
+	 * Add a chunk after the last chunk.
+	 * @param key the high 16 bits of the chunk (larger than those of the last chunk)
+	 * @param container the container of the chunk
+	 */
+	private void appendChunk(char key, Container container) {
+		insertChunk(size, key, container);
+	}
+}
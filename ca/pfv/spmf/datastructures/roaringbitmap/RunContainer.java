@@ -0,0 +1,370 @@
+package ca.pfv.spmf.datastructures.roaringbitmap;
+/* This file is copyright (c) 2008-2014 Philippe Fournier-Viger
+*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+*
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+import java.util.Arrays;
+
+/**
+ * This class is a container of a RoaringBitmap that stores its values as runs of
+ * consecutive values. Each run is stored as two char values: its first value and
+ * its length minus one. It is used for chunks where the values form long runs
+ * (for example, the transactions of a very frequent item) and is created by
+ * RoaringBitmap.runOptimize().
+ * <br/><br/>
+ *
+ * The intersection with another RunContainer is a RunContainer. The other operations
+ * produce an ArrayContainer or a BitmapContainer.
+ *
+ * @see RoaringBitmap
+ * @see Container
+ * @author Philippe Fournier-Viger
+ */
+final class RunContainer extends Container {
+
+	/** the runs (first value, length - 1) */
+	char[] runs;
+	/** the number of runs */
+	int runCount;
+	/** the number of values */
+	int cardinality;
+
+	/**
+	 * Constructor.
+	 * @param capacity the initial number of runs that can be stored
+	 */
+	RunContainer(int capacity) {
+		runs = new char[2 * Math.max(1, capacity)];
+	}
+
+	/**
+	 * Get the approximate memory used by a RunContainer.
+	 * @param runCount the number of runs
+	 * @return the number of bytes
+	 */
+	static int sizeInBytes(int runCount) {
+		return 4 * runCount + 4;
+	}
+
+	/**
+	 * Add a value larger than all the values of this container.
+	 * @param x the value
+	 */
+	void append(char x) {
+		if (runCount > 0 && x == start(runCount - 1) + length(runCount - 1) + 1) {
+			// extend the last run
+			runs[2 * runCount - 1]++;
+		} else {
+			// start a new run
+			if (2 * runCount == runs.length) {
+				runs = Arrays.copyOf(runs, runs.length * 2);
+			}
+			runs[2 * runCount] = x;
+			runs[2 * runCount + 1] = 0;
+			runCount++;
+		}
+		cardinality++;
+	}
+
+	/**
+	 * Get the first value of a run.
+	 * @param i the run
+	 * @return the value
+	 */
+	private int start(int i) {
+		return runs[2 * i];
+	}
+
+	/**
+	 * Get the length minus one of a run.
+	 * @param i the run
+	 * @return the length minus one
+	 */
+	private int length(int i) {
+		return runs[2 * i + 1];
+	}
+
+	/**
+	 * Find the last run starting at or before a value.
+	 * @param x the value
+	 * @return the run or -1 if all the runs start after the value
+	 */
+	private int findRun(int x) {
+		int low = 0;
+		int high = runCount - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			if (start(middle) <= x) {
+				low = middle + 1;
+			} else {
+				high = middle - 1;
+			}
+		}
+		return high;
+	}
+
+	@Override
+	Container add(char x) {
+		if (runCount == 0 || x > start(runCount - 1) + length(runCount - 1)) {
+			append(x);
+			return this;
+		}
+		if (contains(x)) {
+			return this;
+		}
+		// adding a value in the middle of the runs is rare, so the container is converted
+		return toArrayOrBitmap().add(x);
+	}
+
+	@Override
+	boolean contains(char x) {
+		int run = findRun(x);
+		return run >= 0 && x <= start(run) + length(run);
+	}
+
+	@Override
+	int getCardinality() {
+		return cardinality;
+	}
+
+	@Override
+	Container and(Container other) {
+		if (!(other instanceof RunContainer)) {
+			return other.and(this);
+		}
+		// intersect the two lists of runs
+		RunContainer otherRuns = (RunContainer) other;
+		RunContainer result = new RunContainer(runCount + otherRuns.runCount);
+		int i = 0;
+		int j = 0;
+		while (i < runCount && j < otherRuns.runCount) {
+			int endI = start(i) + length(i);
+			int endJ = otherRuns.start(j) + otherRuns.length(j);
+			int start = Math.max(start(i), otherRuns.start(j));
+			int end = Math.min(endI, endJ);
+			if (start <= end) {
+				result.runs[2 * result.runCount] = (char) start;
+				result.runs[2 * result.runCount + 1] = (char) (end - start);
+				result.runCount++;
+				result.cardinality += end - start + 1;
+			}
+			// go to the next run of the list whose current run ends first
+			if (endI < endJ) {
+				i++;
+			} else {
+				j++;
+			}
+		}
+		return result;
+	}
+
+	@Override
+	Container iand(Container other) {
+		return and(other);
+	}
+
+	@Override
+	Container andNot(Container other) {
+		return toArrayOrBitmap().iandNot(other);
+	}
+
+	@Override
+	Container iandNot(Container other) {
+		return andNot(other);
+	}
+
+	@Override
+	int andCardinality(Container other) {
+		if (other instanceof ArrayContainer) {
+			return other.andCardinality(this);
+		}
+		if (other instanceof BitmapContainer) {
+			long[] words = ((BitmapContainer) other).words;
+			int count = 0;
+			for (int i = 0; i < runCount; i++) {
+				int start = start(i);
+				int end = start + length(i);
+				for (int k = start >>> 6; k <= end >>> 6; k++) {
+					count += Long.bitCount(words[k] & rangeMask(k, start, end));
+				}
+			}
+			return count;
+		}
+		return and(other).getCardinality();
+	}
+
+	/**
+	 * Keep the values of a sorted array that are (or are not) in this container.
+	 * The array and the runs are scanned a single time.
+	 * @param values the sorted array
+	 * @param size the number of values in the array
+	 * @param keepIfContained if true, keep the values contained in this container,
+	 *          otherwise keep the values that are not contained
+	 * @param result the array where the values kept are written (it can be the
+	 *          sorted array itself, or null to only count the values)
+	 * @return the number of values kept
+	 */
+	int filter(char[] values, int size, boolean keepIfContained, char[] result) {
+		int count = 0;
+		int run = 0;
+		for (int i = 0; i < size; i++) {
+			char value = values[i];
+			// skip the runs that end before the value
+			while (run < runCount && start(run) + length(run) < value) {
+				run++;
+			}
+			boolean contained = run < runCount && start(run) <= value;
+			if (contained == keepIfContained) {
+				if (result != null) {
+					result[count] = value;
+				}
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Copy the bits of a bitmap that are in the runs of this container to another bitmap.
+	 * @param source the bitmap to be copied (1024 words)
+	 * @param target the bitmap where the bits are copied (1024 words set to 0)
+	 * @return the number of bits set to 1 copied
+	 */
+	int copyRangesOf(long[] source, long[] target) {
+		int count = 0;
+		for (int i = 0; i < runCount; i++) {
+			int start = start(i);
+			int end = start + length(i);
+			for (int k = start >>> 6; k <= end >>> 6; k++) {
+				long word = source[k] & rangeMask(k, start, end);
+				target[k] |= word;
+				count += Long.bitCount(word);
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Set to 0 the bits of a bitmap that are in the runs of this container.
+	 * @param words the bitmap (1024 words)
+	 * @return the number of bits that were set to 1 and have been cleared
+	 */
+	int clearRangesOf(long[] words) {
+		int count = 0;
+		for (int i = 0; i < runCount; i++) {
+			int start = start(i);
+			int end = start + length(i);
+			for (int k = start >>> 6; k <= end >>> 6; k++) {
+				long mask = rangeMask(k, start, end);
+				count += Long.bitCount(words[k] & mask);
+				words[k] &= ~mask;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Get the bits of a word that are between two values.
+	 * @param k the position of the word
+	 * @param start the first value
+	 * @param end the last value (inclusive)
+	 * @return a word where these bits are set to 1
+	 */
+	private static long rangeMask(int k, int start, int end) {
+		int first = Math.max(start, k << 6) & 63;
+		int last = Math.min(end, (k << 6) + 63) & 63;
+		return (-1L << first) & (-1L >>> (63 - last));
+	}
+
+	@Override
+	int nextValue(int from) {
+		int run = findRun(from);
+		if (run >= 0 && from <= start(run) + length(run)) {
+			return from;
+		}
+		return run + 1 < runCount ? start(run + 1) : -1;
+	}
+
+	@Override
+	int fillArray(int[] buffer, int offset, int high) {
+		int count = 0;
+		for (int i = 0; i < runCount; i++) {
+			int start = start(i);
+			for (int value = start; value <= start + length(i); value++) {
+				buffer[offset + count++] = high | value;
+			}
+		}
+		return count;
+	}
+
+	@Override
+	Container runOptimize() {
+		Container other = toArrayOrBitmap();
+		return other.getSizeInBytes() < getSizeInBytes() ? other : this;
+	}
+
+	@Override
+	int getSizeInBytes() {
+		return sizeInBytes(runCount);
+	}
+
+	@Override
+	public Container clone() {
+		RunContainer copy = new RunContainer(runCount);
+		System.arraycopy(runs, 0, copy.runs, 0, 2 * runCount);
+		copy.runCount = runCount;
+		copy.cardinality = cardinality;
+		return copy;
+	}
+
+	/**
+	 * Convert this container to an ArrayContainer or a BitmapContainer,
+	 * depending on its number of values.
+	 * @return the new container
+	 */
+	Container toArrayOrBitmap() {
+		if (cardinality <= MAX_ARRAY_SIZE) {
+			ArrayContainer array = new ArrayContainer(cardinality);
+			array.cardinality = fillChars(array.content);
+			return array;
+		}
+		long[] words = new long[BitmapContainer.WORD_COUNT];
+		for (int i = 0; i < runCount; i++) {
+			int start = start(i);
+			int end = start + length(i);
+			for (int k = start >>> 6; k <= end >>> 6; k++) {
+				words[k] |= rangeMask(k, start, end);
+			}
+		}
+		return new BitmapContainer(words, cardinality);
+	}
+
+	/**
+	 * Write the values of this container in an array of char.
+	 * @param content the array
+	 * @return the number of values written
+	 */
+	private int fillChars(char[] content) {
+		int count = 0;
+		for (int i = 0; i < runCount; i++) {
+			int start = start(i);
+			for (int value = start; value <= start + length(i); value++) {
+				content[count++] = (char) value;
+			}
+		}
+		return count;
+	}
+}
@@ -0,0 +1,300 @@
+package ca.pfv.spmf.input.binary;
+/* Copyright (c) 2008-2013 Philippe Fournier-Viger
+* 
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+* 
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+* 
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* 
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * This class reads a transaction database or a sequence database stored in the binary
+ * SPMF format. The file is memory-mapped, so opening it is almost instantaneous, the
+ * values are read directly from the operating system page cache and several processes
+ * reading the same file share the same memory.
+ * <br/><br/>
+ * 
+ * The binary format contains (all values are big-endian):
+ * <ul>
+ * <li>a header: magic number, version, type of database (transactions or sequences),
+ *     type of items (integers or strings), number of items, number of transactions or sequences,
+ *     number of values, and the positions of the dictionary, of the offsets and of the data,</li>
+ * <li>a dictionary giving the original item of each dense item id (0, 1, 2...). The ids follow
+ *     the order of the original items, so that a sorted itemset remains sorted,</li>
+ * <li>the offsets: the position of the first value of each transaction or sequence in the data
+ *     (as a long), followed by the total number of values,</li>
+ * <li>the data: the item ids of each transaction or sequence. In a sequence, each itemset 
+ *     is followed by the separator -1.</li>
+ * </ul>
+ * Files in this format are created with the converters of the package
+ * ca.pfv.spmf.tools.dataset_converter (format SPMF_BINARY).
+ * 
+ * @author Philippe Fournier-Viger
+ */
+public class BinaryDataset {
+	/** the magic number at the beginning of a file ("SPMB") */
+	public static final int MAGIC = 0x53504D42;
+	/** the version of the format */
+	public static final int VERSION = 1;
+	/** the type of a transaction database */
+	public static final int TYPE_TRANSACTIONS = 0;
+	/** the type of a sequence database */
+	public static final int TYPE_SEQUENCES = 1;
+	/** the dictionary contains integer items */
+	public static final int ITEMS_INTEGERS = 0;
+	/** the dictionary contains string items */
+	public static final int ITEMS_STRINGS = 1;
+	/** the value indicating the end of an itemset in a sequence */
+	public static final int ITEMSET_SEPARATOR = -1;
+	/** the size of the header in bytes */
+	public static final int HEADER_SIZE = 56;
+	/** the charset used for string items */
+	public static final Charset CHARSET = Charset.forName("UTF-8");
+
+	// the size of each mapped part of the file (a mapping is limited to 2GB)
+	private static final int SEGMENT_SHIFT = 30;
+	private static final long SEGMENT_SIZE = 1L << SEGMENT_SHIFT;
+
+	// the file
+	private final RandomAccessFile file;
+	// the type of database and of items
+	private final int type;
+	private final int itemsType;
+	// the number of transactions or sequences
+	private final int size;
+	// the total number of values in the data
+	private final long valueCount;
+	// the dictionary (only one of the two is used)
+	private int[] integerItems = null;
+	private String[] stringItems = null;
+	// the mapped parts of the offsets and of the data
+	private final MappedByteBuffer[] offsetSegments;
+	private final MappedByteBuffer[] dataSegments;
+
+	/**
+	 * Open a file in the binary format.
+	 * @param path the path of the file
+	 * @throws IOException exception if error while reading the file or if it is not in the binary format
+	 */
+	public BinaryDataset(String path) throws IOException {
+		file = new RandomAccessFile(path, "r");
+		FileChannel channel = file.getChannel();
+
+		// read the header
+		ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+		if (header.getInt() != MAGIC) {
+			file.close();
+			throw new IOException("The file " + path + " is not in the binary SPMF format");
+		}
+		int version = header.getInt();
+		if (version != VERSION) {
+			file.close();
+			throw new IOException("Unsupported version of the binary SPMF format: " + version);
+		}
+		type = header.getInt();
+		itemsType = header.getInt();
+		int itemCount = header.getInt();
+		size = header.getInt();
+		valueCount = header.getLong();
+		long dictionaryPosition = header.getLong();
+		long offsetsPosition = header.getLong();
+		long dataPosition = header.getLong();
+
+		// read the dictionary
+		ByteBuffer dictionary = channel.map(FileChannel.MapMode.READ_ONLY,
+				dictionaryPosition, offsetsPosition - dictionaryPosition);
+		if (itemsType == ITEMS_INTEGERS) {
+			integerItems = new int[itemCount];
+			dictionary.asIntBuffer().get(integerItems);
+		} else {
+			stringItems = new String[itemCount];
+			for (int i = 0; i < itemCount; i++) {
+				byte[] bytes = new byte[dictionary.getInt()];
+				dictionary.get(bytes);
+				stringItems[i] = new String(bytes, CHARSET);
+			}
+		}
+
+		// map the offsets and the data
+		offsetSegments = map(channel, offsetsPosition, (size + 1L) * 8);
+		dataSegments = map(channel, dataPosition, valueCount * 4);
+	}
+
+	/**
+	 * Map a part of the file in segments.
+	 * @param channel the channel of the file
+	 * @param position the position of the part
+	 * @param length the length of the part in bytes
+	 * @return the segments
+	 * @throws IOException exception if error while mapping the file
+	 */
+	private static MappedByteBuffer[] map(FileChannel channel, long position, long length) throws IOException {
+		int count = (int) ((length + SEGMENT_SIZE - 1) >>> SEGMENT_SHIFT);
+		MappedByteBuffer[] segments = new MappedByteBuffer[count];
+		for (int i = 0; i < count; i++) {
+			long start = i * SEGMENT_SIZE;
+			segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, position + start,
+					Math.min(SEGMENT_SIZE, length - start));
+		}
+		return segments;
+	}
+
+	/**
+	 * Check if this file contains a sequence database.
+	 * @return true if it is a sequence database, false if it is a transaction database
+	 */
+	public boolean isSequenceDatabase() {
+		return type == TYPE_SEQUENCES;
+	}
+
+	/**
+	 * Check if the items of this file are strings.
+	 * @return true if the items are strings, false if they are integers.
+	 */
+	public boolean hasStringItems() {
+		return itemsType == ITEMS_STRINGS;
+	}
+
+	/**
+	 * Get the number of transactions or sequences.
+	 * @return the number
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Get the number of distinct items.
+	 * @return the number of items
+	 */
+	public int getItemCount() {
+		return (integerItems != null) ? integerItems.length : stringItems.length;
+	}
+
+	/**
+	 * Get the total number of values (item ids and separators) of the data.
+	 * @return the number of values
+	 */
+	public long getValueCount() {
+		return valueCount;
+	}
+
+	/**
+	 * Get the original item of an item id (if the items are integers).
+	 * @param id the item id
+	 * @return the original item
+	 */
+	public int getItem(int id) {
+		return integerItems[id];
+	}
+
+	/**
+	 * Get the original item of an item id as a String.
+	 * @param id the item id
+	 * @return the original item
+	 */
+	public String getItemAsString(int id) {
+		return (stringItems != null) ? stringItems[id] : String.valueOf(integerItems[id]);
+	}
+
+	/**
+	 * Get a copy of the dictionary of integer items.
+	 * @return an array indicating the original item of each item id
+	 */
+	public int[] getItems() {
+		return Arrays.copyOf(integerItems, integerItems.length);
+	}
+
+	/**
+	 * Get the position of the first value of a transaction or sequence.
+	 * @param index the transaction or sequence index
+	 * @return the position of the value
+	 */
+	public long getStart(int index) {
+		long byteOffset = index * 8L;
+		return offsetSegments[(int) (byteOffset >>> SEGMENT_SHIFT)]
+				.getLong((int) (byteOffset & (SEGMENT_SIZE - 1)));
+	}
+
+	/**
+	 * Get the position after the last value of a transaction or sequence.
+	 * @param index the transaction or sequence index
+	 * @return the position
+	 */
+	public long getEnd(int index) {
+		return getStart(index + 1);
+	}
+
+	/**
+	 * Get a value of the data (an item id or an itemset separator).
+	 * @param position the position of the value
+	 * @return the value
+	 */
+	public int getValue(long position) {
+		long byteOffset = position * 4L;
+		return dataSegments[(int) (byteOffset >>> SEGMENT_SHIFT)]
+				.getInt((int) (byteOffset & (SEGMENT_SIZE - 1)));
+	}
+
+	/**
+	 * Copy the values of a transaction or sequence in an array.
+	 * @param index the transaction or sequence index
+	 * @param buffer an array (it is replaced by a larger array if it is too small)
+	 * @return the array containing the values (the number of values is getEnd(index) - getStart(index))
+	 */
+	public int[] read(int index, int[] buffer) {
+		long start = getStart(index);
+		int length = (int) (getEnd(index) - start);
+		if (buffer == null || buffer.length < length) {
+			buffer = new int[length];
+		}
+		read(start, buffer, 0, length);
+		return buffer;
+	}
+
+	/**
+	 * Copy consecutive values of the data in an array.
+	 * @param position the position of the first value
+	 * @param destination the array
+	 * @param offset the position in the array where the first value is copied
+	 * @param length the number of values to be copied
+	 */
+	public void read(long position, int[] destination, int offset, int length) {
+		while (length > 0) {
+			long byteOffset = position * 4L;
+			ByteBuffer segment = dataSegments[(int) (byteOffset >>> SEGMENT_SHIFT)].duplicate();
+			segment.position((int) (byteOffset & (SEGMENT_SIZE - 1)));
+			// copy the values until the end of the segment
+			int count = Math.min(length, segment.remaining() / 4);
+			segment.asIntBuffer().get(destination, offset, count);
+			position += count;
+			offset += count;
+			length -= count;
+		}
+	}
+
+	/**
+	 * Close the file.
+	 * @throws IOException exception if error while closing the file
+	 */
+	public void close() throws IOException {
+		file.close();
+	}
+}
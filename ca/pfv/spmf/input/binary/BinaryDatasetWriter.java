@@ -0,0 +1,328 @@
+package ca.pfv.spmf.input.binary;
+/* Copyright (c) 2008-2013 Philippe Fournier-Viger
+* 
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+* 
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+* 
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* 
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * This class converts a transaction database or a sequence database in SPMF text format
+ * to the binary SPMF format read by {@link BinaryDataset}.
+ * <br/><br/>
+ * 
+ * The input file is read twice. The first scan collects the distinct items and
+ * counts the transactions (or sequences) and values, so that the positions of all the 
+ * sections are known before writing. The second scan writes the offsets and the data.
+ * <br/><br/>
+ * 
+ * As in the text loaders of SPMF, empty lines and lines starting with '#', '%' or '@' 
+ * are ignored, and for sequences, the timestamps (tokens starting with '&lt;') are ignored
+ * and a sequence is only kept if it is terminated by -2 (the values after the last -2
+ * of a line are ignored during both scans).
+ * 
+ * @see BinaryDataset
+ * @author Philippe Fournier-Viger
+ */
+public class BinaryDatasetWriter {
+
+	// the size of the buffers used for writing
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	// the type of database
+	private final int type;
+	// true if the items are strings
+	private final boolean stringItems;
+
+	// the number of transactions or sequences and the number of values
+	private int size = 0;
+	private long valueCount = 0;
+
+	// the dictionary, sorted (only one is used)
+	private int[] integerItems;
+	private String[] stringDictionary;
+	// the dense id of each string item
+	private Map<String, Integer> stringIds;
+
+	// the file being written and the buffers for the offsets and the data
+	private FileChannel channel;
+	private ByteBuffer offsetsBuffer;
+	private long offsetsPosition;
+	private ByteBuffer dataBuffer;
+	private long dataPosition;
+
+	/**
+	 * Constructor
+	 * @param sequences true to convert a sequence database, false for a transaction database
+	 * @param stringItems true if the items are strings (sequence databases only)
+	 */
+	private BinaryDatasetWriter(boolean sequences, boolean stringItems) {
+		this.type = sequences ? BinaryDataset.TYPE_SEQUENCES : BinaryDataset.TYPE_TRANSACTIONS;
+		this.stringItems = stringItems;
+	}
+
+	/**
+	 * Convert a transaction database in SPMF format to the binary format.
+	 * @param input the path of the input file
+	 * @param output the path of the binary file to be written
+	 * @throws IOException exception if error while reading/writing files
+	 */
+	public static void writeTransactionDatabase(String input, String output) throws IOException {
+		new BinaryDatasetWriter(false, false).write(input, output);
+	}
+
+	/**
+	 * Convert a sequence database in SPMF format to the binary format.
+	 * @param input the path of the input file
+	 * @param output the path of the binary file to be written
+	 * @param stringItems true if the items are strings rather than integers
+	 * @throws IOException exception if error while reading/writing files
+	 */
+	public static void writeSequenceDatabase(String input, String output, boolean stringItems) throws IOException {
+		new BinaryDatasetWriter(true, stringItems).write(input, output);
+	}
+
+	/**
+	 * Convert a file.
+	 * @param input the path of the input file
+	 * @param output the path of the binary file to be written
+	 * @throws IOException exception if error while reading/writing files
+	 */
+	private void write(String input, String output) throws IOException {
+		// first scan: find the items and count the values
+		Set<Integer> integerSet = new HashSet<Integer>();
+		Set<String> stringSet = new HashSet<String>();
+		scan(input, integerSet, stringSet);
+
+		// create the dictionary
+		byte[][] encodedItems = null;
+		long dictionarySize;
+		if (stringItems) {
+			stringDictionary = stringSet.toArray(new String[stringSet.size()]);
+			Arrays.sort(stringDictionary);
+			stringIds = new HashMap<String, Integer>();
+			encodedItems = new byte[stringDictionary.length][];
+			dictionarySize = 0;
+			for (int i = 0; i < stringDictionary.length; i++) {
+				stringIds.put(stringDictionary[i], i);
+				encodedItems[i] = stringDictionary[i].getBytes(BinaryDataset.CHARSET);
+				dictionarySize += 4 + encodedItems[i].length;
+			}
+		} else {
+			integerItems = new int[integerSet.size()];
+			int i = 0;
+			for (Integer item : integerSet) {
+				integerItems[i++] = item;
+			}
+			Arrays.sort(integerItems);
+			dictionarySize = integerItems.length * 4L;
+		}
+		int itemCount = stringItems ? stringDictionary.length : integerItems.length;
+
+		// the positions of the sections (the offsets are aligned on 8 bytes)
+		long dictionaryPosition = BinaryDataset.HEADER_SIZE;
+		offsetsPosition = (dictionaryPosition + dictionarySize + 7) & ~7L;
+		dataPosition = offsetsPosition + (size + 1L) * 8;
+
+		RandomAccessFile file = new RandomAccessFile(output, "rw");
+		try {
+			channel = file.getChannel();
+			channel.truncate(0);
+
+			// write the header and the dictionary
+			ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+			buffer.putInt(BinaryDataset.MAGIC);
+			buffer.putInt(BinaryDataset.VERSION);
+			buffer.putInt(type);
+			buffer.putInt(stringItems ? BinaryDataset.ITEMS_STRINGS : BinaryDataset.ITEMS_INTEGERS);
+			buffer.putInt(itemCount);
+			buffer.putInt(size);
+			buffer.putLong(valueCount);
+			buffer.putLong(dictionaryPosition);
+			buffer.putLong(offsetsPosition);
+			buffer.putLong(dataPosition);
+			long position = 0;
+			for (int i = 0; i < itemCount; i++) {
+				int length = stringItems ? 4 + encodedItems[i].length : 4;
+				if (buffer.remaining() < length) {
+					position = flush(buffer, position);
+					if (buffer.capacity() < length) {
+						buffer = ByteBuffer.allocate(length);
+					}
+				}
+				if (stringItems) {
+					buffer.putInt(encodedItems[i].length);
+					buffer.put(encodedItems[i]);
+				} else {
+					buffer.putInt(integerItems[i]);
+				}
+			}
+			flush(buffer, position);
+
+			// second scan: write the offsets and the data
+			offsetsBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+			dataBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+			scan(input, null, null);
+			// the last offset is the total number of values
+			putOffset(valueCount);
+			offsetsPosition = flush(offsetsBuffer, offsetsPosition);
+			dataPosition = flush(dataBuffer, dataPosition);
+		} finally {
+			file.close();
+		}
+	}
+
+	/**
+	 * Read the input file. During the first scan, the items are added to the sets and the
+	 * values are counted. During the second scan (the sets are null), the values are written.
+	 * @param input the path of the input file
+	 * @param integerSet the set of integer items or null
+	 * @param stringSet the set of string items or null
+	 * @throws IOException exception if error while reading/writing files
+	 */
+	private void scan(String input, Set<Integer> integerSet, Set<String> stringSet) throws IOException {
+		boolean firstScan = integerSet != null;
+		long value = 0; // the number of values written
+		List<String> tokens = new ArrayList<String>();
+		BufferedReader reader = new BufferedReader(new FileReader(input));
+		try {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				// if the line is a comment, is empty or is metadata
+				if (line.isEmpty() || line.charAt(0) == '#' || line.charAt(0) == '%'
+						|| line.charAt(0) == '@') {
+					continue;
+				}
+				// the tokens of the current transaction or sequence (they are only
+				// used when the end of the transaction or sequence is reached)
+				tokens.clear();
+				for (String token : line.split(" ")) {
+					if (token.isEmpty() || token.charAt(0) == '<') {
+						// empty token or timestamp: ignore it
+						continue;
+					}
+					if (type == BinaryDataset.TYPE_SEQUENCES && token.equals("-2")) {
+						// end of the sequence
+						value = endRecord(firstScan, value, tokens, integerSet, stringSet);
+						tokens.clear();
+					} else {
+						// an item, or -1 for the end of an itemset
+						tokens.add(token);
+					}
+				}
+				// a transaction is a line
+				if (type == BinaryDataset.TYPE_TRANSACTIONS) {
+					value = endRecord(firstScan, value, tokens, integerSet, stringSet);
+				}
+			}
+		} finally {
+			reader.close();
+		}
+		if (firstScan) {
+			valueCount = value;
+		}
+	}
+
+	/**
+	 * Record a transaction or sequence. During the first scan, its items are added to the sets.
+	 * During the second scan, its offset and its values are written.
+	 * @param firstScan true if this is the first scan
+	 * @param start the position of the first value of the transaction or sequence
+	 * @param tokens the items of the transaction or sequence (and -1 for the end of an itemset)
+	 * @param integerSet the set of integer items or null
+	 * @param stringSet the set of string items or null
+	 * @return the position after the last value of the transaction or sequence
+	 * @throws IOException exception if error while writing the file
+	 */
+	private long endRecord(boolean firstScan, long start, List<String> tokens,
+			Set<Integer> integerSet, Set<String> stringSet) throws IOException {
+		if (firstScan) {
+			size++;
+		} else {
+			putOffset(start);
+		}
+		for (String token : tokens) {
+			if (type == BinaryDataset.TYPE_SEQUENCES && token.equals("-1")) {
+				// end of an itemset
+				if (!firstScan) {
+					putValue(BinaryDataset.ITEMSET_SEPARATOR);
+				}
+			} else if (firstScan) {
+				if (stringItems) {
+					stringSet.add(token);
+				} else {
+					integerSet.add(Integer.parseInt(token));
+				}
+			} else if (stringItems) {
+				putValue(stringIds.get(token));
+			} else {
+				putValue(Arrays.binarySearch(integerItems, Integer.parseInt(token)));
+			}
+		}
+		return start + tokens.size();
+	}
+
+	/**
+	 * Write an offset.
+	 * @param offset the offset
+	 * @throws IOException exception if error while writing the file
+	 */
+	private void putOffset(long offset) throws IOException {
+		if (offsetsBuffer.remaining() < 8) {
+			offsetsPosition = flush(offsetsBuffer, offsetsPosition);
+		}
+		offsetsBuffer.putLong(offset);
+	}
+
+	/**
+	 * Write a value of the data.
+	 * @param value the value
+	 * @throws IOException exception if error while writing the file
+	 */
+	private void putValue(int value) throws IOException {
+		if (dataBuffer.remaining() < 4) {
+			dataPosition = flush(dataBuffer, dataPosition);
+		}
+		dataBuffer.putInt(value);
+	}
+
+	/**
+	 * Write the content of a buffer to the file and clear the buffer.
+	 * @param buffer the buffer
+	 * @param position the position in the file where the content should be written
+	 * @return the position after the content
+	 * @throws IOException exception if error while writing the file
+	 */
+	private long flush(ByteBuffer buffer, long position) throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			position += channel.write(buffer, position);
+		}
+		buffer.clear();
+		return position;
+	}
+}
@@ -0,0 +1,258 @@
+package ca.pfv.spmf.input.reader;
+/* Copyright (c) 2008-2013 Philippe Fournier-Viger
+* 
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+* 
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+* 
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* 
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * This class reads a file in the SPMF format, one line (transaction) at a time.
+ * The bytes of the file are read in a direct buffer and the integers of each line
+ * are parsed directly in an array of int that is reused for all the lines, so that
+ * no object is created for each item or each line.
+ * <br/><br/>
+ * 
+ * Empty lines and lines starting with '#', '%' or '@' (comments and metadata) are skipped.
+ * The integers of a line are separated by spaces. A line can be divided in several
+ * segments by the ':' character, as in the files for high-utility itemset mining
+ * ("items:transaction utility:utilities").
+ * <br/><br/>
+ * 
+ * The file can be read as an iterator:
+ * <pre>
+ * TransactionFileReader reader = new TransactionFileReader(path);
+ * while(reader.nextTransaction()){
+ *     int[] items = reader.getValues();
+ *     int length = reader.getLength();
+ *     ...
+ * }
+ * reader.close();
+ * </pre>
+ * or with a callback by using the method read(String, TransactionHandler).
+ * 
+ * @see TransactionHandler
+ * @author Philippe Fournier-Viger
+ */
+public class TransactionFileReader {
+	// the size of the buffer for reading the file
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	// the file
+	private final FileInputStream stream;
+	private final FileChannel channel;
+	// the buffer containing the bytes that are read
+	private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+	// true if the end of the file has been reached
+	private boolean endOfFile = false;
+
+	// the integers of the current line
+	private int[] values = new int[64];
+	// the number of integers in the current line
+	private int length = 0;
+	// the position of the first integer of each segment of the current line
+	private int[] segmentStarts = new int[4];
+	// the number of segments of the current line
+	private int segmentCount = 0;
+
+	/**
+	 * Constructor
+	 * @param path the path of the file to be read
+	 * @throws IOException exception if error while opening the file
+	 */
+	public TransactionFileReader(String path) throws IOException {
+		stream = new FileInputStream(path);
+		channel = stream.getChannel();
+		// the buffer is initially empty
+		buffer.flip();
+	}
+
+	/**
+	 * Read all the transactions of a file and send them to a handler.
+	 * @param path the path of the file
+	 * @param handler the handler
+	 * @throws IOException exception if error while reading the file
+	 */
+	public static void read(String path, TransactionHandler handler) throws IOException {
+		TransactionFileReader reader = new TransactionFileReader(path);
+		try {
+			while (reader.nextTransaction()) {
+				handler.processTransaction(reader.values, reader.length);
+			}
+		} finally {
+			reader.close();
+		}
+	}
+
+	/**
+	 * Read the next byte of the file.
+	 * @return the byte or -1 if the end of the file is reached.
+	 * @throws IOException exception if error while reading the file
+	 */
+	private int nextByte() throws IOException {
+		// if the buffer is empty, we fill it
+		if (!buffer.hasRemaining()) {
+			if (endOfFile) {
+				return -1;
+			}
+			buffer.clear();
+			int count;
+			do {
+				count = channel.read(buffer);
+			} while (count == 0);
+			buffer.flip();
+			if (count == -1) {
+				endOfFile = true;
+				return -1;
+			}
+		}
+		return buffer.get();
+	}
+
+	/**
+	 * Read the next transaction of the file.
+	 * @return true if a transaction was read or false if the end of the file is reached.
+	 * @throws IOException exception if error while reading the file
+	 */
+	public boolean nextTransaction() throws IOException {
+		while (true) {
+			length = 0;
+			segmentCount = 1;
+			segmentStarts[0] = 0;
+
+			int b = nextByte();
+			// if the end of the file
+			if (b == -1) {
+				return false;
+			}
+			// if the line is a comment or a kind of metadata, we skip it
+			if (b == '#' || b == '%' || b == '@') {
+				while (b != -1 && b != '\n') {
+					b = nextByte();
+				}
+				continue;
+			}
+
+			// parse the integers of the line
+			int value = 0;
+			boolean inNumber = false;
+			boolean negative = false;
+			while (b != -1 && b != '\n') {
+				if (b >= '0' && b <= '9') {
+					value = value * 10 + (b - '0');
+					inNumber = true;
+				} else if (b == '-' && !inNumber && !negative) {
+					negative = true;
+				} else {
+					// the end of an integer
+					if (inNumber) {
+						addValue(negative ? -value : value);
+					} else if (negative) {
+						throw new NumberFormatException("Unexpected character '-'");
+					}
+					value = 0;
+					inNumber = false;
+					negative = false;
+					if (b == ':') {
+						// the start of a new segment
+						if (segmentCount == segmentStarts.length) {
+							segmentStarts = Arrays.copyOf(segmentStarts, segmentCount * 2);
+						}
+						segmentStarts[segmentCount++] = length;
+					} else if (b != ' ' && b != '\r' && b != '\t') {
+						throw new NumberFormatException("Unexpected character '" + (char) b + "'");
+					}
+				}
+				b = nextByte();
+			}
+			if (inNumber) {
+				addValue(negative ? -value : value);
+			}
+			// if the line is empty, we skip it
+			if (length == 0 && segmentCount == 1) {
+				continue;
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Add an integer to the current line.
+	 * @param value the integer
+	 */
+	private void addValue(int value) {
+		if (length == values.length) {
+			values = Arrays.copyOf(values, length * 2);
+		}
+		values[length++] = value;
+	}
+
+	/**
+	 * Get the integers of the current transaction. This array is reused
+	 * for the next transaction.
+	 * @return the array (only the first getLength() integers are valid)
+	 */
+	public int[] getValues() {
+		return values;
+	}
+
+	/**
+	 * Get the number of integers in the current transaction.
+	 * @return the number of integers
+	 */
+	public int getLength() {
+		return length;
+	}
+
+	/**
+	 * Get the number of segments of the current transaction (the number
+	 * of ':' separators plus one).
+	 * @return the number of segments
+	 */
+	public int getSegmentCount() {
+		return segmentCount;
+	}
+
+	/**
+	 * Get the position of the first integer of a segment of the current transaction.
+	 * @param segment the segment number (starting at 0)
+	 * @return the position in the array returned by getValues()
+	 */
+	public int getSegmentStart(int segment) {
+		return segmentStarts[segment];
+	}
+
+	/**
+	 * Get the position following the last integer of a segment of the current transaction.
+	 * @param segment the segment number (starting at 0)
+	 * @return the position in the array returned by getValues()
+	 */
+	public int getSegmentEnd(int segment) {
+		return (segment + 1 < segmentCount) ? segmentStarts[segment + 1] : length;
+	}
+
+	/**
+	 * Close the file.
+	 * @throws IOException exception if error while closing the file
+	 */
+	public void close() throws IOException {
+		channel.close();
+		stream.close();
+	}
+}
@@ -0,0 +1,38 @@
+package ca.pfv.spmf.input.reader;
+/* Copyright (c) 2008-2013 Philippe Fournier-Viger
+* 
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+* 
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+* 
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* 
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+import java.io.IOException;
+
+/**
+ * This interface is implemented by the classes that want to be notified of each
+ * transaction read by a TransactionFileReader.
+ * 
+ * @see TransactionFileReader
+ * @author Philippe Fournier-Viger
+ */
+public interface TransactionHandler {
+
+	/**
+	 * Process a transaction. The array is reused for the next transaction,
+	 * so it should be copied if it has to be kept.
+	 * @param items the integers of the transaction
+	 * @param length the number of integers in the array
+	 * @throws IOException exception if error while processing the transaction
+	 */
+	void processTransaction(int[] items, int length) throws IOException;
+}
@@ -24,6 +24,8 @@ import java.io.InputStreamReader;
 import java.util.ArrayList;
 import java.util.List;
 
+import ca.pfv.spmf.input.binary.BinaryDataset;
+
 /**
  * Implementation of a sequence database, where each sequence is implemented
  * as an array of integers and should have a unique id.
@@ -76,6 +78,56 @@ public class SequenceDatabase {
 	
 //	
 
+	/**
+	 * Method to load a sequence database from a file in the binary SPMF format
+	 * (see BinaryDataset). The file is memory-mapped, so no text has to be parsed.
+	 * @param path  the input file path.
+	 * @throws IOException exception if error while reading the file.
+	 */
+	public void loadBinaryFile(String path) throws IOException {
+		BinaryDataset dataset = new BinaryDataset(path);
+		try {
+			if (!dataset.isSequenceDatabase()) {
+				throw new IOException("The file " + path + " contains a transaction database");
+			}
+			int[] values = null;
+			// for each sequence
+			for (int i = 0; i < dataset.size(); i++) {
+				values = dataset.read(i, values);
+				int length = (int) (dataset.getEnd(i) - dataset.getStart(i));
+				// create a new Sequence to store the sequence
+				Sequence sequence = new Sequence();
+				// create a list for the first itemset.
+				List<Integer> itemset = new ArrayList<Integer>();
+				for (int j = 0; j < length; j++) {
+					int value = values[j];
+					// if the value is -1, it means that we reached the end of an itemset.
+					if (value == BinaryDataset.ITEMSET_SEPARATOR) {
+						// add the current itemset to the sequence
+						sequence.addItemset(itemset.toArray());
+						// create a new itemset
+						itemset = new ArrayList<Integer>();
+					} else {
+						// otherwise it is the id of an item
+						int item = dataset.getItem(value);
+						// we update the maximum and minimum item for statistics
+						if(item >= maxItem){
+							maxItem = item;
+						}
+						if(item < minItem){
+							minItem = item;
+						}
+						itemset.add(item);
+					}
+				}
+				// we add the sequence to the list of sequences
+				sequences.add(sequence);
+			}
+		} finally {
+			dataset.close();
+		}
+	}
+
 	/**
 	 * Method to process a line from the input file
 	 * @param tokens A list of tokens from the line (which were separated by spaces in the original file).
@@ -0,0 +1,398 @@
+package ca.pfv.spmf.input.transaction_database_array_integers;
+/* Copyright (c) 2008-2013 Philippe Fournier-Viger
+* 
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+* 
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+* 
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* 
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import ca.pfv.spmf.datastructures.triangularmatrix.AbstractTriangularMatrix;
+import ca.pfv.spmf.input.binary.BinaryDataset;
+import ca.pfv.spmf.input.reader.TransactionFileReader;
+import ca.pfv.spmf.input.reader.TransactionHandler;
+import ca.pfv.spmf.input.transaction_database_list_integers.TransactionDatabase;
+
+/**
+ * This class represents a transaction database where all the items are stored
+ * in a single array of integers. The transactions are stored one after the other
+ * and a second array indicates the position of the first item of each transaction.
+ * This uses much less memory than a list of lists of Integer objects
+ * (TransactionDatabase) and the items can be read without creating objects.
+ * <br/><br/>
+ * 
+ * The transaction "tid" contains the items getItems()[i] for
+ * getTransactionStart(tid) <= i < getTransactionEnd(tid).
+ * <br/><br/>
+ * 
+ * The items can optionally be recoded as dense ids (0, 1, 2...), either by keeping the
+ * order of the original items (remapItems()) or by decreasing order of support
+ * (recodeByFrequency()). The original item of an id is given by getOriginalItem().
+ * Items are assumed to be positive integers, as in all SPMF files.
+ * 
+ * @see TransactionDatabase
+ * @see TransactionFileReader
+ * @author Philippe Fournier-Viger
+ */
+public class CompactTransactionDatabase {
+
+	// the items of all the transactions
+	private int[] items = new int[1024];
+	// the position of the first item of each transaction, followed by
+	// the position after the last item of the last transaction
+	private int[] offsets = new int[257];
+	// the number of transactions
+	private int transactionCount = 0;
+	// the largest item in the database (-1 if no item)
+	private int maxItem = -1;
+	// the original item of each id if the items were recoded (null otherwise)
+	private int[] originalItems = null;
+
+	/**
+	 * Method to load a file containing a transaction database into memory
+	 * @param path the path of the file
+	 * @throws IOException exception if error reading the file
+	 */
+	public void loadFile(String path) throws IOException {
+		TransactionFileReader.read(path, new TransactionHandler() {
+			public void processTransaction(int[] transaction, int length) {
+				addTransaction(transaction, length);
+			}
+		});
+		trimToSize();
+	}
+
+	/**
+	 * Method to load a file containing a transaction database in the binary SPMF
+	 * format (see BinaryDataset). The content of this database is replaced. 
+	 * Since the file already contains dense item ids, the items are copied
+	 * directly from the memory-mapped file and the database is recoded as 
+	 * with remapItems().
+	 * @param path the path of the file
+	 * @throws IOException exception if error reading the file
+	 */
+	public void loadBinaryFile(String path) throws IOException {
+		BinaryDataset dataset = new BinaryDataset(path);
+		try {
+			if (dataset.isSequenceDatabase()) {
+				throw new IOException("The file " + path + " contains a sequence database");
+			}
+			if (dataset.getValueCount() > Integer.MAX_VALUE) {
+				throw new IOException("The file " + path + " contains too many items");
+			}
+			transactionCount = dataset.size();
+			offsets = new int[transactionCount + 1];
+			for (int tid = 0; tid <= transactionCount; tid++) {
+				offsets[tid] = (int) dataset.getStart(tid);
+			}
+			items = new int[(int) dataset.getValueCount()];
+			dataset.read(0, items, 0, items.length);
+			originalItems = dataset.getItems();
+			maxItem = originalItems.length - 1;
+		} finally {
+			dataset.close();
+		}
+	}
+
+	/**
+	 * Method to copy the transactions of a TransactionDatabase to this database.
+	 * @param database the transaction database
+	 */
+	public void addTransactions(TransactionDatabase database) {
+		int[] buffer = new int[16];
+		for (List<Integer> transaction : database.getTransactions()) {
+			if (transaction.size() > buffer.length) {
+				buffer = new int[transaction.size()];
+			}
+			int length = 0;
+			for (Integer item : transaction) {
+				buffer[length++] = item;
+			}
+			addTransaction(buffer, length);
+		}
+	}
+
+	/**
+	 * Method to add a new transaction to this database.
+	 * @param transaction an array containing the items of the transaction
+	 * @param length the number of items of the transaction in the array
+	 */
+	public void addTransaction(int[] transaction, int length) {
+		int start = offsets[transactionCount];
+		// if the arrays are full, they are enlarged
+		if (start + length > items.length) {
+			items = Arrays.copyOf(items, Math.max(items.length * 2, start + length));
+		}
+		if (transactionCount + 2 > offsets.length) {
+			offsets = Arrays.copyOf(offsets, offsets.length * 2);
+		}
+		// copy the items
+		for (int i = 0; i < length; i++) {
+			int item = transaction[i];
+			items[start + i] = item;
+			if (item > maxItem) {
+				maxItem = item;
+			}
+		}
+		transactionCount++;
+		offsets[transactionCount] = start + length;
+	}
+
+	/**
+	 * Reduce the size of the arrays to the space that is used.
+	 */
+	public void trimToSize() {
+		items = Arrays.copyOf(items, offsets[transactionCount]);
+		offsets = Arrays.copyOf(offsets, transactionCount + 1);
+	}
+
+	/**
+	 * Recode the items as dense ids 0, 1, 2... by increasing order of the original
+	 * items, so that the order of the items in the transactions is unchanged.
+	 */
+	public void remapItems() {
+		int[] supports = calculateItemSupports();
+		// give an id to each item that appears in the database
+		int[] newIds = new int[maxItem + 1];
+		int count = 0;
+		for (int item = 0; item <= maxItem; item++) {
+			newIds[item] = (supports[item] > 0) ? count++ : -1;
+		}
+		int[] newOriginalItems = new int[count];
+		for (int item = 0; item <= maxItem; item++) {
+			if (newIds[item] != -1) {
+				newOriginalItems[newIds[item]] = getOriginalItem(item);
+			}
+		}
+		// replace the items
+		int end = offsets[transactionCount];
+		for (int i = 0; i < end; i++) {
+			items[i] = newIds[items[i]];
+		}
+		originalItems = newOriginalItems;
+		maxItem = count - 1;
+	}
+
+	/**
+	 * Recode the items as dense ids 0, 1, 2... by decreasing order of support (the
+	 * most frequent item becomes 0). Items having a support lower than a threshold
+	 * are removed and the items of each transaction are sorted by increasing id,
+	 * which is the order used by pattern-growth algorithms such as FPGrowth.
+	 * @param minsupRelative the minimum support of the items to be kept
+	 */
+	public void recodeByFrequency(int minsupRelative) {
+		final int[] supports = calculateItemSupports();
+		// sort the frequent items by decreasing support and by the original
+		// order if the same support. Each key contains the support and the
+		// reverse of the item, so that sorting the keys gives the reverse order.
+		int count = 0;
+		for (int item = 0; item <= maxItem; item++) {
+			if (supports[item] > 0 && supports[item] >= minsupRelative) {
+				count++;
+			}
+		}
+		long[] keys = new long[count];
+		count = 0;
+		for (int item = 0; item <= maxItem; item++) {
+			if (supports[item] > 0 && supports[item] >= minsupRelative) {
+				keys[count++] = ((long) supports[item] << 32) | (maxItem - item);
+			}
+		}
+		Arrays.sort(keys);
+		int[] newIds = new int[maxItem + 1];
+		Arrays.fill(newIds, -1);
+		int[] newOriginalItems = new int[count];
+		for (int i = 0; i < count; i++) {
+			int item = maxItem - (int) keys[count - 1 - i];
+			newIds[item] = i;
+			newOriginalItems[i] = getOriginalItem(item);
+		}
+
+		// replace the items, remove the infrequent ones and sort each transaction
+		int position = 0;
+		for (int tid = 0; tid < transactionCount; tid++) {
+			int start = offsets[tid];
+			int end = offsets[tid + 1];
+			// the new start of this transaction
+			offsets[tid] = position;
+			int newStart = position;
+			for (int i = start; i < end; i++) {
+				int newId = newIds[items[i]];
+				if (newId != -1) {
+					items[position++] = newId;
+				}
+			}
+			Arrays.sort(items, newStart, position);
+		}
+		offsets[transactionCount] = position;
+		originalItems = newOriginalItems;
+		maxItem = count - 1;
+		trimToSize();
+	}
+
+	/**
+	 * Calculate the support of each item.
+	 * @return an array indicating the support of each item (from 0 to getMaxItem()).
+	 */
+	public int[] calculateItemSupports() {
+		int[] supports = new int[maxItem + 1];
+		for (int tid = 0; tid < transactionCount; tid++) {
+			int end = offsets[tid + 1];
+			for (int i = offsets[tid]; i < end; i++) {
+				supports[items[i]]++;
+			}
+		}
+		return supports;
+	}
+
+	/**
+	 * Calculate the tidset of each item (the ids of the transactions containing the item).
+	 * @return an array indicating the tids of each item by increasing order (from 0 to
+	 *         getMaxItem()). The array of an item that does not appear is empty.
+	 */
+	public int[][] calculateItemTidsets() {
+		int[] supports = calculateItemSupports();
+		int[][] tidsets = new int[maxItem + 1][];
+		for (int item = 0; item <= maxItem; item++) {
+			tidsets[item] = new int[supports[item]];
+			// the support is reused as the number of tids added to the tidset
+			supports[item] = 0;
+		}
+		for (int tid = 0; tid < transactionCount; tid++) {
+			int end = offsets[tid + 1];
+			for (int i = offsets[tid]; i < end; i++) {
+				int item = items[i];
+				tidsets[item][supports[item]++] = tid;
+			}
+		}
+		return tidsets;
+	}
+
+	/**
+	 * Update a triangular matrix with each pair of items of each transaction.
+	 * @param matrix the triangular matrix (its size must be at least getMaxItem() + 1)
+	 */
+	public void updateMatrix(AbstractTriangularMatrix matrix) {
+		for (int tid = 0; tid < transactionCount; tid++) {
+			int end = offsets[tid + 1];
+			// for each item i in the transaction
+			for (int i = offsets[tid]; i < end; i++) {
+				// compare with each other item j in the same transaction
+				for (int j = i + 1; j < end; j++) {
+					// update the matrix count by 1 for the pair i, j
+					matrix.incrementCount(items[i], items[j]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Get the original item corresponding to an item of this database.
+	 * @param item the item (or id if the items were recoded)
+	 * @return the original item
+	 */
+	public int getOriginalItem(int item) {
+		return (originalItems == null) ? item : originalItems[item];
+	}
+
+	/**
+	 * Check if the items of this database were recoded.
+	 * @return true if the items are ids that must be converted with getOriginalItem()
+	 */
+	public boolean isRecoded() {
+		return originalItems != null;
+	}
+
+	/**
+	 * Get the array containing the items of all the transactions.
+	 * This array should not be modified.
+	 * @return the array
+	 */
+	public int[] getItems() {
+		return items;
+	}
+
+	/**
+	 * Get the position of the first item of a transaction in the array of items.
+	 * @param tid the transaction id
+	 * @return the position
+	 */
+	public int getTransactionStart(int tid) {
+		return offsets[tid];
+	}
+
+	/**
+	 * Get the position after the last item of a transaction in the array of items.
+	 * @param tid the transaction id
+	 * @return the position
+	 */
+	public int getTransactionEnd(int tid) {
+		return offsets[tid + 1];
+	}
+
+	/**
+	 * Get the number of items of a transaction.
+	 * @param tid the transaction id
+	 * @return the number of items
+	 */
+	public int getTransactionLength(int tid) {
+		return offsets[tid + 1] - offsets[tid];
+	}
+
+	/**
+	 * Get a read-only view of the items of a transaction (the items are not copied).
+	 * @param tid the transaction id
+	 * @return the view
+	 */
+	public IntBuffer getTransaction(int tid) {
+		return IntBuffer.wrap(items, offsets[tid], offsets[tid + 1] - offsets[tid])
+				.slice().asReadOnlyBuffer();
+	}
+
+	/**
+	 * Get the number of transactions in this transaction database.
+	 * @return the number of transactions.
+	 */
+	public int size() {
+		return transactionCount;
+	}
+
+	/**
+	 * Get the largest item of this database.
+	 * @return the largest item or -1 if the database contains no item
+	 */
+	public int getMaxItem() {
+		return maxItem;
+	}
+
+	/**
+	 * Method to print the content of the transaction database to the console.
+	 */
+	public void printDatabase() {
+		System.out
+				.println("===================  TRANSACTION DATABASE ===================");
+		for (int tid = 0; tid < transactionCount; tid++) {
+			StringBuffer r = new StringBuffer();
+			r.append("0" + tid + ":  ");
+			for (int i = offsets[tid]; i < offsets[tid + 1]; i++) {
+				r.append(getOriginalItem(items[i]));
+				r.append(' ');
+			}
+			System.out.println(r);
+		}
+	}
+}
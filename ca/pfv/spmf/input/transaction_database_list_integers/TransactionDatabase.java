@@ -16,16 +16,15 @@ package ca.pfv.spmf.input.transaction_database_list_integers;
 * You should have received a copy of the GNU General Public License along with
 * SPMF. If not, see <http://www.gnu.org/licenses/>.
 */
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
+import ca.pfv.spmf.input.binary.BinaryDataset;
+import ca.pfv.spmf.input.reader.TransactionFileReader;
+
 /**
  * This class represents a transaction database (a.k.a. binary context), implemented
  * as a list of integers. It can read a transaction database directly from a file. 
@@ -55,22 +54,13 @@ public class TransactionDatabase {
 	 * @throws IOException exception if error reading the file
 	 */
 	public void loadFile(String path) throws IOException {
-		String thisLine; // variable to read each line
-		BufferedReader myInput = null; // object to read the file
+		TransactionFileReader myInput = null; // object to read the file
 		try {
-			FileInputStream fin = new FileInputStream(new File(path));
-			myInput = new BufferedReader(new InputStreamReader(fin));
-			// for each line
-			while ((thisLine = myInput.readLine()) != null) {
-				// if the line is not a comment, is not empty or is not other
-				// kind of metadata
-				if (thisLine.isEmpty() == false &&
-						thisLine.charAt(0) != '#' && thisLine.charAt(0) != '%'
-						&& thisLine.charAt(0) != '@') {
-					// split the line according to spaces and then
-					// call "addTransaction" to process this line.
-					addTransaction(thisLine.split(" "));
-				}
+			myInput = new TransactionFileReader(path);
+			// for each line (comments, empty lines and metadata are skipped)
+			while (myInput.nextTransaction()) {
+				// call "addTransaction" to process this line.
+				addTransaction(myInput.getValues(), myInput.getLength());
 			}
 		} catch (Exception e) {
 			e.printStackTrace();
@@ -81,17 +71,46 @@ public class TransactionDatabase {
 		}
 	}
 
+	/**
+	 * Method to load a file containing a transaction database in the binary 
+	 * SPMF format (see BinaryDataset). The file is memory-mapped, so no
+	 * text has to be parsed.
+	 * @param path the path of the file
+	 * @throws IOException exception if error reading the file
+	 */
+	public void loadBinaryFile(String path) throws IOException {
+		BinaryDataset dataset = new BinaryDataset(path);
+		try {
+			if (dataset.isSequenceDatabase()) {
+				throw new IOException("The file " + path + " contains a sequence database");
+			}
+			int[] values = null;
+			// for each transaction
+			for (int i = 0; i < dataset.size(); i++) {
+				values = dataset.read(i, values);
+				int length = (int) (dataset.getEnd(i) - dataset.getStart(i));
+				// replace the item ids by the original items
+				for (int j = 0; j < length; j++) {
+					values[j] = dataset.getItem(values[j]);
+				}
+				addTransaction(values, length);
+			}
+		} finally {
+			dataset.close();
+		}
+	}
+
 	/**
 	 * This method process a line from a file that is read.
-	 * @param tokens the items contained in this line
+	 * @param values the items contained in this line
+	 * @param length the number of items in this line
 	 */
-	private void addTransaction(String itemsString[]) {
+	private void addTransaction(int values[], int length) {
 		// create an empty transaction
-		List<Integer> itemset = new ArrayList<Integer>();
+		List<Integer> itemset = new ArrayList<Integer>(length);
 		// for each item in this line
-		for (String attribute : itemsString) {
-			// convert from string to int
-			int item = Integer.parseInt(attribute);
+		for (int i = 0; i < length; i++) {
+			int item = values[i];
 			// add the item to the current transaction
 			itemset.add(item); 
 			// add the item to the set of all items in this database
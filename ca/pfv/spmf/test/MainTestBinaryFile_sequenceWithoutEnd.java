@@ -0,0 +1,45 @@
+package ca.pfv.spmf.test;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URL;
+
+import ca.pfv.spmf.input.sequence_database_list_integers.SequenceDatabase;
+import ca.pfv.spmf.tools.dataset_converter.SequenceDatabaseConverter;
+
+
+/**
+ * Example of how a sequence database containing a line that is not terminated
+ * by -2 is converted to the binary SPMF format. As with the text file, the line
+ * is ignored, and the sequences of the binary file are the same as those of the
+ * text file.
+ * @author Philippe Fournier-Viger
+ */
+public class MainTestBinaryFile_sequenceWithoutEnd {
+
+	public static void main(String [] arg) throws IOException{    
+		// the second line of this file is "3 -1 4" (it has no -2)
+		String input = fileToPath("contextPrefixSpan_withoutEnd.txt");
+		
+		// Convert the sequence database to the binary format
+		String binaryFile = ".//contextPrefixSpan_withoutEnd.bin";
+		SequenceDatabaseConverter converter = new SequenceDatabaseConverter();
+		converter.convertToBinary(input, binaryFile, false);
+		
+		// Load the sequence database from the text file and print it
+		SequenceDatabase textDatabase = new SequenceDatabase(); 
+		textDatabase.loadFile(input);
+		textDatabase.print();
+		
+		// Load the sequence database from the binary file and print it
+		// (it should be the same)
+		SequenceDatabase binaryDatabase = new SequenceDatabase(); 
+		binaryDatabase.loadBinaryFile(binaryFile);
+		binaryDatabase.print();
+	}
+	
+	public static String fileToPath(String filename) throws UnsupportedEncodingException{
+		URL url = MainTestBinaryFile_sequenceWithoutEnd.class.getResource(filename);
+		 return java.net.URLDecoder.decode(url.getPath(),"UTF-8");
+	}
+}
@@ -0,0 +1,38 @@
+package ca.pfv.spmf.test;
+
+import java.util.List;
+
+import ca.pfv.spmf.algorithms.frequentpatterns.clostream.AlgoCloStream_Indexed;
+import ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemset;
+
+
+/**
+ * Example of how to use the indexed version of the CloStream algorithm
+ * for mining closed itemsets from a stream, where the transactions
+ * are processed by batches, from the source code.
+ * @author Philippe Fournier-Viger
+ */
+public class MainTestCloStream_batch {
+
+	public static void main(String [] arg){
+		// Creating an instance of the CloStream algorithm
+		AlgoCloStream_Indexed cloStream = new AlgoCloStream_Indexed();
+
+		long startTime = System.currentTimeMillis();
+		// Now we add a batch of 3 transactions
+		cloStream.processBatch(new int[][] {{1,3,4}, {2,3,5}, {1,2,3,5}});
+
+		// and then a batch of 2 transactions
+		cloStream.processBatch(new int[][] {{2,5}, {1,2,3,5}});
+
+		// We print the patterns found
+		List<Itemset> list = cloStream.getClosedItemsets();
+		System.out.println("Closed itemsets count : " + list.size());
+		for(Itemset itemset : list){
+			System.out.println("  " + itemset.toString() + " absolute support : " + itemset.getAbsoluteSupport());
+		}
+
+		long endTime = System.currentTimeMillis();
+		System.out.println("total Time : " + (endTime - startTime) + "ms");
+	}
+}
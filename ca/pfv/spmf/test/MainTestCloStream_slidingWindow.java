@@ -0,0 +1,41 @@
+package ca.pfv.spmf.test;
+
+import java.util.List;
+
+import ca.pfv.spmf.algorithms.frequentpatterns.clostream.AlgoCloStream_SlidingWindow;
+import ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemset;
+
+
+/**
+ * Example of how to use the sliding window version of the CloStream algorithm
+ * for mining the closed itemsets of the latest transactions of a stream,
+ * from the source code.
+ * @author Philippe Fournier-Viger
+ */
+public class MainTestCloStream_slidingWindow {
+
+	public static void main(String [] arg){
+		// Creating an instance of the CloStream algorithm with a window
+		// containing the 3 latest transactions
+		AlgoCloStream_SlidingWindow cloStream = new AlgoCloStream_SlidingWindow(3);
+
+		// Now we add 5 transactions
+		long startTime = System.currentTimeMillis();
+		cloStream.processNewTransaction(new int[] {1,3,4});
+		cloStream.processNewTransaction(new int[] {2,3,5});
+		cloStream.processNewTransaction(new int[] {1,2,3,5});
+		// the transactions {1,3,4} and {2,3,5} are removed from the window
+		cloStream.processNewTransaction(new int[] {2,5});
+		cloStream.processNewTransaction(new int[] {1,2,3,5});
+
+		// We print the patterns found in the 3 latest transactions
+		List<Itemset> list = cloStream.getClosedItemsets();
+		System.out.println("Closed itemsets count : " + list.size());
+		for(Itemset itemset : list){
+			System.out.println("  " + itemset.toString() + " absolute support : " + itemset.getAbsoluteSupport());
+		}
+
+		long endTime = System.currentTimeMillis();
+		System.out.println("total Time : " + (endTime - startTime) + "ms");
+	}
+}
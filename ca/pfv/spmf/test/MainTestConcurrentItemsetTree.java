@@ -0,0 +1,78 @@
+package ca.pfv.spmf.test;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URL;
+import java.util.List;
+
+import ca.pfv.spmf.algorithms.frequentpatterns.itemsettree.AssociationRuleIT;
+import ca.pfv.spmf.algorithms.frequentpatterns.itemsettree.ConcurrentItemsetTree;
+
+/**
+ * Example of how to query an itemset tree while transactions are added by another thread.
+ * @author Philippe Fournier-Viger
+ */
+public class MainTestConcurrentItemsetTree {
+
+	public static void main(String [] arg) throws IOException, InterruptedException{
+		
+		String input = fileToPath("contextItemsetTree.txt");  // the database
+		
+		// Create an itemset tree that can be used by several threads, and which
+		// keeps the supports of the 1000 itemsets queried most recently in a cache
+		final ConcurrentItemsetTree itemsetTree = new ConcurrentItemsetTree(1000);
+		// method to construct the tree from a set of transactions in a file
+		itemsetTree.buildTree(input);
+		System.out.println("THIS IS THE TREE:");
+		System.out.println(itemsetTree);
+		
+		// A thread adds some transactions while the tree is queried
+		Thread writer = new Thread(){
+			public void run() {
+				for(int i = 0; i < 100; i++){
+					itemsetTree.addTransaction(new int[]{4, 5});
+				}
+			}
+		};
+		writer.start();
+		
+		// Example query 1 :  what is the support of several itemsets
+		// (the supports are calculated on the same version of the tree)
+		int[][] itemsets = new int[][]{{1, 2, 3}, {2}, {2, 4}, {1, 2}, {4, 5}};
+		int[] supports = itemsetTree.getSupportOfItemsets(itemsets);
+		System.out.println("EXAMPLES QUERIES: FIND THE SUPPORT OF SOME ITEMSETS WHILE {4 5} IS ADDED:");
+		for(int i = 0; i < itemsets.length; i++){
+			System.out.println("the support of " + toString(itemsets[i]) + " is : " + supports[i]);
+		}
+		writer.join();
+		
+		// the supports queried after the transactions have been added are up to date
+		System.out.println("the support of 4 5 after adding 100 transactions {4 5} is : "
+				+ itemsetTree.getSupportOfItemset(new int[]{4, 5}));
+		// this support is found in the cache
+		System.out.println("the support of 4 5 is : " + itemsetTree.getSupportOfItemset(new int[]{4, 5}));
+		
+		// Example query 2 : generate all association rules with an itemset as antecedent and minsup and minconf
+		System.out.println("EXAMPLE QUERY: FIND ALL ASSOCIATION RULE WITH AN ITEMSET {1} AS ANTECEDENT AND MINSUP >= 2 and minconf >= 0.1");
+		List<AssociationRuleIT> rules = itemsetTree.generateRules(new int[]{1}, 2, 0.1);
+		for(AssociationRuleIT rule : rules){
+			System.out.println(rule);
+		}
+		System.out.println("Supports found in the cache: " + itemsetTree.getCacheHitCount()
+				+ "  calculated: " + itemsetTree.getCacheMissCount());
+	}
+	
+	public static String toString(int[] itemset){
+		StringBuffer buffer = new StringBuffer();
+		for(int item : itemset){
+			buffer.append(item);
+			buffer.append(' ');
+		}
+		return buffer.toString().trim();
+	}
+
+	public static String fileToPath(String filename) throws UnsupportedEncodingException{
+		URL url = MainTestConcurrentItemsetTree.class.getResource(filename);
+		 return java.net.URLDecoder.decode(url.getPath(),"UTF-8");
+	}
+}
@@ -0,0 +1,92 @@
+package ca.pfv.spmf.test;
+
+import java.io.File;
+import java.io.IOException;
+
+import ca.pfv.spmf.algorithms.frequentpatterns.eclat.AlgoDEclat;
+import ca.pfv.spmf.algorithms.frequentpatterns.eclat.AlgoDEclat_Bitset;
+import ca.pfv.spmf.algorithms.frequentpatterns.eclat.AlgoEclat;
+import ca.pfv.spmf.algorithms.frequentpatterns.eclat.AlgoEclat_Adaptive;
+import ca.pfv.spmf.algorithms.frequentpatterns.eclat.AlgoEclat_Bitset;
+import ca.pfv.spmf.input.transaction_database_list_integers.TransactionDatabase;
+import ca.pfv.spmf.tools.dataset_generator.TransactionDatabaseGenerator;
+
+
+/**
+ * Example of how to compare the execution time of the Eclat algorithm with adaptive
+ * tidsets (AlgoEclat_Adaptive) with the other implementations of Eclat and dEclat,
+ * on a sparse and on a dense randomly generated database.
+ * @author Philippe Fournier-Viger
+ */
+public class MainTestEclat_adaptive_benchmark {
+
+	public static void main(String [] arg) throws IOException{
+		TransactionDatabaseGenerator generator = new TransactionDatabaseGenerator();
+
+		// a sparse database: 10000 transactions, 200 items, at most 10 items per transaction
+		File sparse = File.createTempFile("sparse", ".txt");
+		generator.generateDatabase(10000, 200, 10, sparse.getPath());
+		benchmark("Sparse database", sparse.getPath(), 0.002);
+		sparse.delete();
+
+		// a dense database: 2000 transactions, 40 items, at most 30 items per transaction
+		File dense = File.createTempFile("dense", ".txt");
+		generator.generateDatabase(2000, 40, 30, dense.getPath());
+		benchmark("Dense database", dense.getPath(), 0.1);
+		dense.delete();
+	}
+
+	/**
+	 * Run the five implementations on a database and print their execution time.
+	 * The results are kept in memory so that writing to disk is not measured.
+	 * @param name the name of the database
+	 * @param path the path of the database
+	 * @param minsup the minimum support threshold
+	 * @throws IOException if an error occurs while reading the database
+	 */
+	private static void benchmark(String name, String path, double minsup) throws IOException{
+		TransactionDatabase database = new TransactionDatabase();
+		database.loadFile(path);
+		System.out.println("=============  " + name + " (minsup = " + minsup + ") =============");
+
+		// NOTE: the triangular matrix is used by all the implementations so that
+		// they all find the same itemsets of size 2.
+		System.gc();
+		long startTime = System.currentTimeMillis();
+		int count = new AlgoEclat().runAlgorithm(null, database, minsup, true).getItemsetsCount();
+		printResult("Eclat", startTime, count);
+
+		System.gc();
+		startTime = System.currentTimeMillis();
+		count = new AlgoDEclat().runAlgorithm(null, database, minsup, true).getItemsetsCount();
+		printResult("dEclat", startTime, count);
+
+		System.gc();
+		startTime = System.currentTimeMillis();
+		count = new AlgoEclat_Bitset().runAlgorithm(null, database, minsup, true).getItemsetsCount();
+		printResult("Eclat (bitset)", startTime, count);
+
+		System.gc();
+		startTime = System.currentTimeMillis();
+		count = new AlgoDEclat_Bitset().runAlgorithm(null, database, minsup, true).getItemsetsCount();
+		printResult("dEclat (bitset)", startTime, count);
+
+		System.gc();
+		startTime = System.currentTimeMillis();
+		AlgoEclat_Adaptive adaptive = new AlgoEclat_Adaptive();
+		count = adaptive.runAlgorithm(null, database, minsup, true).getItemsetsCount();
+		printResult("Eclat (adaptive)", startTime, count);
+		adaptive.printStats();
+	}
+
+	/**
+	 * Print the execution time of an implementation.
+	 * @param name the name of the implementation
+	 * @param startTime the time when it was started
+	 * @param count the number of itemsets found
+	 */
+	private static void printResult(String name, long startTime, int count){
+		System.out.println(" " + name + ": " + (System.currentTimeMillis() - startTime)
+				+ " ms, " + count + " frequent itemsets");
+	}
+}
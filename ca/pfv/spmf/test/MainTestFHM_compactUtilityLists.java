@@ -0,0 +1,36 @@
+package ca.pfv.spmf.test;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URL;
+
+import ca.pfv.spmf.algorithms.frequentpatterns.hui_miner.AlgoFHM;
+
+/**
+ * Example of how to use the FHM algorithm with utility lists stored
+ * in arrays of integers, from the source code.
+ * @author Philippe Fournier-Viger, 2014
+ */
+public class MainTestFHM_compactUtilityLists {
+
+	public static void main(String [] arg) throws IOException{
+		
+		String input = fileToPath("DB_Utility.txt");
+		String output = ".//output.txt";
+
+		int min_utility = 30;  // 
+		
+		// Applying the FHM algorithm
+		AlgoFHM fhm = new AlgoFHM();
+		// store the utility lists in arrays of integers
+		fhm.setUseCompactUtilityLists(true);
+		fhm.runAlgorithm(input, output, min_utility);
+		fhm.printStats();
+
+	}
+
+	public static String fileToPath(String filename) throws UnsupportedEncodingException{
+		URL url = MainTestFHM_compactUtilityLists.class.getResource(filename);
+		 return java.net.URLDecoder.decode(url.getPath(),"UTF-8");
+	}
+}
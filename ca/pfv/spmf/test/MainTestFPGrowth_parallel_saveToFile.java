@@ -0,0 +1,36 @@
+package ca.pfv.spmf.test;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URL;
+
+import ca.pfv.spmf.algorithms.frequentpatterns.fpgrowth.AlgoFPGrowth;
+
+/**
+ * Example of how to use FPGrowth with several threads from the source code
+ * and save the results to a file.
+ * @author Philippe Fournier-Viger (Copyright 2008)
+ */
+public class MainTestFPGrowth_parallel_saveToFile {
+
+	public static void main(String [] arg) throws FileNotFoundException, IOException{
+		// the file paths
+		String input = fileToPath("contextPasquier99.txt");  // the database
+		String output = ".//output.txt";  // the path for saving the frequent itemsets found
+		
+		double minsup = 0.4; // means a minsup of 2 transaction (we used a relative support)
+
+		// Applying the FPGROWTH algorithm
+		AlgoFPGrowth algo = new AlgoFPGrowth();
+		// mine the FP-Tree with 4 threads
+		algo.setThreadCount(4);
+		algo.runAlgorithm(input, output, minsup);
+		algo.printStats();
+	}
+	
+	public static String fileToPath(String filename) throws UnsupportedEncodingException{
+		URL url = MainTestFPGrowth_parallel_saveToFile.class.getResource(filename);
+		 return java.net.URLDecoder.decode(url.getPath(),"UTF-8");
+	}
+}
@@ -0,0 +1,35 @@
+package ca.pfv.spmf.test;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URL;
+
+import ca.pfv.spmf.algorithms.clustering.hierarchical_clustering.AlgoHierarchicalClustering_Fast;
+
+/**
+ * Example of how to use the hierarchical clustering algorithm
+ * from the source code.
+ */
+public class MainTestHierarchicalClustering_fast_saveToFile {
+	
+	public static void main(String []args) throws NumberFormatException, IOException{
+		
+		String input = fileToPath("configKmeans.txt");
+		String output = ".//output.txt";
+		int maxdistance = 4;
+		
+		// Apply the algorithm
+		AlgoHierarchicalClustering_Fast algo = new AlgoHierarchicalClustering_Fast();  // we request 3 clusters
+		algo.runAlgorithm(input, maxdistance);
+		algo.printStatistics();
+		algo.saveToFile(output);
+
+	}
+	
+	public static String fileToPath(String filename) throws UnsupportedEncodingException{
+		URL url = MainTestHierarchicalClustering_fast_saveToFile.class.getResource(filename);
+		 return java.net.URLDecoder.decode(url.getPath(),"UTF-8");
+	}
+	
+	
+}
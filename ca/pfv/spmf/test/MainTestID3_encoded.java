@@ -0,0 +1,47 @@
+package ca.pfv.spmf.test;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URL;
+
+import ca.pfv.spmf.algorithms.classifiers.decisiontree.id3.AlgoID3_Encoded;
+import ca.pfv.spmf.algorithms.classifiers.decisiontree.id3.DecisionTree;
+
+/**
+ * Example of how to use the encoded version of ID3 from the source code,
+ * and how to predict the class of several instances at the same time.
+ * @author Philippe Fournier-Viger
+ */
+public class MainTestID3_encoded {
+
+	public static void main(String [] arg) throws IOException{
+		// Read input file and run algorithm to create a decision tree
+		AlgoID3_Encoded algo = new AlgoID3_Encoded();
+		// the gains of the attributes can be calculated by several threads
+		algo.setThreadCount(2);
+		// There is three parameters:
+		// - a file path
+		// - the "target attribute that should be used to create the decision tree
+		// - the separator that was used in the file to separate values (by default it is a space)
+		DecisionTree tree = algo.runAlgorithm(fileToPath("tennis.txt"), "play", " ");
+		algo.printStatistics();
+		
+		// print the decision tree:
+		tree.print();
+		
+		// Use the decision tree to make predictions
+		// For example, we want to predict the class of several instances:
+		String [][] instances = {{null, "sunny", "hot", "normal", "weak"},
+				{null, "rain", "mild", "high", "strong"},
+				{null, "overcast", "cool", "high", "weak"}};
+		String[] predictions = tree.predictTargetAttributeValues(instances);
+		for(String prediction : predictions){
+			System.out.println("The class that is predicted is: " + prediction);
+		}
+	}
+
+	public static String fileToPath(String filename) throws UnsupportedEncodingException{
+		URL url = MainTestID3_encoded.class.getResource(filename);
+		 return java.net.URLDecoder.decode(url.getPath(),"UTF-8");
+	}
+}
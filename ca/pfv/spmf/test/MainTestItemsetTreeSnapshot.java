@@ -0,0 +1,74 @@
+package ca.pfv.spmf.test;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.net.URL;
+import java.util.List;
+
+import ca.pfv.spmf.algorithms.frequentpatterns.itemsettree.AssociationRuleIT;
+import ca.pfv.spmf.algorithms.frequentpatterns.itemsettree.ItemsetTree;
+import ca.pfv.spmf.algorithms.frequentpatterns.itemsettree.ItemsetTreeSnapshot;
+
+/**
+ * Example of how to save an itemset tree to a snapshot file, save the transactions
+ * added later in checkpoints, and load the tree from the snapshot.
+ * @author Philippe Fournier-Viger
+ */
+public class MainTestItemsetTreeSnapshot {
+
+	public static void main(String [] arg) throws IOException{
+		
+		String input = fileToPath("contextItemsetTree.txt");  // the database
+		String snapshot = ".//itemsettree.snapshot";  // the snapshot file
+		
+		// Create an itemset tree and save it to the snapshot file
+		ItemsetTree itemsetTree = new ItemsetTree();
+		itemsetTree.buildTree(input);
+		ItemsetTreeSnapshot.save(itemsetTree, snapshot);
+		
+		// Add some transactions to the tree, and append them to the snapshot
+		// file as a checkpoint instead of saving the whole tree again
+		int[][] transactions = new int[][]{{4, 5}, {1, 2, 4}};
+		for(int[] transaction : transactions){
+			itemsetTree.addTransaction(transaction);
+		}
+		ItemsetTreeSnapshot.appendCheckpoint(snapshot, transactions);
+		
+		// Load the tree from the snapshot file (the transactions of the checkpoint are added again)
+		ItemsetTree loadedTree = ItemsetTreeSnapshot.loadItemsetTree(snapshot);
+		
+		// Example query 1 :  what is the support of an itemset
+		System.out.println("EXAMPLE QUERY: FIND THE SUPPORT OF AN ITEMSET IN THE LOADED TREE:");
+		System.out.println("the support of 1 2 is : " + loadedTree.getSupportOfItemset(new int[]{1, 2}));
+		System.out.println("the support of 4 5 is : " + loadedTree.getSupportOfItemset(new int[]{4, 5}));
+		
+		// Example query 2 : generate all association rules with an itemset as antecedent and minsup and minconf
+		System.out.println("EXAMPLE QUERY: FIND ALL ASSOCIATION RULE WITH AN ITEMSET {1} AS ANTECEDENT AND MINSUP >= 2 and minconf >= 0.1");
+		List<AssociationRuleIT> rules = loadedTree.generateRules(new int[]{1}, 2, 0.1);
+		for(AssociationRuleIT rule : rules){
+			System.out.println(rule);
+		}
+		
+		System.out.println("THIS IS THE LOADED TREE:");
+		loadedTree.printTree();
+		
+		// If the program is stopped while a checkpoint is written, the incomplete checkpoint
+		// is ignored when the snapshot is loaded, and it is overwritten by the next checkpoint.
+		// Here, the end of a checkpoint containing {1 3} is removed to simulate this case.
+		ItemsetTreeSnapshot.appendCheckpoint(snapshot, new int[][]{{1, 3}});
+		RandomAccessFile file = new RandomAccessFile(snapshot, "rw");
+		file.setLength(file.length() - 8);
+		file.close();
+		ItemsetTreeSnapshot.appendCheckpoint(snapshot, new int[][]{{2, 5}});
+		loadedTree = ItemsetTreeSnapshot.loadItemsetTree(snapshot);
+		System.out.println("AFTER AN INCOMPLETE CHECKPOINT {1 3} AND A CHECKPOINT {2 5}:");
+		System.out.println("the support of 1 3 is : " + loadedTree.getSupportOfItemset(new int[]{1, 3}));
+		System.out.println("the support of 2 5 is : " + loadedTree.getSupportOfItemset(new int[]{2, 5}));
+	}
+
+	public static String fileToPath(String filename) throws UnsupportedEncodingException{
+		URL url = MainTestItemsetTreeSnapshot.class.getResource(filename);
+		 return java.net.URLDecoder.decode(url.getPath(),"UTF-8");
+	}
+}
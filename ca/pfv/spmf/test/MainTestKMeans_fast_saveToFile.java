@@ -0,0 +1,36 @@
+package ca.pfv.spmf.test;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URL;
+
+import ca.pfv.spmf.algorithms.clustering.kmeans.AlgoKMeans_Fast;
+
+/**
+ *  Example of how to use the fast version of the KMEans algorithm, in source code.
+ */
+public class MainTestKMeans_fast_saveToFile {
+	
+	public static void main(String []args) throws NumberFormatException, IOException{
+		
+		String input = fileToPath("configKmeans.txt");
+		String output = ".//output.txt";
+		int k=3;
+		
+		// Apply the algorithm
+		AlgoKMeans_Fast algoKMeans = new AlgoKMeans_Fast();  // we request 3 clusters
+		// the vectors can be assigned to the clusters by several threads
+		algoKMeans.setThreadCount(2);
+		algoKMeans.runAlgorithm(input, k);
+		algoKMeans.printStatistics();
+		algoKMeans.saveToFile(output);
+
+	}
+	
+	public static String fileToPath(String filename) throws UnsupportedEncodingException{
+		URL url = MainTestKMeans_fast_saveToFile.class.getResource(filename);
+		 return java.net.URLDecoder.decode(url.getPath(),"UTF-8");
+	}
+	
+	
+}
@@ -0,0 +1,44 @@
+package ca.pfv.spmf.test;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URL;
+
+import ca.pfv.spmf.algorithms.sequentialpatterns.BIDE_and_prefixspan.AlgoPrefixSpan;
+import ca.pfv.spmf.input.sequence_database_list_integers.SequenceDatabase;
+import ca.pfv.spmf.tools.dataset_converter.SequenceDatabaseConverter;
+
+
+/**
+ * Example of how to convert a sequence database to the binary SPMF format
+ * and to use the PrefixSpan algorithm with the binary file.
+ * @author Philippe Fournier-Viger
+ */
+public class MainTestPrefixSpan_binaryFile_saveToMemory {
+
+	public static void main(String [] arg) throws IOException{    
+		// Convert the sequence database to the binary format.
+		// This only needs to be done once for a given file.
+		String binaryFile = ".//contextPrefixSpan.bin";
+		SequenceDatabaseConverter converter = new SequenceDatabaseConverter();
+		converter.convertToBinary(fileToPath("contextPrefixSpan.txt"), binaryFile, false);
+		
+		// Load the sequence database from the binary file
+		SequenceDatabase sequenceDatabase = new SequenceDatabase(); 
+		sequenceDatabase.loadBinaryFile(binaryFile);
+		// print the database to console
+		sequenceDatabase.print();
+		
+		// Create an instance of the algorithm 
+		AlgoPrefixSpan algo = new AlgoPrefixSpan(); 
+		
+		// execute the algorithm with minsup = 50 %
+		algo.runAlgorithm(sequenceDatabase, 0.5, null);    
+		algo.printStatistics(sequenceDatabase.size());
+	}
+	
+	public static String fileToPath(String filename) throws UnsupportedEncodingException{
+		URL url = MainTestPrefixSpan_binaryFile_saveToMemory.class.getResource(filename);
+		 return java.net.URLDecoder.decode(url.getPath(),"UTF-8");
+	}
+}
@@ -0,0 +1,40 @@
+package ca.pfv.spmf.test;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URL;
+
+import ca.pfv.spmf.algorithms.frequentpatterns.estDec.Algo_estDec_Async;
+
+/**
+ * Class to test the estDec algorithm when the transactions are inserted in the tree
+ * by a worker thread, and save the result to a file.
+ */
+public class MainTest_estDec_async {
+
+	public static void main(String [] arg) throws IOException, InterruptedException{
+		
+		String database = fileToPath("contextIGB.txt");
+		String output = "output"; 
+
+		double mins = 0.1;
+
+		// at most 10000 transactions are waiting in the queue, and they are
+		// inserted in the tree by batches of 100 transactions
+		Algo_estDec_Async algo = new Algo_estDec_Async(mins, 10000, 100);
+		// submit a set of transactions from a file
+		algo.processTransactionFromFile(database);
+		// perform mining and save the result to a file
+		// (this waits until the transactions are inserted in the tree)
+		algo.performMining_saveResultToFile(output);
+		// stop the worker threads
+		algo.close();
+		// print statistics
+		algo.printStats();
+	}
+	
+	public static String fileToPath(String filename) throws UnsupportedEncodingException{
+		URL url = MainTest_estDec_async.class.getResource(filename);
+		 return java.net.URLDecoder.decode(url.getPath(),"UTF-8");
+	}
+}
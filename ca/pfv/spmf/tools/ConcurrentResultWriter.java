@@ -0,0 +1,150 @@
+package ca.pfv.spmf.tools;
+/*
+ *  Copyright (c) 2008-2014 Philippe Fournier-Viger
+ *
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ *
+ * SPMF is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * SPMF is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with SPMF.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * This class is used by the algorithms that use several threads to save the results
+ * (patterns or rules) that they find. Each thread writes its results in its own buffer
+ * (a text for an output file or a list of results kept in memory), so that the threads
+ * do not have to wait for each other when a result is found. The text is written to the
+ * output file when the buffer is full, one thread at a time, so that the lines of the
+ * output file have the same format as with a single thread. The results kept in memory
+ * are merged when all the threads have finished.
+ *
+ * @param <T> the type of the results kept in memory
+ * @author Philippe Fournier-Viger
+ */
+public class ConcurrentResultWriter<T> {
+
+	// the maximum number of characters in a buffer before it is written
+	private static final int MAX_BUFFER_SIZE = 65536;
+
+	// the end of a line, as written by BufferedWriter.newLine()
+	private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+
+	// the writer of the output file (null if the results are kept in memory)
+	private final BufferedWriter writer;
+
+	// the buffers of all the threads
+	private final List<Buffer<T>> buffers = new ArrayList<Buffer<T>>();
+
+	// the buffer of each thread
+	private final ThreadLocal<Buffer<T>> threadBuffer = new ThreadLocal<Buffer<T>>(){
+		protected Buffer<T> initialValue() {
+			Buffer<T> buffer = new Buffer<T>();
+			synchronized (buffers) {
+				buffers.add(buffer);
+			}
+			return buffer;
+		}
+	};
+
+	/**
+	 * Constructor
+	 * @param writer the writer of the output file or null if the results are kept in memory
+	 */
+	public ConcurrentResultWriter(BufferedWriter writer){
+		this.writer = writer;
+	}
+
+	/**
+	 * Write a line of the output file (a result).
+	 * @param line the line without the line separator
+	 * @throws IOException exception if error while writing the output file
+	 */
+	public void writeLine(String line) throws IOException {
+		Buffer<T> buffer = threadBuffer.get();
+		buffer.text.append(line);
+		buffer.text.append(LINE_SEPARATOR);
+		buffer.resultCount++;
+		// if the buffer is full, it is written
+		if(buffer.text.length() >= MAX_BUFFER_SIZE){
+			write(buffer);
+		}
+	}
+
+	/**
+	 * Add a result to the results kept in memory.
+	 * @param result the result
+	 */
+	public void add(T result) {
+		Buffer<T> buffer = threadBuffer.get();
+		buffer.results.add(result);
+		buffer.resultCount++;
+	}
+
+	/**
+	 * Write the text of a buffer to the output file and empty the buffer.
+	 * @param buffer the buffer
+	 * @throws IOException exception if error while writing the output file
+	 */
+	private void write(Buffer<T> buffer) throws IOException {
+		// only one thread at a time can write to the file
+		synchronized (writer) {
+			writer.write(buffer.text.toString());
+		}
+		buffer.text.setLength(0);
+	}
+
+	/**
+	 * Write the results remaining in the buffers of all the threads and merge the
+	 * results kept in memory. This method must be called after all the threads
+	 * have finished.
+	 * @param results the collection where the results kept in memory are added
+	 *        (or null if the results are written to a file)
+	 * @return the number of results that were saved by all the threads
+	 * @throws IOException exception if error while writing the output file
+	 */
+	public int finish(Collection<? super T> results) throws IOException {
+		int resultCount = 0;
+		synchronized (buffers) {
+			for(Buffer<T> buffer : buffers){
+				if(buffer.text.length() > 0){
+					write(buffer);
+				}
+				if(results != null){
+					results.addAll(buffer.results);
+				}
+				buffer.results.clear();
+				resultCount += buffer.resultCount;
+				buffer.resultCount = 0;
+			}
+		}
+		return resultCount;
+	}
+
+	/**
+	 * The results found by a thread that have not been written or merged yet.
+	 */
+	private static class Buffer<T> {
+		// the results as text (if the result is saved to a file)
+		StringBuilder text = new StringBuilder();
+		// the results (if the result is kept in memory)
+		List<T> results = new ArrayList<T>();
+		// the number of results saved by the thread
+		int resultCount = 0;
+	}
+}
@@ -26,6 +26,11 @@ package ca.pfv.spmf.tools.dataset_converter;
  * <br/><br/>
  * For a transaction database, the following format can be converted to SPMF:
  * CSV, ARF
+ * <br/><br/>
+ * A transaction database or sequence database in the binary SPMF format
+ * (SPMF_BINARY) can be converted to the SPMF format. Conversely, the methods
+ * convertToBinary() of the converters create a binary file from a file in
+ * SPMF format.
 
 @see TransactionDatabaseConverter
 @see SequenceDatabaseConverter
@@ -33,5 +38,5 @@ package ca.pfv.spmf.tools.dataset_converter;
  */
 public enum Formats {
 	SPMF, CSV_INTEGER, IBMGenerator, Kosarak, Snake, BMS, 
-	ARFF, ARFF_WITH_MISSING_VALUES 
+	ARFF, ARFF_WITH_MISSING_VALUES, SPMF_BINARY 
 }
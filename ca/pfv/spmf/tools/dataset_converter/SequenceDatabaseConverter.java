@@ -25,6 +25,9 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStreamReader;
 
+import ca.pfv.spmf.input.binary.BinaryDataset;
+import ca.pfv.spmf.input.binary.BinaryDatasetWriter;
+
 /**
 * This class is for converting sequence databases from various formats
 * to the SPMF format.
@@ -70,12 +73,57 @@ public class SequenceDatabaseConverter {
 			convertBMS();
 		}else if(inputFileformat.equals(Formats.Snake)){
 			convertSnake();
+		}else if(inputFileformat.equals(Formats.SPMF_BINARY)){
+			convertBinary();
 		}
 		
 		// we close the output file
 		writer.close();
 	}
 
+	/**
+	 * This method converts a sequence database in SPMF format to the binary SPMF format,
+	 * which can be loaded quickly with the method loadBinaryFile() of the sequence databases.
+	 * @param input  the path of the input file in SPMF format
+	 * @param output the path of the binary file to be written to disk
+	 * @param stringItems true if the items are strings rather than integers
+	 * @throws IOException  an exception is thrown if there is an error reading/writing files
+	 */
+	public void convertToBinary(String input, String output, boolean stringItems) throws IOException {
+		BinaryDatasetWriter.writeSequenceDatabase(input, output, stringItems);
+	}
+
+	/**
+	 * This method convert a file from the binary SPMF format to SPMF format
+	 * @throws IOException exception if error while reading the file
+	 */
+	private void convertBinary() throws IOException {
+		BinaryDataset dataset = new BinaryDataset(input);
+		try {
+			int[] values = null;
+			// for each sequence, until we have converted enough lines
+			for (int i = 0; i < dataset.size() && (lineCount <= 0 || i < lineCount); i++) {
+				// if not the first line, we create a new line
+				if(i != 0){
+					writer.newLine();
+				}
+				values = dataset.read(i, values);
+				int length = (int) (dataset.getEnd(i) - dataset.getStart(i));
+				for (int j = 0; j < length; j++) {
+					if(values[j] == BinaryDataset.ITEMSET_SEPARATOR){
+						writer.write("-1 ");   // write an itemset separator
+					}else{
+						// write the original item
+						writer.write(dataset.getItemAsString(values[j]) + " ");
+					}
+				}
+				writer.write("-2");  // write end of line
+			}
+		} finally {
+			dataset.close();
+		}
+	}
+
 	/**
 	 * This method convert a file from the SNAKE format to SPMF format
 	 */
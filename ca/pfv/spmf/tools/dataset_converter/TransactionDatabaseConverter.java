@@ -31,6 +31,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import ca.pfv.spmf.input.binary.BinaryDataset;
+import ca.pfv.spmf.input.binary.BinaryDatasetWriter;
+
 /**
 * This class is for converting transaction databases from various formats
 * to the SPMF format.
@@ -67,10 +70,23 @@ public class TransactionDatabaseConverter {
 			
 		}else if(inputFileformat.equals(Formats.ARFF_WITH_MISSING_VALUES)){
 			convertARFF(false, false);
+		}else if(inputFileformat.equals(Formats.SPMF_BINARY)){
+			convertBinary();
 		}
 
 	}
 	
+	/**
+	 * This method converts a transaction database in SPMF format to the binary SPMF format,
+	 * which can be loaded quickly with TransactionDatabase.loadBinaryFile().
+	 * @param input  the path of the input file in SPMF format
+	 * @param output the path of the binary file to be written to disk
+	 * @throws IOException  an exception is thrown if there is an error reading/writing files
+	 */
+	public void convertToBinary(String input, String output) throws IOException {
+		BinaryDatasetWriter.writeTransactionDatabase(input, output);
+	}
+
 	/**
 	 * This method convert a transaction database in ARFF format to SPMF format and
 	 * return a map of key = item id  value = corresponding attribute value. This 
@@ -472,6 +488,38 @@ public class TransactionDatabaseConverter {
 		return mapItemsIDsToAttributeValues;	
 	}
 
+	/**
+	 * This method convert a file from the binary SPMF format to the SPMF format
+	 * @throws IOException exception if error while reading/writing files.
+	 */
+	private void convertBinary() throws IOException {
+		BinaryDataset dataset = new BinaryDataset(input);
+		// we create an object for writing the output file
+		BufferedWriter writer = new BufferedWriter(new FileWriter(output)); 
+		try {
+			int[] values = null;
+			// for each transaction, until we have converted enough lines
+			for (int i = 0; i < dataset.size() && (lineCount <= 0 || i < lineCount); i++) {
+				// if not the first line, we create a new line
+				if(i != 0){
+					writer.newLine();
+				}
+				values = dataset.read(i, values);
+				int length = (int) (dataset.getEnd(i) - dataset.getStart(i));
+				// write the original item of each item id
+				for (int j = 0; j < length; j++) {
+					if(j != 0){
+						writer.write(' ');
+					}
+					writer.write(String.valueOf(dataset.getItem(values[j])));
+				}
+			}
+		} finally {
+			writer.close();
+			dataset.close();
+		}
+	}
+
 	/**
 	 * This method convert a file from the CSV format to the SPMF format
 	 */